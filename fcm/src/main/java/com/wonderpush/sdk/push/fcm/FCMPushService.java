@@ -18,7 +18,6 @@ import com.google.firebase.iid.InstanceIdResult;
 import com.wonderpush.sdk.WonderPush;
 import com.wonderpush.sdk.WonderPushSettings;
 import com.wonderpush.sdk.push.PushServiceManager;
-import com.wonderpush.sdk.push.PushServiceResult;
 import com.wonderpush.sdk.push.fcm.BuildConfig;
 import com.wonderpush.sdk.push.PushService;
 
@@ -283,11 +282,7 @@ public class FCMPushService implements PushService {
     }
 
     static void storeRegistrationId(Context context, String senderIds, String registrationId) {
-        PushServiceResult result = new PushServiceResult();
-        result.setService("FCM");
-        result.setData(registrationId);
-        result.setSenderIds(senderIds);
-        PushServiceManager.onResult(result);
+        PushServiceManager.storeRegistrationId(IDENTIFIER, senderIds, registrationId);
     }
 
     static String getDefaultSenderId() {
@@ -7,10 +7,11 @@ import android.util.Log;
 
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.messaging.RemoteMessage;
-import com.wonderpush.sdk.NotificationManager;
 import com.wonderpush.sdk.NotificationModel;
 import com.wonderpush.sdk.WonderPush;
 import com.wonderpush.sdk.WonderPushConfiguration;
+import com.wonderpush.sdk.push.PushMessage;
+import com.wonderpush.sdk.push.PushMessagePipeline;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -19,7 +20,7 @@ public class FirebaseMessagingService extends com.google.firebase.messaging.Fire
 
     private static final String TAG = "WonderPush.Push.FCM." + FirebaseMessagingService.class.getSimpleName();
 
-    static final String WONDERPUSH_NOTIFICATION_EXTRA_KEY = "_wp";
+    static final String WONDERPUSH_NOTIFICATION_EXTRA_KEY = PushMessagePipeline.WONDERPUSH_NOTIFICATION_EXTRA_KEY;
 
     /*
      * Called when a new token for the default Firebase project is generated.
@@ -118,24 +119,21 @@ public class FirebaseMessagingService extends com.google.firebase.messaging.Fire
      * @param message The received message
      * @return Whether the notification has been handled by WonderPush
      */
-    public static boolean onMessageReceived(Context context, RemoteMessage message) {
+    public static boolean onMessageReceived(Context context, final RemoteMessage message) {
         try {
-            WonderPush.initialize(context);
-            if (WonderPush.getLogging()) Log.d(TAG, "Received a push notification!");
-
-            NotificationModel notif;
-            try {
-                notif = notificationModelFromRemoteMessage(message, context);
-            } catch (NotificationModel.NotTargetedForThisInstallationException ex) {
-                if (WonderPush.getLogging()) Log.d(TAG, ex.getMessage());
-                return true;
-            }
-            if (notif == null) {
-                return false;
+            PushMessage pushMessage = new PushMessage(FCMPushService.IDENTIFIER, message.getMessageId(), message.getData(), message.getSentTime(), new PushMessage.IntentProvider() {
+                @Override
+                public Intent toIntent() {
+                    return message.toIntent();
+                }
+            });
+            switch (PushMessagePipeline.onMessageReceived(context, pushMessage)) {
+                case NOT_OURS:
+                case INVALID:
+                    return false;
+                default:
+                    return true;
             }
-
-            NotificationManager.onReceivedNotification(context, message.toIntent(), notif);
-            return true;
         } catch (Exception e) {
             Log.e(TAG, "Unexpected error while handling FCM message from:" + message.getFrom() + " bundle:" + message.getData(), e);
         }
@@ -145,7 +143,25 @@ public class FirebaseMessagingService extends com.google.firebase.messaging.Fire
     public static NotificationModel notificationModelFromRemoteMessage(RemoteMessage remoteMessage, Context context)
             throws NotificationModel.NotTargetedForThisInstallationException
     {
-        return notificationModelFromGCMBroadcastIntent(remoteMessage.toIntent(), context);
+        String wpDataJson = remoteMessage.getData().get(WONDERPUSH_NOTIFICATION_EXTRA_KEY);
+        if (wpDataJson == null) {
+            if (WonderPush.getLogging()) Log.d(TAG, "Received message has no data for WonderPush");
+            return null;
+        }
+        return notificationModelFromWonderPushData(wpDataJson);
+    }
+
+    private static NotificationModel notificationModelFromWonderPushData(String wpDataJson)
+            throws NotificationModel.NotTargetedForThisInstallationException
+    {
+        try {
+            JSONObject wpData = new JSONObject(wpDataJson);
+            if (WonderPush.getLogging()) Log.d(TAG, "Received WonderPush data: " + wpDataJson);
+            return NotificationModel.fromNotificationJSONObject(wpData);
+        } catch (JSONException e) {
+            if (WonderPush.getLogging()) Log.d(TAG, "data is not a well-formed JSON object", e);
+        }
+        return null;
     }
 
     public static NotificationModel notificationModelFromGCMBroadcastIntent(Intent intent, Context context)
@@ -165,17 +181,9 @@ public class FirebaseMessagingService extends com.google.firebase.messaging.Fire
 
             if (WonderPush.getLogging()) Log.d(TAG, "Received broadcasted intent: " + intent);
             if (WonderPush.getLogging()) Log.d(TAG, "Received broadcasted intent extras: " + extras.toString());
-            for (String key : extras.keySet()) {
-                if (WonderPush.getLogging()) Log.d(TAG, "Received broadcasted intent extras " + key + ": " + extras.get(key));
-            }
-
-            try {
-                JSONObject wpData = new JSONObject(wpDataJson);
-                if (WonderPush.getLogging()) Log.d(TAG, "Received broadcasted intent WonderPush data: " + wpDataJson);
-                return NotificationModel.fromNotificationJSONObject(wpData);
-            } catch (JSONException e) {
-                if (WonderPush.getLogging()) Log.d(TAG, "data is not a well-formed JSON object", e);
-            }
+            return notificationModelFromWonderPushData(wpDataJson);
+        } catch (NotificationModel.NotTargetedForThisInstallationException e) {
+            throw e;
         } catch (Exception e) {
             Log.e(TAG, "Unexpected error while receiving a notification with intent " + intent, e);
         }
@@ -14,7 +14,6 @@ import com.wonderpush.sdk.WonderPush;
 import com.wonderpush.sdk.WonderPushSettings;
 import com.wonderpush.sdk.push.PushService;
 import com.wonderpush.sdk.push.PushServiceManager;
-import com.wonderpush.sdk.push.PushServiceResult;
 import com.wonderpush.sdk.push.hcm.BuildConfig;
 
 public class HCMPushService implements PushService {
@@ -141,11 +140,7 @@ public class HCMPushService implements PushService {
     }
 
     static void storeRegistrationId(Context context, String senderIds, String registrationId) {
-        PushServiceResult result = new PushServiceResult();
-        result.setService("HCM");
-        result.setData(registrationId);
-        result.setSenderIds(senderIds);
-        PushServiceManager.onResult(result);
+        PushServiceManager.storeRegistrationId(IDENTIFIER, senderIds, registrationId);
     }
 
     static String getDefaultAppId() {
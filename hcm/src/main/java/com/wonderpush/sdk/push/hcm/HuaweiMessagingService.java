@@ -7,17 +7,15 @@ import android.util.Log;
 
 import com.huawei.hms.push.HmsMessageService;
 import com.huawei.hms.push.RemoteMessage;
-import com.wonderpush.sdk.NotificationManager;
-import com.wonderpush.sdk.NotificationModel;
 import com.wonderpush.sdk.WonderPush;
 import com.wonderpush.sdk.WonderPushConfiguration;
-
-import org.json.JSONObject;
+import com.wonderpush.sdk.push.PushMessage;
+import com.wonderpush.sdk.push.PushMessagePipeline;
 
 public class HuaweiMessagingService extends HmsMessageService {
 
     private static final String TAG = "WonderPush.Push.HCM." + HuaweiMessagingService.class.getSimpleName();
-    static final String WONDERPUSH_NOTIFICATION_EXTRA_KEY = "_wp";
+    static final String WONDERPUSH_NOTIFICATION_EXTRA_KEY = PushMessagePipeline.WONDERPUSH_NOTIFICATION_EXTRA_KEY;
 
     /*
      * Called when a new token for the default Firebase project is generated.
@@ -119,75 +117,74 @@ public class HuaweiMessagingService extends HmsMessageService {
      * @param message The received message
      * @return Whether the notification has been handled by WonderPush
      */
-    public static boolean onMessageReceived(Context context, RemoteMessage message) {
+    public static boolean onMessageReceived(Context context, final RemoteMessage message) {
         try {
-            WonderPush.initialize(context);
-            if (WonderPush.getLogging()) Log.d(TAG, "Received a push notification!");
-
-            NotificationModel notif;
-            try {
-                String wpDataJson = message.getDataOfMap().get(WONDERPUSH_NOTIFICATION_EXTRA_KEY);
-                JSONObject wpData = new JSONObject(wpDataJson);
-                notif = NotificationModel.fromNotificationJSONObject(wpData);
-            } catch (NotificationModel.NotTargetedForThisInstallationException ex) {
-                if (WonderPush.getLogging()) Log.d(TAG, ex.getMessage());
-                return true;
+            PushMessage pushMessage = new PushMessage(HCMPushService.IDENTIFIER, message.getMessageId(), message.getDataOfMap(), message.getSentTime(), new PushMessage.IntentProvider() {
+                @Override
+                public Intent toIntent() {
+                    return HuaweiMessagingService.toIntent(message);
+                }
+            });
+            switch (PushMessagePipeline.onMessageReceived(context, pushMessage)) {
+                case NOT_OURS:
+                case INVALID:
+                    return false;
+                default:
+                    return true;
             }
-            if (notif == null) {
-                return false;
-            }
-
-            // FIXME I'm unuse about this, and about it's use
-            Intent intent = new Intent();
-            /*
-            What's received and get parsed:
-                message_body
-                device_token
-                inputType
-                to
-                message_type
-
-            What's being written into their RemoteMessage Bundle:
-                device_token
-                data
-                to
-                msgId
-                message_type
-                notification
-
-            What's being read from their RemoteMessage Bundle and has getters:
-                from
-                to
-                data
-                collapseKey
-                msgId
-                message_type
-                sendTime
-                ttl
-                oriUrgency
-                urgency
-                device_token
-                notification
-             */
-            // We can also add the whole RemoteMessage itself
-            intent.putExtra("from", message.getFrom());
-            intent.putExtra("to", message.getTo());
-            intent.putExtra("data", message.getData());
-            intent.putExtra("collapseKey", message.getCollapseKey());
-            intent.putExtra("msgId", message.getMessageId());
-            intent.putExtra("message_type", message.getMessageType());
-            intent.putExtra("sendTime", message.getSentTime());
-            intent.putExtra("ttl", message.getTtl());
-            intent.putExtra("oriUrgency", message.getOriginalUrgency());
-            intent.putExtra("urgency", message.getUrgency());
-            intent.putExtra("device_token", message.getToken());
-            intent.putExtra("notification", message.getNotification());
-            NotificationManager.onReceivedNotification(context, intent, notif);
-            return true;
         } catch (Exception e) {
             Log.e(TAG, "Unexpected error while handling HCM message from:" + message.getFrom() + " bundle:" + message.getData(), e);
         }
         return false;
     }
 
+    private static Intent toIntent(RemoteMessage message) {
+        // FIXME I'm unuse about this, and about it's use
+        Intent intent = new Intent();
+        /*
+        What's received and get parsed:
+            message_body
+            device_token
+            inputType
+            to
+            message_type
+
+        What's being written into their RemoteMessage Bundle:
+            device_token
+            data
+            to
+            msgId
+            message_type
+            notification
+
+        What's being read from their RemoteMessage Bundle and has getters:
+            from
+            to
+            data
+            collapseKey
+            msgId
+            message_type
+            sendTime
+            ttl
+            oriUrgency
+            urgency
+            device_token
+            notification
+         */
+        // We can also add the whole RemoteMessage itself
+        intent.putExtra("from", message.getFrom());
+        intent.putExtra("to", message.getTo());
+        intent.putExtra("data", message.getData());
+        intent.putExtra("collapseKey", message.getCollapseKey());
+        intent.putExtra("msgId", message.getMessageId());
+        intent.putExtra("message_type", message.getMessageType());
+        intent.putExtra("sendTime", message.getSentTime());
+        intent.putExtra("ttl", message.getTtl());
+        intent.putExtra("oriUrgency", message.getOriginalUrgency());
+        intent.putExtra("urgency", message.getUrgency());
+        intent.putExtra("device_token", message.getToken());
+        intent.putExtra("notification", message.getNotification());
+        return intent;
+    }
+
 }
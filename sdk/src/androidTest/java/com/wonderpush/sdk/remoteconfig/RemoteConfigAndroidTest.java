@@ -60,6 +60,7 @@ public class RemoteConfigAndroidTest {
         // Context of the app under test.
         final Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
         manager = new RemoteConfigManager(fetcher, storage, appContext);
+        manager.setBroadcastUpdates(true);
     }
 
 
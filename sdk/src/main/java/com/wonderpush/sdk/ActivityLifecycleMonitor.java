@@ -172,6 +172,11 @@ class ActivityLifecycleMonitor {
                 } catch (Exception e) {
                     Log.d(WonderPush.TAG, "Unexpected error while updating presence", e);
                 }
+                try {
+                    JSONSyncInstallation.saveAll();
+                } catch (Exception e) {
+                    Log.d(WonderPush.TAG, "Unexpected error while saving installation state", e);
+                }
             }
             if (!activity.isFinishing()) {
                 lastStoppedActivityRef = new WeakReference<>(activity);
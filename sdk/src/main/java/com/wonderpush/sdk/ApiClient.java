@@ -35,8 +35,8 @@ class ApiClient {
     private static boolean sIsFetchingAnonymousAccessToken = false;
     private static final List<ResponseHandler> sPendingHandlers = new ArrayList<>();
 
-    private static final OkHttpClient sClient = new OkHttpClient();
     private static boolean sDisabled = false;
+    private static final RequestBodyEncoding.Selector sBodyEncodings = new RequestBodyEncoding.Selector();
 
     /**
      * A request
@@ -263,13 +263,14 @@ class ApiClient {
                 // Decorate parameters
                 WonderPushRequestParamsDecorator.decorate(request.getResource(), request.getParams());
 
-                // Generate signature
-                Request.BasicNameValuePair authorizationHeader = request.getAuthorizationHeader();
+                // Encode the body and generate signature
+                final RequestBodyEncoding encoding = request.getParams() != null ? sBodyEncodings.get(request.getMethod(), request.getResource()) : RequestBodyEncoding.FORM;
+                final String jsonBody = encoding.isJSON() ? request.getParams().getJSONBody() : null;
+                Request.BasicNameValuePair authorizationHeader = jsonBody != null ? request.getAuthorizationHeader(jsonBody) : request.getAuthorizationHeader();
 
                 String url = WonderPushUriHelper.getAbsoluteUrl(request.getResource());
                 WonderPush.logDebug("requesting url: " + request.getMethod() + " " + url + "?" + request.getParams().getURLEncodedString());
-                // TODO: support other contentTypes such as "application/json"
-                String contentType = "application/x-www-form-urlencoded";
+                String contentType = encoding.getContentType();
 
                 // Handler
                 final @NonNull ResponseHandler handler = new ResponseHandler() {
@@ -342,9 +343,24 @@ class ApiClient {
                     }
                 };
 
+                RequestBody body = null;
+                if (jsonBody != null) {
+                    try {
+                        body = encoding.createBody(jsonBody);
+                    } catch (IOException e) {
+                        handler.onFailure(e, null);
+                        return;
+                    }
+                } else if (request.getParams() != null) {
+                    body = request.getParams().getFormBody();
+                }
+
                 HttpUrl.Builder httpUrlBuilder = HttpUrl.parse(url).newBuilder();
                 okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder()
                         .addHeader("Content-Type", contentType);
+                if (encoding.getContentEncoding() != null) {
+                    requestBuilder.addHeader("Content-Encoding", encoding.getContentEncoding());
+                }
                 if (authorizationHeader != null) {
                     requestBuilder.addHeader(authorizationHeader.getName(),authorizationHeader.getValue());
                 }
@@ -363,21 +379,21 @@ class ApiClient {
                         break;
                     case PUT: {
                         requestBuilder.url(httpUrlBuilder.build());
-                        if (request.getParams() != null) {
-                            requestBuilder.put(request.getParams().getFormBody());
+                        if (body != null) {
+                            requestBuilder.put(body);
                         }
                     }
                         break;
                     case POST:
                         requestBuilder.url(httpUrlBuilder.build());
-                        if (request.getParams() != null) {
-                            requestBuilder.post(request.getParams().getFormBody());
+                        if (body != null) {
+                            requestBuilder.post(body);
                         }
                         break;
                     case PATCH:
                         requestBuilder.url(httpUrlBuilder.build());
-                        if (request.getParams() != null) {
-                            requestBuilder.patch(request.getParams().getFormBody());
+                        if (body != null) {
+                            requestBuilder.patch(body);
                         }
                         break;
                     case DELETE: {
@@ -403,7 +419,7 @@ class ApiClient {
                     return;
                 }
                 if (requestBuilder != null) {
-                    sClient.newCall(requestBuilder.build()).enqueue(jsonHandler);
+                    WonderPushHttpClient.get().newCall(requestBuilder.build()).enqueue(jsonHandler);
                 }
 
             }
@@ -582,6 +598,13 @@ class ApiClient {
         return handler;
     }
 
+    /**
+     * Sets how the body of requests whose resource starts with the given prefix is encoded.
+     */
+    static void setBodyEncoding(String resourcePrefix, RequestBodyEncoding encoding) {
+        sBodyEncodings.set(resourcePrefix, encoding);
+    }
+
     static void setDisabled(boolean disabled) {
         sDisabled = disabled;
     }
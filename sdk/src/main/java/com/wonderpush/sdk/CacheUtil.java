@@ -6,11 +6,7 @@ import androidx.annotation.Nullable;
 import android.util.Log;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLConnection;
+import java.io.FileFilter;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Locale;
@@ -52,7 +48,7 @@ class CacheUtil {
         }
 
         public File execute() {
-            return doFetch(this);
+            return ResourceFetcher.fetch(this);
         }
     }
 
@@ -107,12 +103,12 @@ class CacheUtil {
         }
     }
 
-    private static boolean isUsable(FetchWork work, @NonNull File cached) {
+    static boolean isUsable(FetchWork work, @NonNull File cached) {
         // TODO handle caching
         return cached.exists();
     }
 
-    private static File getCachedFile(FetchWork work) {
+    static File getCachedFile(FetchWork work) {
         String scheme = work.uri.getScheme() == null ? null : work.uri.getScheme().toLowerCase(Locale.ROOT);
         if ("http".equals(scheme) || "https".equals(scheme)) {
             try {
@@ -128,57 +124,25 @@ class CacheUtil {
         return null;
     }
 
-    private static File doFetch(FetchWork work) {
-        try {
-            File cached = getCachedFile(work); // returns null on invalid work request
-            if (cached != null && !isUsable(work, cached)) {
-                boolean success = false;
-                try {
-                    WonderPush.logDebug(work.logPrefix + ": Will open URL: " + work.uri);
-                    URLConnection conn = new URL(work.uri.toString()).openConnection();
-                    InputStream is = (InputStream) conn.getContent();
-                    WonderPush.logDebug(work.logPrefix + ": Content-Type: " + conn.getContentType());
-                    WonderPush.logDebug(work.logPrefix + ": Content-Length: " + conn.getContentLength() + " bytes");
-                    if (conn.getContentLength() > work.maxFileSize) {
-                        throw new RuntimeException(work.logPrefix + " file too large (" + conn.getContentLength() + " is over " + work.maxFileSize + " bytes)");
-                    }
-
-                    FileOutputStream outputStream = new FileOutputStream(cached);
-                    int read, ttl = 0;
-                    byte[] buffer = new byte[2048];
-                    while ((read = is.read(buffer)) != -1) {
-                        ttl += read;
-                        if (ttl > work.maxFileSize) {
-                            throw new RuntimeException(work.logPrefix + " file too large (max " + work.maxFileSize + " bytes allowed)");
-                        }
-                        outputStream.write(buffer, 0, read);
-                    }
-                    outputStream.close();
-                    success = true;
-                    WonderPush.logDebug(work.logPrefix + ": Finished reading " + ttl + " bytes");
-                } catch (IOException ex) {
-                    Log.e(WonderPush.TAG, "Error while fetching resource " + work.uri, ex);
-                }
-
-                if (!success) {
-                    cached.delete();
-                    cached = null;
-                }
-                expireCache(work.cacheSubfolder, work.maxCacheSize);
-            }
-            return cached;
-        } catch (Exception ex) {
-            Log.e(WonderPush.TAG, work.logPrefix + ": Failed to fetch from URI " + work.uri, ex);
-            return null;
-        }
+    static void expireCache(String cacheSubfolder, int maxCacheSize) {
+        expireCache(new File(WonderPush.getApplicationContext().getCacheDir(), cacheSubfolder), maxCacheSize);
     }
 
-    private static void expireCache(String cacheSubfolder, int maxCacheSize) {
-        File dir = new File(WonderPush.getApplicationContext().getCacheDir(), cacheSubfolder);
+    /**
+     * Deletes the least recently modified files of a cache directory above the given total size.
+     * Files still being downloaded are left alone.
+     */
+    static void expireCache(File dir, int maxCacheSize) {
         if (!dir.isDirectory()) return;
 
         // Sort from most recently modified to least recently modified
-        File[] files = dir.listFiles();
+        File[] files = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return !file.getName().endsWith(ResourceFetcher.PARTIAL_SUFFIX);
+            }
+        });
+        if (files == null) return;
         Arrays.sort(files, new Comparator<File>() {
             @Override
             public int compare(File lhs, File rhs) {
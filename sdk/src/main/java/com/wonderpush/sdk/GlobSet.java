@@ -0,0 +1,225 @@
+package com.wonderpush.sdk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A set of glob rules, where {@code *} matches any sequence of characters, compiled once to be matched many times.
+ *
+ * <p>
+ *     Rules are sorted by shape:
+ *     literals are looked up in a hash set,
+ *     {@code prefix*} and {@code *suffix} rules share a trie each, walked once per item,
+ *     and the remaining rules are matched by searching their literal parts in order.
+ * </p>
+ */
+class GlobSet {
+
+    private final boolean matchesAll;
+    private final Set<String> literals = new HashSet<>();
+    private final Trie prefixes;
+    private final Trie suffixes;
+    private final Glob[] globs;
+
+    GlobSet(Collection<String> rules) {
+        TrieBuilder prefixesBuilder = new TrieBuilder();
+        TrieBuilder suffixesBuilder = new TrieBuilder();
+        List<Glob> globs = new ArrayList<>();
+        boolean matchesAll = false;
+        for (String rule : rules) {
+            if (rule == null) continue;
+            int firstStar = rule.indexOf('*');
+            if (firstStar < 0) {
+                literals.add(rule);
+                continue;
+            }
+            String literalParts = rule.replace("*", "");
+            if (literalParts.isEmpty()) {
+                matchesAll = true;
+            } else if (firstStar == rule.length() - 1) {
+                prefixesBuilder.add(rule.substring(0, firstStar), false);
+            } else if (firstStar == 0 && rule.lastIndexOf('*') == 0) {
+                suffixesBuilder.add(rule.substring(1), true);
+            } else {
+                globs.add(new Glob(rule));
+            }
+        }
+        this.matchesAll = matchesAll;
+        this.prefixes = prefixesBuilder.build();
+        this.suffixes = suffixesBuilder.build();
+        this.globs = globs.toArray(new Glob[0]);
+    }
+
+    boolean matches(String item) {
+        if (item == null) return false;
+        if (matchesAll) return true;
+        if (literals.contains(item)) return true;
+        if (prefixes != null && prefixes.matchesStart(item)) return true;
+        if (suffixes != null && suffixes.matchesEnd(item)) return true;
+        for (Glob glob : globs) {
+            if (glob.matches(item)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * A rule with a literal part between two stars, or stars between literal parts.
+     */
+    private static class Glob {
+
+        private final String head;
+        private final String tail;
+        private final String[] middle;
+        private final int minLength;
+
+        Glob(String rule) {
+            List<String> parts = new ArrayList<>();
+            int start = 0;
+            while (true) {
+                int star = rule.indexOf('*', start);
+                if (star < 0) {
+                    parts.add(rule.substring(start));
+                    break;
+                }
+                parts.add(rule.substring(start, star));
+                start = star + 1;
+            }
+            // There is at least one star, hence two parts, possibly empty
+            head = parts.get(0);
+            tail = parts.get(parts.size() - 1);
+            List<String> middle = new ArrayList<>();
+            int minLength = head.length() + tail.length();
+            for (String part : parts.subList(1, parts.size() - 1)) {
+                if (part.isEmpty()) continue;
+                middle.add(part);
+                minLength += part.length();
+            }
+            this.middle = middle.toArray(new String[0]);
+            this.minLength = minLength;
+        }
+
+        boolean matches(String item) {
+            if (item.length() < minLength) return false;
+            if (!item.startsWith(head) || !item.endsWith(tail)) return false;
+            // Leftmost matching of each middle part leaves the most room to the next ones
+            int from = head.length();
+            int until = item.length() - tail.length();
+            for (String part : middle) {
+                int index = item.indexOf(part, from);
+                if (index < 0 || index + part.length() > until) return false;
+                from = index + part.length();
+            }
+            return true;
+        }
+
+    }
+
+    /**
+     * An immutable trie, whose nodes hold their children sorted by character.
+     */
+    private static class Trie {
+
+        private final boolean terminal;
+        private final char[] keys;
+        private final Trie[] children;
+
+        Trie(boolean terminal, char[] keys, Trie[] children) {
+            this.terminal = terminal;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        private Trie child(char c) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char key = keys[mid];
+                if (key < c) low = mid + 1;
+                else if (key > c) high = mid - 1;
+                else return children[mid];
+            }
+            return null;
+        }
+
+        /**
+         * Tells whether one of the words of this trie starts the item.
+         */
+        boolean matchesStart(String item) {
+            Trie node = this;
+            for (int i = 0, l = item.length(); ; i++) {
+                if (node.terminal) return true;
+                if (i == l) return false;
+                node = node.child(item.charAt(i));
+                if (node == null) return false;
+            }
+        }
+
+        /**
+         * Tells whether one of the words of this trie, inserted reversed, ends the item.
+         */
+        boolean matchesEnd(String item) {
+            Trie node = this;
+            for (int i = item.length() - 1; ; i--) {
+                if (node.terminal) return true;
+                if (i < 0) return false;
+                node = node.child(item.charAt(i));
+                if (node == null) return false;
+            }
+        }
+
+    }
+
+    private static class TrieBuilder {
+
+        private boolean terminal;
+        private TreeMap<Character, TrieBuilder> children;
+        private boolean empty = true;
+
+        void add(String word, boolean reversed) {
+            empty = false;
+            TrieBuilder node = this;
+            for (int i = 0, l = word.length(); i < l; i++) {
+                char c = word.charAt(reversed ? l - 1 - i : i);
+                if (node.children == null) node.children = new TreeMap<>();
+                TrieBuilder child = node.children.get(c);
+                if (child == null) {
+                    child = new TrieBuilder();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.terminal = true;
+        }
+
+        /**
+         * @return The trie, or {@code null} if no word was added
+         */
+        Trie build() {
+            if (empty) return null;
+            return freeze();
+        }
+
+        private Trie freeze() {
+            int size = children == null ? 0 : children.size();
+            char[] keys = new char[size];
+            Trie[] nodes = new Trie[size];
+            if (children != null) {
+                int i = 0;
+                for (Map.Entry<Character, TrieBuilder> entry : children.entrySet()) {
+                    keys[i] = entry.getKey();
+                    nodes[i] = entry.getValue().freeze();
+                    i++;
+                }
+            }
+            return new Trie(terminal, keys, nodes);
+        }
+
+    }
+
+}
@@ -14,6 +14,7 @@ class JSONSync {
 
     interface Callbacks {
         void save(JSONObject state);
+        void scheduleSave();
         void schedulePatchCall();
         void serverPatchInstallation(JSONObject diff, ResponseHandler handler);
         void upgrade(JSONObject upgradeMeta, JSONObject sdkState, JSONObject serverState, JSONObject putAccumulator, JSONObject inflightDiff, JSONObject inflightPutAccumulator);
@@ -32,14 +33,15 @@ class JSONSync {
     private static final String SAVED_STATE_FIELD_INFLIGHT_PATCH_CALL = "inflightPatchCall";
 
     private Callbacks callbacks;
-    private JSONObject sdkState;
-    private JSONObject serverState;
+    private PersistentJSONObject sdkState;
+    private PersistentJSONObject serverState;
     private JSONObject putAccumulator;
     private JSONObject inflightDiff;
     private JSONObject inflightPutAccumulator;
     private JSONObject upgradeMeta;
     private boolean scheduledPatchCall;
     private boolean inflightPatchCall;
+    private boolean dirty;
 
     JSONSync(Callbacks callbacks) {
         this(callbacks, null, null, null, null, null, null, false, false);
@@ -91,20 +93,7 @@ class JSONSync {
         if (upgradeMeta == null) upgradeMeta = new JSONObject();
         if (inflightPutAccumulator == null) inflightPutAccumulator = new JSONObject();
 
-        try {
-            JSONUtil.stripNulls(sdkState);
-        } catch (JSONException ex) {
-            WonderPush.logError("Unexpected JSON error while removing null fields on sdkState", ex);
-        }
-        try {
-            JSONUtil.stripNulls(serverState);
-        } catch (JSONException ex) {
-            WonderPush.logError("Unexpected JSON error while removing null fields on serverState", ex);
-        }
-
         this.callbacks = callbacks;
-        this.sdkState = sdkState;
-        this.serverState = serverState;
         this.putAccumulator = putAccumulator;
         this.inflightDiff = inflightDiff;
         this.inflightPutAccumulator = inflightPutAccumulator;
@@ -117,7 +106,20 @@ class JSONSync {
         // - 1 -> 2: No-op. Only the "upgradeMeta" key has been added and it is read with proper default.
 
         // Handle client upgrades
-        applyUpgrade();
+        callbacks.upgrade(upgradeMeta, sdkState, serverState, putAccumulator, inflightDiff, inflightPutAccumulator);
+
+        try {
+            this.sdkState = PersistentJSONObject.fromJSONObject(sdkState, true);
+        } catch (JSONException ex) {
+            WonderPush.logError("Unexpected JSON error while reading sdkState", ex);
+            this.sdkState = PersistentJSONObject.EMPTY;
+        }
+        try {
+            this.serverState = PersistentJSONObject.fromJSONObject(serverState, true);
+        } catch (JSONException ex) {
+            WonderPush.logError("Unexpected JSON error while reading serverState", ex);
+            this.serverState = PersistentJSONObject.EMPTY;
+        }
 
         if (this.inflightPatchCall) {
             callPatch_onFailure();
@@ -125,16 +127,53 @@ class JSONSync {
     }
 
     public synchronized JSONObject getSdkState() throws JSONException {
-        return JSONUtil.deepCopy(sdkState);
+        return sdkState.toJSONObject();
     }
 
+    /**
+     * Returns the current sdk state without copying it.
+     */
+    synchronized PersistentJSONObject getSdkStateSnapshot() {
+        return sdkState;
+    }
+
+    /**
+     * Persists the state right away.
+     * Used for state acknowledged by the server, or about to be sent to it,
+     * so that it survives the death of the process.
+     */
     private synchronized void save() {
+        dirty = true;
+        saveIfDirty();
+    }
+
+    /**
+     * Marks the state as modified and lets the callbacks decide when to persist it.
+     * Used for local modifications, that are typically issued in bursts.
+     */
+    private synchronized void saveLater() {
+        dirty = true;
+        callbacks.scheduleSave();
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Persists the state if it was modified since it was last saved.
+     *
+     * @return Whether the state has been saved
+     */
+    synchronized boolean saveIfDirty() {
+        if (!dirty) return false;
+        dirty = false;
         try {
             JSONObject state = new JSONObject();
             state.put(SAVED_STATE_FIELD__SYNC_STATE_VERSION,      SAVED_STATE_STATE_VERSION_2);
             state.put(SAVED_STATE_FIELD_UPGRADE_META,             upgradeMeta);
-            state.put(SAVED_STATE_FIELD_SDK_STATE,                sdkState);
-            state.put(SAVED_STATE_FIELD_SERVER_STATE,             serverState);
+            state.put(SAVED_STATE_FIELD_SDK_STATE,                sdkState.toJSONObject());
+            state.put(SAVED_STATE_FIELD_SERVER_STATE,             serverState.toJSONObject());
             state.put(SAVED_STATE_FIELD_PUT_ACCUMULATOR,          putAccumulator);
             state.put(SAVED_STATE_FIELD_INFLIGHT_DIFF,            inflightDiff);
             state.put(SAVED_STATE_FIELD_INFLIGHT_PUT_ACCUMULATOR, inflightPutAccumulator);
@@ -144,37 +183,30 @@ class JSONSync {
         } catch (JSONException ex) {
             WonderPush.logError("Failed to build state object for saving installation custom for " + this, ex);
         }
-    }
-
-    private synchronized void applyUpgrade() {
-        if (callbacks == null) return;
-        callbacks.upgrade(upgradeMeta, sdkState, serverState,putAccumulator, inflightDiff, inflightPutAccumulator);
+        return true;
     }
 
     public synchronized void put(JSONObject diff) throws JSONException {
         if (diff == null) diff = new JSONObject();
-        JSONUtil.merge(sdkState, diff);
+        sdkState = sdkState.merge(diff);
         JSONUtil.merge(putAccumulator, diff, false);
-        schedulePatchCallAndSave();
+        scheduledPatchCall = true;
+        saveLater();
+        callbacks.schedulePatchCall();
     }
 
     public synchronized void receiveServerState(JSONObject srvState) throws JSONException {
-        if (srvState == null) srvState = new JSONObject();
-        serverState = JSONUtil.deepCopy(srvState);
-        JSONUtil.stripNulls(serverState);
+        serverState = PersistentJSONObject.fromJSONObject(srvState, true);
         schedulePatchCallAndSave();
     }
 
     public synchronized void receiveState(JSONObject receivedState, boolean resetSdkState) throws JSONException {
-        if (receivedState == null) receivedState = new JSONObject();
-        serverState = JSONUtil.deepCopy(receivedState);
-        JSONUtil.stripNulls(serverState);
-        sdkState = JSONUtil.deepCopy(serverState);
+        serverState = PersistentJSONObject.fromJSONObject(receivedState, true);
+        sdkState = serverState;
         if (resetSdkState) {
             putAccumulator = new JSONObject();
         } else {
-            JSONUtil.merge(sdkState, inflightDiff);
-            JSONUtil.merge(sdkState, putAccumulator);
+            sdkState = sdkState.merge(inflightDiff).merge(putAccumulator);
         }
         schedulePatchCallAndSave();
     }
@@ -182,8 +214,9 @@ class JSONSync {
     public synchronized void receiveDiff(JSONObject diff) throws JSONException {
         if (diff == null) diff = new JSONObject();
         // The diff is already server-side, by contract
-        JSONUtil.merge(serverState, diff);
+        serverState = serverState.merge(diff);
         put(diff);
+        saveIfDirty();
     }
 
     private synchronized void schedulePatchCallAndSave() {
@@ -222,7 +255,7 @@ class JSONSync {
         scheduledPatchCall = false;
 
         try {
-            inflightDiff = JSONUtil.diff(serverState, sdkState);
+            inflightDiff = PersistentJSONObject.diff(serverState, sdkState);
         } catch (JSONException ex) {
             WonderPush.logError("Failed to diff server state and sdk state to send installation custom diff", ex);
             inflightDiff = new JSONObject();
@@ -259,7 +292,7 @@ class JSONSync {
         inflightPatchCall = false;
         inflightPutAccumulator = new JSONObject();
         try {
-            JSONUtil.merge(serverState, inflightDiff);
+            serverState = serverState.merge(inflightDiff);
             inflightDiff = new JSONObject();
         } catch (JSONException ex) {
             WonderPush.logError("Failed to copy putAccumulator", ex);
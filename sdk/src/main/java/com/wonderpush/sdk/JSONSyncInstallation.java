@@ -18,12 +18,19 @@ public class JSONSyncInstallation {
     private static final Long UPGRADE_META_VERSION_1_IMPORTED_CUSTOM = 1l;
     private static final Long UPGRADE_META_VERSION_LATEST = UPGRADE_META_VERSION_1_IMPORTED_CUSTOM;
 
+    /**
+     * How long local modifications are coalesced before being written to the storage.
+     * Modifications acknowledged by the server, or about to be sent to it, are written right away.
+     */
+    static final long SAVE_DELAY = 1000;
+
     private static final Map<String, JSONSyncInstallation> sInstancePerUserId = new HashMap<>();
     private static boolean initialized = false;
 
     private final String userId;
     private final JSONSync sync;
     private long firstDelayedWriteDate;
+    private ScheduledFuture<Void> scheduledSaveTask;
     private static boolean disabled = false;
 
     private static ScheduledFuture<Void> scheduledPatchCallDelayedTask;
@@ -34,6 +41,11 @@ public class JSONSyncInstallation {
             _save(state);
         }
 
+        @Override
+        public void scheduleSave() {
+            _scheduleSave();
+        }
+
         @Override
         public void schedulePatchCall() {
             _schedulePatchCall();
@@ -155,6 +167,18 @@ public class JSONSyncInstallation {
         }
     }
 
+    /**
+     * Writes the pending local modifications of all known users to the storage.
+     * Called when the application goes to the background, where the process can be killed at any time.
+     */
+    static void saveAll() {
+        synchronized (sInstancePerUserId) {
+            for (JSONSyncInstallation sync : sInstancePerUserId.values()) {
+                sync.save();
+            }
+        }
+    }
+
     public static void setDisabled(boolean disabled) {
         JSONSyncInstallation.disabled = disabled;
     }
@@ -189,9 +213,44 @@ public class JSONSyncInstallation {
             scheduledPatchCallDelayedTask.cancel(false);
             scheduledPatchCallDelayedTask = null;
         }
+        save();
         _performScheduledPatchCall();
     }
 
+    synchronized void save() {
+        if (scheduledSaveTask != null) {
+            scheduledSaveTask.cancel(false);
+            scheduledSaveTask = null;
+        }
+        sync.saveIfDirty();
+    }
+
+    private synchronized void _scheduleSave() {
+        if (scheduledSaveTask != null) {
+            // A write is already pending, it will pick up this modification too
+            return;
+        }
+        scheduledSaveTask = WonderPush.sScheduledExecutor.schedule(
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        try {
+                            _performScheduledSave();
+                        } catch (Exception ex) {
+                            Log.e(WonderPush.TAG, "Unexpected error on scheduled task", ex);
+                        }
+                        return null;
+                    }
+                },
+                SAVE_DELAY,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void _performScheduledSave() {
+        scheduledSaveTask = null;
+        sync.saveIfDirty();
+    }
+
     private synchronized void _save(JSONObject state) {
         WonderPush.logDebug("Saving installation custom state for userId " + userId + ": " + state);
         String key = userId == null ? "" : userId;
@@ -312,6 +371,10 @@ public class JSONSyncInstallation {
         return sync.getSdkState();
     }
 
+    public synchronized PersistentJSONObject getSdkStateSnapshot() {
+        return sync.getSdkStateSnapshot();
+    }
+
     public synchronized void put(JSONObject diff) throws JSONException {
         sync.put(diff);
     }
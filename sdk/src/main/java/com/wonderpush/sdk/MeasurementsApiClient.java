@@ -9,8 +9,16 @@ import java.io.IOException;
 
 public class MeasurementsApiClient {
     private static final String TAG = "WonderPush." + MeasurementsApiClient.class.getSimpleName();
-    private static final okhttp3.OkHttpClient sClient = new okhttp3.OkHttpClient();
     private static boolean disabled;
+    private static final RequestBodyEncoding.Selector sBodyEncodings = new RequestBodyEncoding.Selector();
+
+    /**
+     * Sets how the body of requests whose resource starts with the given prefix is encoded.
+     */
+    static void setBodyEncoding(String resourcePrefix, RequestBodyEncoding encoding) {
+        sBodyEncodings.set(resourcePrefix, encoding);
+    }
+
     public static void execute(Request request) {
         if (isDisabled()) {
             if (request.getHandler() != null) request.getHandler().onFailure(new Request.ClientDisabledException(), new Response("Client disabled"));
@@ -19,7 +27,7 @@ public class MeasurementsApiClient {
         ApiClient.HttpMethod method = request.getMethod();
         String resource = request.getResource();
         String url = String.format("%s%s", WonderPush.MEASUREMENTS_API_URL, resource);
-        String contentType = "application/x-www-form-urlencoded";
+        RequestBodyEncoding encoding = sBodyEncodings.get(method, resource);
         final Request.Params params = request.getParams() != null ? request.getParams() : new Request.Params();
         params.add("clientId", WonderPush.getClientId());
         params.add("devicePlatform", "Android");
@@ -28,16 +36,29 @@ public class MeasurementsApiClient {
             params.add("userId", WonderPushConfiguration.getUserId());
         }
         params.add("deviceId", WonderPushConfiguration.getDeviceId());
-        Request.BasicNameValuePair authorizationHeader = Request.getAuthorizationHeader(method, Uri.parse(url), params);
+        String jsonBody = encoding.isJSON() ? params.getJSONBody() : null;
+        Request.BasicNameValuePair authorizationHeader = jsonBody != null
+                ? Request.getAuthorizationHeader(method, Uri.parse(url), null, jsonBody)
+                : Request.getAuthorizationHeader(method, Uri.parse(url), params);
         WonderPush.safeDefer(() -> {
+            okhttp3.RequestBody body;
+            try {
+                body = jsonBody != null ? encoding.createBody(jsonBody) : params.getFormBody();
+            } catch (IOException e) {
+                if (request.getHandler() != null) request.getHandler().onFailure(e, null);
+                return;
+            }
             okhttp3.Request.Builder requestBuilder = new okhttp3.Request.Builder()
                     .url(url)
-                    .header("Content-Type", contentType)
-                    .post(params.getFormBody());
+                    .header("Content-Type", encoding.getContentType())
+                    .post(body);
+            if (encoding.getContentEncoding() != null) {
+                requestBuilder.header("Content-Encoding", encoding.getContentEncoding());
+            }
             if (authorizationHeader != null) {
                 requestBuilder.header(authorizationHeader.getName(), authorizationHeader.getValue());
             }
-            sClient.newCall(requestBuilder.build())
+            WonderPushHttpClient.get().newCall(requestBuilder.build())
                     .enqueue(new SafeOkHttpCallback() {
                         @Override
                         public void onFailureSafe(okhttp3.Call call, IOException e) {
@@ -10,7 +10,6 @@ import android.content.pm.PackageManager;
 import android.graphics.Color;
 import android.media.AudioManager;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.SystemClock;
@@ -28,12 +27,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.File;
 import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 public class NotificationManager {
 
@@ -53,12 +48,37 @@ public class NotificationManager {
     }
 
     public static void onReceivedNotification(Context context, Intent intent, NotificationModel notif) {
+        onReceivedNotification(context, intent, notif, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * @param receivedAt When the push service received the notification, in {@link SystemClock#elapsedRealtime()} milliseconds,
+     *                   to measure the time to notify
+     */
+    public static void onReceivedNotification(Context context, Intent intent, NotificationModel notif, long receivedAt) {
+        if (!isTargetedAtCurrentInstallation(notif)) {
+            return;
+        }
+        trackReceivedNotification(context, notif);
+        displayReceivedNotification(context, intent, notif, receivedAt);
+    }
+
+    /**
+     * Tells whether a received notification is for the current installation, logging why not.
+     */
+    public static boolean isTargetedAtCurrentInstallation(NotificationModel notif) {
         String loggedInstallationId = WonderPushConfiguration.getInstallationId();
         if (notif.getTargetedInstallation() != null && !notif.getTargetedInstallation().equals(loggedInstallationId)) {
             WonderPush.logDebug("Received notification is not targeted at the current installation (" + notif.getTargetedInstallation() + " does not match current installation " + loggedInstallationId + ")");
-            return;
+            return false;
         }
+        return true;
+    }
 
+    /**
+     * Runs the receive actions of a received notification and tracks its receipt.
+     */
+    public static void trackReceivedNotification(Context context, NotificationModel notif) {
         handleActions(context, new NotificationMetadata(notif), notif.getReceiveActions());
 
         try {
@@ -86,7 +106,7 @@ public class NotificationManager {
         try {
             JSONSyncInstallation installation = JSONSyncInstallation.forCurrentUser();
             if (installation != null) {
-                long lastReceivedNotificationCheckDateMs = installation.getSdkState().optLong(LAST_RECEIVED_NOTIFICATION_CHECK_DATE_PROPERTY, -1);
+                long lastReceivedNotificationCheckDateMs = installation.getSdkStateSnapshot().optLong(LAST_RECEIVED_NOTIFICATION_CHECK_DATE_PROPERTY, -1);
                 Date lastReceivedNotificationCheckDate = lastReceivedNotificationCheckDateMs == -1 ? null : new Date(lastReceivedNotificationCheckDateMs);
                 Date now = new Date();
                 boolean reportLastReceivedNotificationCheckDate =
@@ -102,7 +122,14 @@ public class NotificationManager {
         } catch (JSONException e) {
             Log.e(TAG, "Error getting _wp data from notification", e);
         }
+    }
 
+    /**
+     * Displays a received notification, automatically opens or drops it.
+     *
+     * @param receivedAt When the push service received the notification, in {@link SystemClock#elapsedRealtime()} milliseconds
+     */
+    public static void displayReceivedNotification(Context context, Intent intent, NotificationModel notif, long receivedAt) {
         boolean automaticallyHandled = false;
         Activity currentActivity = ActivityLifecycleMonitor.getCurrentActivity();
         boolean appInForeground = currentActivity != null && !currentActivity.isFinishing();
@@ -111,7 +138,7 @@ public class NotificationManager {
         PendingIntentBuilder pendingIntentBuilder = new PendingIntentBuilder(notif, localNotificationId, intent, context);
         AlertModel alert = notif.getAlert() == null ? null : notif.getAlert().forCurrentSettings(appInForeground);
         if (alert != null && alert.getAutoDrop()) {
-            WonderPush.logDebug("Automatically dropping");
+            WonderPush.logDebug("Automatically dropping, " + (SystemClock.elapsedRealtime() - receivedAt) + "ms after receipt");
             automaticallyHandled = true;
         } else if (alert != null && alert.getAutoOpen()) {
             WonderPush.logDebug("Automatically opening");
@@ -119,6 +146,7 @@ public class NotificationManager {
             try {
                 pendingIntentBuilder.buildForAutoOpen().send();
                 automaticallyHandled = true;
+                WonderPush.logDebug("Automatically opened " + (SystemClock.elapsedRealtime() - receivedAt) + "ms after receipt");
             } catch (PendingIntent.CanceledException e) {
                 Log.e(WonderPush.TAG, "Could not show notification", e);
             }
@@ -126,7 +154,7 @@ public class NotificationManager {
         if (!automaticallyHandled) {
             WonderPushResourcesService.Work work =
                     new WonderPushResourcesService.Work(
-                            notif, tag, localNotificationId, intent);
+                            notif, tag, localNotificationId, intent, receivedAt);
             if (shouldWorkInBackground(notif)) {
                 WonderPush.logDebug("Fetching resources and displaying notification asynchronously");
                 WonderPushResourcesService.enqueueWork(context, work);
@@ -148,21 +176,9 @@ public class NotificationManager {
         if (notif.getAlert() != null && !notif.getAlert().getResourcesToFetch().isEmpty()) {
             WonderPush.logDebug("Start fetching resources");
             long start = SystemClock.elapsedRealtime();
-            Collection<AsyncTask<CacheUtil.FetchWork, Void, File[]>> tasks = new ArrayList<>(notif.getAlert().getResourcesToFetch().size());
-            int i = 0;
-            for (CacheUtil.FetchWork fetchWork : notif.getAlert().getResourcesToFetch()) {
-                ++i;
-                tasks.add(new CacheUtil.FetchWork.AsyncTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, fetchWork));
-            }
-            i = 0;
-            for (AsyncTask<CacheUtil.FetchWork, Void, File[]> task : tasks) {
-                ++i;
-                try {
-                    task.get(Math.max(0, start + timeoutMs - SystemClock.elapsedRealtime()), TimeUnit.MILLISECONDS);
-                } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                    WonderPush.logDebug("Failed to fetch resource " + i, e);
-                }
-            }
+            Collection<CacheUtil.FetchWork> resourcesToFetch = notif.getAlert().getResourcesToFetch();
+            int available = ResourceFetcher.fetchAll(resourcesToFetch, timeoutMs);
+            WonderPush.logDebug("Fetched " + available + "/" + resourcesToFetch.size() + " resources in " + (SystemClock.elapsedRealtime() - start) + "ms");
             // Now we must reparse the notification to have it pick up the fetched resources
             WonderPush.logDebug("Inserting resources inside the notification");
             try {
@@ -203,6 +219,7 @@ public class NotificationManager {
             }
         } else {
             notify(context, work.getTag(), work.getLocalNotificationId(), notification);
+            WonderPush.logDebug("Time to notify: " + (SystemClock.elapsedRealtime() - work.getReceivedAt()) + "ms");
             // Display group summary notification, if any
             Notification groupSummaryNotification = buildNotificationGroupSummary(notif, context, work.getPendingIntentBuilder(context));
             if (groupSummaryNotification != null) {
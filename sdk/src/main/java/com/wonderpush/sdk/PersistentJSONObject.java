@@ -0,0 +1,267 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable JSON object whose modified copies share their unchanged subtrees.
+ *
+ * <p>
+ *     Values are either nested {@code PersistentJSONObject}s, {@link JSONArray}s that are never modified once stored,
+ *     {@link JSONObject#NULL}, strings, numbers or booleans.
+ *     Merging a diff only copies the objects along the modified paths,
+ *     so that holding a snapshot costs nothing, and comparing two versions of the same tree
+ *     only descends into the subtrees that are not shared.
+ * </p>
+ */
+public class PersistentJSONObject {
+
+    static final PersistentJSONObject EMPTY = new PersistentJSONObject(Collections.<String, Object>emptyMap());
+
+    private final Map<String, Object> mValues;
+    private volatile JSONObject mJSON;
+
+    private PersistentJSONObject(Map<String, Object> values) {
+        mValues = values;
+    }
+
+    /**
+     * Builds a tree from a deep copy of the given object.
+     *
+     * @param object
+     *            The object to copy, {@code null} gives an empty tree
+     * @param stripNulls
+     *            Whether to drop null fields, in nested objects too
+     */
+    static PersistentJSONObject fromJSONObject(JSONObject object, boolean stripNulls) throws JSONException {
+        if (object == null || object.length() == 0) return EMPTY;
+        Map<String, Object> values = new LinkedHashMap<>();
+        Iterator<String> it = object.keys();
+        while (it.hasNext()) {
+            String key = it.next();
+            Object value = object.opt(key);
+            if (isNull(value)) {
+                if (stripNulls) continue;
+                value = JSONObject.NULL;
+            } else if (value instanceof JSONObject) {
+                value = fromJSONObject((JSONObject) value, stripNulls);
+            } else if (value instanceof JSONArray) {
+                value = new JSONArray(value.toString());
+            }
+            values.put(key, value);
+        }
+        return new PersistentJSONObject(values);
+    }
+
+    private static boolean isNull(Object value) {
+        return value == null || value == JSONObject.NULL;
+    }
+
+    private static Object wrap(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return fromJSONObject((JSONObject) value, false);
+        } else if (value instanceof JSONArray) {
+            return new JSONArray(value.toString());
+        } else if (value == null) {
+            return JSONObject.NULL;
+        }
+        return value;
+    }
+
+    public int length() {
+        return mValues.size();
+    }
+
+    public boolean has(String key) {
+        return mValues.containsKey(key);
+    }
+
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(mValues.keySet());
+    }
+
+    /**
+     * Returns the value of the given field.
+     * Nested objects are returned as {@code PersistentJSONObject}s,
+     * arrays are shared and must not be modified.
+     */
+    public Object opt(String key) {
+        return mValues.get(key);
+    }
+
+    public PersistentJSONObject optJSONObject(String key) {
+        Object value = mValues.get(key);
+        return value instanceof PersistentJSONObject ? (PersistentJSONObject) value : null;
+    }
+
+    /**
+     * Same as {@link JSONObject#optString(String, String)}.
+     */
+    public String optString(String key, String fallback) {
+        Object value = mValues.get(key);
+        return isNull(value) ? fallback : value.toString();
+    }
+
+    /**
+     * Same as {@link JSONObject#optLong(String, long)}.
+     */
+    public long optLong(String key, long fallback) {
+        Object value = mValues.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String) {
+            try {
+                return (long) Double.parseDouble((String) value);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Returns a copy of this tree with the given diff applied, like {@link JSONUtil#merge(JSONObject, JSONObject, boolean)}.
+     *
+     * @return {@code this} if the diff changes nothing
+     */
+    PersistentJSONObject merge(JSONObject diff, boolean nullFieldRemoves) throws JSONException {
+        if (diff == null || diff.length() == 0) return this;
+        Map<String, Object> values = null;
+        Iterator<String> it = diff.keys();
+        while (it.hasNext()) {
+            String key = it.next();
+            Object vDiff = diff.opt(key);
+            boolean hasBase = mValues.containsKey(key);
+            Object vBase = mValues.get(key);
+            Object vNew;
+            if (!hasBase) {
+                if (isNull(vDiff) && nullFieldRemoves) continue;
+                vNew = wrap(vDiff);
+            } else if (vDiff instanceof JSONObject) {
+                if (vBase instanceof PersistentJSONObject) {
+                    vNew = ((PersistentJSONObject) vBase).merge((JSONObject) vDiff, nullFieldRemoves);
+                } else {
+                    vNew = wrap(vDiff);
+                }
+            } else if (isNull(vDiff) && nullFieldRemoves) {
+                if (values == null) values = new LinkedHashMap<>(mValues);
+                values.remove(key);
+                continue;
+            } else {
+                vNew = wrap(vDiff);
+            }
+            // Beware that JSONObject.NULL equals null
+            if (hasBase && (vNew == vBase || (!(vNew instanceof JSONArray) && vNew.equals(vBase)))) continue;
+            if (values == null) values = new LinkedHashMap<>(mValues);
+            values.put(key, vNew);
+        }
+        return values == null ? this : new PersistentJSONObject(values);
+    }
+
+    PersistentJSONObject merge(JSONObject diff) throws JSONException {
+        return merge(diff, true);
+    }
+
+    /**
+     * Computes the diff to apply to {@code from} to obtain {@code to}, like {@link JSONUtil#diff(JSONObject, JSONObject)}.
+     * Subtrees shared by both trees are skipped without being compared.
+     */
+    static JSONObject diff(PersistentJSONObject from, PersistentJSONObject to) throws JSONException {
+        JSONObject rtn = new JSONObject();
+        if (from == to) return rtn;
+
+        for (Map.Entry<String, Object> entry : from.mValues.entrySet()) {
+            String key = entry.getKey();
+            if (!to.mValues.containsKey(key)) {
+                rtn.put(key, JSONObject.NULL);
+                continue;
+            }
+            Object vFrom = entry.getValue();
+            Object vTo = to.mValues.get(key);
+            if (vFrom == vTo) continue;
+            if (vFrom instanceof PersistentJSONObject && vTo instanceof PersistentJSONObject) {
+                JSONObject sub = diff((PersistentJSONObject) vFrom, (PersistentJSONObject) vTo);
+                if (sub.length() > 0) {
+                    rtn.put(key, sub);
+                }
+            } else if (!JSONUtil.equals(vFrom, vTo)) {
+                rtn.put(key, unwrapCopy(vTo));
+            }
+        }
+
+        for (Map.Entry<String, Object> entry : to.mValues.entrySet()) {
+            String key = entry.getKey();
+            if (from.mValues.containsKey(key)) continue;
+            rtn.put(key, unwrapCopy(entry.getValue()));
+        }
+
+        return rtn;
+    }
+
+    private static Object unwrapCopy(Object value) throws JSONException {
+        if (value instanceof PersistentJSONObject) {
+            return ((PersistentJSONObject) value).toJSONObject();
+        } else if (value instanceof JSONArray) {
+            return new JSONArray(value.toString());
+        }
+        return value;
+    }
+
+    /**
+     * Returns a mutable deep copy of this tree.
+     */
+    public JSONObject toJSONObject() throws JSONException {
+        return JSONUtil.deepCopy(getSharedJSONObject());
+    }
+
+    /**
+     * Returns a new top-level object whose nested objects and arrays are shared between calls.
+     * Cheap enough to be called on every read, as long as the nested values are not modified.
+     */
+    public JSONObject toShallowJSONObject() throws JSONException {
+        JSONObject shared = getSharedJSONObject();
+        JSONObject rtn = new JSONObject();
+        Iterator<String> it = shared.keys();
+        while (it.hasNext()) {
+            String key = it.next();
+            rtn.put(key, shared.get(key));
+        }
+        return rtn;
+    }
+
+    /**
+     * Returns a lazily built {@link JSONObject} view of this tree, reusing the views of nested objects.
+     * The returned object must never be modified.
+     */
+    private JSONObject getSharedJSONObject() throws JSONException {
+        JSONObject rtn = mJSON;
+        if (rtn == null) {
+            rtn = new JSONObject();
+            for (Map.Entry<String, Object> entry : mValues.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof PersistentJSONObject) {
+                    value = ((PersistentJSONObject) value).getSharedJSONObject();
+                }
+                rtn.put(entry.getKey(), value);
+            }
+            mJSON = rtn;
+        }
+        return rtn;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return getSharedJSONObject().toString();
+        } catch (JSONException ex) {
+            return "PersistentJSONObject" + mValues;
+        }
+    }
+
+}
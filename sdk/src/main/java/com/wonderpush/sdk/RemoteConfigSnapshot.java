@@ -0,0 +1,205 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import com.wonderpush.sdk.remoteconfig.Constants;
+import com.wonderpush.sdk.remoteconfig.DateHelper;
+import com.wonderpush.sdk.remoteconfig.RemoteConfig;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigManager;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The remote config values used by the SDK, parsed once per config version.
+ *
+ * <p>
+ *     Snapshots are immutable. The current one is replaced atomically by {@link #update(RemoteConfig)},
+ *     which notifies the registered {@link Listener}s when the config version changes.
+ * </p>
+ */
+final class RemoteConfigSnapshot {
+
+    private static final String TAG = "WonderPush." + RemoteConfigSnapshot.class.getSimpleName();
+
+    interface Listener {
+        void onRemoteConfigSnapshotChanged(RemoteConfigSnapshot snapshot);
+    }
+
+    interface Callback {
+        void call(RemoteConfigSnapshot snapshot, Throwable error);
+    }
+
+    private static final AtomicReference<RemoteConfigSnapshot> sCurrent = new AtomicReference<>();
+    private static final CopyOnWriteArrayList<Listener> sListeners = new CopyOnWriteArrayList<>();
+
+    private final RemoteConfig config;
+    private final boolean trackEventsForNonSubscribers;
+    private final boolean disableJsonSync;
+    private final boolean disableApiClient;
+    private final boolean disableMeasurementsApiClient;
+    private final BlackWhiteList eventsBlackWhiteList;
+    private final JSONObject inAppConfig;
+
+    private RemoteConfigSnapshot(RemoteConfig config) {
+        this.config = config;
+        JSONObject data = config.getData();
+        trackEventsForNonSubscribers = data.optBoolean(Constants.REMOTE_CONFIG_TRACK_EVENTS_FOR_NON_SUBSCRIBERS_KEY, false);
+        disableJsonSync = data.optBoolean(Constants.REMOTE_CONFIG_DISABLE_JSON_SYNC_KEY, false);
+        disableApiClient = data.optBoolean(Constants.REMOTE_CONFIG_DISABLE_API_CLIENT_KEY, false);
+        disableMeasurementsApiClient = data.optBoolean(Constants.REMOTE_CONFIG_DISABLE_MEASUREMENTS_API_CLIENT_KEY, false);
+        eventsBlackWhiteList = parseBlackWhiteList(data.optJSONArray(Constants.REMOTE_CONFIG_EVENTS_BLACK_WHITE_LIST_KEY));
+        inAppConfig = data.optJSONObject("inAppConfig");
+    }
+
+    private RemoteConfigSnapshot(RemoteConfigSnapshot other, RemoteConfig config) {
+        this.config = config;
+        trackEventsForNonSubscribers = other.trackEventsForNonSubscribers;
+        disableJsonSync = other.disableJsonSync;
+        disableApiClient = other.disableApiClient;
+        disableMeasurementsApiClient = other.disableMeasurementsApiClient;
+        eventsBlackWhiteList = other.eventsBlackWhiteList;
+        inAppConfig = other.inAppConfig;
+    }
+
+    private RemoteConfigSnapshot withConfig(RemoteConfig config) {
+        return new RemoteConfigSnapshot(this, config);
+    }
+
+    private static BlackWhiteList parseBlackWhiteList(JSONArray blackWhiteListRules) {
+        if (blackWhiteListRules == null) return null;
+        List<String> rules = new ArrayList<>();
+        for (int i = 0; i < blackWhiteListRules.length(); i++) {
+            String rule = blackWhiteListRules.optString(i);
+            if (rule != null) rules.add(rule);
+        }
+        return new BlackWhiteList(rules);
+    }
+
+    /**
+     * Returns the current snapshot, or {@code null} if no config was read yet.
+     */
+    static RemoteConfigSnapshot get() {
+        return sCurrent.get();
+    }
+
+    /**
+     * Calls back with the current snapshot while it is fresh and no higher version was declared,
+     * otherwise reads the config through the manager, which fetches it if it expired
+     * or if the higher version can be fetched already.
+     */
+    static void get(RemoteConfigManager manager, Callback callback) {
+        RemoteConfigSnapshot snapshot = sCurrent.get();
+        if (manager == null || snapshot != null && !snapshot.isExpired(manager.maximumConfigAge)
+                && !manager.hasHigherDeclaredVersionThan(snapshot.getVersion())) {
+            callback.call(snapshot, null);
+            return;
+        }
+        manager.read((RemoteConfig config, Throwable error) -> callback.call(update(config), error));
+    }
+
+    /**
+     * Makes the given config current, parsing it unless it has the same version as the current snapshot.
+     *
+     * @return The current snapshot
+     */
+    static RemoteConfigSnapshot update(RemoteConfig config) {
+        if (config == null) return sCurrent.get();
+        while (true) {
+            RemoteConfigSnapshot previous = sCurrent.get();
+            if (previous != null && previous.isSameVersion(config)) {
+                // Keep the parsed values, but follow the fetch date
+                if (previous.config.getFetchDate().getTime() >= config.getFetchDate().getTime()) return previous;
+                RemoteConfigSnapshot refreshed = previous.withConfig(config);
+                if (sCurrent.compareAndSet(previous, refreshed)) return refreshed;
+                continue;
+            }
+            RemoteConfigSnapshot snapshot = new RemoteConfigSnapshot(config);
+            if (sCurrent.compareAndSet(previous, snapshot)) {
+                for (Listener listener : sListeners) {
+                    try {
+                        listener.onRemoteConfigSnapshotChanged(snapshot);
+                    } catch (Exception ex) {
+                        Log.e(TAG, "Unexpected error in remote config listener", ex);
+                    }
+                }
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Forgets the current snapshot, when changing client id.
+     */
+    static void reset() {
+        sCurrent.set(null);
+    }
+
+    /**
+     * Registers a listener, called on the thread that updates the snapshot.
+     * Registering the same listener twice has no effect.
+     */
+    static void addListener(Listener listener) {
+        if (listener != null) sListeners.addIfAbsent(listener);
+    }
+
+    static void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+
+    private boolean isSameVersion(RemoteConfig other) {
+        if (!config.getVersion().equals(other.getVersion())) return false;
+        String etag = config.getETag();
+        String otherETag = other.getETag();
+        return etag == null || otherETag == null || etag.equals(otherETag);
+    }
+
+    boolean isExpired(long maximumConfigAge) {
+        long configAge = DateHelper.now().getTime() - config.getFetchDate().getTime();
+        return configAge > maximumConfigAge || config.isExpired();
+    }
+
+    RemoteConfig getConfig() {
+        return config;
+    }
+
+    String getVersion() {
+        return config.getVersion();
+    }
+
+    boolean isTrackEventsForNonSubscribers() {
+        return trackEventsForNonSubscribers;
+    }
+
+    boolean isDisableJsonSync() {
+        return disableJsonSync;
+    }
+
+    boolean isDisableApiClient() {
+        return disableApiClient;
+    }
+
+    boolean isDisableMeasurementsApiClient() {
+        return disableMeasurementsApiClient;
+    }
+
+    /**
+     * @return The events black/white list, or {@code null} if the config has none
+     */
+    BlackWhiteList getEventsBlackWhiteList() {
+        return eventsBlackWhiteList;
+    }
+
+    /**
+     * @return The {@code inAppConfig} object, or {@code null} if the config has none
+     */
+    JSONObject getInAppConfig() {
+        return inAppConfig;
+    }
+
+}
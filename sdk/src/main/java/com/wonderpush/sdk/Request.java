@@ -3,14 +3,12 @@ package com.wonderpush.sdk;
 import android.net.Uri;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.util.Base64;
 import android.util.Log;
 import okhttp3.FormBody;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.*;
@@ -123,75 +121,30 @@ class Request {
      * @return The authorization header or null for GET requests
      */
     protected BasicNameValuePair getAuthorizationHeader() {
-        return getAuthorizationHeader(mMethod, Uri.parse(String.format("%s%s", WonderPush.getBaseURL(), mResource)), mParams);
+        return getAuthorizationHeader(mMethod, Uri.parse(WonderPush.getBaseURL() + mResource), mParams);
     }
 
-    protected static BasicNameValuePair getAuthorizationHeader(ApiClient.HttpMethod method, Uri uri, Params params) {
-        try {
-            StringBuilder sb = new StringBuilder();
-
-            // Step 1: add HTTP method uppercase
-            sb.append(method.name().toUpperCase());
-            sb.append('&');
-
-            // Step 2: add the URI
-            // Query string is stripped from resource
-            sb.append(encode(String.format("%s://%s%s", uri.getScheme(), uri.getHost(), uri.getEncodedPath())));
-
-            // Step 3: add URL encoded parameters
-            sb.append('&');
-
-            // Params from the URL
-            List<BasicNameValuePair> unencodedParams = new ArrayList<>();
-            Params queryStringParams = QueryStringParser.getRequestParams(uri.getQuery());
-            if (queryStringParams != null) {
-                unencodedParams.addAll(queryStringParams.getParamsList());
-            }
-
-            // Params from the request
-            if (params != null) {
-                unencodedParams.addAll(params.getParamsList());
-            }
+    /**
+     * Generates X-WonderPush-Authorization header with request signature, for a JSON encoded request
+     *
+     * @param body The uncompressed JSON body, holding the request parameters
+     */
+    protected BasicNameValuePair getAuthorizationHeader(String body) {
+        return getAuthorizationHeader(mMethod, Uri.parse(WonderPush.getBaseURL() + mResource), null, body);
+    }
 
-            // Encode and sort params
-            List<BasicNameValuePair> encodedParams = new ArrayList<>(unencodedParams.size());
-            for (BasicNameValuePair pair : unencodedParams) {
-                encodedParams.add(new BasicNameValuePair(encode(pair.getName()), encode(pair.getValue())));
-            }
-            Collections.sort(encodedParams, new Comparator<BasicNameValuePair>() {
-                @Override
-                public int compare(BasicNameValuePair lhs, BasicNameValuePair rhs) {
-                    int rtn = lhs.getName().compareTo(rhs.getName());
-                    if (rtn == 0) {
-                        rtn = lhs.getValue().compareTo(rhs.getValue());
-                    }
-                    return rtn;
-                }
-            });
-
-            // Append to the clear signature
-            boolean first = true;
-            for (BasicNameValuePair pair : encodedParams) {
-                if (first) {
-                    first = false;
-                } else {
-                    sb.append("%26");
-                }
-                sb.append(encode(String.format("%s=%s", pair.getName(), pair.getValue())));
-            }
+    protected static BasicNameValuePair getAuthorizationHeader(ApiClient.HttpMethod method, Uri uri, Params params) {
+        return getAuthorizationHeader(method, uri, params, null);
+    }
 
-            // Step 4: add body
-            sb.append('&');
-            // TODO: add the body here when we support other content types than application/x-www-form-urlencoded
-
-            // Final step: Hash and format header
-            Mac mac = Mac.getInstance("HmacSHA1");
-            SecretKeySpec secret = new SecretKeySpec(WonderPush.getClientSecret().getBytes("UTF-8"), mac.getAlgorithm());
-            mac.init(secret);
-            byte[] digest = mac.doFinal(sb.toString().getBytes());
-            String sig = android.util.Base64.encodeToString(digest, Base64.DEFAULT).trim();
-            String encodedSig = encode(sig.trim());
-            return new BasicNameValuePair("X-WonderPush-Authorization", String.format("WonderPush sig=\"%s\", meth=\"0\"", encodedSig));
+    /**
+     * @param params The parameters sent in the query string or as a form, {@code null} for JSON encoded requests
+     * @param body The JSON body, {@code null} for form encoded requests
+     */
+    protected static BasicNameValuePair getAuthorizationHeader(ApiClient.HttpMethod method, Uri uri, Params params, String body) {
+        try {
+            return RequestSigner.get().sign(WonderPush.getClientSecret(), method,
+                    uri.getScheme(), uri.getHost(), uri.getEncodedPath(), uri.getQuery(), params, body);
         } catch (Exception e) {
             Log.e(TAG, "Could not generate signature", e);
             return null;
@@ -230,6 +183,8 @@ class Request {
 
         public static final String TAG = "WonderPush.Request." + Params.class.getSimpleName();
 
+        private static final String JSON_BODY_PARAM = "body";
+
         public Params(Parcel in) throws JSONException {
             JSONObject json = new JSONObject(in.readString());
             Iterator<?> it = json.keys();
@@ -264,6 +219,52 @@ class Request {
             return buffer.toString();
         }
 
+        /**
+         * Returns the parameters as a JSON object, for {@link RequestBodyEncoding#JSON} requests.
+         * The {@code body} parameter holds JSON by convention, it is embedded as is instead of as a string.
+         * Parameters given several values become arrays.
+         */
+        public String getJSONBody() {
+            JSONObject result = new JSONObject();
+            for (Map.Entry<String, String> entry : urlParams.entrySet()) {
+                Object value = entry.getValue();
+                if (JSON_BODY_PARAM.equals(entry.getKey())) {
+                    value = parseJSONBody(entry.getValue());
+                }
+                try {
+                    result.put(entry.getKey(), value);
+                } catch (JSONException e) {
+                    WonderPush.logError("Failed to add parameter " + entry.getKey(), e);
+                }
+            }
+            for (Map.Entry<String, Object> entry : urlParamsWithObjects.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Collection && ((Collection<?>) value).size() == 1) {
+                    // A parameter given a single value using add()
+                    value = ((Collection<?>) value).iterator().next();
+                }
+                try {
+                    result.put(entry.getKey(), JSONObject.wrap(value));
+                } catch (JSONException e) {
+                    WonderPush.logError("Failed to add parameter " + entry.getKey(), e);
+                }
+            }
+            return result.toString();
+        }
+
+        private static Object parseJSONBody(String body) {
+            try {
+                if (body.startsWith("{")) {
+                    return new JSONObject(body);
+                } else if (body.startsWith("[")) {
+                    return new JSONArray(body);
+                }
+            } catch (JSONException e) {
+                WonderPush.logDebug("Sending unparsable body parameter as a string: " + e.getMessage());
+            }
+            return body;
+        }
+
         public JSONObject toJSONObject() {
             JSONObject result = new JSONObject();
             List<BasicNameValuePair> params = getParamsList();
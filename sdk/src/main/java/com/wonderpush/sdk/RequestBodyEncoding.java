@@ -0,0 +1,122 @@
+package com.wonderpush.sdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+/**
+ * How the parameters of a request with a body are sent to the server.
+ */
+enum RequestBodyEncoding {
+
+    /**
+     * {@code application/x-www-form-urlencoded}, parameters are signed in step 3 of the authorization header.
+     */
+    FORM,
+
+    /**
+     * {@code application/json}, see {@link Request.Params#getJSONBody()}.
+     * The body is signed in step 4 of the authorization header.
+     */
+    JSON,
+
+    /**
+     * Like {@link #JSON}, compressed with gzip.
+     * The uncompressed body is signed.
+     */
+    GZIP_JSON,
+    ;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
+
+    boolean isJSON() {
+        return this != FORM;
+    }
+
+    String getContentType() {
+        return isJSON() ? "application/json; charset=utf-8" : "application/x-www-form-urlencoded";
+    }
+
+    /**
+     * @return The {@code Content-Encoding} header value, or {@code null}
+     */
+    String getContentEncoding() {
+        return this == GZIP_JSON ? "gzip" : null;
+    }
+
+    /**
+     * Builds the body of a JSON encoded request.
+     */
+    RequestBody createBody(String json) throws IOException {
+        byte[] bytes = json.getBytes(UTF8);
+        if (this == GZIP_JSON) {
+            bytes = gzip(bytes);
+        }
+        return RequestBody.create(JSON_MEDIA_TYPE, bytes);
+    }
+
+    static byte[] gzip(byte[] input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(32, input.length / 4));
+        GZIPOutputStream gzip = new GZIPOutputStream(output);
+        try {
+            gzip.write(input);
+        } finally {
+            gzip.close();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Chooses the encoding of requests by resource prefix.
+     * The longest matching prefix wins, resources matching no prefix use {@link #FORM}.
+     */
+    static class Selector {
+
+        private final ConcurrentSkipListMap<String, RequestBodyEncoding> mEncodings = new ConcurrentSkipListMap<>();
+
+        void set(String resourcePrefix, RequestBodyEncoding encoding) {
+            if (resourcePrefix == null) return;
+            if (encoding == null || encoding == FORM) {
+                mEncodings.remove(resourcePrefix);
+            } else {
+                mEncodings.put(resourcePrefix, encoding);
+            }
+        }
+
+        void clear() {
+            mEncodings.clear();
+        }
+
+        RequestBodyEncoding get(ApiClient.HttpMethod method, String resource) {
+            if (resource == null || mEncodings.isEmpty()) return FORM;
+            switch (method) {
+                case POST:
+                case PUT:
+                case PATCH:
+                    break;
+                default:
+                    // Parameters go in the query string
+                    return FORM;
+            }
+            RequestBodyEncoding rtn = FORM;
+            int matchLength = -1;
+            for (Map.Entry<String, RequestBodyEncoding> entry : mEncodings.entrySet()) {
+                String prefix = entry.getKey();
+                if (prefix.length() > matchLength && resource.startsWith(prefix)) {
+                    rtn = entry.getValue();
+                    matchLength = prefix.length();
+                }
+            }
+            return rtn;
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.wonderpush.sdk;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import okio.ByteString;
+
+/**
+ * Computes the {@code X-WonderPush-Authorization} header of requests.
+ *
+ * <p>
+ *     Signers are per thread, see {@link #get()}.
+ *     Each keeps its {@link Mac} initialized with the client secret until the secret changes,
+ *     and reuses its buffer for the string to sign.
+ *     Parameters are percent-encoded directly into that buffer.
+ * </p>
+ */
+class RequestSigner {
+
+    static final String HEADER_NAME = "X-WonderPush-Authorization";
+
+    private static final String ALGORITHM = "HmacSHA1";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<RequestSigner> sSigners = new ThreadLocal<RequestSigner>() {
+        @Override
+        protected RequestSigner initialValue() {
+            return new RequestSigner();
+        }
+    };
+
+    private static final Comparator<Request.BasicNameValuePair> PAIR_COMPARATOR = new Comparator<Request.BasicNameValuePair>() {
+        @Override
+        public int compare(Request.BasicNameValuePair lhs, Request.BasicNameValuePair rhs) {
+            int rtn = lhs.getName().compareTo(rhs.getName());
+            if (rtn == 0) {
+                rtn = lhs.getValue().compareTo(rhs.getValue());
+            }
+            return rtn;
+        }
+    };
+
+    /**
+     * Returns the signer of the current thread.
+     */
+    static RequestSigner get() {
+        return sSigners.get();
+    }
+
+    private Mac mMac;
+    private String mSecret;
+    private final StringBuilder mBuffer = new StringBuilder(1024);
+    private final StringBuilder mEncodeBuffer = new StringBuilder(256);
+
+    private Mac getMac(String secret) throws GeneralSecurityException {
+        if (mMac == null || !secret.equals(mSecret)) {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(UTF8), ALGORITHM));
+            mMac = mac;
+            mSecret = secret;
+        }
+        return mMac;
+    }
+
+    /**
+     * Signs a request.
+     * The URL is given in parts so that signing does not depend on the Android framework.
+     *
+     * @param secret The client secret
+     * @param scheme The scheme of the URL
+     * @param host The host of the URL
+     * @param encodedPath The percent-encoded path of the URL
+     * @param query The decoded query string of the URL, {@code null} if none
+     * @param params The parameters sent in the query string or as a form, {@code null} for JSON encoded requests
+     * @param body The JSON body, {@code null} for form encoded requests
+     */
+    Request.BasicNameValuePair sign(String secret, ApiClient.HttpMethod method, String scheme, String host, String encodedPath, String query,
+                                    Request.Params params, String body) throws GeneralSecurityException {
+        StringBuilder sb = mBuffer;
+        sb.setLength(0);
+
+        // Step 1: add HTTP method uppercase
+        sb.append(method.name());
+        sb.append('&');
+
+        // Step 2: add the URI
+        // Query string is stripped from resource
+        appendEncoded(sb, String.valueOf(scheme));
+        appendEncoded(sb, "://");
+        appendEncoded(sb, String.valueOf(host));
+        appendEncoded(sb, String.valueOf(encodedPath));
+
+        // Step 3: add URL encoded parameters
+        sb.append('&');
+        List<Request.BasicNameValuePair> unencodedParams = new ArrayList<>();
+        if (query != null) {
+            Request.Params queryStringParams = QueryStringParser.getRequestParams(query);
+            if (queryStringParams != null) {
+                unencodedParams.addAll(queryStringParams.getParamsList());
+            }
+        }
+        if (params != null) {
+            unencodedParams.addAll(params.getParamsList());
+        }
+        Request.BasicNameValuePair[] encodedParams = new Request.BasicNameValuePair[unencodedParams.size()];
+        int i = 0;
+        for (Request.BasicNameValuePair pair : unencodedParams) {
+            encodedParams[i++] = new Request.BasicNameValuePair(encode(pair.getName()), encode(pair.getValue()));
+        }
+        Arrays.sort(encodedParams, PAIR_COMPARATOR);
+        for (i = 0; i < encodedParams.length; i++) {
+            if (i > 0) sb.append("%26");
+            appendEncoded(sb, encodedParams[i].getName());
+            sb.append("%3D");
+            appendEncoded(sb, encodedParams[i].getValue());
+        }
+
+        // Step 4: add body
+        sb.append('&');
+        if (body != null) {
+            appendEncoded(sb, body);
+        }
+
+        // Final step: Hash and format header
+        Mac mac = getMac(secret);
+        // The string to sign is pure ASCII
+        byte[] input = new byte[sb.length()];
+        for (i = 0; i < input.length; i++) {
+            input[i] = (byte) sb.charAt(i);
+        }
+        byte[] digest = mac.doFinal(input);
+        String sig = ByteString.of(digest).base64();
+        return new Request.BasicNameValuePair(HEADER_NAME, "WonderPush sig=\"" + encode(sig) + "\", meth=\"0\"");
+    }
+
+    private String encode(String s) {
+        StringBuilder sb = mEncodeBuffer;
+        sb.setLength(0);
+        appendEncoded(sb, s);
+        return sb.toString();
+    }
+
+    /**
+     * Percent-encodes like {@link Request#encode(String)}: every character but {@code A-Z a-z 0-9 - _ . ~}
+     * is replaced by the percent-encoded bytes of its UTF-8 representation.
+     */
+    static void appendEncoded(StringBuilder sb, String s) {
+        for (int i = 0, l = s.length(); i < l; i++) {
+            char c = s.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                sb.append(c);
+            } else if (c < 0x80) {
+                appendPercent(sb, c);
+            } else {
+                int end = i + 1;
+                if (Character.isHighSurrogate(c) && end < l && Character.isLowSurrogate(s.charAt(end))) {
+                    end++;
+                }
+                for (byte b : s.substring(i, end).getBytes(UTF8)) {
+                    appendPercent(sb, b & 0xFF);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private static void appendPercent(StringBuilder sb, int b) {
+        sb.append('%');
+        sb.append(HEX[(b >> 4) & 0xF]);
+        sb.append(HEX[b & 0xF]);
+    }
+
+}
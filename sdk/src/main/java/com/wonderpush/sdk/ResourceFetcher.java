@@ -0,0 +1,247 @@
+package com.wonderpush.sdk;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Sink;
+
+/**
+ * Downloads the resources of rich notifications into the cache.
+ *
+ * <p>
+ *     Resources are fetched in parallel using the shared {@link WonderPushHttpClient},
+ *     so they reuse its pooled connections.
+ *     Each response is checked against the maximum file size from its headers before reading its body,
+ *     then streamed into a temporary file, unique to the fetch, that is only renamed into the cache once complete.
+ *     Calls still running at the deadline are canceled, leaving nothing behind in the cache.
+ *     The cache is trimmed once all the fetches are over, and trimming leaves temporary files alone.
+ * </p>
+ */
+class ResourceFetcher {
+
+    private static final String TAG = "WonderPush." + ResourceFetcher.class.getSimpleName();
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final String PARTIAL_SUFFIX = ".part";
+
+    static class FileTooLargeException extends IOException {
+        FileTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Fetches a resource, blocking.
+     *
+     * @return The cached file, or {@code null} if it could not be fetched
+     */
+    static File fetch(CacheUtil.FetchWork work) {
+        File cached = CacheUtil.getCachedFile(work);
+        if (cached == null || CacheUtil.isUsable(work, cached)) {
+            return cached;
+        }
+        long start = SystemClock.elapsedRealtime();
+        Call call;
+        try {
+            call = WonderPushHttpClient.get().newCall(buildRequest(work));
+        } catch (IllegalArgumentException ex) {
+            Log.e(TAG, work.logPrefix + ": Failed to fetch from URI " + work.uri, ex);
+            return null;
+        }
+        try (Response response = call.execute()) {
+            return store(work, cached, response, start);
+        } catch (IOException ex) {
+            logFailure(work, call, ex, start);
+            return null;
+        } finally {
+            CacheUtil.expireCache(work.cacheSubfolder, work.maxCacheSize);
+        }
+    }
+
+    /**
+     * Fetches resources in parallel, blocking until they are all fetched or the timeout elapses.
+     * Fetches still running by then are canceled.
+     *
+     * @return The number of resources available in the cache
+     */
+    static int fetchAll(Collection<CacheUtil.FetchWork> works, long timeoutMs) {
+        final long start = SystemClock.elapsedRealtime();
+        final CountDownLatch latch = new CountDownLatch(works.size());
+        final AtomicInteger available = new AtomicInteger();
+        List<Call> calls = new ArrayList<>(works.size());
+        for (final CacheUtil.FetchWork work : works) {
+            final File cached = CacheUtil.getCachedFile(work);
+            if (cached == null || CacheUtil.isUsable(work, cached)) {
+                if (cached != null) available.incrementAndGet();
+                latch.countDown();
+                continue;
+            }
+            Call call;
+            try {
+                call = WonderPushHttpClient.get().newCall(buildRequest(work));
+            } catch (IllegalArgumentException ex) {
+                Log.e(TAG, work.logPrefix + ": Failed to fetch from URI " + work.uri, ex);
+                latch.countDown();
+                continue;
+            }
+            call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+            calls.add(call);
+            call.enqueue(new SafeOkHttpCallback() {
+                @Override
+                protected void onFailureSafe(Call call, IOException e) {
+                    try {
+                        logFailure(work, call, e, start);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+
+                @Override
+                protected void onResponseSafe(Call call, Response response) {
+                    try {
+                        if (store(work, cached, response, start) != null) {
+                            available.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        logFailure(work, call, e, start);
+                    } finally {
+                        response.close();
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            if (!latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                WonderPush.logDebug("Resources were not all fetched within " + timeoutMs + "ms, canceling the remaining fetches");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // Has no effect on completed calls
+        for (Call call : calls) {
+            call.cancel();
+        }
+        expireCaches(works);
+        return available.get();
+    }
+
+    /**
+     * Trims each cache the given works were fetched into, once.
+     */
+    private static void expireCaches(Collection<CacheUtil.FetchWork> works) {
+        Map<String, Integer> maxCacheSizes = new HashMap<>();
+        for (CacheUtil.FetchWork work : works) {
+            Integer maxCacheSize = maxCacheSizes.get(work.cacheSubfolder);
+            maxCacheSizes.put(work.cacheSubfolder, maxCacheSize == null ? work.maxCacheSize : Math.min(maxCacheSize, work.maxCacheSize));
+        }
+        for (Map.Entry<String, Integer> entry : maxCacheSizes.entrySet()) {
+            try {
+                CacheUtil.expireCache(entry.getKey(), entry.getValue());
+            } catch (Exception ex) {
+                Log.e(TAG, "Failed to expire cache " + entry.getKey(), ex);
+            }
+        }
+    }
+
+    private static void logFailure(CacheUtil.FetchWork work, Call call, IOException e, long start) {
+        if (call.isCanceled()) {
+            WonderPush.logDebug(work.logPrefix + ": Canceled fetching " + work.uri + " after " + (SystemClock.elapsedRealtime() - start) + "ms");
+        } else {
+            Log.e(TAG, work.logPrefix + ": Error while fetching resource " + work.uri + " after " + (SystemClock.elapsedRealtime() - start) + "ms", e);
+        }
+    }
+
+    static Request buildRequest(CacheUtil.FetchWork work) {
+        return new Request.Builder().url(work.uri.toString()).get().build();
+    }
+
+    /**
+     * Streams the response into the cache.
+     *
+     * @return The cached file, or {@code null} if the response is not successful
+     */
+    private static File store(CacheUtil.FetchWork work, File cached, Response response, long start) throws IOException {
+        long headersReceived = SystemClock.elapsedRealtime();
+        if (!response.isSuccessful()) {
+            Log.e(TAG, work.logPrefix + ": Unexpected status " + response.code() + " while fetching resource " + work.uri);
+            return null;
+        }
+        ResponseBody body = response.body();
+        if (body == null) return null;
+        WonderPush.logDebug(work.logPrefix + ": Content-Type: " + body.contentType());
+        WonderPush.logDebug(work.logPrefix + ": Content-Length: " + body.contentLength() + " bytes");
+        long size;
+        try {
+            size = writeTo(body, cached, work.maxFileSize);
+        } catch (FileTooLargeException ex) {
+            Log.e(TAG, work.logPrefix + ": " + ex.getMessage() + " for " + work.uri);
+            return null;
+        }
+        long end = SystemClock.elapsedRealtime();
+        WonderPush.logDebug(work.logPrefix + ": Fetched " + size + " bytes from " + work.uri + " in " + (end - start) + "ms"
+                + " (headers after " + (headersReceived - start) + "ms, using " + response.protocol() + ")");
+        return cached;
+    }
+
+    /**
+     * Streams a body into a file, through a temporary file so that the target is either complete or absent.
+     *
+     * @return The number of bytes written
+     * @throws FileTooLargeException If the body is, or announces to be, larger than {@code maxFileSize}
+     */
+    static long writeTo(ResponseBody body, File target, long maxFileSize) throws IOException {
+        long contentLength = body.contentLength();
+        if (contentLength > maxFileSize) {
+            throw new FileTooLargeException("file too large (" + contentLength + " is over " + maxFileSize + " bytes)");
+        }
+        // Concurrent fetches of the same resource each write their own file
+        File partial = new File(target.getPath() + "." + UUID.randomUUID() + PARTIAL_SUFFIX);
+        boolean success = false;
+        try {
+            long total = 0;
+            BufferedSource source = body.source();
+            try (Sink sink = Okio.sink(partial)) {
+                Buffer buffer = new Buffer();
+                long read;
+                while ((read = source.read(buffer, BUFFER_SIZE)) != -1) {
+                    total += read;
+                    if (total > maxFileSize) {
+                        throw new FileTooLargeException("file too large (max " + maxFileSize + " bytes allowed)");
+                    }
+                    sink.write(buffer, read);
+                }
+            }
+            if (!partial.renameTo(target)) {
+                throw new IOException("Failed to move " + partial + " to " + target);
+            }
+            success = true;
+            return total;
+        } finally {
+            if (!success) {
+                partial.delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the SDK initialization in named stages, each one exposing a readiness future and reporting its timing.
+ *
+ * <p>
+ *     Stages needed before returning to the application run on the calling thread with {@link #run(String, Runnable)},
+ *     the others with {@link #runAsync(String, Executor, Runnable)}.
+ *     Anything depending on a background stage waits for {@link #getReadiness(String)}.
+ * </p>
+ */
+class StagedInitializer {
+
+    private static final String TAG = "WonderPush." + StagedInitializer.class.getSimpleName();
+
+    private final long mStartNanos = System.nanoTime();
+    private final Map<String, DeferredFuture<Void>> mStages = new HashMap<>();
+    private final List<String> mTrace = new ArrayList<>();
+
+    private synchronized DeferredFuture<Void> getStage(String name) {
+        DeferredFuture<Void> stage = mStages.get(name);
+        if (stage == null) {
+            stage = new DeferredFuture<>();
+            mStages.put(name, stage);
+        }
+        return stage;
+    }
+
+    /**
+     * Returns a future settled once the given stage has run, even if it has not been started yet.
+     * The future fails with the exception thrown by the stage, if any.
+     */
+    Future<Void> getReadiness(String name) {
+        return getStage(name).getFuture();
+    }
+
+    /**
+     * Runs a stage on the calling thread.
+     *
+     * @throws RuntimeException The exception thrown by the stage, after reporting it
+     */
+    Future<Void> run(String name, Runnable stage) {
+        RuntimeException ex = execute(name, stage, System.nanoTime());
+        if (ex != null) throw ex;
+        return getReadiness(name);
+    }
+
+    /**
+     * Runs a stage with the given executor.
+     */
+    Future<Void> runAsync(final String name, Executor executor, final Runnable stage) {
+        final long scheduledNanos = System.nanoTime();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(name, stage, scheduledNanos);
+            }
+        });
+        return getReadiness(name);
+    }
+
+    /**
+     * @return The exception thrown by the stage, if any
+     */
+    private RuntimeException execute(String name, Runnable stage, long scheduledNanos) {
+        DeferredFuture<Void> readiness = getStage(name);
+        RuntimeException error = null;
+        long startNanos = System.nanoTime();
+        try {
+            stage.run();
+            readiness.set(null);
+        } catch (RuntimeException ex) {
+            Log.e(TAG, "Initialization stage " + name + " failed", ex);
+            readiness.setException(ex);
+            error = ex;
+        }
+        long endNanos = System.nanoTime();
+        String entry = name
+                + ": waited " + toMillis(startNanos - scheduledNanos) + "ms"
+                + ", ran " + toMillis(endNanos - startNanos) + "ms"
+                + ", ready " + toMillis(endNanos - mStartNanos) + "ms after start"
+                + " on thread " + Thread.currentThread().getName();
+        synchronized (this) {
+            mTrace.add(entry);
+        }
+        WonderPush.logDebug("Initialization stage " + entry);
+        return error;
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1000000;
+    }
+
+    /**
+     * Returns the timing of the stages that have run, in the order they finished.
+     */
+    synchronized List<String> getTrace() {
+        return Collections.unmodifiableList(new ArrayList<>(mTrace));
+    }
+
+}
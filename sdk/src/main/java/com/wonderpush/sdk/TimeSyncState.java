@@ -0,0 +1,240 @@
+package com.wonderpush.sdk;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The state of the time synchronization behind {@link TimeSync}, and its transitions.
+ *
+ * <p>
+ *     The state is an immutable {@link Snapshot}.
+ *     Updates build a new snapshot and publish it with a compare-and-set, starting over from the latest one
+ *     when another thread won, so reads take no lock.
+ * </p>
+ */
+final class TimeSyncState {
+
+    /**
+     * The clocks the synchronization relies on.
+     */
+    interface Clock {
+        long currentTimeMillis();
+        long elapsedRealtime();
+    }
+
+    /**
+     * An immutable view of the synchronization state.
+     */
+    static final class Snapshot {
+
+        final boolean restored;
+        final long startupDateToServerDateOffset;
+        final long startupDateToServerDateUncertainty;
+        final long deviceDateToServerDateOffset;
+        final long deviceDateToServerDateUncertainty;
+        final long startupDateToDeviceDateOffset;
+
+        Snapshot(boolean restored,
+                 long startupDateToServerDateOffset, long startupDateToServerDateUncertainty,
+                 long deviceDateToServerDateOffset, long deviceDateToServerDateUncertainty,
+                 long startupDateToDeviceDateOffset) {
+            this.restored = restored;
+            this.startupDateToServerDateOffset = startupDateToServerDateOffset;
+            this.startupDateToServerDateUncertainty = startupDateToServerDateUncertainty;
+            this.deviceDateToServerDateOffset = deviceDateToServerDateOffset;
+            this.deviceDateToServerDateUncertainty = deviceDateToServerDateUncertainty;
+            this.startupDateToDeviceDateOffset = startupDateToDeviceDateOffset;
+        }
+
+        Snapshot withStartupDateToDeviceDateOffset(long startupDateToDeviceDateOffset, long deviceDateToServerDateOffset) {
+            return new Snapshot(restored,
+                    startupDateToServerDateOffset, startupDateToServerDateUncertainty,
+                    deviceDateToServerDateOffset, deviceDateToServerDateUncertainty,
+                    startupDateToDeviceDateOffset);
+        }
+
+    }
+
+    private final Clock mClock;
+    private final Runnable mOnDeviceSyncChanged;
+    private final AtomicReference<Snapshot> mSnapshot = new AtomicReference<>(new Snapshot(false,
+            0, Long.MAX_VALUE,
+            0, Long.MAX_VALUE,
+            Long.MAX_VALUE));
+
+    /**
+     * @param clock
+     *            The clocks to read
+     * @param onDeviceSyncChanged
+     *            Called after the "device" sync changed, so that it can be persisted
+     */
+    TimeSyncState(Clock clock, Runnable onDeviceSyncChanged) {
+        mClock = clock;
+        mOnDeviceSyncChanged = onDeviceSyncChanged;
+    }
+
+    Snapshot getSnapshot() {
+        return mSnapshot.get();
+    }
+
+    /**
+     * Applies the "device" sync read from the preferences, unless a server sync already superseded it.
+     * Only the first call has an effect.
+     */
+    Snapshot restore(long deviceDateToServerDateOffset, long deviceDateToServerDateUncertainty) {
+        Snapshot snapshot = mSnapshot.get();
+        while (!snapshot.restored) {
+            Snapshot restored;
+            if (snapshot.deviceDateToServerDateUncertainty == Long.MAX_VALUE) {
+                restored = new Snapshot(true,
+                        snapshot.startupDateToServerDateOffset, snapshot.startupDateToServerDateUncertainty,
+                        deviceDateToServerDateOffset, deviceDateToServerDateUncertainty,
+                        snapshot.startupDateToDeviceDateOffset);
+            } else {
+                // A server sync happened before the preferences were available, it supersedes them
+                restored = new Snapshot(true,
+                        snapshot.startupDateToServerDateOffset, snapshot.startupDateToServerDateUncertainty,
+                        snapshot.deviceDateToServerDateOffset, snapshot.deviceDateToServerDateUncertainty,
+                        snapshot.startupDateToDeviceDateOffset);
+            }
+            if (mSnapshot.compareAndSet(snapshot, restored)) {
+                return restored;
+            }
+            snapshot = mSnapshot.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the current timestamp in milliseconds, UTC.
+     */
+    long getTime() {
+        Snapshot snapshot = mSnapshot.get();
+        long currentTimeMillis = mClock.currentTimeMillis();
+        long elapsedRealtime = mClock.elapsedRealtime();
+        long startupToDeviceOffset = currentTimeMillis - elapsedRealtime;
+
+        // Check device date consistency with startup date
+        if (snapshot.startupDateToDeviceDateOffset == Long.MAX_VALUE
+                || Math.abs(startupToDeviceOffset - snapshot.startupDateToDeviceDateOffset) > 1000) {
+            snapshot = resynchronizeDeviceDate(snapshot, startupToDeviceOffset);
+        }
+
+        if (snapshot.startupDateToServerDateUncertainty <= snapshot.deviceDateToServerDateUncertainty
+                // Don't use the startup date if it has not been synced, use and trust last device date sync
+                && snapshot.startupDateToServerDateUncertainty != Long.MAX_VALUE) {
+            return elapsedRealtime + snapshot.startupDateToServerDateOffset;
+        } else {
+            return currentTimeMillis + snapshot.deviceDateToServerDateOffset;
+        }
+    }
+
+    private Snapshot resynchronizeDeviceDate(Snapshot snapshot, long startupToDeviceOffset) {
+        while (true) {
+            Snapshot updated;
+            boolean jumped = false;
+            if (snapshot.startupDateToDeviceDateOffset == Long.MAX_VALUE) {
+                updated = snapshot.withStartupDateToDeviceDateOffset(startupToDeviceOffset, snapshot.deviceDateToServerDateOffset);
+            } else if (Math.abs(startupToDeviceOffset - snapshot.startupDateToDeviceDateOffset) > 1000) {
+                // System time has jumped (by at least 1 second), or has drifted with regards to elapsedRealtime.
+                // Apply the offset difference to resynchronize the "device" sync offset onto the new system date.
+                updated = snapshot.withStartupDateToDeviceDateOffset(startupToDeviceOffset,
+                        snapshot.deviceDateToServerDateOffset - (startupToDeviceOffset - snapshot.startupDateToDeviceDateOffset));
+                jumped = true;
+            } else {
+                // Another thread has already applied the correction
+                return snapshot;
+            }
+            if (mSnapshot.compareAndSet(snapshot, updated)) {
+                if (jumped) {
+                    mOnDeviceSyncChanged.run();
+                }
+                return updated;
+            }
+            snapshot = mSnapshot.get();
+        }
+    }
+
+    /**
+     * Synchronize time with the WonderPush servers.
+     *
+     * @see TimeSync#syncTimeWithServer(long, long, long, long)
+     */
+    void syncTimeWithServer(long elapsedRealtimeSend, long elapsedRealtimeReceive, long serverDate, long serverTook) {
+        if (serverDate == 0) {
+            return;
+        }
+
+        // We have two synchronization sources:
+        // - The "startup" sync, bound to the process lifecycle, using SystemClock.elapsedRealtime()
+        //   This time source cannot be messed up with.
+        //   It is only valid until the device reboots, at which time a new time origin is set.
+        // - The "device" sync, bound to the system clock, using System.currentTimeMillis()
+        //   This time source is affected each time the user changes the date and time,
+        //   but it is not affected by timezone or daylight saving changes.
+        // The "startup" sync must be saved into a "device" sync in order to persist between runs of the process.
+        // The "startup" sync should only be stored in memory, and no attempt to count reboot should be taken.
+
+        long uncertainty = (elapsedRealtimeReceive - elapsedRealtimeSend - serverTook) / 2;
+        long offset = serverDate + serverTook / 2 - (elapsedRealtimeSend + elapsedRealtimeReceive) / 2;
+
+        Snapshot snapshot = mSnapshot.get();
+        while (true) {
+            long startupToDeviceOffset = mClock.currentTimeMillis() - mClock.elapsedRealtime();
+            long startupDateToDeviceDateOffset = snapshot.startupDateToDeviceDateOffset;
+            if (startupDateToDeviceDateOffset == Long.MAX_VALUE) {
+                startupDateToDeviceDateOffset = startupToDeviceOffset;
+            }
+            long startupDateToServerDateOffset = snapshot.startupDateToServerDateOffset;
+            long startupDateToServerDateUncertainty = snapshot.startupDateToServerDateUncertainty;
+            long deviceDateToServerDateOffset = snapshot.deviceDateToServerDateOffset;
+            long deviceDateToServerDateUncertainty = snapshot.deviceDateToServerDateUncertainty;
+            boolean deviceSyncChanged = false;
+
+            // We must improve the quality of the "startup" sync. We can trust elaspedRealtime() based measures.
+            if (
+                // Case 1. Lower uncertainty
+                    uncertainty < startupDateToServerDateUncertainty
+                            // Case 2. Additional check for exceptional server-side time gaps
+                            //         Calculate whether the two offsets agree within the total uncertainty limit
+                            || Math.abs(offset - startupDateToServerDateOffset)
+                            > uncertainty+startupDateToServerDateUncertainty
+                // note the RHS overflows with the Long.MAX_VALUE initialization, but case 1 handles that
+                    ) {
+                // Case 1. Take the new, more accurate synchronization
+                // Case 2. Forget the old synchronization, time have changed too much
+                startupDateToServerDateOffset = offset;
+                startupDateToServerDateUncertainty = uncertainty;
+            }
+
+            // We must detect whether the "device" sync is still valid, otherwise we must update it.
+            if (
+                // Case 1. Lower uncertainty
+                    startupDateToServerDateUncertainty < deviceDateToServerDateUncertainty
+                            // Case 2. Local clock was updated, or the two time sources have drifted from each other
+                            || Math.abs(startupToDeviceOffset - startupDateToDeviceDateOffset) > startupDateToServerDateUncertainty
+                            // Case 3. Time gap between the "startup" and "device" sync
+                            || Math.abs(deviceDateToServerDateOffset - (startupDateToServerDateOffset - startupDateToDeviceDateOffset))
+                            > deviceDateToServerDateUncertainty + startupDateToServerDateUncertainty
+                // note the RHS overflows with the Long.MAX_VALUE initialization, but case 1 handles that
+                    ) {
+                deviceDateToServerDateOffset = startupDateToServerDateOffset - startupDateToDeviceDateOffset;
+                deviceDateToServerDateUncertainty = startupDateToServerDateUncertainty;
+                deviceSyncChanged = true;
+            }
+
+            Snapshot updated = new Snapshot(snapshot.restored,
+                    startupDateToServerDateOffset, startupDateToServerDateUncertainty,
+                    deviceDateToServerDateOffset, deviceDateToServerDateUncertainty,
+                    startupDateToDeviceDateOffset);
+            if (mSnapshot.compareAndSet(snapshot, updated)) {
+                if (deviceSyncChanged) {
+                    mOnDeviceSyncChanged.run();
+                }
+                return;
+            }
+            // A concurrent update happened, start over from it
+            snapshot = mSnapshot.get();
+        }
+    }
+
+}
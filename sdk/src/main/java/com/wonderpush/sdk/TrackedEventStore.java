@@ -0,0 +1,287 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores the events tracked locally, for segmentation purposes, indexed by event type.
+ *
+ * <p>
+ *     Several occurrences of each type are kept, ordered by date.
+ *     Occurrences older than the retention window are dropped,
+ *     except the latest occurrence of each type that is always kept.
+ *     The latest occurrence of each type is marked with {@code "collapsing":"last"}.
+ * </p>
+ *
+ * <p>
+ *     Events are persisted in a {@link WonderPushJobJournal},
+ *     so that recording an event appends to the file instead of rewriting every stored event.
+ * </p>
+ */
+class TrackedEventStore {
+
+    private static final String TAG = WonderPush.TAG;
+
+    static final String JOURNAL_DIRECTORY = "wonderpush-tracked-events";
+    static final long DEFAULT_RETENTION = 30L * 24 * 60 * 60 * 1000;
+    static final int DEFAULT_MAX_OCCURRENCES_PER_TYPE = 50;
+
+    private static volatile long sRetention = DEFAULT_RETENTION;
+    private static volatile int sMaxOccurrencesPerType = DEFAULT_MAX_OCCURRENCES_PER_TYPE;
+
+    /**
+     * Sets how long past occurrences of an event type are kept, in milliseconds.
+     */
+    static void setRetention(long retention) {
+        sRetention = Math.max(0, retention);
+    }
+
+    /**
+     * Sets the maximum number of occurrences kept per event type.
+     */
+    static void setMaxOccurrencesPerType(int maxOccurrencesPerType) {
+        sMaxOccurrencesPerType = Math.max(1, maxOccurrencesPerType);
+    }
+
+    private static class Occurrence {
+        final String id;
+        final long date;
+        final JSONObject event;
+        JSONObject lastEvent;
+
+        Occurrence(String id, long date, JSONObject event) {
+            this.id = id;
+            this.date = date;
+            this.event = event;
+        }
+
+        /**
+         * The event as exposed when it is the latest occurrence of its type.
+         */
+        JSONObject getLastEvent() {
+            if (lastEvent == null) {
+                try {
+                    lastEvent = new JSONObject(event.toString());
+                    // FIXME: remove me when the server sends a different DSL to clients and the database
+                    lastEvent.put("collapsing", "last");
+                } catch (JSONException ex) {
+                    Log.e(TAG, "Could not mark tracked event as last", ex);
+                    lastEvent = event;
+                }
+            }
+            return lastEvent;
+        }
+
+        JSONObject toJSON() throws JSONException {
+            JSONObject rtn = new JSONObject();
+            rtn.put("id", id);
+            rtn.put("event", event);
+            return rtn;
+        }
+    }
+
+    private final WonderPushJobJournal mJournal;
+    private final Map<String, List<Occurrence>> mByType = new LinkedHashMap<>();
+    private List<JSONObject> mAllEvents;
+
+    TrackedEventStore(WonderPushJobJournal journal) {
+        mJournal = journal;
+    }
+
+    /**
+     * Reads the stored events from disk, dropping the expired ones.
+     */
+    synchronized void restore() {
+        mByType.clear();
+        mAllEvents = null;
+        List<String> expired = new ArrayList<>();
+        for (JSONObject record : mJournal.restore()) {
+            JSONObject event = record.optJSONObject("event");
+            String id = record.optString("id", null);
+            if (event == null || id == null) continue;
+            insert(new Occurrence(id, getDate(event), event), expired);
+        }
+        mJournal.remove(expired);
+    }
+
+    /**
+     * Records an occurrence of an event.
+     *
+     * @param eventData The event, with a {@code type} field, it is copied
+     */
+    synchronized void add(JSONObject eventData) {
+        String type = JSONUtil.getString(eventData, "type");
+        if (type == null) return;
+        try {
+            Occurrence occurrence = newOccurrence(eventData);
+            List<String> expired = new ArrayList<>();
+            insert(occurrence, expired);
+            mAllEvents = null;
+            mJournal.put(occurrence.toJSON());
+            mJournal.remove(expired);
+        } catch (JSONException ex) {
+            Log.e(TAG, "Could not store tracked event", ex);
+        }
+    }
+
+    /**
+     * Replaces all the stored events.
+     */
+    synchronized void reset(Collection<JSONObject> events) {
+        mByType.clear();
+        mAllEvents = null;
+        List<String> expired = new ArrayList<>();
+        for (JSONObject eventData : events) {
+            if (JSONUtil.getString(eventData, "type") == null) continue;
+            try {
+                insert(newOccurrence(eventData), expired);
+            } catch (JSONException ex) {
+                Log.e(TAG, "Could not store tracked event", ex);
+            }
+        }
+        List<JSONObject> records = new ArrayList<>();
+        for (List<Occurrence> occurrences : mByType.values()) {
+            for (Occurrence occurrence : occurrences) {
+                try {
+                    records.add(occurrence.toJSON());
+                } catch (JSONException ex) {
+                    Log.e(TAG, "Could not store tracked event", ex);
+                }
+            }
+        }
+        mJournal.reset(records);
+    }
+
+    synchronized void clear() {
+        reset(Collections.<JSONObject>emptyList());
+    }
+
+    /**
+     * Returns all the stored events, grouped by type and ordered by date within a type.
+     * The returned events are shared and must not be modified.
+     */
+    synchronized List<JSONObject> getAll() {
+        if (mAllEvents == null) {
+            List<JSONObject> events = new ArrayList<>();
+            for (List<Occurrence> occurrences : mByType.values()) {
+                for (int i = 0, last = occurrences.size() - 1; i <= last; i++) {
+                    Occurrence occurrence = occurrences.get(i);
+                    events.add(i == last ? occurrence.getLastEvent() : occurrence.event);
+                }
+            }
+            mAllEvents = Collections.unmodifiableList(events);
+        }
+        return mAllEvents;
+    }
+
+    /**
+     * Returns the stored occurrences of the given event type, oldest first.
+     * The returned events are shared and must not be modified.
+     */
+    synchronized List<JSONObject> get(String type) {
+        List<Occurrence> occurrences = mByType.get(type);
+        if (occurrences == null) return Collections.emptyList();
+        List<JSONObject> rtn = new ArrayList<>(occurrences.size());
+        for (int i = 0, last = occurrences.size() - 1; i <= last; i++) {
+            Occurrence occurrence = occurrences.get(i);
+            rtn.add(i == last ? occurrence.getLastEvent() : occurrence.event);
+        }
+        return rtn;
+    }
+
+    /**
+     * Returns the latest occurrence of the given event type, or {@code null}.
+     */
+    synchronized JSONObject getLast(String type) {
+        List<Occurrence> occurrences = mByType.get(type);
+        if (occurrences == null || occurrences.isEmpty()) return null;
+        return occurrences.get(occurrences.size() - 1).getLastEvent();
+    }
+
+    /**
+     * Counts the stored occurrences of the given event type that happened at or after the given date.
+     */
+    synchronized int count(String type, long sinceDate) {
+        List<Occurrence> occurrences = mByType.get(type);
+        if (occurrences == null) return 0;
+        // Binary search the first occurrence not before sinceDate
+        int low = 0;
+        int high = occurrences.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (occurrences.get(mid).date < sinceDate) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return occurrences.size() - low;
+    }
+
+    synchronized int size() {
+        int rtn = 0;
+        for (List<Occurrence> occurrences : mByType.values()) {
+            rtn += occurrences.size();
+        }
+        return rtn;
+    }
+
+    /**
+     * Inserts an occurrence at its place in its type list, and prunes that list.
+     *
+     * @param expired Receives the ids of the pruned occurrences
+     */
+    private void insert(Occurrence occurrence, List<String> expired) {
+        String type = JSONUtil.getString(occurrence.event, "type");
+        List<Occurrence> occurrences = mByType.get(type);
+        if (occurrences == null) {
+            occurrences = new ArrayList<>();
+            mByType.put(type, occurrences);
+        }
+        // Events are almost always added in chronological order
+        int index = occurrences.size();
+        while (index > 0 && occurrences.get(index - 1).date > occurrence.date) {
+            index--;
+        }
+        occurrences.add(index, occurrence);
+
+        long notBefore = TimeSync.getTime() - sRetention;
+        int maxOccurrences = sMaxOccurrencesPerType;
+        Iterator<Occurrence> it = occurrences.iterator();
+        int remaining = occurrences.size();
+        while (it.hasNext() && remaining > 1) {
+            Occurrence oldest = it.next();
+            if (remaining <= maxOccurrences && oldest.date >= notBefore) break;
+            it.remove();
+            remaining--;
+            expired.add(oldest.id);
+        }
+    }
+
+    private static Occurrence newOccurrence(JSONObject eventData) throws JSONException {
+        JSONObject event = new JSONObject(eventData.toString());
+        event.remove("collapsing");
+        if (!event.has("creationDate") && event.has("actionDate")) {
+            event.putOpt("creationDate", event.opt("actionDate"));
+        }
+        return new Occurrence(UUID.randomUUID().toString(), getDate(event), event);
+    }
+
+    private static long getDate(JSONObject event) {
+        long date = event.optLong("creationDate", 0);
+        if (date <= 0) date = event.optLong("actionDate", 0);
+        return date > 0 ? date : TimeSync.getTime();
+    }
+
+}
@@ -3,13 +3,12 @@ package com.wonderpush.sdk;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.Application;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.location.LocationManager;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
@@ -31,12 +30,15 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static com.wonderpush.sdk.remoteconfig.Constants.REMOTE_CONFIG_EVENTS_BLACK_WHITE_LIST_KEY;
-
 /**
  * Main class of the WonderPush SDK.
  *
@@ -75,6 +77,19 @@ public class WonderPush {
     private static PresenceManager sPresenceManager;
     private static RemoteConfigManager sRemoteConfigManager;
 
+    /**
+     * Applies the flags of the remote config whenever a new version becomes current.
+     */
+    private static final RemoteConfigSnapshot.Listener sRemoteConfigSnapshotListener = new RemoteConfigSnapshot.Listener() {
+        @Override
+        public void onRemoteConfigSnapshotChanged(RemoteConfigSnapshot config) {
+            JSONSyncInstallation.setDisabled(config.isDisableJsonSync());
+            if (!JSONSyncInstallation.isDisabled()) JSONSyncInstallation.flushAll();
+            ApiClient.setDisabled(config.isDisableApiClient());
+            MeasurementsApiClient.setDisabled(config.isDisableMeasurementsApiClient());
+        }
+    };
+
     static {
         sDeferHandler = new Handler(Looper.getMainLooper()); // temporary value until our thread is started
         new Thread(new Runnable() {
@@ -101,6 +116,16 @@ public class WonderPush {
     private static String sClientSecret;
     private static String sBaseURL;
     private static boolean sIsInitialized = false;
+    private static volatile StagedInitializer sInitializer;
+
+    static final String INITIALIZATION_STAGE_CORE = "core";
+    static final String INITIALIZATION_STAGE_JOB_QUEUES = "jobQueues";
+    static final String INITIALIZATION_STAGE_PUSH_SERVICES = "pushServices";
+    static final String INITIALIZATION_STAGE_IN_APP_MESSAGING = "inAppMessaging";
+    static final String INITIALIZATION_STAGE_REMOTE_CONFIG = "remoteConfig";
+    static final String INITIALIZATION_STAGE_USER = "user";
+    static final String INITIALIZATION_STAGE_PERMISSION_CHECKS = "permissionChecks";
+    private static final long INITIALIZATION_STAGE_TIMEOUT_MS = 10 * 1000;
 
     private static boolean sRequiresUserConsent = false;
     private static final WonderPushNotInitializedImpl sNotInitializedImpl = new WonderPushNotInitializedImpl();
@@ -162,6 +187,8 @@ public class WonderPush {
     private static String sBeforeInitializationUserId;
 
     private static String sIntegrator = null;
+
+    private static volatile boolean sBroadcastRemoteConfigUpdates = false;
     private static AtomicReference<Location> sLocationOverride = null;
 
     private static WonderPushDelegate sDelegate;
@@ -572,12 +599,12 @@ public class WonderPush {
 
     private static WonderPushRequestVault getMeasurementsApiRequestVault() {
         if (null == sMeasurementsApiRequestVault) {
-            sMeasurementsApiRequestVault = new WonderPushRequestVault(WonderPushJobQueue.getMeasurementsApiQueue(), new WonderPushRequestVault.RequestExecutor() {
+            sMeasurementsApiRequestVault = new WonderPushRequestVault(WonderPushJobQueue.getMeasurementsApiQueue(), Uri.parse(MEASUREMENTS_API_URL).getHost(), new WonderPushRequestVault.RequestExecutor() {
                 @Override
                 public void execute(Request request) {
                     MeasurementsApiClient.execute(request);
                 }
-            });
+            }, null);
         }
         return sMeasurementsApiRequestVault;
     }
@@ -1298,9 +1325,10 @@ public class WonderPush {
         }
         LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(eventTrackedIntent);
 
-        getEventsBlackWhiteList((BlackWhiteList eventsBlackWhiteList, Throwable error) -> {
+        RemoteConfigSnapshot.get(getRemoteConfigManager(), (RemoteConfigSnapshot config, Throwable error) -> {
 
             // Do not send to server if blacklisted.
+            BlackWhiteList eventsBlackWhiteList = config != null ? config.getEventsBlackWhiteList() : null;
             if (eventsBlackWhiteList != null && !eventsBlackWhiteList.allow(type)) {
                 logError("Not tracking event forbidden by config. type=" + type + ", data=" + eventData + " custom=" + customData);
                 return;
@@ -1321,16 +1349,11 @@ public class WonderPush {
                 }
             };
 
-            getRemoteConfigManager().read(new RemoteConfigHandler() {
-                @Override
-                public void handle(RemoteConfig config, Throwable error) {
-                    if (config != null && config.getData().optBoolean(Constants.REMOTE_CONFIG_TRACK_EVENTS_FOR_NON_SUBSCRIBERS_KEY)) {
-                        post.run();
-                    } else {
-                        safeDeferWithSubscription(post, null);
-                    }
-                }
-            });
+            if (config != null && config.isTrackEventsForNonSubscribers()) {
+                post.run();
+            } else {
+                safeDeferWithSubscription(post, null);
+            }
 
         });
 
@@ -1361,9 +1384,10 @@ public class WonderPush {
         }
         LocalBroadcastManager.getInstance(getApplicationContext()).sendBroadcast(eventTrackedIntent);
 
-        getEventsBlackWhiteList((BlackWhiteList eventsBlackWhiteList, Throwable error) -> {
+        RemoteConfigSnapshot.get(getRemoteConfigManager(), (RemoteConfigSnapshot config, Throwable error) -> {
 
             // Do not send to server if blacklisted.
+            BlackWhiteList eventsBlackWhiteList = config != null ? config.getEventsBlackWhiteList() : null;
             if (eventsBlackWhiteList != null && !eventsBlackWhiteList.allow(type)) {
                 logError("Not tracking event forbidden by config. type=" + type + ", data=" + eventData + " custom=" + customData);
                 return;
@@ -1645,99 +1669,157 @@ public class WonderPush {
 
                 sIsInitialized = false;
 
-                sApplicationContext = context.getApplicationContext();
+                final StagedInitializer initializer = new StagedInitializer();
+                sInitializer = initializer;
+                final Context applicationContext = context.getApplicationContext();
+                sApplicationContext = applicationContext;
                 sClientId = clientId;
                 sClientSecret = clientSecret;
                 sBaseURL = PRODUCTION_API_URL;
-                OkHttpRemoteConfigFetcher fetcher = new OkHttpRemoteConfigFetcher(clientId, WonderPush::safeDefer);
-                SharedPreferencesRemoteConfigStorage storage = new SharedPreferencesRemoteConfigStorage(clientId, context);
-                sRemoteConfigManager = new RemoteConfigManager(fetcher, storage, context);
-
-                PushServiceManager.initialize(getApplicationContext());
-                WonderPushConfiguration.initialize(getApplicationContext());
-                WonderPushUserPreferences.initialize();
-                applyOverrideLogging(WonderPushConfiguration.getOverrideSetLogging());
-                JSONSyncInstallation.setDisabled(true);
-                ApiClient.setDisabled(true);
-                MeasurementsApiClient.setDisabled(true);
-                JSONSyncInstallation.initialize();
-                WonderPushRequestVault.initialize();
-                initializeInAppMessaging(context);
-
-                // Setup a remote config handler to execute as soon as we get the config
-                // and everytime the config changes.
-                final RemoteConfigHandler remoteConfigHandler = new RemoteConfigHandler() {
-                    @Override
-                    public void handle(@javax.annotation.Nullable RemoteConfig config, @javax.annotation.Nullable Throwable error) {
-                        if (config == null) return;
-                        JSONSyncInstallation.setDisabled(config.getData().optBoolean(Constants.REMOTE_CONFIG_DISABLE_JSON_SYNC_KEY, false));
-                        if (!JSONSyncInstallation.isDisabled()) JSONSyncInstallation.flushAll();
-                        ApiClient.setDisabled(config.getData().optBoolean(Constants.REMOTE_CONFIG_DISABLE_API_CLIENT_KEY, false));
-                        MeasurementsApiClient.setDisabled(config.getData().optBoolean(Constants.REMOTE_CONFIG_DISABLE_MEASUREMENTS_API_CLIENT_KEY, false));
-                    }
-                };
-
-                // Read the config right away
-                safeDeferWithConsent(() -> {
-                    ensureConfigurationFetched(remoteConfigHandler, 10000);
-                }, null);
-
-                // Call the handler when the config changes
-                LocalBroadcastManager.getInstance(context).registerReceiver(new BroadcastReceiver() {
-                    @Override
-                    public void onReceive(Context context, Intent intent) {
-                        String configString = intent.getStringExtra(Constants.EXTRA_REMOTE_CONFIG);
-                        if (configString != null) {
-                            RemoteConfig config = RemoteConfig.fromString(configString);
-                            remoteConfigHandler.handle(config, null);
-                        }
-                    }
-                }, new IntentFilter(Constants.INTENT_REMOTE_CONFIG_UPDATED));
 
-                initForNewUser(sBeforeInitializationUserIdSet
-                        ? sBeforeInitializationUserId
-                        : WonderPushConfiguration.getUserId());
-
-                sIsInitialized = true;
-                hasUserConsentChanged(hasUserConsent()); // make sure to set sIsInitialized=true before
-                // Ensure we get an @APP_OPEN with deferred initialization
-                if (!hasUserConsent()) {
-                    addUserConsentListener(new UserConsentListener() {
+                // The core stage stays on the calling thread: the following stages and the public API
+                // read the configuration, the installation and the request vault right after initialize() returns.
+                // It loads SharedPreferences and restores the installation from disk.
+                // The request vaults are only created, their threads wait for the job queues stage below.
+                initializer.run(INITIALIZATION_STAGE_CORE, () -> {
+                    OkHttpRemoteConfigFetcher fetcher = new OkHttpRemoteConfigFetcher(clientId, WonderPush::safeDefer);
+                    SharedPreferencesRemoteConfigStorage storage = new SharedPreferencesRemoteConfigStorage(clientId, applicationContext);
+                    sRemoteConfigManager = new RemoteConfigManager(fetcher, storage, applicationContext);
+                    sRemoteConfigManager.setBroadcastUpdates(sBroadcastRemoteConfigUpdates);
+                    RemoteConfigSnapshot.reset();
+                    RemoteConfigSnapshot.addListener(sRemoteConfigSnapshotListener);
+
+                    WonderPushConfiguration.initialize(applicationContext);
+                    TimeSync.restore();
+                    WonderPushUserPreferences.initialize();
+                    applyOverrideLogging(WonderPushConfiguration.getOverrideSetLogging());
+                    JSONSyncInstallation.setDisabled(true);
+                    ApiClient.setDisabled(true);
+                    MeasurementsApiClient.setDisabled(true);
+                    JSONSyncInstallation.initialize();
+                    WonderPushRequestVault.initialize();
+                    PushServiceManager.setContext(applicationContext);
+                });
+
+                // Restore the job queues on their journal thread, posting a request waits for its queue to be restored
+                initializer.runAsync(INITIALIZATION_STAGE_JOB_QUEUES, WonderPushJobQueue.getJournalExecutor(),
+                        WonderPushJobQueue::restoreDefaultQueues);
+
+                // Discovering push services uses reflection and initializes their providers, do it in the background,
+                // unless something needs them first, like rendering a notification, in which case it does it itself
+                initializer.runAsync(INITIALIZATION_STAGE_PUSH_SERVICES, WonderPush::safeDeferExecute,
+                        () -> PushServiceManager.initialize(applicationContext));
+
+                // The in-app graph registers activity callbacks and binds handlers to the calling thread, keep it there
+                initializer.run(INITIALIZATION_STAGE_IN_APP_MESSAGING, () -> initializeInAppMessaging(context));
+
+                initializer.run(INITIALIZATION_STAGE_REMOTE_CONFIG, () -> {
+                    // Make the config current as soon as we get it and everytime it changes,
+                    // sRemoteConfigSnapshotListener applies it.
+                    final RemoteConfigHandler remoteConfigHandler = new RemoteConfigHandler() {
                         @Override
-                        public void onUserConsentChanged(boolean hasUserConsent) {
-                            if (hasUserConsent) {
-                                injectAppOpenIfNecessary();
-                            }
+                        public void handle(@javax.annotation.Nullable RemoteConfig config, @javax.annotation.Nullable Throwable error) {
+                            RemoteConfigSnapshot.update(config);
                         }
-                    });
-                }
+                    };
 
-                // Permission checks
-                if (context.getPackageManager().checkPermission(android.Manifest.permission.INTERNET, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
-                    Log.w(TAG, "Missing INTERNET permission. Add <uses-permission android:name=\"android.permission.INTERNET\" /> under <manifest> in your AndroidManifest.xml");
-                }
-                if (sLocationOverride == null) {
-                    if (context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_COARSE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED
-                            && context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_FINE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                            Log.w(TAG, "Permissions ACCESS_COARSE_LOCATION or ACCESS_FINE_LOCATION have not been declared or granted yet. Make sure you declare <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml (you can add either or both), and call ActivityCompat.requestPermissions() to request the permission at runtime");
-                        } else {
-                            Log.w(TAG, "Missing ACCESS_COARSE_LOCATION and ACCESS_FINE_LOCATION permission. Add <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml (you can add either or both)");
-                        }
-                    } else if (context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_FINE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
-                        Log.d(TAG, "Only ACCESS_COARSE_LOCATION permission is granted. For more precision, you should strongly consider adding <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml");
+                    // Read the config right away, and open the connections to our API hosts meanwhile
+                    safeDeferWithConsent(() -> {
+                        ensureConfigurationFetched(remoteConfigHandler, 10000);
+                        WonderPushHttpClient.warmUp(getBaseURL(), MEASUREMENTS_API_URL);
+                    }, null);
+
+                    // Call the handler when the config changes
+                    sRemoteConfigManager.addObserver(config -> remoteConfigHandler.handle(config, null));
+                });
+
+                initializer.run(INITIALIZATION_STAGE_USER, () -> {
+                    initForNewUser(sBeforeInitializationUserIdSet
+                            ? sBeforeInitializationUserId
+                            : WonderPushConfiguration.getUserId());
+
+                    sIsInitialized = true;
+                    hasUserConsentChanged(hasUserConsent()); // make sure to set sIsInitialized=true before
+                    // Ensure we get an @APP_OPEN with deferred initialization
+                    if (!hasUserConsent()) {
+                        addUserConsentListener(new UserConsentListener() {
+                            @Override
+                            public void onUserConsentChanged(boolean hasUserConsent) {
+                                if (hasUserConsent) {
+                                    injectAppOpenIfNecessary();
+                                }
+                            }
+                        });
                     }
-                }
+                });
+
+                initializer.runAsync(INITIALIZATION_STAGE_PERMISSION_CHECKS, WonderPush::safeDeferExecute, () -> checkPermissions(applicationContext));
             }
 
             initializeForApplication(context);
             initializeForActivity(context);
-            refreshPreferencesAndConfiguration(false);
+            // Refreshing the push token needs the push services
+            safeDefer(() -> {
+                awaitInitializationStage(INITIALIZATION_STAGE_PUSH_SERVICES);
+                refreshPreferencesAndConfiguration(false);
+            }, 0);
         } catch (Exception e) {
             Log.e(TAG, "Unexpected error while initializing the SDK", e);
         }
     }
 
+    private static void checkPermissions(Context context) {
+        if (context.getPackageManager().checkPermission(android.Manifest.permission.INTERNET, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Missing INTERNET permission. Add <uses-permission android:name=\"android.permission.INTERNET\" /> under <manifest> in your AndroidManifest.xml");
+        }
+        if (sLocationOverride == null) {
+            if (context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_COARSE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED
+                    && context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_FINE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    Log.w(TAG, "Permissions ACCESS_COARSE_LOCATION or ACCESS_FINE_LOCATION have not been declared or granted yet. Make sure you declare <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml (you can add either or both), and call ActivityCompat.requestPermissions() to request the permission at runtime");
+                } else {
+                    Log.w(TAG, "Missing ACCESS_COARSE_LOCATION and ACCESS_FINE_LOCATION permission. Add <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml (you can add either or both)");
+                }
+            } else if (context.getPackageManager().checkPermission(android.Manifest.permission.ACCESS_FINE_LOCATION, context.getPackageName()) != PackageManager.PERMISSION_GRANTED) {
+                Log.d(TAG, "Only ACCESS_COARSE_LOCATION permission is granted. For more precision, you should strongly consider adding <uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" /> under <manifest> in your AndroidManifest.xml");
+            }
+        }
+    }
+
+    private static void safeDeferExecute(Runnable runnable) {
+        safeDefer(runnable, 0);
+    }
+
+    /**
+     * Returns the readiness of the given initialization stage, for the current initialization.
+     */
+    static Future<Void> getInitializationStage(String name) {
+        StagedInitializer initializer = sInitializer;
+        if (initializer == null) {
+            DeferredFuture<Void> notStarted = new DeferredFuture<>();
+            notStarted.setException(new IllegalStateException("WonderPush is not initialized"));
+            return notStarted.getFuture();
+        }
+        return initializer.getReadiness(name);
+    }
+
+    /**
+     * Waits for the given initialization stage to run, logging failures and timeouts.
+     *
+     * @return {@code true} if the stage has run successfully
+     */
+    static boolean awaitInitializationStage(String name) {
+        try {
+            getInitializationStage(name).get(INITIALIZATION_STAGE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | CancellationException ex) {
+            Log.w(TAG, "Initialization stage " + name + " is not ready", ex);
+        }
+        return false;
+    }
+
     private static void ensureConfigurationFetched(final RemoteConfigHandler handler, long delay) {
         if (sRemoteConfigManager == null) return;
         sRemoteConfigManager.read(new RemoteConfigHandler() {
@@ -1852,16 +1934,19 @@ public class WonderPush {
                 }
 
                 @Override
-                public void fetchInAppConfig(InAppMessaging.JSONObjectHandler handler) {
+                public void fetchInAppConfig(InAppMessaging.InAppConfigHandler handler) {
                     if (sRemoteConfigManager == null) {
-                        handler.handle(null, null);
+                        handler.handle(null, null, null);
                         return;
                     }
                     safeDeferWithConsent(new Runnable() {
                         @Override
                         public void run() {
-                            sRemoteConfigManager.read((RemoteConfig config, Throwable error) -> {
-                                handler.handle(config != null ? config.getData().optJSONObject("inAppConfig") : null, error);
+                            RemoteConfigSnapshot.get(sRemoteConfigManager, (RemoteConfigSnapshot config, Throwable error) -> {
+                                handler.handle(
+                                        config != null ? config.getInAppConfig() : null,
+                                        config != null ? config.getVersion() : null,
+                                        error);
                             });
                         }
                     }, null);
@@ -1918,6 +2003,19 @@ public class WonderPush {
         Boolean requiresUserConsent = WonderPushSettings.getBoolean("WONDERPUSH_REQUIRES_USER_CONSENT", "wonderpush_requiresUserConsent", "com.wonderpush.sdk.requiresUserConsent");
         String integrator = WonderPushSettings.getString("WONDERPUSH_INTEGRATOR", "wonderpush_integrator", "com.wonderpush.sdk.integrator");
         Boolean geolocation = WonderPushSettings.getBoolean("WONDERPUSH_GEOLOCATION", "wonderpush_geolocation", "com.wonderpush.sdk.geolocation");
+        Integer maxParallelRequests = WonderPushSettings.getInteger("WONDERPUSH_MAX_PARALLEL_REQUESTS", "wonderpush_maxParallelRequests", "com.wonderpush.sdk.maxParallelRequests");
+        Integer maxParallelRequestsPerHost = WonderPushSettings.getInteger("WONDERPUSH_MAX_PARALLEL_REQUESTS_PER_HOST", "wonderpush_maxParallelRequestsPerHost", "com.wonderpush.sdk.maxParallelRequestsPerHost");
+        Integer trackedEventsRetentionDays = WonderPushSettings.getInteger("WONDERPUSH_TRACKED_EVENTS_RETENTION_DAYS", "wonderpush_trackedEventsRetentionDays", "com.wonderpush.sdk.trackedEventsRetentionDays");
+        Integer maxTrackedEventsPerType = WonderPushSettings.getInteger("WONDERPUSH_MAX_TRACKED_EVENTS_PER_TYPE", "wonderpush_maxTrackedEventsPerType", "com.wonderpush.sdk.maxTrackedEventsPerType");
+        Integer httpMaxIdleConnections = WonderPushSettings.getInteger("WONDERPUSH_HTTP_MAX_IDLE_CONNECTIONS", "wonderpush_httpMaxIdleConnections", "com.wonderpush.sdk.httpMaxIdleConnections");
+        Integer httpKeepAliveSeconds = WonderPushSettings.getInteger("WONDERPUSH_HTTP_KEEP_ALIVE_SECONDS", "wonderpush_httpKeepAliveSeconds", "com.wonderpush.sdk.httpKeepAliveSeconds");
+        Boolean http2 = WonderPushSettings.getBoolean("WONDERPUSH_HTTP2", "wonderpush_http2", "com.wonderpush.sdk.http2");
+        Integer httpConnectTimeoutSeconds = WonderPushSettings.getInteger("WONDERPUSH_HTTP_CONNECT_TIMEOUT_SECONDS", "wonderpush_httpConnectTimeoutSeconds", "com.wonderpush.sdk.httpConnectTimeoutSeconds");
+        Integer httpReadTimeoutSeconds = WonderPushSettings.getInteger("WONDERPUSH_HTTP_READ_TIMEOUT_SECONDS", "wonderpush_httpReadTimeoutSeconds", "com.wonderpush.sdk.httpReadTimeoutSeconds");
+        Integer httpWriteTimeoutSeconds = WonderPushSettings.getInteger("WONDERPUSH_HTTP_WRITE_TIMEOUT_SECONDS", "wonderpush_httpWriteTimeoutSeconds", "com.wonderpush.sdk.httpWriteTimeoutSeconds");
+        String eventsBodyEncoding = WonderPushSettings.getString("WONDERPUSH_EVENTS_BODY_ENCODING", "wonderpush_eventsBodyEncoding", "com.wonderpush.sdk.eventsBodyEncoding");
+        Integer eventsBatchMaxAgeMs = WonderPushSettings.getInteger("WONDERPUSH_EVENTS_BATCH_MAX_AGE_MS", "wonderpush_eventsBatchMaxAgeMs", "com.wonderpush.sdk.eventsBatchMaxAgeMs");
+        Boolean broadcastRemoteConfigUpdates = WonderPushSettings.getBoolean("WONDERPUSH_BROADCAST_REMOTE_CONFIG_UPDATES", "wonderpush_broadcastRemoteConfigUpdates", "com.wonderpush.sdk.broadcastRemoteConfigUpdates");
 
         // Apply any found configuration prior to initializing the SDK
         if (logging != null) {
@@ -1941,6 +2039,64 @@ public class WonderPush {
             logDebug("Applying configuration: integrator: " + integrator);
             setIntegrator(integrator);
         }
+        if (maxParallelRequests != null) {
+            logDebug("Applying configuration: maxParallelRequests: " + maxParallelRequests);
+            WonderPushRequestVault.setMaxParallelCalls(maxParallelRequests);
+        }
+        if (maxParallelRequestsPerHost != null) {
+            logDebug("Applying configuration: maxParallelRequestsPerHost: " + maxParallelRequestsPerHost);
+            WonderPushRequestVault.setMaxParallelCallsPerHost(maxParallelRequestsPerHost);
+        }
+        if (trackedEventsRetentionDays != null) {
+            logDebug("Applying configuration: trackedEventsRetentionDays: " + trackedEventsRetentionDays);
+            TrackedEventStore.setRetention(trackedEventsRetentionDays * 24L * 60 * 60 * 1000);
+        }
+        if (maxTrackedEventsPerType != null) {
+            logDebug("Applying configuration: maxTrackedEventsPerType: " + maxTrackedEventsPerType);
+            TrackedEventStore.setMaxOccurrencesPerType(maxTrackedEventsPerType);
+        }
+        if (httpMaxIdleConnections != null) {
+            logDebug("Applying configuration: httpMaxIdleConnections: " + httpMaxIdleConnections);
+            WonderPushHttpClient.setMaxIdleConnections(httpMaxIdleConnections);
+        }
+        if (httpKeepAliveSeconds != null) {
+            logDebug("Applying configuration: httpKeepAliveSeconds: " + httpKeepAliveSeconds);
+            WonderPushHttpClient.setKeepAlive(httpKeepAliveSeconds * 1000L);
+        }
+        if (http2 != null) {
+            logDebug("Applying configuration: http2: " + http2);
+            WonderPushHttpClient.setHttp2Enabled(http2);
+        }
+        if (httpConnectTimeoutSeconds != null) {
+            logDebug("Applying configuration: httpConnectTimeoutSeconds: " + httpConnectTimeoutSeconds);
+            WonderPushHttpClient.setConnectTimeout(httpConnectTimeoutSeconds * 1000L);
+        }
+        if (httpReadTimeoutSeconds != null) {
+            logDebug("Applying configuration: httpReadTimeoutSeconds: " + httpReadTimeoutSeconds);
+            WonderPushHttpClient.setReadTimeout(httpReadTimeoutSeconds * 1000L);
+        }
+        if (httpWriteTimeoutSeconds != null) {
+            logDebug("Applying configuration: httpWriteTimeoutSeconds: " + httpWriteTimeoutSeconds);
+            WonderPushHttpClient.setWriteTimeout(httpWriteTimeoutSeconds * 1000L);
+        }
+        if (eventsBodyEncoding != null) {
+            logDebug("Applying configuration: eventsBodyEncoding: " + eventsBodyEncoding);
+            try {
+                RequestBodyEncoding encoding = RequestBodyEncoding.valueOf(eventsBodyEncoding.toUpperCase(Locale.ROOT));
+                ApiClient.setBodyEncoding(WonderPushRequestBatcher.EVENTS_RESOURCE, encoding);
+                MeasurementsApiClient.setBodyEncoding("/events", encoding);
+            } catch (IllegalArgumentException ex) {
+                Log.w(TAG, "Unknown eventsBodyEncoding " + eventsBodyEncoding + ", expected one of " + Arrays.toString(RequestBodyEncoding.values()));
+            }
+        }
+        if (eventsBatchMaxAgeMs != null) {
+            logDebug("Applying configuration: eventsBatchMaxAgeMs: " + eventsBatchMaxAgeMs);
+            WonderPushRequestBatcher.setMaxBatchAge(eventsBatchMaxAgeMs);
+        }
+        if (broadcastRemoteConfigUpdates != null) {
+            logDebug("Applying configuration: broadcastRemoteConfigUpdates: " + broadcastRemoteConfigUpdates);
+            setBroadcastRemoteConfigUpdates(broadcastRemoteConfigUpdates);
+        }
 
         // Store the ApplicationContext at the very least, this will benefit many codepath that may
         // accepts that initialization is not possible but expect WonderPushConfiguration to work
@@ -2540,6 +2696,28 @@ public class WonderPush {
         sIntegrator = integrator;
     }
 
+    /**
+     * Sets whether to broadcast remote configuration updates.
+     *
+     * When enabled, the SDK sends a local broadcast with the action
+     * {@link com.wonderpush.sdk.remoteconfig.Constants#INTENT_REMOTE_CONFIG_UPDATED}
+     * and the serialized configuration in the
+     * {@link com.wonderpush.sdk.remoteconfig.Constants#EXTRA_REMOTE_CONFIG} extra,
+     * every time a configuration with a higher version is fetched.
+     * Disabled by default, as serializing the configuration has a cost.
+     *
+     * Can also be set with the {@code broadcastRemoteConfigUpdates} setting.
+     *
+     * @param enabled Whether to broadcast updates
+     */
+    public static void setBroadcastRemoteConfigUpdates(boolean enabled) {
+        sBroadcastRemoteConfigUpdates = enabled;
+        RemoteConfigManager remoteConfigManager = sRemoteConfigManager;
+        if (remoteConfigManager != null) {
+            remoteConfigManager.setBroadcastUpdates(enabled);
+        }
+    }
+
     protected static boolean safeDefer(final Runnable runnable, long defer) {
         return sDeferHandler.postDelayed(new Runnable() {
             @Override
@@ -2631,33 +2809,6 @@ public class WonderPush {
         return sRemoteConfigManager;
     }
 
-    private interface EventsBlackWhiteListCallback {
-        void call(BlackWhiteList list, Throwable error);
-    }
-
-    private static BlackWhiteList parseEventsBlackWhiteList(RemoteConfig config) {
-        if (config == null) return null;
-        BlackWhiteList list = null;
-        if (config != null) {
-            JSONArray blackWhiteListRules = config.getData().optJSONArray(REMOTE_CONFIG_EVENTS_BLACK_WHITE_LIST_KEY);
-            if (blackWhiteListRules != null) {
-                List<String> rules = new ArrayList<>();
-                for (int i = 0; i < blackWhiteListRules.length(); i++) {
-                    String rule = blackWhiteListRules.optString(i);
-                    if (rule != null) rules.add(rule);
-                }
-                list = new BlackWhiteList(rules);
-            }
-        }
-        return list;
-    }
-
-    private static void getEventsBlackWhiteList(EventsBlackWhiteListCallback callback) {
-        getRemoteConfigManager().read((RemoteConfig config, Throwable error) -> {
-            if (callback != null) callback.call(parseEventsBlackWhiteList(config), error);
-        });
-    }
-
     enum SubscriptionStatus {
         OPT_IN("optIn"),
         OPT_OUT("optOut");
@@ -2669,18 +2820,15 @@ public class WonderPush {
 
     static SubscriptionStatus getSubscriptionStatus() {
         JSONSyncInstallation installation = JSONSyncInstallation.forCurrentUser();
-        try {
-            JSONObject preferences = installation != null ? installation.getSdkState().optJSONObject("preferences") : null;
-            String subscriptionStatus = preferences != null ? preferences.optString("subscriptionStatus") : null;
-            if (subscriptionStatus == null) return null;
+        PersistentJSONObject preferences = installation != null ? installation.getSdkStateSnapshot().optJSONObject("preferences") : null;
+        String subscriptionStatus = preferences != null ? preferences.optString("subscriptionStatus", "") : null;
+        if (subscriptionStatus == null) return null;
 
-            if (subscriptionStatus.equals(SubscriptionStatus.OPT_OUT.slug)) {
-                return SubscriptionStatus.OPT_OUT;
-            }
-            if (subscriptionStatus.equals(SubscriptionStatus.OPT_IN.slug)) {
-                return SubscriptionStatus.OPT_IN;
-            }
-        } catch (JSONException e) {
+        if (subscriptionStatus.equals(SubscriptionStatus.OPT_OUT.slug)) {
+            return SubscriptionStatus.OPT_OUT;
+        }
+        if (subscriptionStatus.equals(SubscriptionStatus.OPT_IN.slug)) {
+            return SubscriptionStatus.OPT_IN;
         }
         return null;
     }
@@ -8,6 +8,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -57,6 +58,7 @@ public class WonderPushConfiguration {
 
     private static final String LAST_RECEIVED_NOTIFICATION_INFO_JSON_PREF_NAME = "__last_received_notification_info_json";
     private static final String LAST_OPENED_NOTIFICATION_INFO_JSON_PREF_NAME = "__last_opened_notification_info_json";
+    private static final String RECENT_RECEIVED_NOTIFICATIONS_JSON_PREF_NAME = "__recent_received_notifications_json";
 
     private static final String LAST_INTERACTION_DATE_PREF_NAME = "__last_interaction_date";
     private static final String LAST_APPOPEN_DATE_PREF_NAME = "__last_appopen_date";
@@ -217,6 +219,8 @@ public class WonderPushConfiguration {
                 editor.remove(STORED_TRACKED_EVENTS_PREF_NAME);
                 editor.apply();
             }
+            TrackedEventStore store = getTrackedEventStore();
+            if (store != null) store.clear();
         }
     }
 
@@ -230,6 +234,8 @@ public class WonderPushConfiguration {
             editor.remove(key);
         }
         editor.apply();
+        TrackedEventStore store = getTrackedEventStore();
+        if (store != null) store.clear();
     }
 
     static JSONObject dumpState() {
@@ -375,6 +381,15 @@ public class WonderPushConfiguration {
         editor.apply();
     }
 
+    private static List<JSONObject> JSONArrayToListJSONObject(JSONArray array) {
+        List<JSONObject> result = new ArrayList<>();
+        for (int i = 0; array != null && i < array.length(); i++) {
+            JSONObject item = array.optJSONObject(i);
+            if (item != null) result.add(item);
+        }
+        return result;
+    }
+
     private static Set<String> JSONArrayToSetString(JSONArray values) {
         TreeSet<String> rtn = new TreeSet<>();
         if (values != null) {
@@ -864,6 +879,23 @@ public class WonderPushConfiguration {
         putJSONObject(LAST_RECEIVED_NOTIFICATION_INFO_JSON_PREF_NAME, info);
     }
 
+    /**
+     * Get the recently received notifications, mapped to their reception date, stored in the user's shared preferences.
+     */
+    public static JSONObject getRecentReceivedNotificationsJson() {
+        return getJSONObject(RECENT_RECEIVED_NOTIFICATIONS_JSON_PREF_NAME);
+    }
+
+    /**
+     * Set the recently received notifications stored in the user's shared preferences.
+     *
+     * @param recentReceivedNotifications
+     *            The recently received notifications, mapped to their reception date
+     */
+    public static void setRecentReceivedNotificationsJson(JSONObject recentReceivedNotifications) {
+        putJSONObject(RECENT_RECEIVED_NOTIFICATIONS_JSON_PREF_NAME, recentReceivedNotifications);
+    }
+
     /**
      * Get the last opened notification information stored in the user's shared preferences.
      */
@@ -1057,48 +1089,59 @@ public class WonderPushConfiguration {
         putString(TIME_ZONE_PREF_NAME, value);
     }
 
-    static void rememberTrackedEvent(JSONObject eventData) {
-        String type = JSONUtil.getString(eventData, "type");
-        if (type == null) return;
-        List<JSONObject> trackedEvents = getTrackedEvents();
-        JSONArray storeTrackedEvents = new JSONArray();
-        for (JSONObject trackedEvent : trackedEvents) {
-            // Filter out events of the given type
-            // We only keep one copy per event type
-            if (type.equals(trackedEvent.optString("type"))) continue;
-            storeTrackedEvents.put(trackedEvent);
+    private static TrackedEventStore sTrackedEventStore;
+
+    /**
+     * Returns the event store of the current user, restoring it from disk on first use.
+     *
+     * @return The store, or {@code null} if the SDK has not been initialized yet
+     */
+    static TrackedEventStore getTrackedEventStore() {
+        synchronized (WonderPushConfiguration.class) {
+            if (sTrackedEventStore == null) {
+                Context context = getApplicationContext();
+                if (context == null) return null;
+                File file = new File(new File(context.getFilesDir(), TrackedEventStore.JOURNAL_DIRECTORY), "events.journal");
+                boolean migrate = !file.exists();
+                TrackedEventStore store = new TrackedEventStore(new WonderPushJobJournal(file));
+                store.restore();
+                if (migrate) {
+                    // Import the events stored by previous versions of the SDK
+                    JSONArray legacyTrackedEvents = getJSONArray(STORED_TRACKED_EVENTS_PREF_NAME);
+                    if (legacyTrackedEvents != null) {
+                        store.reset(JSONArrayToListJSONObject(legacyTrackedEvents));
+                        remove(STORED_TRACKED_EVENTS_PREF_NAME);
+                    }
+                }
+                sTrackedEventStore = store;
+            }
+            return sTrackedEventStore;
         }
-        try {
-            JSONObject copyOfEventData = new JSONObject(eventData.toString());
-            // FIXME: remove me when the server sends a different DSL to clients and the database
-            copyOfEventData.put("collapsing", "last");
-            storeTrackedEvents.put(copyOfEventData);
-            setTrackedEvents(storeTrackedEvents);
-        } catch (JSONException e) {
-            Log.e(WonderPush.TAG, "Could not store tracked event", e);
+    }
+
+    static void rememberTrackedEvent(JSONObject eventData) {
+        TrackedEventStore store = getTrackedEventStore();
+        if (store == null) {
+            Log.e(WonderPush.TAG, "Could not store tracked event, no context available");
+            return;
         }
+        store.add(eventData);
     }
 
     static void setTrackedEvents(JSONArray trackedEvents) {
-        putJSONArray(STORED_TRACKED_EVENTS_PREF_NAME, trackedEvents);
+        TrackedEventStore store = getTrackedEventStore();
+        if (store == null) return;
+        store.reset(JSONArrayToListJSONObject(trackedEvents));
     }
 
+    /**
+     * Returns the events tracked by the current user, grouped by type and ordered by date within a type.
+     * The returned events are shared and must not be modified.
+     */
     public static List<JSONObject> getTrackedEvents() {
-        List<JSONObject> result = new ArrayList<>();
-        JSONArray storedTrackedEvents = getJSONArray(STORED_TRACKED_EVENTS_PREF_NAME);
-        for (int i = 0; storedTrackedEvents != null && i < storedTrackedEvents.length(); i++) {
-            JSONObject event = storedTrackedEvents.optJSONObject(i);
-            if (event == null) continue;
-            if (!event.has("creationDate") && event.has("actionDate")) {
-                try {
-                    event.putOpt("creationDate", event.opt("actionDate"));
-                } catch (JSONException ex) {
-                    Log.w(WonderPush.TAG, "Unexpected exception while copying actionDate into creationDate", ex);
-                }
-            }
-            result.add(event);
-        }
-        return result;
+        TrackedEventStore store = getTrackedEventStore();
+        if (store == null) return new ArrayList<>();
+        return store.getAll();
     }
 
 }
@@ -0,0 +1,252 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The HTTP transport shared by every part of the SDK.
+ *
+ * <p>
+ *     All the SDK HTTP clients derive from a single {@link OkHttpClient},
+ *     so that they share one connection pool, one dispatcher and one TLS session cache.
+ *     Clients needing specific interceptors must use {@link #newBuilder()} to keep sharing them.
+ * </p>
+ *
+ * @hide
+ */
+public class WonderPushHttpClient {
+
+    private static final String TAG = "WonderPush." + WonderPushHttpClient.class.getSimpleName();
+
+    static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    static final long DEFAULT_KEEP_ALIVE = 5 * 60 * 1000; // in milliseconds
+    static final long DEFAULT_CONNECT_TIMEOUT = 10 * 1000; // in milliseconds
+    static final long DEFAULT_READ_TIMEOUT = 10 * 1000; // in milliseconds
+    static final long DEFAULT_WRITE_TIMEOUT = 10 * 1000; // in milliseconds
+
+    private static int sMaxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private static long sKeepAlive = DEFAULT_KEEP_ALIVE;
+    private static boolean sHttp2Enabled = true;
+    private static long sConnectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private static long sReadTimeout = DEFAULT_READ_TIMEOUT;
+    private static long sWriteTimeout = DEFAULT_WRITE_TIMEOUT;
+
+    private static OkHttpClient sClient;
+    private static boolean sPoolChanged;
+
+    private static final AtomicLong sCallCount = new AtomicLong();
+    private static final AtomicLong sConnectionCount = new AtomicLong();
+    private static final AtomicLong sConnectionAcquiredCount = new AtomicLong();
+
+    /**
+     * Counts calls and connections, to tell how often connections are reused.
+     */
+    private static final EventListener STATS_LISTENER = new EventListener() {
+        @Override
+        public void callStart(Call call) {
+            sCallCount.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            sConnectionCount.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            sConnectionAcquiredCount.incrementAndGet();
+        }
+    };
+
+    /**
+     * A snapshot of the usage of the shared transport.
+     */
+    public static class Stats {
+        /** Number of HTTP calls started. */
+        public final long callCount;
+        /** Number of connections opened, including failed attempts. */
+        public final long connectionCount;
+        /** Number of times a call obtained a connection, new or pooled. */
+        public final long connectionAcquiredCount;
+        /** Number of times a call obtained an already open connection. */
+        public final long reusedConnectionCount;
+        /** Number of connections currently in the pool. */
+        public final int pooledConnectionCount;
+        /** Number of idle connections currently in the pool. */
+        public final int idleConnectionCount;
+
+        Stats(long callCount, long connectionCount, long connectionAcquiredCount, int pooledConnectionCount, int idleConnectionCount) {
+            this.callCount = callCount;
+            this.connectionCount = connectionCount;
+            this.connectionAcquiredCount = connectionAcquiredCount;
+            this.reusedConnectionCount = Math.max(0, connectionAcquiredCount - connectionCount);
+            this.pooledConnectionCount = pooledConnectionCount;
+            this.idleConnectionCount = idleConnectionCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{"
+                    + "calls=" + callCount
+                    + ", connections=" + connectionCount
+                    + ", acquired=" + connectionAcquiredCount
+                    + ", reused=" + reusedConnectionCount
+                    + ", pooled=" + pooledConnectionCount
+                    + ", idle=" + idleConnectionCount
+                    + "}";
+        }
+    }
+
+    /**
+     * Sets the maximum number of idle connections kept in the pool.
+     */
+    static synchronized void setMaxIdleConnections(int maxIdleConnections) {
+        sMaxIdleConnections = Math.max(0, maxIdleConnections);
+        sPoolChanged = true;
+        invalidate();
+    }
+
+    /**
+     * Sets how long idle connections are kept in the pool, in milliseconds.
+     */
+    static synchronized void setKeepAlive(long keepAlive) {
+        sKeepAlive = Math.max(1, keepAlive);
+        sPoolChanged = true;
+        invalidate();
+    }
+
+    /**
+     * Sets whether HTTP/2 is negotiated when the server supports it.
+     * Otherwise only HTTP/1.1 is used.
+     */
+    static synchronized void setHttp2Enabled(boolean http2Enabled) {
+        sHttp2Enabled = http2Enabled;
+        invalidate();
+    }
+
+    /**
+     * Sets the connect timeout, in milliseconds, 0 meaning no timeout.
+     */
+    static synchronized void setConnectTimeout(long connectTimeout) {
+        sConnectTimeout = Math.max(0, connectTimeout);
+        invalidate();
+    }
+
+    /**
+     * Sets the read timeout, in milliseconds, 0 meaning no timeout.
+     */
+    static synchronized void setReadTimeout(long readTimeout) {
+        sReadTimeout = Math.max(0, readTimeout);
+        invalidate();
+    }
+
+    /**
+     * Sets the write timeout, in milliseconds, 0 meaning no timeout.
+     */
+    static synchronized void setWriteTimeout(long writeTimeout) {
+        sWriteTimeout = Math.max(0, writeTimeout);
+        invalidate();
+    }
+
+    /**
+     * Rebuilds the shared client with the current settings, if it was built already.
+     * Calls in flight finish on the previous client.
+     */
+    private static void invalidate() {
+        if (sClient == null) return;
+        OkHttpClient previous = sClient;
+        sClient = build(previous);
+        if (sPoolChanged) {
+            previous.connectionPool().evictAll();
+        }
+        sPoolChanged = false;
+    }
+
+    private static OkHttpClient build(OkHttpClient previous) {
+        OkHttpClient.Builder builder = previous == null ? new OkHttpClient.Builder() : previous.newBuilder();
+        if (previous == null || sPoolChanged) {
+            builder.connectionPool(new ConnectionPool(sMaxIdleConnections, sKeepAlive, TimeUnit.MILLISECONDS));
+        }
+        return builder
+                .eventListener(STATS_LISTENER)
+                .protocols(sHttp2Enabled ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Collections.singletonList(Protocol.HTTP_1_1))
+                .connectTimeout(sConnectTimeout, TimeUnit.MILLISECONDS)
+                .readTimeout(sReadTimeout, TimeUnit.MILLISECONDS)
+                .writeTimeout(sWriteTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the shared client.
+     */
+    public static synchronized OkHttpClient get() {
+        if (sClient == null) {
+            sClient = build(null);
+            sPoolChanged = false;
+        }
+        return sClient;
+    }
+
+    /**
+     * Returns a builder for a client sharing the connection pool, dispatcher and settings of the shared client.
+     */
+    public static OkHttpClient.Builder newBuilder() {
+        return get().newBuilder();
+    }
+
+    /**
+     * Opens connections to the given URLs ahead of the first real calls,
+     * so that these do not pay for DNS resolution, TCP and TLS handshakes.
+     * Connections are left in the pool for the next calls to the same hosts.
+     */
+    static void warmUp(String... urls) {
+        OkHttpClient client = get();
+        for (String url : urls) {
+            if (url == null) continue;
+            Request request;
+            try {
+                request = new Request.Builder().url(url).head().build();
+            } catch (IllegalArgumentException ex) {
+                Log.w(TAG, "Cannot warm up invalid URL " + url, ex);
+                continue;
+            }
+            client.newCall(request).enqueue(new SafeOkHttpCallback() {
+                @Override
+                public void onFailureSafe(Call call, IOException e) {
+                    WonderPush.logDebug("Failed to warm up connection to " + call.request().url().host() + ": " + e);
+                }
+
+                @Override
+                public void onResponseSafe(Call call, Response response) {
+                    response.close();
+                    WonderPush.logDebug("Warmed up connection to " + call.request().url().host() + " using " + response.protocol());
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns a snapshot of the usage of the shared transport.
+     */
+    public static Stats getStats() {
+        ConnectionPool pool = get().connectionPool();
+        return new Stats(sCallCount.get(), sConnectionCount.get(), sConnectionAcquiredCount.get(), pool.connectionCount(), pool.idleConnectionCount());
+    }
+
+}
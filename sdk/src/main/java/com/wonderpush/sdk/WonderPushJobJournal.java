@@ -0,0 +1,269 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only file journal persisting the jobs of a {@link WonderPushJobQueue}.
+ * Also used for other records carrying an {@code id} string field, like by {@link TrackedEventStore}.
+ *
+ * <p>
+ *     Each line of the file is a JSON record, either {@code {"put":<job>}} when a job is stored,
+ *     or {@code {"del":"<jobId>"}} as a tombstone when a job leaves the queue.
+ *     Replaying the file from the start rebuilds the set of live jobs.
+ *     A record left incomplete by a crash is skipped on restore.
+ * </p>
+ *
+ * <p>
+ *     The file is compacted, that is rewritten with the live jobs only,
+ *     when tombstones and overwritten records outnumber live jobs.
+ *     The rewrite goes through a temporary file renamed over the journal so that it is atomic.
+ * </p>
+ */
+class WonderPushJobJournal {
+
+    private static final String TAG = WonderPush.TAG;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String RECORD_PUT = "put";
+    private static final String RECORD_DEL = "del";
+
+    /**
+     * Minimum number of dead records before considering a compaction.
+     */
+    static final int COMPACTION_MIN_DEAD_RECORDS = 64;
+
+    private final File mFile;
+    private final Map<String, JSONObject> mLiveJobs = new LinkedHashMap<>();
+    private OutputStream mOutput;
+    private int mRecordCount;
+    private long mLength;
+
+    WonderPushJobJournal(File file) {
+        mFile = file;
+    }
+
+    File getFile() {
+        return mFile;
+    }
+
+    boolean exists() {
+        return mFile.exists();
+    }
+
+    /**
+     * Number of records in the file, live or dead.
+     */
+    synchronized int getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * Size of the journal file, in bytes.
+     */
+    synchronized long getLength() {
+        return mLength;
+    }
+
+    /**
+     * Reads the journal from disk.
+     *
+     * @return The live jobs, in insertion order
+     */
+    synchronized List<JSONObject> restore() {
+        closeOutput();
+        mLiveJobs.clear();
+        mRecordCount = 0;
+        mLength = 0;
+        if (!mFile.exists()) return new ArrayList<>();
+
+        boolean corrupted = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mFile), UTF8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                mLength += line.getBytes(UTF8).length + 1;
+                if (line.length() == 0) continue;
+                mRecordCount++;
+                try {
+                    JSONObject record = new JSONObject(line);
+                    if (record.has(RECORD_PUT)) {
+                        JSONObject job = record.getJSONObject(RECORD_PUT);
+                        mLiveJobs.put(job.getString("id"), job);
+                    } else if (record.has(RECORD_DEL)) {
+                        mLiveJobs.remove(record.getString(RECORD_DEL));
+                    }
+                } catch (JSONException ex) {
+                    // Most likely a record interrupted by the death of the process
+                    Log.w(TAG, "Skipping malformed job journal record in " + mFile.getName(), ex);
+                    corrupted = true;
+                }
+            }
+        } catch (IOException ex) {
+            Log.e(TAG, "Could not read job journal " + mFile.getName(), ex);
+            corrupted = true;
+        }
+
+        if (corrupted) {
+            // Do not append after a partial line
+            compact();
+        } else {
+            compactIfNeeded();
+        }
+        return new ArrayList<>(mLiveJobs.values());
+    }
+
+    /**
+     * Records that a job was stored.
+     *
+     * @param job The job description, with an {@code id} string field
+     */
+    synchronized void put(JSONObject job) {
+        String id = job.optString("id", null);
+        if (id == null) return;
+        try {
+            JSONObject record = new JSONObject();
+            record.put(RECORD_PUT, job);
+            mLiveJobs.put(id, job);
+            append(record);
+        } catch (JSONException ex) {
+            Log.e(TAG, "Could not journal job " + id, ex);
+        }
+    }
+
+    /**
+     * Writes a tombstone for the given jobs.
+     */
+    synchronized void remove(Collection<String> ids) {
+        if (ids.isEmpty()) return;
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (String id : ids) {
+                if (mLiveJobs.remove(id) == null) continue;
+                JSONObject record = new JSONObject();
+                record.put(RECORD_DEL, id);
+                sb.append(record.toString()).append('\n');
+                mRecordCount++;
+            }
+            write(sb.toString());
+        } catch (JSONException ex) {
+            Log.e(TAG, "Could not journal removal of jobs " + ids, ex);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Replaces the whole content of the journal with the given jobs.
+     */
+    synchronized void reset(Collection<JSONObject> jobs) {
+        mLiveJobs.clear();
+        for (JSONObject job : jobs) {
+            String id = job.optString("id", null);
+            if (id != null) mLiveJobs.put(id, job);
+        }
+        compact();
+    }
+
+    /**
+     * Closes the underlying file.
+     */
+    synchronized void close() {
+        closeOutput();
+    }
+
+    private void append(JSONObject record) {
+        mRecordCount++;
+        write(record.toString() + "\n");
+        compactIfNeeded();
+    }
+
+    private void write(String data) {
+        if (data.length() == 0) return;
+        try {
+            if (mOutput == null) {
+                File parent = mFile.getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Could not create directory " + parent);
+                }
+                mOutput = new FileOutputStream(mFile, true);
+            }
+            byte[] bytes = data.getBytes(UTF8);
+            mOutput.write(bytes);
+            mOutput.flush();
+            mLength += bytes.length;
+        } catch (IOException ex) {
+            Log.e(TAG, "Could not write to job journal " + mFile.getName(), ex);
+            closeOutput();
+        }
+    }
+
+    private void compactIfNeeded() {
+        int dead = mRecordCount - mLiveJobs.size();
+        if (dead >= COMPACTION_MIN_DEAD_RECORDS && dead > mLiveJobs.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        closeOutput();
+        File parent = mFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            Log.e(TAG, "Could not create directory " + parent);
+            return;
+        }
+        File tmp = new File(mFile.getPath() + ".tmp");
+        int recordCount = 0;
+        long length = 0;
+        try (FileOutputStream output = new FileOutputStream(tmp, false)) {
+            StringBuilder sb = new StringBuilder();
+            for (JSONObject job : mLiveJobs.values()) {
+                JSONObject record = new JSONObject();
+                record.put(RECORD_PUT, job);
+                sb.append(record.toString()).append('\n');
+                recordCount++;
+            }
+            byte[] bytes = sb.toString().getBytes(UTF8);
+            output.write(bytes);
+            output.getFD().sync();
+            length = bytes.length;
+        } catch (IOException | JSONException ex) {
+            Log.e(TAG, "Could not compact job journal " + mFile.getName(), ex);
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(mFile)) {
+            Log.e(TAG, "Could not replace job journal " + mFile.getName());
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        mRecordCount = recordCount;
+        mLength = length;
+    }
+
+    private void closeOutput() {
+        if (mOutput == null) return;
+        try {
+            mOutput.close();
+        } catch (IOException ignored) {
+        }
+        mOutput = null;
+    }
+
+}
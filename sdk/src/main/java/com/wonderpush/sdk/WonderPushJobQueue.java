@@ -1,26 +1,43 @@
 package com.wonderpush.sdk;
 
+import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * A simple persistent job queue which saves itself on disk using SharedPreferences
+ * A simple persistent job queue which saves itself on disk using a {@link WonderPushJobJournal}
  * and wraps an {@link ArrayBlockingQueue}.
+ * Journal writes happen on a background thread, in the order the jobs are posted and taken.
+ * The default queues are restored in the background too, and posting waits for their restoration.
  */
 class WonderPushJobQueue {
 
     private static final String TAG = WonderPush.TAG;
 
     private static final int DEFAULT_CAPACITY = 32;
+    private static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final String JOURNAL_DIRECTORY = "wonderpush-job-queues";
 
     /**
      * Queued objects.
@@ -33,10 +50,47 @@ class WonderPushJobQueue {
 
         long getNotBeforeRealtimeElapsed();
 
+        /**
+         * The wall-clock date at which the job was first created.
+         */
+        long getCreationTime();
+
+        /**
+         * The number of times the job has been retried.
+         */
+        int getAttempts();
+
+        /**
+         * The delay that was waited before the last retry, or 0 if never retried.
+         */
+        long getRetryDelay();
+
     }
 
-    private static final WonderPushJobQueue sDefaultQueue = new WonderPushJobQueue("DefaultWonderPushJobQueue", DEFAULT_CAPACITY);
-    private static final WonderPushJobQueue sMeasurementsApiQueue = new WonderPushJobQueue("WonderPushMeasurementsApiJobQueue", DEFAULT_CAPACITY);
+    /**
+     * Selects jobs to be pulled out of the queue.
+     */
+    protected interface JobFilter {
+
+        boolean accept(Job job);
+
+    }
+
+    /**
+     * Writes the journals of all the queues, off the threads that post and take jobs.
+     * Being single-threaded, it writes the records in submission order.
+     */
+    private static final ExecutorService sJournalExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "WonderPush-JobJournal");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final WonderPushJobQueue sDefaultQueue = new WonderPushJobQueue("DefaultWonderPushJobQueue", DEFAULT_CAPACITY, DEFAULT_MAX_SIZE, WonderPushJobQueueOverflowPolicy.dropOldest(), null, false);
+    private static final WonderPushJobQueue sMeasurementsApiQueue = new WonderPushJobQueue("WonderPushMeasurementsApiJobQueue", DEFAULT_CAPACITY, DEFAULT_MAX_SIZE, WonderPushJobQueueOverflowPolicy.collapseByType(), null, false);
 
     /**
      * Returns the default job queue.
@@ -48,8 +102,32 @@ class WonderPushJobQueue {
     protected static WonderPushJobQueue getMeasurementsApiQueue() {
         return sMeasurementsApiQueue;
     }
+
+    /**
+     * Restores the default queues from disk, or waits for their restoration if it has already started.
+     * Meant to run in the background with {@link #getJournalExecutor()} once the configuration is initialized.
+     */
+    static void restoreDefaultQueues() {
+        sDefaultQueue.awaitRestored();
+        sMeasurementsApiQueue.awaitRestored();
+    }
+
+    /**
+     * The executor writing the journals, on which restoring the queues keeps the disk accesses off the other threads.
+     */
+    static Executor getJournalExecutor() {
+        return sJournalExecutor;
+    }
+
     private final String mQueueName;
     private final PriorityBlockingQueue<Job> mQueue;
+    private final int mMaxSize;
+    private final WonderPushJobQueueOverflowPolicy mOverflowPolicy;
+    private final WonderPushJobQueueOverflowPolicy.Index mIndex = new WonderPushJobQueueOverflowPolicy.Index();
+    private WonderPushJobJournal mJournal;
+    private long mDroppedCount;
+    private final AtomicBoolean mRestoreStarted = new AtomicBoolean();
+    private final DeferredFuture<Void> mRestored = new DeferredFuture<>();
 
     /**
      * Creates a queue with the specified name
@@ -57,10 +135,34 @@ class WonderPushJobQueue {
      * @param queueName
      *            The name of the queue, which determines the queue's storage location
      * @param capacity
+     *            The initial number of jobs the queue can hold without growing
+     * @param maxSize
      *            The maximum number of jobs the queue can hold
+     * @param overflowPolicy
+     *            Decides which job to drop when a job is posted while the queue is full
+     */
+    WonderPushJobQueue(String queueName, int capacity, int maxSize, WonderPushJobQueueOverflowPolicy overflowPolicy) {
+        this(queueName, capacity, maxSize, overflowPolicy, null);
+    }
+
+    /**
+     * @param journal
+     *            The journal persisting the jobs, or null to use the one named after the queue in the application files
      */
-    WonderPushJobQueue(String queueName, int capacity) {
+    /*@VisibleForTesting*/
+    WonderPushJobQueue(String queueName, int capacity, int maxSize, WonderPushJobQueueOverflowPolicy overflowPolicy, WonderPushJobJournal journal) {
+        this(queueName, capacity, maxSize, overflowPolicy, journal, true);
+    }
+
+    /**
+     * @param restoreNow
+     *            Whether to restore the queue right away, instead of upon {@link #awaitRestored()}
+     */
+    WonderPushJobQueue(String queueName, int capacity, int maxSize, WonderPushJobQueueOverflowPolicy overflowPolicy, WonderPushJobJournal journal, boolean restoreNow) {
         mQueueName = queueName;
+        mJournal = journal;
+        mMaxSize = Math.max(1, maxSize);
+        mOverflowPolicy = overflowPolicy;
         mQueue = new PriorityBlockingQueue<>(capacity, new Comparator<Job>() {
             @Override
             public int compare(Job lhs, Job rhs) {
@@ -73,7 +175,9 @@ class WonderPushJobQueue {
                 return (int) diff;
             }
         });
-        restore();
+        if (restoreNow) {
+            awaitRestored();
+        }
     }
 
     /**
@@ -87,18 +191,117 @@ class WonderPushJobQueue {
         return post(job);
     }
 
+    /**
+     * Stores back a job that could not be run, with the same id and creation date,
+     * so that it runs again after the given delay.
+     *
+     * @param job
+     *            The job to retry
+     * @param delayMs
+     *            The delay before the job can run again
+     * @param countAttempt
+     *            Whether this retry counts as a new attempt and updates the job's retry delay,
+     *            as opposed to a retry whose cause is not related to the job itself
+     * @return The stored job or null if something went wrong (the queue is full for instance)
+     */
+    protected Job postRetry(Job job, long delayMs, boolean countAttempt) {
+        long notBeforeRealtimeElapsed = delayMs <= 0 ? delayMs : SystemClock.elapsedRealtime() + delayMs;
+        InternalJob retry = new InternalJob(job.getId(), job.getJobDescription(), notBeforeRealtimeElapsed);
+        retry.mCreationTime = job.getCreationTime();
+        retry.mAttempts = job.getAttempts() + (countAttempt ? 1 : 0);
+        retry.mRetryDelay = countAttempt ? Math.max(0, delayMs) : job.getRetryDelay();
+        if (job instanceof InternalJob) {
+            retry.mEventType = ((InternalJob) job).mEventType;
+            retry.mEventTypeParsed = ((InternalJob) job).mEventTypeParsed;
+        }
+        return post(retry);
+    }
+
     /**
      * Stores an existing job in the queue.
+     * If the queue is full, the overflow policy drops a job to make room.
+     * The job's journal write is submitted before the job is made available to consumers,
+     * so that its removal once taken cannot be written before its addition.
+     * Waits for the queue to be restored first, so that the restoration does not overwrite the job.
      *
-     * @return The input job or null if something went wrong (the queue is full for instance)
+     * @return The input job or null if something went wrong (the job was dropped by the overflow policy for instance)
      */
     protected Job post(Job job) {
-        if (mQueue.offer(job)) {
-            save();
-            return job;
-        } else {
-            return null;
+        awaitRestored();
+        List<Job> dropped = new ArrayList<>();
+        synchronized (this) {
+            while (mQueue.size() >= mMaxSize) {
+                Job victim = mOverflowPolicy.selectVictim(job, mIndex);
+                if (victim == null || victim == job) {
+                    mDroppedCount++;
+                    Log.w(TAG, "Job queue is full, dropping incoming job " + job.getId() + ": " + getMetrics());
+                    return null;
+                }
+                // The victim may just have been taken, in which case the queue has room already
+                mIndex.remove(victim);
+                if (mQueue.remove(victim)) {
+                    mDroppedCount++;
+                    dropped.add(victim);
+                }
+            }
+            if (!dropped.isEmpty()) {
+                journalRemove(dropped);
+                Log.w(TAG, "Job queue is full, dropped " + dropped.size() + " job(s): " + getMetrics());
+            }
+            if (job instanceof InternalJob) {
+                journalPut((InternalJob) job);
+            }
+            if (!mQueue.offer(job)) {
+                journalRemove(Collections.singletonList(job));
+                return null;
+            }
+            mIndex.add(job);
+        }
+        return job;
+    }
+
+    /**
+     * The number of jobs in the queue.
+     */
+    protected int getSize() {
+        return mQueue.size();
+    }
+
+    protected int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * The number of jobs dropped by the overflow policy since the queue was created.
+     */
+    protected synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * The size of the queue on disk, in bytes.
+     */
+    protected long getPersistedBytes() {
+        WonderPushJobJournal journal = getJournal();
+        return journal == null ? 0 : journal.getLength();
+    }
+
+    /**
+     * A snapshot of the queue metrics.
+     */
+    protected JSONObject getMetrics() {
+        JSONObject rtn = new JSONObject();
+        try {
+            rtn.put("name", mQueueName);
+            rtn.put("size", getSize());
+            rtn.put("maxSize", getMaxSize());
+            rtn.put("dropped", getDroppedCount());
+            rtn.put("persistedBytes", getPersistedBytes());
+            rtn.put("overflowPolicy", mOverflowPolicy.toString());
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not build job queue metrics", e);
         }
+        return rtn;
     }
 
     protected long peekNextJobNotBeforeRealtimeElapsed() {
@@ -114,34 +317,148 @@ class WonderPushJobQueue {
      */
     protected Job nextJob() throws InterruptedException {
         Job job = mQueue.take();
-        save();
+        synchronized (this) {
+            mIndex.remove(job);
+        }
+        journalRemove(Collections.singletonList(job));
         return job;
     }
 
+    /**
+     * Pulls out the consecutive jobs at the head of the queue that are due
+     * and accepted by the given filter, without blocking.
+     * Stops at the first job that does not qualify, leaving it in the queue.
+     *
+     * @param notAfterRealtimeElapsed
+     *            Only jobs whose not-before time is lower or equal are considered
+     * @param max
+     *            The maximum number of jobs to return
+     * @param filter
+     *            The filter jobs must be accepted by
+     * @return The pulled jobs, in queue order
+     */
+    protected synchronized List<Job> pollReadyJobs(long notAfterRealtimeElapsed, int max, JobFilter filter) {
+        List<Job> rtn = new ArrayList<>();
+        while (rtn.size() < max) {
+            Job job = mQueue.poll();
+            if (job == null) break;
+            if (job.getNotBeforeRealtimeElapsed() > notAfterRealtimeElapsed || !filter.accept(job)) {
+                mQueue.offer(job);
+                break;
+            }
+            mIndex.remove(job);
+            rtn.add(job);
+        }
+        journalRemove(rtn);
+        return rtn;
+    }
+
+    /**
+     * The name of the SharedPreferences key the queue used to be saved under, before the journal.
+     */
     private String getPrefName() {
         return String.format("_wonderpush_job_queue_%s", mQueueName);
     }
 
+    private synchronized WonderPushJobJournal getJournal() {
+        if (mJournal == null) {
+            Context context = WonderPushConfiguration.getApplicationContext();
+            if (context == null) return null;
+            File directory = new File(context.getFilesDir(), JOURNAL_DIRECTORY);
+            mJournal = new WonderPushJobJournal(new File(directory, mQueueName + ".journal"));
+        }
+        return mJournal;
+    }
+
     /**
-     * Saves the job queue on disk.
+     * Waits for the journal writes submitted so far to complete.
      */
-    protected synchronized void save() {
-        try {
-            JSONArray jsonArray = new JSONArray();
-            for (Job job : mQueue) {
-                if (!(job instanceof InternalJob)) continue;
-                InternalJob internalJob = (InternalJob) job;
-                jsonArray.put(internalJob.toJSON());
+    /*@VisibleForTesting*/
+    static void awaitJournalWrites() throws InterruptedException, ExecutionException {
+        sJournalExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
             }
+        }).get();
+    }
 
-            SharedPreferences prefs = WonderPushConfiguration.getSharedPreferences();
-            SharedPreferences.Editor editor = prefs.edit();
-            editor.putString(getPrefName(), jsonArray.toString());
-            editor.apply();
+    private void journalPut(InternalJob job) {
+        final WonderPushJobJournal journal = getJournal();
+        if (journal == null) {
+            Log.e(TAG, "Could not save job, no context available");
+            return;
+        }
+        final JSONObject json;
+        try {
+            // Serialize now, the not-before time is relative to the current time
+            json = job.toJSON();
         } catch (JSONException e) {
-            Log.e(TAG, "Could not save job queue", e);
-        } catch (Exception e) {
-            Log.e(TAG, "Could not save job queue", e);
+            Log.e(TAG, "Could not save job", e);
+            return;
+        }
+        sJournalExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    journal.put(json);
+                } catch (Exception e) {
+                    Log.e(TAG, "Could not save job", e);
+                }
+            }
+        });
+    }
+
+    private void journalRemove(List<Job> jobs) {
+        if (jobs.isEmpty()) return;
+        final WonderPushJobJournal journal = getJournal();
+        if (journal == null) return;
+        final List<String> ids = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            ids.add(job.getId());
+        }
+        sJournalExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    journal.remove(ids);
+                } catch (Exception e) {
+                    Log.e(TAG, "Could not remove job from journal", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores the queue from disk, unless its restoration has already started,
+     * in which case this waits for it to complete.
+     * Does nothing while no context is available to locate the journal, the restoration is left for later.
+     */
+    protected void awaitRestored() {
+        if (mRestored.getFuture().isDone() || getJournal() == null) {
+            return;
+        }
+        if (mRestoreStarted.compareAndSet(false, true)) {
+            try {
+                restore();
+            } finally {
+                mRestored.set(null);
+            }
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                mRestored.getFuture().get();
+                break;
+            } catch (InterruptedException ex) {
+                // The vault thread gets interrupted to wake it up, keep waiting and let it see the interruption afterwards
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -150,51 +467,110 @@ class WonderPushJobQueue {
      */
     protected synchronized void restore() {
         try {
-            SharedPreferences prefs = WonderPushConfiguration.getSharedPreferences();
-            String jsonString = prefs.getString(getPrefName(), "[]");
-            JSONArray jsonArray = new JSONArray(jsonString);
+            WonderPushJobJournal journal = getJournal();
+            if (journal == null) return;
+
+            if (!journal.exists()) {
+                migrateSharedPreferences(journal);
+            }
 
             mQueue.clear();
+            mIndex.clear();
 
-            for (int i = 0 ; i < jsonArray.length() ; i++) {
+            for (JSONObject jobJson : journal.restore()) {
                 try {
-                    mQueue.add(new InternalJob(jsonArray.getJSONObject(i)));
+                    InternalJob job = new InternalJob(jobJson);
+                    mQueue.add(job);
+                    mIndex.add(job);
                 } catch (JSONException ex) {
                     Log.e(TAG, "Failed to restore malformed job", ex);
                 } catch (Exception ex) {
                     Log.e(TAG, "Unexpected error while restoring a job", ex);
                 }
             }
-        } catch (JSONException e) {
-            Log.e(TAG, "Could not restore job queue", e);
         } catch (Exception e) {
             Log.e(TAG, "Could not restore job queue", e);
         }
     }
 
-    private static class InternalJob implements Job {
+    /**
+     * Moves the jobs saved by previous SDK versions in SharedPreferences into the journal.
+     */
+    private void migrateSharedPreferences(WonderPushJobJournal journal) {
+        try {
+            SharedPreferences prefs = WonderPushConfiguration.getSharedPreferences();
+            if (prefs == null || !prefs.contains(getPrefName())) return;
+            JSONArray jsonArray = new JSONArray(prefs.getString(getPrefName(), "[]"));
+            List<JSONObject> jobs = new ArrayList<>(jsonArray.length());
+            for (int i = 0 ; i < jsonArray.length() ; i++) {
+                JSONObject jobJson = jsonArray.optJSONObject(i);
+                if (jobJson != null) {
+                    jobs.add(jobJson);
+                }
+            }
+            journal.reset(jobs);
+            if (journal.exists()) {
+                prefs.edit().remove(getPrefName()).apply();
+            }
+            WonderPush.logDebug("Migrated " + jobs.size() + " jobs of queue " + mQueueName + " to its journal");
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not migrate job queue", e);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not migrate job queue", e);
+        }
+    }
+
+    static class InternalJob implements Job {
 
         protected String mId;
         protected JSONObject mJobDescription;
         protected long mNotBeforeRealtimeElapsed;
+        protected long mCreationTime;
+        protected int mAttempts;
+        protected long mRetryDelay;
+        private String mEventType;
+        private boolean mEventTypeParsed;
 
         public InternalJob(String id, JSONObject description, long notBeforeRealtimeElapsed) {
             mId = id;
             mJobDescription = description;
             mNotBeforeRealtimeElapsed = notBeforeRealtimeElapsed;
+            mCreationTime = System.currentTimeMillis();
         }
 
         public InternalJob(JSONObject json) throws JSONException {
             mId = json.getString("id");
             mJobDescription = json.getJSONObject("description");
-            mNotBeforeRealtimeElapsed = -1;
+            // Jobs saved by previous versions have no creation date, consider them created upon restoration
+            long now = System.currentTimeMillis();
+            mCreationTime = json.optLong("creationTime", now);
+            mAttempts = json.optInt("attempts", 0);
+            mRetryDelay = json.optLong("retryDelay", 0);
+            // The not-before date is persisted in wall-clock terms as the elapsed realtime does not survive reboots
+            long notBeforeTime = json.optLong("notBeforeTime", 0);
+            long remaining = notBeforeTime - now;
+            if (mRetryDelay > 0) {
+                // Do not wait longer than the retry delay, in case the wall clock jumped forward
+                remaining = Math.min(remaining, mRetryDelay);
+            }
+            mNotBeforeRealtimeElapsed = remaining > 0 ? SystemClock.elapsedRealtime() + remaining : -1;
         }
 
         public JSONObject toJSON() throws JSONException {
             JSONObject json = new JSONObject();
             json.put("id", mId);
             json.put("description", mJobDescription);
-            // (Do not persist mNotBeforeRealtimeElapsed, such delay is not supposed to be saved after application death)
+            json.put("creationTime", mCreationTime);
+            if (mAttempts > 0) {
+                json.put("attempts", mAttempts);
+                json.put("retryDelay", mRetryDelay);
+            }
+            if (mNotBeforeRealtimeElapsed > 0) {
+                long remaining = mNotBeforeRealtimeElapsed - SystemClock.elapsedRealtime();
+                if (remaining > 0) {
+                    json.put("notBeforeTime", System.currentTimeMillis() + remaining);
+                }
+            }
             return json;
         }
 
@@ -206,11 +582,37 @@ class WonderPushJobQueue {
             return mJobDescription;
         }
 
+        /**
+         * The type of the event this job tracks, parsed from its description once.
+         */
+        String getEventType() {
+            if (!mEventTypeParsed) {
+                mEventType = WonderPushJobQueueOverflowPolicy.parseEventType(mJobDescription);
+                mEventTypeParsed = true;
+            }
+            return mEventType;
+        }
+
         @Override
         public long getNotBeforeRealtimeElapsed() {
             return mNotBeforeRealtimeElapsed;
         }
 
+        @Override
+        public long getCreationTime() {
+            return mCreationTime;
+        }
+
+        @Override
+        public int getAttempts() {
+            return mAttempts;
+        }
+
+        @Override
+        public long getRetryDelay() {
+            return mRetryDelay;
+        }
+
         @Override
         public int hashCode() {
             if (mId == null) return 0;
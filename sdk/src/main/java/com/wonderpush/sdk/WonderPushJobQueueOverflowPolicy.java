@@ -0,0 +1,193 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Decides which job to drop when a bounded {@link WonderPushJobQueue} is full.
+ */
+abstract class WonderPushJobQueueOverflowPolicy {
+
+    /**
+     * The jobs of a queue, ordered by creation time, overall and per event type,
+     * so that policies do not have to scan the queue.
+     * Not thread-safe, the queue guards it.
+     */
+    static class Index {
+
+        private static final Comparator<WonderPushJobQueue.Job> BY_CREATION_TIME = new Comparator<WonderPushJobQueue.Job>() {
+            @Override
+            public int compare(WonderPushJobQueue.Job lhs, WonderPushJobQueue.Job rhs) {
+                int rtn = Long.compare(lhs.getCreationTime(), rhs.getCreationTime());
+                if (rtn == 0) {
+                    rtn = lhs.getId().compareTo(rhs.getId());
+                }
+                return rtn;
+            }
+        };
+
+        private final TreeSet<WonderPushJobQueue.Job> mJobs = new TreeSet<>(BY_CREATION_TIME);
+        private final Map<String, TreeSet<WonderPushJobQueue.Job>> mEvents = new HashMap<>();
+
+        void add(WonderPushJobQueue.Job job) {
+            mJobs.add(job);
+            String type = getEventType(job);
+            if (type == null) return;
+            TreeSet<WonderPushJobQueue.Job> events = mEvents.get(type);
+            if (events == null) {
+                events = new TreeSet<>(BY_CREATION_TIME);
+                mEvents.put(type, events);
+            }
+            events.add(job);
+        }
+
+        void remove(WonderPushJobQueue.Job job) {
+            if (!mJobs.remove(job)) return;
+            String type = getEventType(job);
+            if (type == null) return;
+            TreeSet<WonderPushJobQueue.Job> events = mEvents.get(type);
+            if (events != null && events.remove(job) && events.isEmpty()) {
+                mEvents.remove(type);
+            }
+        }
+
+        void clear() {
+            mJobs.clear();
+            mEvents.clear();
+        }
+
+        int size() {
+            return mJobs.size();
+        }
+
+        /**
+         * @return The job that was created first, or {@code null} if there is none
+         */
+        WonderPushJobQueue.Job oldest() {
+            return mJobs.isEmpty() ? null : mJobs.first();
+        }
+
+        /**
+         * @return The event of the given type that was created first, or {@code null} if there is none
+         */
+        WonderPushJobQueue.Job oldestEvent(String type) {
+            TreeSet<WonderPushJobQueue.Job> events = mEvents.get(type);
+            return events == null || events.isEmpty() ? null : events.first();
+        }
+
+    }
+
+    /**
+     * Selects the job to drop to make room for an incoming job.
+     *
+     * @param incoming
+     *            The job about to be stored
+     * @param queued
+     *            The jobs currently in the queue
+     * @return The job to drop, possibly {@code incoming} itself to refuse it
+     */
+    abstract WonderPushJobQueue.Job selectVictim(WonderPushJobQueue.Job incoming, Index queued);
+
+    /**
+     * Drops the job that was created first.
+     */
+    static WonderPushJobQueueOverflowPolicy dropOldest() {
+        return new WonderPushJobQueueOverflowPolicy() {
+            @Override
+            WonderPushJobQueue.Job selectVictim(WonderPushJobQueue.Job incoming, Index queued) {
+                return queued.oldest();
+            }
+
+            @Override
+            public String toString() {
+                return "dropOldest";
+            }
+        };
+    }
+
+    /**
+     * Drops the oldest queued event among the given expendable types.
+     * Drops the oldest job if no such event is queued.
+     */
+    static WonderPushJobQueueOverflowPolicy dropByEventType(Set<String> eventTypes) {
+        final Set<String> types = new LinkedHashSet<>(eventTypes);
+        return new WonderPushJobQueueOverflowPolicy() {
+            @Override
+            WonderPushJobQueue.Job selectVictim(WonderPushJobQueue.Job incoming, Index queued) {
+                WonderPushJobQueue.Job victim = null;
+                for (String type : types) {
+                    WonderPushJobQueue.Job candidate = queued.oldestEvent(type);
+                    if (candidate != null && (victim == null || Index.BY_CREATION_TIME.compare(candidate, victim) < 0)) {
+                        victim = candidate;
+                    }
+                }
+                return victim != null ? victim : queued.oldest();
+            }
+
+            @Override
+            public String toString() {
+                return "dropByEventType" + types;
+            }
+        };
+    }
+
+    /**
+     * Drops the oldest queued event of the same type as the incoming event,
+     * so that only the latest occurrences of a type are kept.
+     * Drops the oldest job if the incoming job is not an event or no event of its type is queued.
+     */
+    static WonderPushJobQueueOverflowPolicy collapseByType() {
+        return new WonderPushJobQueueOverflowPolicy() {
+            @Override
+            WonderPushJobQueue.Job selectVictim(WonderPushJobQueue.Job incoming, Index queued) {
+                String type = getEventType(incoming);
+                WonderPushJobQueue.Job victim = type == null ? null : queued.oldestEvent(type);
+                return victim != null ? victim : queued.oldest();
+            }
+
+            @Override
+            public String toString() {
+                return "collapseByType";
+            }
+        };
+    }
+
+    /**
+     * Reads the type of the event a job tracks, using the value cached by queued jobs.
+     *
+     * @return The event type, or {@code null} if the job does not track an event
+     */
+    static String getEventType(WonderPushJobQueue.Job job) {
+        if (job instanceof WonderPushJobQueue.InternalJob) {
+            return ((WonderPushJobQueue.InternalJob) job).getEventType();
+        }
+        return parseEventType(job.getJobDescription());
+    }
+
+    /**
+     * Parses the type of the event a job description tracks.
+     *
+     * @return The event type, or {@code null} if the description does not track an event
+     */
+    static String parseEventType(JSONObject description) {
+        if (description == null) return null;
+        String resource = description.optString("resource", "");
+        if (!resource.startsWith("/events")) return null;
+        JSONObject params = description.optJSONObject("params");
+        String body = params == null ? null : params.optString("body", null);
+        if (body == null) return null;
+        try {
+            return JSONUtil.getString(new JSONObject(body), "type");
+        } catch (JSONException ex) {
+            return null;
+        }
+    }
+
+}
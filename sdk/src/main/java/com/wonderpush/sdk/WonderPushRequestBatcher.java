@@ -0,0 +1,249 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Coalesces consecutive queued {@code POST /events/} jobs of a {@link WonderPushRequestVault}
+ * into a single multi-event {@code POST /events/batch} request.
+ *
+ * <p>
+ *     The batch request carries a {@code body} parameter holding the JSON array of the events,
+ *     in queue order.
+ *     The server can answer with a {@code results} array aligned with the events,
+ *     where an item holding an {@code error} marks a rejected event.
+ *     A missing {@code results} array means every event was accepted.
+ * </p>
+ *
+ * <p>
+ *     Batches are bounded in size, in bytes and in age:
+ *     the vault holds a batch that can take more events until its first event is {@link #getMaxBatchAge()} old,
+ *     so that the first event of a burst is not sent alone.
+ * </p>
+ */
+class WonderPushRequestBatcher {
+
+    static final String EVENTS_RESOURCE = "/events/";
+    static final String BATCH_EVENTS_RESOURCE = "/events/batch";
+    private static final String BODY_PARAM = "body";
+
+    static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+    static final long DEFAULT_MAX_BATCH_AGE = 1000;
+    private static long sMaxBatchAge = DEFAULT_MAX_BATCH_AGE;
+
+    private final int mMaxBatchSize;
+    private final int mMaxBatchBytes;
+    private final long mMaxBatchAge;
+    private volatile boolean mDisabled;
+
+    /**
+     * Sets the maximum age, in milliseconds, of the first event of the batches of batchers created afterwards.
+     * 0 only coalesces the events that are already queued.
+     */
+    static void setMaxBatchAge(long maxBatchAge) {
+        sMaxBatchAge = Math.max(0, maxBatchAge);
+    }
+
+    WonderPushRequestBatcher() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_BYTES, sMaxBatchAge);
+    }
+
+    /**
+     * @param maxBatchSize
+     *            The maximum number of events in a single batch request
+     * @param maxBatchBytes
+     *            The maximum cumulated length of the event bodies in a single batch request
+     * @param maxBatchAge
+     *            How long, in milliseconds after its creation, the first event of a batch can wait for more events
+     */
+    WonderPushRequestBatcher(int maxBatchSize, int maxBatchBytes, long maxBatchAge) {
+        mMaxBatchSize = Math.max(1, maxBatchSize);
+        mMaxBatchBytes = Math.max(1, maxBatchBytes);
+        mMaxBatchAge = Math.max(0, maxBatchAge);
+    }
+
+    int getMaxBatchSize() {
+        return mMaxBatchSize;
+    }
+
+    int getMaxBatchBytes() {
+        return mMaxBatchBytes;
+    }
+
+    long getMaxBatchAge() {
+        return mMaxBatchAge;
+    }
+
+    boolean isDisabled() {
+        return mDisabled;
+    }
+
+    /**
+     * Stops batching, typically because the server does not know the batch endpoint.
+     * Subsequent jobs are sent one by one again.
+     */
+    void disable() {
+        if (!mDisabled) {
+            WonderPush.logDebug("RequestBatcher: disabling event batching");
+        }
+        mDisabled = true;
+    }
+
+    /**
+     * Tells whether the given request is a plain event tracking call that can be part of a batch.
+     */
+    boolean isBatchable(Request request) {
+        if (mDisabled || request == null) return false;
+        if (request.getMethod() != ApiClient.HttpMethod.POST) return false;
+        if (!EVENTS_RESOURCE.equals(request.getResource())) return false;
+        Request.Params params = request.getParams();
+        if (params == null) return false;
+        List<Request.BasicNameValuePair> paramsList = params.getParamsList();
+        return paramsList.size() == 1 && BODY_PARAM.equals(paramsList.get(0).getName());
+    }
+
+    /**
+     * Starts a new batch with the given job and its batchable request.
+     */
+    Batch newBatch(WonderPushJobQueue.Job headJob, Request head) {
+        return new Batch(headJob, head);
+    }
+
+    private static String getBody(Request request) {
+        for (Request.BasicNameValuePair pair : request.getParams().getParamsList()) {
+            if (BODY_PARAM.equals(pair.getName())) {
+                return pair.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameUser(Request lhs, Request rhs) {
+        return lhs.getUserId() == null ? rhs.getUserId() == null : lhs.getUserId().equals(rhs.getUserId());
+    }
+
+    /**
+     * A group of event requests sent together.
+     * Used as a {@link WonderPushJobQueue.JobFilter} to pull the following due jobs out of the queue.
+     */
+    class Batch implements WonderPushJobQueue.JobFilter {
+
+        private final List<WonderPushJobQueue.Job> mJobs = new ArrayList<>();
+        private final List<Request> mRequests = new ArrayList<>();
+        private final List<JSONObject> mEvents = new ArrayList<>();
+        private int mBytes;
+        private boolean mClosed;
+
+        private Batch(WonderPushJobQueue.Job headJob, Request head) {
+            mJobs.add(headJob);
+            mRequests.add(head);
+            String body = getBody(head);
+            mEvents.add(parseEvent(body));
+            mBytes = body == null ? 0 : body.length();
+        }
+
+        /**
+         * @return The parsed event, or {@code null} if the body is not a JSON object
+         */
+        private JSONObject parseEvent(String body) {
+            if (body == null) return null;
+            try {
+                return new JSONObject(body);
+            } catch (JSONException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean accept(WonderPushJobQueue.Job job) {
+            if (!tryAccept(job)) {
+                // The refused job must be sent before any later event
+                mClosed = true;
+                return false;
+            }
+            return true;
+        }
+
+        private boolean tryAccept(WonderPushJobQueue.Job job) {
+            if (mRequests.size() >= mMaxBatchSize) return false;
+            Request request;
+            try {
+                request = new Request(job.getJobDescription());
+            } catch (JSONException ex) {
+                return false;
+            }
+            if (!isBatchable(request) || !sameUser(mRequests.get(0), request)) return false;
+            String body = getBody(request);
+            int bytes = body == null ? 0 : body.length();
+            if (mBytes + bytes > mMaxBatchBytes) return false;
+            // Leave a malformed event to be sent, and refused, on its own
+            JSONObject event = parseEvent(body);
+            if (event == null) return false;
+            mJobs.add(job);
+            mRequests.add(request);
+            mEvents.add(event);
+            mBytes += bytes;
+            return true;
+        }
+
+        int size() {
+            return mRequests.size();
+        }
+
+        /**
+         * Tells whether the batch cannot take more events, because it is full or it refused a job.
+         */
+        boolean isClosed() {
+            return mClosed || mRequests.size() >= mMaxBatchSize;
+        }
+
+        List<WonderPushJobQueue.Job> getJobs() {
+            return Collections.unmodifiableList(mJobs);
+        }
+
+        List<Request> getRequests() {
+            return Collections.unmodifiableList(mRequests);
+        }
+
+        /**
+         * Builds the multi-event request, without any handler.
+         *
+         * @throws JSONException If the body of the first event is not a JSON object
+         */
+        Request toRequest() throws JSONException {
+            JSONArray events = new JSONArray();
+            for (JSONObject event : mEvents) {
+                if (event == null) throw new JSONException("Malformed event body");
+                events.put(event);
+            }
+            Request.Params params = new Request.Params();
+            params.put(BODY_PARAM, events.toString());
+            return new Request(mRequests.get(0).getUserId(), ApiClient.HttpMethod.POST, BATCH_EVENTS_RESOURCE, params, null);
+        }
+
+        /**
+         * Returns the requests whose event was rejected according to the given successful batch response.
+         */
+        List<Request> getRejectedRequests(Response response) {
+            JSONObject json = response == null ? null : response.getJSONObject();
+            JSONArray results = json == null ? null : json.optJSONArray("results");
+            if (results == null) return Collections.emptyList();
+            List<Request> rv = new ArrayList<>();
+            for (int i = 0, e = Math.min(results.length(), mRequests.size()); i < e; i++) {
+                JSONObject result = results.optJSONObject(i);
+                if (result != null && result.has("error") && !result.isNull("error")) {
+                    rv.add(mRequests.get(i));
+                }
+            }
+            return rv;
+        }
+
+    }
+
+}
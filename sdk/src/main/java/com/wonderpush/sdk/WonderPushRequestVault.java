@@ -1,9 +1,16 @@
 package com.wonderpush.sdk;
 
+import android.net.Uri;
 import android.os.SystemClock;
 import android.util.Log;
 
+import org.json.JSONException;
+
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -19,38 +26,91 @@ class WonderPushRequestVault {
 
     private static WonderPushRequestVault sDefaultVault;
 
-    private static final int NORMAL_WAIT = 10 * 1000;
-    private static final float BACKOFF_EXPONENT = 1.5f;
-    private static final int MAXIMUM_WAIT = 5 * 60 * 1000;
-    private static int sWait = NORMAL_WAIT;
-    private static final int MAX_PARALLEL_CALLS = 1;
-    private static Semaphore sParallelCalls = new Semaphore(MAX_PARALLEL_CALLS);
+    static final int NORMAL_WAIT = 10 * 1000;
+    static final int BACKOFF_MULTIPLIER = 3;
+    static final int MAXIMUM_WAIT = 5 * 60 * 1000;
+    static final int MAX_ATTEMPTS = 50;
+    static final long JOB_TTL = 7 * 24 * 60 * 60 * 1000L;
+    private static final Random sRandom = new Random();
+    static final int DEFAULT_MAX_PARALLEL_CALLS = 1;
+    static final int DEFAULT_MAX_PARALLEL_CALLS_PER_HOST = 4;
+    private static int sMaxParallelCalls = DEFAULT_MAX_PARALLEL_CALLS;
+    private static int sMaxParallelCallsPerHost = DEFAULT_MAX_PARALLEL_CALLS_PER_HOST;
+    private static final Map<String, Semaphore> sHostParallelCalls = new HashMap<>();
 
     protected static WonderPushRequestVault getDefaultVault() {
         return sDefaultVault;
     }
 
+    /**
+     * Sets the maximum number of requests each vault created afterwards runs at the same time.
+     */
+    static void setMaxParallelCalls(int maxParallelCalls) {
+        sMaxParallelCalls = Math.max(1, maxParallelCalls);
+    }
+
+    /**
+     * Sets the maximum number of requests all vaults run at the same time against a given host.
+     * Only affects hosts not contacted yet.
+     */
+    static void setMaxParallelCallsPerHost(int maxParallelCallsPerHost) {
+        sMaxParallelCallsPerHost = Math.max(1, maxParallelCallsPerHost);
+    }
+
+    private static Semaphore getHostParallelCalls(String host) {
+        synchronized (sHostParallelCalls) {
+            Semaphore rtn = sHostParallelCalls.get(host);
+            if (rtn == null) {
+                rtn = new Semaphore(sMaxParallelCallsPerHost);
+                sHostParallelCalls.put(host, rtn);
+            }
+            return rtn;
+        }
+    }
+
     /**
      * Start the default vault.
      */
     protected static void initialize() {
         if (null == sDefaultVault) {
-            sDefaultVault = new WonderPushRequestVault(WonderPushJobQueue.getDefaultQueue(), new RequestExecutor() {
+            sDefaultVault = new WonderPushRequestVault(WonderPushJobQueue.getDefaultQueue(), Uri.parse(WonderPush.getBaseURL()).getHost(), new RequestExecutor() {
                 @Override
                 public void execute(Request request) {
                     ApiClient.requestAuthenticated(request);
                 }
-            });
+            }, new WonderPushRequestBatcher());
         }
     }
 
     private final WonderPushJobQueue mJobQueue;
     private final Thread mThread;
     private final RequestExecutor mRequestExecutor;
+    private final WonderPushRequestBatcher mBatcher;
+    private final Semaphore mParallelCalls;
+    private final Semaphore mHostParallelCalls;
+    private final Runnable mReleaseCall = new Runnable() {
+        @Override
+        public void run() {
+            releaseCall();
+        }
+    };
 
-    WonderPushRequestVault(WonderPushJobQueue jobQueue, RequestExecutor requestExecutor) {
+    /**
+     * @param jobQueue
+     *            The queue to drain
+     * @param host
+     *            The host requests are sent to, whose concurrent calls are limited across vaults
+     * @param requestExecutor
+     *            Runs the requests
+     * @param batcher
+     *            Coalesces consecutive event jobs into a single request, or null to run jobs one by one
+     */
+    WonderPushRequestVault(WonderPushJobQueue jobQueue, String host, RequestExecutor requestExecutor, WonderPushRequestBatcher batcher) {
         mJobQueue = jobQueue;
         mRequestExecutor = requestExecutor;
+        mBatcher = batcher;
+        mParallelCalls = new Semaphore(sMaxParallelCalls);
+        mHostParallelCalls = getHostParallelCalls(host == null ? "" : host);
         mThread = new Thread(getRunnable());
         mThread.start();
         WonderPush.addUserConsentListener(new WonderPush.UserConsentListener() {
@@ -71,6 +131,34 @@ class WonderPushRequestVault {
         long notBeforeRealTimeElapsed = delayMs <= 0 ? delayMs : SystemClock.elapsedRealtime() + delayMs;
         long prevNotBeforeRealtimeElapsed = mJobQueue.peekNextJobNotBeforeRealtimeElapsed();
         mJobQueue.postJobWithDescription(request.toJSON(), notBeforeRealTimeElapsed);
+        interruptIfEarlier(notBeforeRealTimeElapsed, prevNotBeforeRealtimeElapsed);
+    }
+
+    /**
+     * Puts a job back in the queue after a failure.
+     *
+     * @param countAttempt
+     *            Whether the failure is due to the job, in which case the job waits according to its own backoff
+     *            and may expire, as opposed to a failure that has nothing to do with the job
+     * @param delayMs
+     *            The delay to wait when not counting an attempt
+     */
+    private void retry(WonderPushJobQueue.Job job, boolean countAttempt, long delayMs) {
+        if (countAttempt) {
+            if (isExpired(job, System.currentTimeMillis(), job.getAttempts() + 1)) {
+                WonderPush.logDebug("RequestVault: discarding expired job after " + (job.getAttempts() + 1) + " attempts");
+                return;
+            }
+            delayMs = nextRetryDelay(job.getRetryDelay(), sRandom);
+        }
+        WonderPush.logDebug("RequestVault: reposting job in " + delayMs + " ms");
+        long notBeforeRealTimeElapsed = delayMs <= 0 ? delayMs : SystemClock.elapsedRealtime() + delayMs;
+        long prevNotBeforeRealtimeElapsed = mJobQueue.peekNextJobNotBeforeRealtimeElapsed();
+        mJobQueue.postRetry(job, delayMs, countAttempt);
+        interruptIfEarlier(notBeforeRealTimeElapsed, prevNotBeforeRealtimeElapsed);
+    }
+
+    private void interruptIfEarlier(long notBeforeRealTimeElapsed, long prevNotBeforeRealtimeElapsed) {
         if (notBeforeRealTimeElapsed < prevNotBeforeRealtimeElapsed) {
             WonderPush.logDebug("RequestVault: Interrupting sleep");
             // Interrupt the worker thread so that it takes into account this new job in a timely manner
@@ -78,10 +166,33 @@ class WonderPushRequestVault {
         }
     }
 
+    /**
+     * Computes the delay before the next retry of a job using decorrelated jitter:
+     * a random delay between {@link #NORMAL_WAIT} and {@link #BACKOFF_MULTIPLIER} times the previous delay,
+     * capped to {@link #MAXIMUM_WAIT}.
+     *
+     * @param previousDelay
+     *            The delay waited before the previous retry of the job, or 0 for a first retry
+     */
+    static long nextRetryDelay(long previousDelay, Random random) {
+        long upper = Math.max(NORMAL_WAIT, previousDelay) * BACKOFF_MULTIPLIER;
+        long delay = NORMAL_WAIT + (long) (random.nextDouble() * (upper - NORMAL_WAIT));
+        return Math.min(MAXIMUM_WAIT, delay);
+    }
+
+    /**
+     * Tells whether a job should not be run anymore, because it is too old or failed too many times.
+     */
+    static boolean isExpired(WonderPushJobQueue.Job job, long now, int attempts) {
+        return attempts >= MAX_ATTEMPTS || now - job.getCreationTime() > JOB_TTL;
+    }
+
     private Runnable getRunnable() {
         return new Runnable() {
             @Override
             public void run() {
+                // Usually restored by the initialization in the background, otherwise this restores it
+                mJobQueue.awaitRestored();
                 while (true) {
                     try {
                         long nextJobNotBeforeRealtimeElapsed = mJobQueue.peekNextJobNotBeforeRealtimeElapsed();
@@ -108,73 +219,205 @@ class WonderPushRequestVault {
                     }
 
                     try {
-                        sParallelCalls.acquire();
+                        acquireCall();
                     } catch (InterruptedException ignored) {
                         continue;
                     }
 
-                    // If we reach this line, we've acquired the semaphore.
+                    // If we reach this line, we've acquired the semaphores.
                     try {
                         // This blocking call won't block because we check for a job's presence first
                         // using mJobQueue.peekNextJobNotBeforeRealtimeElapsed()
                         // and we're it's sole consumer (although not enforced by the current code design)
                         final WonderPushJobQueue.Job job = mJobQueue.nextJob();
+                        if (isExpired(job, System.currentTimeMillis(), job.getAttempts())) {
+                            WonderPush.logDebug("RequestVault: discarding expired job");
+                            releaseCall();
+                            continue;
+                        }
                         final Request request = new Request(job.getJobDescription());
-                        request.setHandler(new ResponseHandler() {
-                            @Override
-                            public void onFailure(Throwable e, Response errorResponse) {
-                                WonderPush.logDebug("RequestVault: failure", e);
-
-                                // Post back to job queue if this is handled
-                                boolean handle = false;
-                                // handle network errors
-                                if (e instanceof IOException) { // NoHttpResponseException, UnknownHostException, SocketException) {
-                                    backoff();
-                                    handle = true;
-                                }
-                                if (e instanceof Request.ClientDisabledException) {
-                                    handle = true;
-                                }
-                                if (handle) {
-                                    WonderPush.logDebug("RequestVault: reposting job", e);
-                                    put(request, sWait);
-                                } else {
-                                    WonderPush.logDebug("RequestVault: discarding job", e);
-                                }
-                                sParallelCalls.release();
+                        if (mBatcher != null && mBatcher.isBatchable(request)) {
+                            WonderPushRequestBatcher.Batch batch = mBatcher.newBatch(job, request);
+                            fillBatch(job, batch);
+                            if (batch.size() > 1) {
+                                executeBatch(batch);
+                                continue;
                             }
-
-                            @Override
-                            public void onSuccess(Response response) {
-                                WonderPush.logDebug("RequestVault: job done");
-                                resetBackoff();
-                                sParallelCalls.release();
-                            }
-                        });
-                        if (!WonderPush.hasUserConsent()) {
-                            // This last resort check is not expected to catch any case but is here for strictness
-                            request.getHandler().onFailure(new RuntimeException("Missing user consent"), new Response("Missing user consent"));
-                        } else {
-                            mRequestExecutor.execute(request);
                         }
+                        executeRequest(job, request, mReleaseCall);
                     } catch (InterruptedException ignored) {
-                        sParallelCalls.release();
+                        releaseCall();
                     } catch (Exception e) {
                         Log.e(TAG, "Failed to execute job", e);
-                        sParallelCalls.release();
+                        releaseCall();
                     }
                 }
             }
         };
     }
 
-    private static void backoff() {
-        sWait = Math.min(MAXIMUM_WAIT, Math.round(sWait * BACKOFF_EXPONENT));
-        WonderPush.logDebug("Increasing backoff to " + sWait/1000.f + "s");
+    /**
+     * Pulls the due jobs that fit in the batch.
+     * While the batch can take more events, waits for them until the head job reaches the batch max age.
+     * Posting a job interrupts the wait, the job is then pulled if it fits.
+     */
+    private void fillBatch(WonderPushJobQueue.Job head, WonderPushRequestBatcher.Batch batch) {
+        long maxAge = mBatcher.getMaxBatchAge();
+        long deadline = head.getCreationTime() + maxAge;
+        while (true) {
+            mJobQueue.pollReadyJobs(SystemClock.elapsedRealtime(), mBatcher.getMaxBatchSize() - batch.size(), batch);
+            if (batch.isClosed()) return;
+            // Bound the wait even if the system clock goes back
+            long linger = Math.min(maxAge, deadline - System.currentTimeMillis());
+            if (linger <= 0) return;
+            try {
+                Thread.sleep(linger);
+            } catch (InterruptedException ignored) {
+                // A job was posted, try to pull it
+            }
+        }
+    }
+
+    /**
+     * Executes a single request, the semaphores having been acquired.
+     *
+     * @param done
+     *            Run once the request has completed, whatever its outcome
+     */
+    private void executeRequest(final WonderPushJobQueue.Job job, final Request request, final Runnable done) {
+        request.setHandler(new ResponseHandler() {
+            @Override
+            public void onFailure(Throwable e, Response errorResponse) {
+                WonderPush.logDebug("RequestVault: failure", e);
+
+                // Post back to job queue if this is handled
+                // handle network errors
+                if (e instanceof IOException) { // NoHttpResponseException, UnknownHostException, SocketException) {
+                    retry(job, true, 0);
+                } else if (e instanceof Request.ClientDisabledException) {
+                    retry(job, false, NORMAL_WAIT);
+                } else {
+                    WonderPush.logDebug("RequestVault: discarding job", e);
+                }
+                done.run();
+            }
+
+            @Override
+            public void onSuccess(Response response) {
+                WonderPush.logDebug("RequestVault: job done");
+                done.run();
+            }
+        });
+        if (!WonderPush.hasUserConsent()) {
+            // This last resort check is not expected to catch any case but is here for strictness
+            request.getHandler().onFailure(new RuntimeException("Missing user consent"), new Response("Missing user consent"));
+        } else {
+            mRequestExecutor.execute(request);
+        }
+    }
+
+    /**
+     * Executes several event requests as a single request, the semaphores having been acquired.
+     * Rejected events are discarded like individually failed jobs.
+     * A failure of the whole batch reposts every job if it is transient,
+     * otherwise the jobs are sent one by one so that only the faulty ones are discarded.
+     */
+    private void executeBatch(final WonderPushRequestBatcher.Batch batch) {
+        final Request batchRequest;
+        try {
+            batchRequest = batch.toRequest();
+        } catch (JSONException ex) {
+            Log.e(TAG, "Failed to build batch request, sending its jobs individually", ex);
+            executeIndividually(batch.getJobs(), 0);
+            return;
+        }
+        WonderPush.logDebug("RequestVault: sending a batch of " + batch.size() + " jobs");
+        batchRequest.setHandler(new ResponseHandler() {
+            @Override
+            public void onFailure(Throwable e, Response errorResponse) {
+                WonderPush.logDebug("RequestVault: batch failure", e);
+
+                int status = errorResponse == null ? 0 : errorResponse.getErrorStatus();
+                if (e instanceof IOException || status >= 500 || status == 429) {
+                    for (WonderPushJobQueue.Job job : batch.getJobs()) {
+                        retry(job, true, 0);
+                    }
+                } else if (e instanceof Request.ClientDisabledException) {
+                    for (WonderPushJobQueue.Job job : batch.getJobs()) {
+                        retry(job, false, NORMAL_WAIT);
+                    }
+                } else if (status == 404) {
+                    // The server does not support batches, send the jobs individually
+                    mBatcher.disable();
+                    for (WonderPushJobQueue.Job job : batch.getJobs()) {
+                        retry(job, false, 0);
+                    }
+                } else {
+                    // The batch as a whole was refused, possibly because of a single event (400, 413...)
+                    WonderPush.logDebug("RequestVault: batch refused, sending its " + batch.size() + " jobs individually");
+                    executeIndividually(batch.getJobs(), 0);
+                    return;
+                }
+                releaseCall();
+            }
+
+            @Override
+            public void onSuccess(Response response) {
+                List<Request> rejected = batch.getRejectedRequests(response);
+                WonderPush.logDebug("RequestVault: batch done, " + rejected.size() + " of " + batch.size() + " jobs rejected");
+                for (Request request : rejected) {
+                    WonderPush.logDebug("RequestVault: discarding rejected job " + request);
+                }
+                releaseCall();
+            }
+        });
+        if (!WonderPush.hasUserConsent()) {
+            // This last resort check is not expected to catch any case but is here for strictness
+            batchRequest.getHandler().onFailure(new RuntimeException("Missing user consent"), new Response("Missing user consent"));
+        } else {
+            mRequestExecutor.execute(batchRequest);
+        }
+    }
+
+    /**
+     * Executes the given jobs one after the other, from the given index, then releases the semaphores.
+     */
+    private void executeIndividually(final List<WonderPushJobQueue.Job> jobs, final int index) {
+        if (index >= jobs.size()) {
+            releaseCall();
+            return;
+        }
+        Runnable next = new Runnable() {
+            @Override
+            public void run() {
+                executeIndividually(jobs, index + 1);
+            }
+        };
+        WonderPushJobQueue.Job job = jobs.get(index);
+        Request request;
+        try {
+            request = new Request(job.getJobDescription());
+        } catch (JSONException ex) {
+            Log.e(TAG, "Failed to execute job", ex);
+            next.run();
+            return;
+        }
+        executeRequest(job, request, next);
+    }
+
+    private void acquireCall() throws InterruptedException {
+        mParallelCalls.acquire();
+        try {
+            mHostParallelCalls.acquire();
+        } catch (InterruptedException ex) {
+            mParallelCalls.release();
+            throw ex;
+        }
     }
 
-    private static void resetBackoff() {
-        sWait = NORMAL_WAIT;
+    private void releaseCall() {
+        mHostParallelCalls.release();
+        mParallelCalls.release();
     }
 
 }
@@ -46,6 +46,7 @@ public class WonderPushResourcesService extends WonderPushJobIntentService {
         private final String tag;
         private final int localNotificationId;
         private final Intent pushIntent;
+        private final long receivedAt;
 
         public static final Creator<Work> CREATOR = new Creator<Work>() {
             @Override
@@ -59,11 +60,12 @@ public class WonderPushResourcesService extends WonderPushJobIntentService {
             }
         };
 
-        Work(NotificationModel notif, String tag, int localNotificationId, Intent pushIntent) {
+        Work(NotificationModel notif, String tag, int localNotificationId, Intent pushIntent, long receivedAt) {
             this.notif = notif;
             this.tag = tag;
             this.localNotificationId = localNotificationId;
             this.pushIntent = pushIntent;
+            this.receivedAt = receivedAt;
         }
 
         protected Work(Parcel in) {
@@ -71,6 +73,7 @@ public class WonderPushResourcesService extends WonderPushJobIntentService {
             tag = in.readString();
             localNotificationId = in.readInt();
             pushIntent = in.readParcelable(getClass().getClassLoader());
+            receivedAt = in.readLong();
         }
 
         @Override
@@ -84,6 +87,7 @@ public class WonderPushResourcesService extends WonderPushJobIntentService {
             parcel.writeString(tag);
             parcel.writeInt(localNotificationId);
             parcel.writeParcelable(pushIntent, 0);
+            parcel.writeLong(receivedAt);
         }
 
         public NotificationModel getNotif() {
@@ -102,6 +106,13 @@ public class WonderPushResourcesService extends WonderPushJobIntentService {
             return pushIntent;
         }
 
+        /**
+         * When the notification was received, in {@link android.os.SystemClock#elapsedRealtime()} milliseconds.
+         */
+        public long getReceivedAt() {
+            return receivedAt;
+        }
+
         public NotificationManager.PendingIntentBuilder getPendingIntentBuilder(Context context) {
             return new NotificationManager.PendingIntentBuilder(notif, localNotificationId, pushIntent, context);
         }
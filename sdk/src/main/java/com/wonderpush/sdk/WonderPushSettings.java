@@ -169,6 +169,44 @@ public class WonderPushSettings {
         return rtn;
     }
 
+    public static Integer getInteger(String buildConfigFieldName, String resourceName, String metaDataName) {
+        Integer rtn = null;
+        Object buildConfigValue = sBuildConfigValues.get(buildConfigFieldName);
+        if (buildConfigValue instanceof Integer) {
+            rtn = (Integer) buildConfigValue;
+        }
+
+        // Try loading configuration using resources
+        // Resources are second because they are not easily viewable with tools like Dexplorer
+        try {
+            int res;
+            res = sResources.getIdentifier(resourceName, "integer", sContext.getPackageName());
+            if (res != 0) {
+                rtn = sResources.getInteger(res);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Could not get a WonderPush configuration resource", e);
+        }
+
+        if (sMetaData != null) {
+            // Try loading configuration using the manifest <application><meta-data>
+            // Metadata are last because they are easily viewable with tools like Dexplorer, hence it feels more natural that they override previous sources
+            Object resValue;
+            resValue = sMetaData.get(metaDataName);
+            if (resValue instanceof Integer) {
+                rtn = (Integer) resValue;
+            } else if (resValue instanceof String) {
+                try {
+                    rtn = Integer.parseInt((String) resValue);
+                } catch (NumberFormatException e) {
+                    Log.e(TAG, "Invalid integer value for " + metaDataName + ": " + resValue, e);
+                }
+            }
+        }
+
+        return rtn;
+    }
+
     public static boolean getBuildConfigFound() {
         return sFoundBuildConfig;
     }
@@ -121,13 +121,13 @@ public class InAppMessaging {
     return appComponent;
   }
 
-  public interface JSONObjectHandler {
-    void handle(@Nullable JSONObject jsonObject, @Nullable Throwable error);
+  public interface InAppConfigHandler {
+    void handle(@Nullable JSONObject inAppConfig, @Nullable String configVersion, @Nullable Throwable error);
   }
 
   public interface InAppMessagingDelegate {
     boolean inAppViewedReceipts();
-    void fetchInAppConfig(JSONObjectHandler handler);
+    void fetchInAppConfig(InAppConfigHandler handler);
     void onReady(PrivateController privateController);
     PresenceManager getPresenceManager();
   }
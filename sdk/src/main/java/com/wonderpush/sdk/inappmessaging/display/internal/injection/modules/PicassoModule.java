@@ -18,6 +18,7 @@ import android.app.Application;
 
 import com.squareup.picasso.OkHttp3Downloader;
 import com.squareup.picasso.Picasso;
+import com.wonderpush.sdk.WonderPushHttpClient;
 import com.wonderpush.sdk.inappmessaging.display.internal.PicassoErrorListener;
 import com.wonderpush.sdk.inappmessaging.display.internal.injection.scopes.InAppMessagingScope;
 
@@ -26,7 +27,6 @@ import java.io.IOException;
 import dagger.Module;
 import dagger.Provides;
 import okhttp3.Interceptor;
-import okhttp3.OkHttpClient;
 import okhttp3.Response;
 
 /** @hide */
@@ -37,7 +37,7 @@ public class PicassoModule {
   Picasso providesIamController(
       Application application, PicassoErrorListener picassoErrorListener) {
     okhttp3.OkHttpClient client =
-        new OkHttpClient.Builder()
+        WonderPushHttpClient.newBuilder()
             .addInterceptor(
                 new Interceptor() {
                   @Override
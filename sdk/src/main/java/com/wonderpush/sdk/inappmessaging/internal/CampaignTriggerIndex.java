@@ -0,0 +1,100 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.inappmessaging.model.Campaign;
+import com.wonderpush.sdk.inappmessaging.model.CommonTypesProto.TriggeringCondition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes campaigns by the events that can trigger them, {@link InAppMessageStreamManager#ON_FOREGROUND} included.
+ *
+ * <p>Each event maps to its candidate campaigns, in configuration order, along with the delay of the first
+ * triggering condition of each campaign matching that event.
+ * Test campaigns are always candidates on foreground.
+ *
+ * @hide
+ */
+public class CampaignTriggerIndex {
+
+  /**
+   * A campaign that can be triggered by a given event.
+   */
+  public static class Candidate {
+    private final Campaign campaign;
+    private final long delay;
+
+    Candidate(Campaign campaign, long delay) {
+      this.campaign = campaign;
+      this.delay = delay;
+    }
+
+    public Campaign getCampaign() {
+      return campaign;
+    }
+
+    public long getDelay() {
+      return delay;
+    }
+  }
+
+  private final List<Campaign> campaigns;
+  private final Map<String, List<Candidate>> candidatesByEvent;
+
+  public CampaignTriggerIndex(List<Campaign> campaigns) {
+    this.campaigns = campaigns;
+    Map<String, List<Candidate>> candidatesByEvent = new HashMap<>();
+    for (Campaign campaign : campaigns) {
+      // The first matching condition of a campaign gives its delay
+      Map<String, Long> delayByEvent = new LinkedHashMap<>();
+      for (TriggeringCondition condition : campaign.getTriggeringConditions()) {
+        if (condition.getIamTrigger() != null) {
+          putIfAbsent(delayByEvent, condition.getIamTrigger().toString(), condition.getDelay());
+        }
+        if (condition.getEvent() != null && condition.getEvent().getName() != null) {
+          putIfAbsent(delayByEvent, condition.getEvent().getName(), condition.getDelay());
+        }
+      }
+      if (campaign.isTestCampaign()) {
+        // the triggering condition for test campaigns is always 'app foreground'
+        putIfAbsent(delayByEvent, InAppMessageStreamManager.ON_FOREGROUND, 0L);
+      }
+      for (Map.Entry<String, Long> entry : delayByEvent.entrySet()) {
+        List<Candidate> candidates = candidatesByEvent.get(entry.getKey());
+        if (candidates == null) {
+          candidates = new ArrayList<>();
+          candidatesByEvent.put(entry.getKey(), candidates);
+        }
+        candidates.add(new Candidate(campaign, entry.getValue()));
+      }
+    }
+    this.candidatesByEvent = candidatesByEvent;
+  }
+
+  private static void putIfAbsent(Map<String, Long> map, String key, Long value) {
+    if (!map.containsKey(key)) map.put(key, value);
+  }
+
+  /**
+   * Returns every indexed campaign, in configuration order.
+   */
+  public List<Campaign> getCampaigns() {
+    return campaigns;
+  }
+
+  /**
+   * Returns the campaigns that can be triggered by the given event, in configuration order.
+   */
+  public List<Candidate> getCandidates(String event) {
+    List<Candidate> candidates = event == null ? null : candidatesByEvent.get(event);
+    return candidates == null ? Collections.<Candidate>emptyList() : Collections.unmodifiableList(candidates);
+  }
+
+  public int getEventCount() {
+    return candidatesByEvent.size();
+  }
+}
@@ -25,14 +25,13 @@ import com.wonderpush.sdk.inappmessaging.internal.injection.scopes.InAppMessagin
 import com.wonderpush.sdk.inappmessaging.internal.time.Clock;
 import com.wonderpush.sdk.inappmessaging.model.*;
 import com.wonderpush.sdk.inappmessaging.model.Campaign;
-import com.wonderpush.sdk.inappmessaging.model.CommonTypesProto.TriggeringCondition;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
 import javax.inject.Inject;
 
+import com.wonderpush.sdk.segmentation.CompiledCriterion;
 import com.wonderpush.sdk.segmentation.Segmenter;
 import com.wonderpush.sdk.segmentation.parser.*;
 import io.reactivex.Flowable;
@@ -40,7 +39,6 @@ import io.reactivex.Maybe;
 import io.reactivex.Single;
 import io.reactivex.flowables.ConnectableFlowable;
 import io.reactivex.functions.Function;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -63,6 +61,8 @@ public class InAppMessageStreamManager {
   private final AnalyticsEventsManager analyticsEventsManager;
   private final TestDeviceHelper testDeviceHelper;
   private final InAppMessaging.InAppMessagingDelegate inAppMessagingDelegate;
+  private final SegmentCache segmentCache = new SegmentCache();
+  private final ParsedCampaignCache campaignCache = new ParsedCampaignCache();
 
   @Inject
   public InAppMessageStreamManager(
@@ -88,51 +88,21 @@ public class InAppMessageStreamManager {
     this.inAppMessagingDelegate = inAppMessagingDelegate;
   }
 
-  private static boolean containsTriggeringCondition(String event, Campaign campaign) {
-    if (isAppForegroundEvent(event) && campaign.isTestCampaign()) {
-      return true; // the triggering condition for test campaigns is always 'app foreground'
-    }
-    for (TriggeringCondition condition : campaign.getTriggeringConditions()) {
-      if (hasIamTrigger(condition, event) || hasAnalyticsTrigger(condition, event)) {
-        Logging.logd(String.format("The event %s is contained in the list of triggers", event));
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private static boolean matchesSegment(Segmenter segmenter, Campaign campaign) {
+  private boolean matchesSegment(Segmenter segmenter, Campaign campaign) {
       // No segment means match all
       if (campaign.getSegment() == null) return true;
       // No segmenter means we can't perform segmentation
       if (segmenter == null) return false;
       try {
-          ASTCriterionNode parsedInstallationSegment = Segmenter.parseInstallationSegment(campaign.getSegment());
-          return segmenter.matchesInstallation(parsedInstallationSegment);
+          String campaignId = campaign.getNotificationMetadata() != null ? campaign.getNotificationMetadata().getCampaignId() : null;
+          CompiledCriterion installationSegment = segmentCache.get(campaignId, campaign.getSegment());
+          return segmenter.matchesInstallation(installationSegment);
       } catch (Exception e) {
           Logging.loge(String.format("Could not parse segment %s", campaign.getSegment().toString()), e);
           return false;
       }
   }
 
-  private static long delayForEvent(String event, Campaign campaign) {
-      for (TriggeringCondition condition : campaign.getTriggeringConditions()) {
-          if (hasIamTrigger(condition, event) || hasAnalyticsTrigger(condition, event)) {
-              Logging.logd(String.format("The event %s is contained in the list of triggers", event));
-              return condition.getDelay();
-          }
-      }
-      return 0;
-  }
-
-  private static boolean hasIamTrigger(TriggeringCondition tc, String event) {
-    return tc.getIamTrigger().toString().equals(event);
-  }
-
-  private static boolean hasAnalyticsTrigger(TriggeringCondition tc, String event) {
-    return tc.getEvent() != null && tc.getEvent().getName() != null && tc.getEvent().getName().equals(event);
-  }
-
   private static boolean isActive(Clock clock, Campaign campaign) {
     long campaignStartTime = campaign.getCampaignStartTimeMillis();
     long campaignEndTime = campaign.getCampaignEndTimeMillis();
@@ -192,7 +162,7 @@ public class InAppMessageStreamManager {
                       return Maybe.empty();
                   };
 
-              Function<List<Campaign>, Maybe<TriggeredInAppMessage>>
+              Function<CampaignTriggerIndex, Maybe<TriggeredInAppMessage>>
                   selectCampaign =
                       response ->
                           getTriggeredInAppMessageMaybe(
@@ -202,22 +172,32 @@ public class InAppMessageStreamManager {
                               filterDisplayable,
                               response);
 
-              Maybe<List<Campaign>> serviceFetch =
-                      Maybe.<List<Campaign>>create(
+              Maybe<CampaignTriggerIndex> serviceFetch =
+                      Maybe.<CampaignTriggerIndex>create(
                               emitter -> {
-                                  inAppMessagingDelegate.fetchInAppConfig((JSONObject config, Throwable error) -> {
+                                  inAppMessagingDelegate.fetchInAppConfig((JSONObject config, String configVersion, Throwable error) -> {
                                       try {
                                           if (error != null) emitter.onError(error);
                                           else {
-                                              JSONArray campaignsJson = config != null ? config.optJSONArray("campaigns") : null;
-                                              List<Campaign> messages = new ArrayList<>();
-                                              for (int i = 0; campaignsJson != null && i < campaignsJson.length(); i++) {
-                                                  JSONObject campaignJson = campaignsJson.optJSONObject(i);
-                                                  if (campaignJson == null) continue;
-                                                  Campaign campaign = Campaign.fromJSON(campaignJson);
-                                                  if (campaign != null) messages.add(campaign);
+                                              if (segmentCache.setConfigVersion(configVersion)) {
+                                                  Logging.logd("In-app config version changed to " + configVersion + ", cleared " + segmentCache);
                                               }
-                                              emitter.onSuccess(messages);
+                                              CampaignTriggerIndex index = campaignCache.get(configVersion, config);
+                                              if (index == null) {
+                                                  List<Campaign> messages = ParsedCampaignCache.parse(config);
+                                                  index = new CampaignTriggerIndex(messages);
+                                                  campaignCache.put(configVersion, config, index);
+                                                  Logging.logi(
+                                                          String.format(
+                                                                  Locale.US,
+                                                                  "Parsed %d messages triggered by %d events from in-app config version %s",
+                                                                  messages.size(),
+                                                                  index.getEventCount(),
+                                                                  configVersion));
+                                                  analyticsEventsManager.updateContextualTriggers(messages);
+                                                  testDeviceHelper.processCampaignFetch(messages);
+                                              }
+                                              emitter.onSuccess(index);
                                           }
                                           emitter.onComplete();
                                       } catch (Throwable t) {
@@ -225,16 +205,6 @@ public class InAppMessageStreamManager {
                                       }
                                   });
                               })
-                              .doOnSuccess(
-                                      resp ->
-                                              Logging.logi(
-                                                      String.format(
-                                                              Locale.US,
-                                                              "Successfully fetched %d messages from backend",
-                                                              resp.size())))
-                              .doOnSuccess(analyticsEventsManager::updateContextualTriggers)
-                              //.doOnSuccess(abtIntegrationHelper::updateRunningExperiments)
-                              .doOnSuccess(testDeviceHelper::processCampaignFetch)
                               .doOnError(e -> Logging.loge("Service fetch error: ", e))
                               .onErrorResumeNext(Maybe.empty()); // Absorb service failures
 
@@ -270,10 +240,16 @@ public class InAppMessageStreamManager {
           Function<Campaign, Maybe<Campaign>> filterAlreadyImpressed,
           Function<Campaign, Maybe<Campaign>> appForegroundRateLimitFilter,
           Function<Campaign, Maybe<Campaign>> filterDisplayable,
-          List<Campaign> campaigns) {
+          CampaignTriggerIndex index) {
+    List<CampaignTriggerIndex.Candidate> candidates = index.getCandidates(event);
+    if (candidates.isEmpty()) {
+      return Maybe.empty();
+    }
+    Logging.logd(String.format(Locale.US, "The event %s is contained in the list of triggers of %d campaigns", event, candidates.size()));
+
     Segmenter.Data segmenterData = null;
     try {
-      JSONObject installation = JSONSyncInstallation.forCurrentUser().getSdkState();
+      JSONObject installation = JSONSyncInstallation.forCurrentUser().getSdkStateSnapshot().toShallowJSONObject();
       installation.putOpt("userId", WonderPush.getUserId());
 
       // Tracked events
@@ -289,16 +265,15 @@ public class InAppMessageStreamManager {
       Logging.loge("Could not create segmenter data", e);
     }
     final Segmenter segmenter = segmenterData == null ? null : new Segmenter(segmenterData);
-    return Flowable.fromIterable(campaigns)
-        .filter(campaign -> testDeviceHelper.isDeviceInTestMode() || isActive(clock, campaign))
-        .filter(campaign -> containsTriggeringCondition(event, campaign))
-        .filter(campaign -> matchesSegment(segmenter, campaign))
-        .flatMapMaybe(filterAlreadyImpressed)
-        .flatMapMaybe(appForegroundRateLimitFilter)
-        .flatMapMaybe(filterDisplayable)
-        .sorted(InAppMessageStreamManager::compareByPriority)
+    return Flowable.fromIterable(candidates)
+        .filter(candidate -> testDeviceHelper.isDeviceInTestMode() || isActive(clock, candidate.getCampaign()))
+        .filter(candidate -> matchesSegment(segmenter, candidate.getCampaign()))
+        .flatMapMaybe(candidate -> filterAlreadyImpressed.apply(candidate.getCampaign()).map(campaign -> candidate))
+        .flatMapMaybe(candidate -> appForegroundRateLimitFilter.apply(candidate.getCampaign()).map(campaign -> candidate))
+        .flatMapMaybe(candidate -> filterDisplayable.apply(candidate.getCampaign()).map(campaign -> candidate))
+        .sorted((candidate1, candidate2) -> compareByPriority(candidate1.getCampaign(), candidate2.getCampaign()))
         .firstElement()
-        .flatMap(campaign -> triggeredInAppMessage(campaign, event, delayForEvent(event, campaign)));
+        .flatMap(candidate -> triggeredInAppMessage(candidate.getCampaign(), event, candidate.getDelay()));
   }
 
   private Maybe<TriggeredInAppMessage> triggeredInAppMessage(Campaign campaign, String event, long delay) {
@@ -0,0 +1,92 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.inappmessaging.model.Campaign;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches the parsed campaigns of the in-app configuration and their {@link CampaignTriggerIndex},
+ * for a given instance of it.
+ *
+ * <p>Entries are keyed on the configuration version and on the identity of the in-app configuration object.
+ * The SDK keeps handing out the same object for as long as it considers the remote configuration unchanged,
+ * that is with the same version and a matching ETag, and a new one otherwise.
+ * Campaigns are hence parsed and indexed again whenever the configuration is,
+ * even if a configuration with a different ETag reuses the version.
+ * A configuration without a version is never cached.
+ *
+ * @hide
+ */
+public class ParsedCampaignCache {
+
+  private String configVersion;
+  private JSONObject config;
+  private CampaignTriggerIndex index;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * Parses the campaigns of an in-app configuration, skipping the invalid ones.
+   */
+  public static List<Campaign> parse(@Nullable JSONObject config) {
+    JSONArray campaignsJson = config != null ? config.optJSONArray("campaigns") : null;
+    List<Campaign> campaigns = new ArrayList<>();
+    for (int i = 0; campaignsJson != null && i < campaignsJson.length(); i++) {
+      JSONObject campaignJson = campaignsJson.optJSONObject(i);
+      if (campaignJson == null) continue;
+      Campaign campaign = Campaign.fromJSON(campaignJson);
+      if (campaign != null) campaigns.add(campaign);
+    }
+    return Collections.unmodifiableList(campaigns);
+  }
+
+  /**
+   * Returns the campaigns indexed for the given configuration.
+   *
+   * @return The cached index, or {@code null} if the campaigns must be parsed and {@link #put(String, JSONObject, CampaignTriggerIndex) put}
+   */
+  @Nullable
+  public synchronized CampaignTriggerIndex get(@Nullable String configVersion, @Nullable JSONObject config) {
+    if (configVersion != null && configVersion.equals(this.configVersion) && config == this.config) {
+      hitCount.incrementAndGet();
+      return index;
+    }
+    missCount.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Remembers the campaigns indexed for the given configuration, replacing any previous one.
+   */
+  public synchronized void put(@Nullable String configVersion, @Nullable JSONObject config, CampaignTriggerIndex index) {
+    this.configVersion = configVersion;
+    this.config = configVersion == null ? null : config;
+    this.index = configVersion == null ? null : index;
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ParsedCampaignCache{"
+        + "configVersion=" + configVersion
+        + ", size=" + (index == null ? 0 : index.getCampaigns().size())
+        + ", hits=" + getHitCount()
+        + ", misses=" + getMissCount()
+        + "}";
+  }
+}
@@ -0,0 +1,107 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.segmentation.CompiledCriterion;
+import com.wonderpush.sdk.segmentation.Segmenter;
+import com.wonderpush.sdk.segmentation.parser.SegmentationDSLError;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches the parsed and compiled segments of in-app campaigns, by campaign id, for a given version of the in-app configuration.
+ *
+ * <p>Changing the configuration version drops every cached segment.
+ * Parse errors are cached too, so that an invalid segment is not parsed again on every event.
+ *
+ * @hide
+ */
+public class SegmentCache {
+
+  private static class Entry {
+    final CompiledCriterion segment;
+    final SegmentationDSLError error;
+
+    Entry(CompiledCriterion segment, SegmentationDSLError error) {
+      this.segment = segment;
+      this.error = error;
+    }
+  }
+
+  private final Map<String, Entry> entries = new HashMap<>();
+  private String configVersion;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * Declares the version of the in-app configuration the next campaigns come from.
+   * Drops the cached segments if it differs from the previous one.
+   *
+   * @return Whether the version changed
+   */
+  public synchronized boolean setConfigVersion(@Nullable String configVersion) {
+    if (configVersion == null ? this.configVersion == null : configVersion.equals(this.configVersion)) {
+      return false;
+    }
+    entries.clear();
+    this.configVersion = configVersion;
+    return true;
+  }
+
+  /**
+   * Returns the compiled installation segment of a campaign, parsing and compiling it on first use.
+   *
+   * @param campaignId The id of the campaign, {@code null} disables caching
+   * @param segment The segment of the campaign
+   * @throws SegmentationDSLError if the segment cannot be parsed
+   */
+  public CompiledCriterion get(@Nullable String campaignId, JSONObject segment) throws SegmentationDSLError {
+    Entry entry;
+    synchronized (this) {
+      entry = campaignId == null || configVersion == null ? null : entries.get(campaignId);
+    }
+    if (entry != null) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+      try {
+        entry = new Entry(Segmenter.compileInstallationSegment(Segmenter.parseInstallationSegment(segment)), null);
+      } catch (SegmentationDSLError ex) {
+        entry = new Entry(null, ex);
+      }
+      if (campaignId != null) {
+        synchronized (this) {
+          if (configVersion != null) entries.put(campaignId, entry);
+        }
+      }
+    }
+    if (entry.error != null) throw entry.error;
+    return entry.segment;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "SegmentCache{"
+        + "configVersion=" + configVersion
+        + ", size=" + size()
+        + ", hits=" + getHitCount()
+        + ", misses=" + getMissCount()
+        + "}";
+  }
+}
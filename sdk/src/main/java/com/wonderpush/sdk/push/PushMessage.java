@@ -0,0 +1,88 @@
+package com.wonderpush.sdk.push;
+
+import android.content.Intent;
+import android.os.SystemClock;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A message received by a push service, independently of the transport.
+ */
+public class PushMessage {
+
+    public interface IntentProvider {
+        /**
+         * Builds the intent representing the message, kept in the notification pending intents.
+         */
+        Intent toIntent();
+    }
+
+    private final String service;
+    private final String messageId;
+    private final Map<String, String> data;
+    private final long sentTime;
+    private final long receivedAt;
+    private final IntentProvider intentProvider;
+    private Intent intent;
+
+    /**
+     * @param service The identifier of the push service, like {@code "FCM"}
+     * @param messageId The message id given by the push service, if any
+     * @param data The data payload
+     * @param sentTime When the message was sent, in milliseconds since epoch, or 0 if unknown
+     * @param intentProvider Builds the intent representing the message, only when it is needed
+     */
+    public PushMessage(String service, String messageId, Map<String, String> data, long sentTime, IntentProvider intentProvider) {
+        this(service, messageId, data, sentTime, SystemClock.elapsedRealtime(), intentProvider);
+    }
+
+    PushMessage(String service, String messageId, Map<String, String> data, long sentTime, long receivedAt, IntentProvider intentProvider) {
+        this.service = service;
+        this.messageId = messageId;
+        this.data = data != null ? data : Collections.<String, String>emptyMap();
+        this.sentTime = sentTime;
+        this.receivedAt = receivedAt;
+        this.intentProvider = intentProvider;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public Map<String, String> getData() {
+        return data;
+    }
+
+    public long getSentTime() {
+        return sentTime;
+    }
+
+    /**
+     * When the message was received, in {@link SystemClock#elapsedRealtime()} milliseconds.
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public synchronized Intent getIntent() {
+        if (intent == null) {
+            intent = intentProvider != null ? intentProvider.toIntent() : new Intent();
+        }
+        return intent;
+    }
+
+    @Override
+    public String toString() {
+        return "PushMessage{" +
+                "service='" + service + '\'' +
+                ", messageId='" + messageId + '\'' +
+                ", data=" + data +
+                '}';
+    }
+
+}
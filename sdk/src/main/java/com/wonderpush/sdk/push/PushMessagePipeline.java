@@ -0,0 +1,196 @@
+package com.wonderpush.sdk.push;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.wonderpush.sdk.NotificationManager;
+import com.wonderpush.sdk.NotificationModel;
+import com.wonderpush.sdk.WonderPush;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Receives the messages of every push service.
+ *
+ * <p>
+ *     Messages go through the following stages, stopping at the first one that rejects them:
+ *     parse, dedupe, targeting check, receipt and render.
+ *     The SDK is only initialized for messages that carry WonderPush data.
+ *     Duplicates, like push service retries or the same notification received through two push services,
+ *     are dropped before tracking the receipt or fetching any resource.
+ * </p>
+ */
+public class PushMessagePipeline {
+
+    private static final String TAG = "WonderPush.Push." + PushMessagePipeline.class.getSimpleName();
+
+    public static final String WONDERPUSH_NOTIFICATION_EXTRA_KEY = "_wp";
+
+    public enum Result {
+        /**
+         * The message carries no WonderPush data, and should be handled by the application.
+         */
+        NOT_OURS,
+        /**
+         * The message carries invalid WonderPush data.
+         */
+        INVALID,
+        /**
+         * The notification was already received recently.
+         */
+        DUPLICATE,
+        /**
+         * The message is for another installation of the application, it is dropped.
+         */
+        NOT_TARGETED,
+        /**
+         * The message was tracked and displayed.
+         */
+        HANDLED
+    }
+
+    /**
+     * The work done at each stage, replaced by tests.
+     */
+    interface Stages {
+        void initialize(Context context);
+        NotificationModel parse(JSONObject wpData) throws NotificationModel.NotTargetedForThisInstallationException;
+        boolean isTargeted(NotificationModel notif);
+        void receipt(Context context, NotificationModel notif);
+        void render(Context context, PushMessage message, NotificationModel notif);
+    }
+
+    /**
+     * Remembers the messages already received.
+     */
+    interface Deduplicator {
+        /**
+         * Records a message, and tells whether it was already recorded.
+         */
+        boolean isDuplicate(PushMessage message, NotificationModel notif);
+    }
+
+    /**
+     * Measures the duration of each stage, replaced by tests.
+     */
+    interface Clock {
+        /**
+         * @return The time in {@link SystemClock#elapsedRealtime()} milliseconds
+         */
+        long elapsedRealtime();
+    }
+
+    private static class DefaultStages implements Stages {
+
+        @Override
+        public void initialize(Context context) {
+            WonderPush.initialize(context);
+        }
+
+        @Override
+        public NotificationModel parse(JSONObject wpData) throws NotificationModel.NotTargetedForThisInstallationException {
+            return NotificationModel.fromNotificationJSONObject(wpData);
+        }
+
+        @Override
+        public boolean isTargeted(NotificationModel notif) {
+            return NotificationManager.isTargetedAtCurrentInstallation(notif);
+        }
+
+        @Override
+        public void receipt(Context context, NotificationModel notif) {
+            NotificationManager.trackReceivedNotification(context, notif);
+        }
+
+        @Override
+        public void render(Context context, PushMessage message, NotificationModel notif) {
+            NotificationManager.displayReceivedNotification(context, message.getIntent(), notif, message.getReceivedAt());
+        }
+
+    }
+
+    private static Stages sStages = new DefaultStages();
+    private static Deduplicator sDeduplicator = newDefaultDeduplicator();
+    private static Clock sClock = SystemClock::elapsedRealtime;
+
+    static void setStages(Stages stages) {
+        sStages = stages != null ? stages : new DefaultStages();
+    }
+
+    static void setDeduplicator(Deduplicator deduplicator) {
+        sDeduplicator = deduplicator != null ? deduplicator : newDefaultDeduplicator();
+    }
+
+    private static Deduplicator newDefaultDeduplicator() {
+        return new RecentNotificationsDeduplicator(RecentNotificationsDeduplicator.CONFIGURATION_STORAGE,
+                RecentNotificationsDeduplicator.DEFAULT_CAPACITY, RecentNotificationsDeduplicator.DEFAULT_TTL_MS);
+    }
+
+    static void setClock(Clock clock) {
+        sClock = clock != null ? clock : SystemClock::elapsedRealtime;
+    }
+
+    /**
+     * Handles a message received by a push service.
+     *
+     * @param context The current context
+     * @param message The received message
+     * @return What became of the message
+     */
+    public static Result onMessageReceived(Context context, PushMessage message) {
+        Stages stages = sStages;
+        Clock clock = sClock;
+        String wpDataJson = message.getData().get(WONDERPUSH_NOTIFICATION_EXTRA_KEY);
+        if (wpDataJson == null) {
+            if (WonderPush.getLogging()) Log.d(TAG, "Received " + message.getService() + " message has no data for WonderPush");
+            return Result.NOT_OURS;
+        }
+
+        long start = WonderPush.getLogging() ? clock.elapsedRealtime() : 0;
+        stages.initialize(context);
+        long initialized = WonderPush.getLogging() ? clock.elapsedRealtime() : 0;
+        if (WonderPush.getLogging()) Log.d(TAG, "Received a " + message.getService() + " push notification!" + (message.getSentTime() > 0 ? " Sent " + (System.currentTimeMillis() - message.getSentTime()) + "ms ago" : ""));
+
+        NotificationModel notif;
+        try {
+            notif = stages.parse(new JSONObject(wpDataJson));
+        } catch (JSONException e) {
+            if (WonderPush.getLogging()) Log.d(TAG, "data is not a well-formed JSON object", e);
+            return Result.INVALID;
+        } catch (NotificationModel.NotTargetedForThisInstallationException e) {
+            if (WonderPush.getLogging()) Log.d(TAG, e.getMessage());
+            return Result.NOT_TARGETED;
+        }
+        if (notif == null) {
+            return Result.INVALID;
+        }
+        long parsed = WonderPush.getLogging() ? clock.elapsedRealtime() : 0;
+
+        if (sDeduplicator.isDuplicate(message, notif)) {
+            if (WonderPush.getLogging()) Log.d(TAG, "Dropping duplicate " + message.getService() + " message " + message.getMessageId());
+            return Result.DUPLICATE;
+        }
+
+        if (!stages.isTargeted(notif)) {
+            return Result.NOT_TARGETED;
+        }
+
+        stages.receipt(context, notif);
+        long received = WonderPush.getLogging() ? clock.elapsedRealtime() : 0;
+
+        stages.render(context, message, notif);
+
+        if (WonderPush.getLogging()) {
+            long rendered = clock.elapsedRealtime();
+            Log.d(TAG, "Handled push notification in " + (rendered - message.getReceivedAt()) + "ms:"
+                    + " initialize " + (initialized - start) + "ms,"
+                    + " parse " + (parsed - initialized) + "ms,"
+                    + " receipt " + (received - parsed) + "ms,"
+                    + " render " + (rendered - received) + "ms");
+        }
+        return Result.HANDLED;
+    }
+
+}
@@ -20,19 +20,51 @@ public class PushServiceManager {
     private static final String TAG = "WonderPush.Push";
 
     private static Context sContext;
+    private static boolean sInitialized;
 
     private static TreeMap<String, PushService> sKnownPushServices = new TreeMap<>();
     private static PushService sUsedPushService;
 
-    public static void initialize(Context context) {
+    /**
+     * Remembers the application context, so that push services can be discovered as soon as they are needed.
+     */
+    public static synchronized void setContext(Context context) {
         sContext = context.getApplicationContext();
-        for (PushService pushService : DiscoveryService.instantiatePushServices(context)) {
+    }
+
+    /**
+     * Discovers and initializes the push services, unless it is already done.
+     * The SDK does it in the background upon initialization.
+     */
+    public static void initialize(Context context) {
+        setContext(context);
+        ensureInitialized();
+    }
+
+    /**
+     * Discovers and initializes the push services once, on the calling thread if they are needed
+     * before the background initialization ran.
+     * Callers arriving during the discovery wait for it, as long as it takes but no longer.
+     *
+     * @return {@code false} if the push services cannot be discovered yet, for lack of a context
+     */
+    private static synchronized boolean ensureInitialized() {
+        if (sInitialized) return true;
+        if (sContext == null) {
+            Log.w(TAG, "Push services are needed before WonderPush is initialized");
+            return false;
+        }
+        // Set first, so that a failure is not retried on every call,
+        // and a push service calling back from its initialization does not discover again
+        sInitialized = true;
+        for (PushService pushService : DiscoveryService.instantiatePushServices(sContext)) {
             register(pushService);
         }
         initializePushServices();
+        return true;
     }
 
-    public static void register(PushService service) {
+    public static synchronized void register(PushService service) {
         Log.d(TAG, "Registering push service: " + service.getIdentifier() + ": " + service.getName() + " v" + service.getVersion());
         sKnownPushServices.put(service.getIdentifier(), service);
     }
@@ -50,6 +82,7 @@ public class PushServiceManager {
     }
 
     public static void refreshSubscription() {
+        ensureInitialized();
         if (sUsedPushService == null) {
             Log.e(TAG, "Cannot refresh push subscription, no push service available");
             return;
@@ -58,17 +91,35 @@ public class PushServiceManager {
     }
 
     public static int getNotificationIcon() {
+        ensureInitialized();
         if (sUsedPushService == null) return 0;
         return sUsedPushService.getNotificationIcon();
     }
 
     public static int getNotificationColor() {
+        ensureInitialized();
         if (sUsedPushService == null) return 0;
         return sUsedPushService.getNotificationColor();
     }
 
+    /**
+     * Stores the registration id given by a push service and associates it to the installation.
+     *
+     * @param service The identifier of the push service, like {@code "FCM"}
+     * @param senderIds The comma separated sender ids the registration id is valid for
+     * @param registrationId The registration id
+     */
+    public static void storeRegistrationId(String service, String senderIds, String registrationId) {
+        PushServiceResult result = new PushServiceResult();
+        result.setService(service);
+        result.setData(registrationId);
+        result.setSenderIds(senderIds);
+        onResult(result);
+    }
+
     public static void onResult(PushServiceResult result) {
         if (WonderPush.getLogging()) Log.d(TAG, "onResult(" + result + ")");
+        ensureInitialized();
         WonderPushConfiguration.initialize(sContext);
         String oldRegistrationId = WonderPushConfiguration.getGCMRegistrationId();
         String registrationId = result.getData();
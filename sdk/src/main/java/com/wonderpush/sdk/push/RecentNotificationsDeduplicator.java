@@ -0,0 +1,166 @@
+package com.wonderpush.sdk.push;
+
+import android.util.Log;
+
+import com.wonderpush.sdk.NotificationModel;
+import com.wonderpush.sdk.WonderPushConfiguration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the notifications received recently, across push services and application restarts.
+ *
+ * <p>
+ *     Notifications are identified by their campaign, notification and view ids,
+ *     or by the push service message id when they have no view id.
+ *     Only these ids are unique to a send: the campaign and notification ids alone are shared
+ *     by the legitimate re-sends of a notification, which must not be suppressed.
+ *     The set is bounded both in size and in time: ids are forgotten after {@link #DEFAULT_TTL_MS},
+ *     so that a campaign that sends the same notification again later is still displayed.
+ *     It is read from storage once, then checked in memory, and saved asynchronously.
+ * </p>
+ */
+class RecentNotificationsDeduplicator implements PushMessagePipeline.Deduplicator {
+
+    private static final String TAG = "WonderPush.Push." + RecentNotificationsDeduplicator.class.getSimpleName();
+
+    static final int DEFAULT_CAPACITY = 100;
+    static final long DEFAULT_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    interface Storage {
+        JSONObject load();
+        void save(JSONObject recentNotifications);
+    }
+
+    static final Storage CONFIGURATION_STORAGE = new Storage() {
+        @Override
+        public JSONObject load() {
+            return WonderPushConfiguration.getRecentReceivedNotificationsJson();
+        }
+
+        @Override
+        public void save(JSONObject recentNotifications) {
+            WonderPushConfiguration.setRecentReceivedNotificationsJson(recentNotifications);
+        }
+    };
+
+    private final Storage mStorage;
+    private final int mCapacity;
+    private final long mTtlMs;
+    // Ordered by reception date, oldest first
+    private LinkedHashMap<String, Long> mRecent;
+
+    RecentNotificationsDeduplicator(Storage storage, int capacity, long ttlMs) {
+        mStorage = storage;
+        mCapacity = capacity;
+        mTtlMs = ttlMs;
+    }
+
+    /**
+     * @return The id of the send of the notification, or {@code null} if it cannot be told apart from other sends
+     */
+    static String key(PushMessage message, NotificationModel notif) {
+        if (notif.getViewId() != null && (notif.getCampaignId() != null || notif.getNotificationId() != null)) {
+            return notif.getCampaignId() + "/" + notif.getNotificationId() + "/" + notif.getViewId();
+        }
+        if (message.getMessageId() != null) {
+            return message.getService() + ":" + message.getMessageId();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isDuplicate(PushMessage message, NotificationModel notif) {
+        String key = key(message, notif);
+        if (key == null) return false;
+        return isDuplicate(key, System.currentTimeMillis());
+    }
+
+    synchronized boolean isDuplicate(String key, long now) {
+        LinkedHashMap<String, Long> recent = getRecent();
+        boolean changed = expire(recent, now);
+        Long receivedAt = recent.get(key);
+        boolean duplicate = receivedAt != null;
+        if (!duplicate) {
+            recent.put(key, now);
+            while (recent.size() > mCapacity) {
+                Iterator<String> it = recent.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+            changed = true;
+        }
+        if (changed) {
+            save(recent);
+        }
+        return duplicate;
+    }
+
+    private LinkedHashMap<String, Long> getRecent() {
+        if (mRecent == null) {
+            mRecent = load();
+        }
+        return mRecent;
+    }
+
+    private boolean expire(LinkedHashMap<String, Long> recent, long now) {
+        boolean changed = false;
+        Iterator<Map.Entry<String, Long>> it = recent.entrySet().iterator();
+        while (it.hasNext()) {
+            long receivedAt = it.next().getValue();
+            // Also forget dates in the future, in case the clock went backwards
+            if (receivedAt > now - mTtlMs && receivedAt <= now) break;
+            it.remove();
+            changed = true;
+        }
+        return changed;
+    }
+
+    private LinkedHashMap<String, Long> load() {
+        LinkedHashMap<String, Long> rtn = new LinkedHashMap<>();
+        JSONObject stored;
+        try {
+            stored = mStorage.load();
+        } catch (Exception ex) {
+            Log.e(TAG, "Failed to read recent notifications", ex);
+            stored = null;
+        }
+        if (stored == null) return rtn;
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(stored.length());
+        Iterator<String> keys = stored.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            long receivedAt = stored.optLong(key, 0);
+            if (receivedAt > 0) entries.add(new AbstractMap.SimpleImmutableEntry<>(key, receivedAt));
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<String, Long> entry : entries) {
+            rtn.put(entry.getKey(), entry.getValue());
+        }
+        return rtn;
+    }
+
+    private void save(LinkedHashMap<String, Long> recent) {
+        try {
+            JSONObject json = new JSONObject();
+            for (Map.Entry<String, Long> entry : recent.entrySet()) {
+                json.put(entry.getKey(), entry.getValue().longValue());
+            }
+            mStorage.save(json);
+        } catch (JSONException ex) {
+            Log.e(TAG, "Failed to serialize recent notifications", ex);
+        } catch (Exception ex) {
+            Log.e(TAG, "Failed to store recent notifications", ex);
+        }
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.wonderpush.sdk.remoteconfig;
 
+import com.wonderpush.sdk.JSONUtil;
 import com.wonderpush.sdk.SafeOkHttpCallback;
+import com.wonderpush.sdk.WonderPushHttpClient;
 
 import okhttp3.*;
 import org.json.JSONException;
@@ -9,61 +11,147 @@ import org.json.JSONObject;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.Date;
-import java.util.Locale;
 
+/**
+ * Fetches the remote config from the CDN.
+ *
+ * <p>
+ *     The URL only varies with the requested version, so that the CDN and HTTP caches can serve it.
+ *     When a config is already stored, its entity tag is sent to revalidate it:
+ *     a {@code 304 Not Modified} response keeps it, and the server may answer with a
+ *     {@code 226 IM Used} JSON merge patch (RFC 7386) to apply on top of it instead of the full config (RFC 3229).
+ * </p>
+ */
 public class OkHttpRemoteConfigFetcher implements RemoteConfigFetcher {
-    @Nonnull
-    OkHttpClient client = new OkHttpClient();
+    static final String DELTA_INSTANCE_MANIPULATION = "merge-patch+json";
+    static final int HTTP_IM_USED = 226;
+
     @Nonnull
     String clientId;
     @Nonnull
     final private SafeDeferProvider safeDeferProvider;
+    @Nullable
+    final private Call.Factory callFactory;
     public OkHttpRemoteConfigFetcher(String clientId, SafeDeferProvider safeDeferProvider) {
+        this(clientId, safeDeferProvider, null);
+    }
+
+    /**
+     * @param callFactory Runs the HTTP calls, {@code null} to use the shared {@link WonderPushHttpClient}
+     */
+    OkHttpRemoteConfigFetcher(String clientId, SafeDeferProvider safeDeferProvider, @Nullable Call.Factory callFactory) {
         this.clientId = clientId;
         this.safeDeferProvider = safeDeferProvider;
+        this.callFactory = callFactory;
     }
 
     public interface SafeDeferProvider {
         void safeDefer(Runnable r, long defer);
     }
 
+    /**
+     * Thrown when a delta cannot be applied to the stored config, in which case the full config is fetched, once.
+     */
+    static class DeltaException extends Exception {
+        DeltaException(String message) {
+            super(message);
+        }
+    }
+
     @Override
     public void fetchRemoteConfig(@Nullable String version, @Nonnull RemoteConfigHandler handler) {
-        String url = String.format(Locale.ENGLISH, "%s%s%s?_=%d",Constants.REMOTE_CONFIG_BASE_URL, clientId, Constants.REMOTE_CONFIG_SUFFIX, new Date().getTime());
-        this.safeDeferProvider.safeDefer(() -> {
-            Request request = new Request.Builder().url(url).get().build();
-            client.newCall(request).enqueue(new SafeOkHttpCallback() {
-                @Override
-                public void onFailureSafe(Call call, IOException e) {
-                    handler.handle(null, e);
-                }
+        fetchRemoteConfig(version, null, handler);
+    }
 
-                @Override
-                public void onResponseSafe(Call call, Response response) throws IOException {
-                    if (!response.isSuccessful()) {
-                        handler.handle(null, new Exception("Invalid status code from remote config server:" + response.code()));
-                        return;
-                    }
+    @Override
+    public void fetchRemoteConfig(@Nullable String version, @Nullable RemoteConfig currentConfig, @Nonnull RemoteConfigHandler handler) {
+        HttpUrl.Builder urlBuilder = HttpUrl.get(Constants.REMOTE_CONFIG_BASE_URL + clientId + Constants.REMOTE_CONFIG_SUFFIX).newBuilder();
+        if (version != null) {
+            urlBuilder.addQueryParameter("v", version);
+        }
+        HttpUrl url = urlBuilder.build();
+        this.safeDeferProvider.safeDefer(() -> fetch(url, currentConfig, handler), 0);
+    }
+
+    private void fetch(HttpUrl url, @Nullable RemoteConfig currentConfig, @Nonnull RemoteConfigHandler handler) {
+        Call.Factory factory = callFactory != null ? callFactory : WonderPushHttpClient.get();
+        factory.newCall(buildRequest(url, currentConfig)).enqueue(new SafeOkHttpCallback() {
+            @Override
+            public void onFailureSafe(Call call, IOException e) {
+                handler.handle(null, e);
+            }
 
-                    JSONObject responseJson;
-                    try {
-                        responseJson = new JSONObject(response.body().string());
-                        String version = responseJson.optString("version", Long.toString(responseJson.optLong("version", 0)));
-                        if (version != null) {
-                            Long maxAge = responseJson.optLong("maxAge", responseJson.optLong("cacheTtl", 0));
-                            Long minAge = responseJson.optLong("minAge", responseJson.optLong("cacheMinAge", 0));
-                            RemoteConfig config = RemoteConfig.with(responseJson, version, DateHelper.now(), maxAge, minAge);
-                            handler.handle(config, null);
-                            return;
-                        }
-                        handler.handle(null, new Exception("Invalid remote config format"));
-                    } catch (JSONException e) {
+            @Override
+            public void onResponseSafe(Call call, Response response) {
+                try {
+                    handler.handle(parseResponse(response, currentConfig), null);
+                } catch (DeltaException e) {
+                    if (currentConfig != null) {
+                        // Start over without a base, a second delta then fails instead of looping
+                        fetch(url, null, handler);
+                    } else {
                         handler.handle(null, e);
-                        return;
                     }
+                } catch (Exception e) {
+                    handler.handle(null, e);
+                } finally {
+                    response.close();
                 }
-            });
-        }, 0);
+            }
+        });
+    }
+
+    static Request buildRequest(HttpUrl url, @Nullable RemoteConfig currentConfig) {
+        Request.Builder builder = new Request.Builder().url(url).get();
+        String etag = currentConfig != null ? currentConfig.getETag() : null;
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+            builder.header("A-IM", DELTA_INSTANCE_MANIPULATION);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the config from a response.
+     * @param currentConfig The config that served as a base for the request
+     * @throws DeltaException If the response is a delta that does not apply to {@code currentConfig}
+     */
+    static RemoteConfig parseResponse(Response response, @Nullable RemoteConfig currentConfig) throws Exception {
+        String etag = response.header("ETag");
+        if (response.code() == 304) {
+            if (currentConfig == null) {
+                throw new Exception("Unexpected Not Modified response from remote config server");
+            }
+            return RemoteConfig.with(currentConfig.getData(), currentConfig.getVersion(), DateHelper.now(),
+                    currentConfig.getMaxAge(), currentConfig.getMinAge(), etag != null ? etag : currentConfig.getETag());
+        }
+        if (!response.isSuccessful()) {
+            throw new Exception("Invalid status code from remote config server:" + response.code());
+        }
+
+        JSONObject responseJson = new JSONObject(response.body().string());
+        if (response.code() == HTTP_IM_USED) {
+            String instanceManipulation = response.header("IM");
+            String deltaBase = response.header("Delta-Base");
+            if (currentConfig == null || currentConfig.getETag() == null
+                    || instanceManipulation == null || !instanceManipulation.contains(DELTA_INSTANCE_MANIPULATION)
+                    || (deltaBase != null && !deltaBase.equals(currentConfig.getETag()))) {
+                throw new DeltaException("Cannot apply remote config delta " + instanceManipulation + " based on " + deltaBase);
+            }
+            JSONObject patched = JSONUtil.deepCopy(currentConfig.getData());
+            JSONUtil.merge(patched, responseJson);
+            responseJson = patched;
+        }
+        return parseConfig(responseJson, etag);
+    }
+
+    private static RemoteConfig parseConfig(JSONObject responseJson, @Nullable String etag) throws JSONException {
+        String version = responseJson.optString("version", Long.toString(responseJson.optLong("version", 0)));
+        if (version == null) {
+            throw new JSONException("Invalid remote config format");
+        }
+        long maxAge = responseJson.optLong("maxAge", responseJson.optLong("cacheTtl", 0));
+        long minAge = responseJson.optLong("minAge", responseJson.optLong("cacheMinAge", 0));
+        return RemoteConfig.with(responseJson, version, DateHelper.now(), maxAge, minAge, etag);
     }
 }
@@ -10,20 +10,24 @@ import java.util.Date;
 
 public class RemoteConfig {
 
+    public static RemoteConfig with(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate, long maxAge, long minAge, @Nullable String etag) {
+        return new RemoteConfig(data, version, fetchDate, maxAge, minAge, etag);
+    }
+
     public static RemoteConfig with(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate, long maxAge, long minAge) {
-        return new RemoteConfig(data, version, fetchDate, maxAge, minAge);
+        return new RemoteConfig(data, version, fetchDate, maxAge, minAge, null);
     }
 
     public static RemoteConfig with(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate, long maxAge) {
-        return new RemoteConfig(data, version, fetchDate, maxAge, 0);
+        return new RemoteConfig(data, version, fetchDate, maxAge, 0, null);
     }
 
     public static RemoteConfig with(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate) {
-        return new RemoteConfig(data, version, fetchDate, 0, 0);
+        return new RemoteConfig(data, version, fetchDate, 0, 0, null);
     }
 
     public static RemoteConfig with(@Nonnull JSONObject data, @Nonnull String version) {
-        return new RemoteConfig(data, version, DateHelper.now(), 0, 0);
+        return new RemoteConfig(data, version, DateHelper.now(), 0, 0, null);
     }
 
     @Nonnull
@@ -34,14 +38,17 @@ public class RemoteConfig {
     private Date fetchDate;
     private long maxAge;
     private long minAge;
+    @Nullable
+    private String etag;
 
-    private RemoteConfig(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate, long maxAge, long minAge) {
+    private RemoteConfig(@Nonnull JSONObject data, @Nonnull String version, @Nonnull Date fetchDate, long maxAge, long minAge, @Nullable String etag) {
         this.data = data;
         SimpleVersion simpleVersion = new SimpleVersion(version);
         this.version = simpleVersion.isValid() ? simpleVersion.toString() : version;
         this.fetchDate = fetchDate;
         this.maxAge = maxAge;
         this.minAge = minAge;
+        this.etag = etag;
     }
 
     /**
@@ -58,7 +65,8 @@ public class RemoteConfig {
             Long maxAge = json.optLong("maxAge", 0);//json.optLong("cacheTtl", 0));
             Long minAge = json.optLong("minAge", 0);//json.optLong("cacheMinAge", 0));
             Long fetchTime = json.optLong("fetchDate", DateHelper.now().getTime());
-            return RemoteConfig.with(data, version, new Date(fetchTime), maxAge, minAge);
+            String etag = json.isNull("etag") ? null : json.optString("etag", null);
+            return RemoteConfig.with(data, version, new Date(fetchTime), maxAge, minAge, etag);
         } catch (JSONException e) {
         }
         return null;
@@ -104,6 +112,14 @@ public class RemoteConfig {
         return data;
     }
 
+    /**
+     * The entity tag the server sent along this config, used to revalidate it and as the base of deltas.
+     */
+    @Nullable
+    public String getETag() {
+        return etag;
+    }
+
     @Override
     public String toString() {
         try {
@@ -113,6 +129,7 @@ public class RemoteConfig {
             json.put("fetchDate", fetchDate.getTime());
             json.put("maxAge", maxAge);
             json.put("minAge", minAge);
+            if (etag != null) json.put("etag", etag);
             return json.toString();
         } catch (JSONException e) {
             return null;
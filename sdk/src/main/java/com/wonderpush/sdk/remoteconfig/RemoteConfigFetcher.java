@@ -4,4 +4,12 @@ import javax.annotation.Nullable;
 
 public interface RemoteConfigFetcher {
     void fetchRemoteConfig(@Nullable String version, RemoteConfigHandler handler);
+
+    /**
+     * Fetches the config, letting the fetcher only transfer what changed since {@code currentConfig}.
+     * @param currentConfig The config currently stored, if any
+     */
+    default void fetchRemoteConfig(@Nullable String version, @Nullable RemoteConfig currentConfig, RemoteConfigHandler handler) {
+        fetchRemoteConfig(version, handler);
+    }
 }
@@ -12,6 +12,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class RemoteConfigManager {
     private static final String TAG = "WonderPush." + RemoteConfigManager.class.getSimpleName();
@@ -28,6 +29,14 @@ public class RemoteConfigManager {
     public long minimumConfigAge;
     public long maximumConfigAge;
 
+    /**
+     * Whether to also broadcast {@link Constants#INTENT_REMOTE_CONFIG_UPDATED} with the serialized configuration,
+     * for listeners that cannot use {@link #addObserver(RemoteConfigObserver)}.
+     * Applications enable it with {@code WonderPush.setBroadcastRemoteConfigUpdates(boolean)}
+     * or the {@code broadcastRemoteConfigUpdates} setting.
+     */
+    private volatile boolean broadcastUpdates;
+
     boolean isFetching;
     @Nullable
     Date lastFetchDate;
@@ -37,6 +46,8 @@ public class RemoteConfigManager {
     String storedHighestVersion;
     @Nonnull
     List<RemoteConfigHandler> queuedHandlers = new ArrayList<>();
+    @Nonnull
+    private final List<RemoteConfigObserver> observers = new CopyOnWriteArrayList<>();
 
     public RemoteConfigManager(@Nonnull RemoteConfigFetcher fetcher, @Nonnull RemoteConfigStorage storage) {
         this(fetcher, storage, null);
@@ -50,6 +61,39 @@ public class RemoteConfigManager {
         this.maximumConfigAge = Constants.REMOTE_CONFIG_DEFAULT_MAXIMUM_CONFIG_AGE;
     }
 
+    public boolean isBroadcastUpdates() {
+        return broadcastUpdates;
+    }
+
+    public void setBroadcastUpdates(boolean broadcastUpdates) {
+        this.broadcastUpdates = broadcastUpdates;
+    }
+
+    public void addObserver(@Nonnull RemoteConfigObserver observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(@Nonnull RemoteConfigObserver observer) {
+        observers.remove(observer);
+    }
+
+    private void notifyUpdated(@Nonnull RemoteConfig config) {
+        for (RemoteConfigObserver observer : observers) {
+            try {
+                observer.onRemoteConfigUpdated(config);
+            } catch (Exception ex) {
+                Log.e(TAG, "Unexpected error in RemoteConfig observer", ex);
+            }
+        }
+        if (!broadcastUpdates) return;
+        LocalBroadcastManager mgr = applicationContext != null ? LocalBroadcastManager.getInstance(applicationContext) : null;
+        if (mgr != null) {
+            Intent intent = new Intent(Constants.INTENT_REMOTE_CONFIG_UPDATED);
+            intent.putExtra(Constants.EXTRA_REMOTE_CONFIG, config.toString());
+            mgr.sendBroadcast(intent);
+        }
+    }
+
     public void declareVersion(@Nonnull String version) {
         if (!new SimpleVersion(version).isValid()) return;
         remoteConfigStorage.declareVersion(version, (Throwable declareVersionError) -> {
@@ -77,7 +121,7 @@ public class RemoteConfigManager {
 
                     // If we're declaring the same version as the current config, update the current config's fetchDate
                     if (RemoteConfig.compareVersions(config.getVersion(), version) == 0) {
-                        RemoteConfig configWithUpdatedDate = RemoteConfig.with(config.getData(), config.getVersion(), now, config.getMaxAge(), config.getMinAge());
+                        RemoteConfig configWithUpdatedDate = RemoteConfig.with(config.getData(), config.getVersion(), now, config.getMaxAge(), config.getMinAge(), config.getETag());
                         remoteConfigStorage.storeRemoteConfig(configWithUpdatedDate, (Throwable storageError) -> {
                             synchronized (this) {
                                 if (storageError == null) storedConfig = configWithUpdatedDate;
@@ -101,6 +145,14 @@ public class RemoteConfigManager {
         });
     }
 
+    /**
+     * Whether a version higher than the given one was declared,
+     * which {@link #read(RemoteConfigHandler)} fetches as soon as the current config reached its minimum age.
+     */
+    public synchronized boolean hasHigherDeclaredVersionThan(@Nonnull String version) {
+        return storedHighestVersion != null && RemoteConfig.compareVersions(version, storedHighestVersion) < 0;
+    }
+
     public void read(@Nonnull RemoteConfigHandler handler) {
         if (isFetching) {
             synchronized (queuedHandlers) {
@@ -202,7 +254,7 @@ public class RemoteConfigManager {
             lastFetchDate = DateHelper.now();
             isFetching = true;
         }
-        remoteConfigFetcher.fetchRemoteConfig(version, (RemoteConfig newConfig, Throwable fetchError) -> {
+        remoteConfigFetcher.fetchRemoteConfig(version, currentConfig, (RemoteConfig newConfig, Throwable fetchError) -> {
 
             RemoteConfigHandler handler = (RemoteConfig config, Throwable error) -> {
                 synchronized (queuedHandlers) {
@@ -238,12 +290,7 @@ public class RemoteConfigManager {
                                 Log.e(TAG, "Error declaring version to storage", declareError);
                             }
                             if (currentConfig == null || newConfig.hasHigherVersionThan(currentConfig)) {
-                                LocalBroadcastManager mgr = applicationContext != null ? LocalBroadcastManager.getInstance(applicationContext) : null;
-                                if (mgr != null) {
-                                    Intent intent = new Intent(Constants.INTENT_REMOTE_CONFIG_UPDATED);
-                                    intent.putExtra(Constants.EXTRA_REMOTE_CONFIG, newConfig.toString());
-                                    mgr.sendBroadcast(intent);
-                                }
+                                notifyUpdated(newConfig);
                             }
                             handler.handle(newConfig, null);
                         });
@@ -0,0 +1,10 @@
+package com.wonderpush.sdk.remoteconfig;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Notified within the process each time a configuration with a higher version has been stored.
+ */
+public interface RemoteConfigObserver {
+    void onRemoteConfigUpdated(@Nonnull RemoteConfig config);
+}
@@ -0,0 +1,26 @@
+package com.wonderpush.sdk.segmentation;
+
+import com.wonderpush.sdk.segmentation.parser.ASTCriterionNode;
+
+/**
+ * A segment compiled by {@link CriterionCompiler} into a tree of predicates,
+ * that can be evaluated many times without walking the AST again.
+ *
+ * Obtain instances using {@link Segmenter#compileInstallationSegment(ASTCriterionNode)}.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class CompiledCriterion {
+
+    public final ASTCriterionNode node;
+    private final CriterionCompiler.Predicate predicate;
+
+    CompiledCriterion(ASTCriterionNode node, CriterionCompiler.Predicate predicate) {
+        this.node = node;
+        this.predicate = predicate;
+    }
+
+    boolean matchesInstallation(Segmenter.Data data) {
+        return predicate.test(data, data.installation);
+    }
+
+}
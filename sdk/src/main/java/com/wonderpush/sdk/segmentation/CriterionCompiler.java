@@ -0,0 +1,710 @@
+package com.wonderpush.sdk.segmentation;
+
+import android.util.Log;
+
+import com.wonderpush.sdk.JSONUtil;
+import com.wonderpush.sdk.TimeSync;
+import com.wonderpush.sdk.segmentation.parser.ASTCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.ASTCriterionVisitor;
+import com.wonderpush.sdk.segmentation.parser.ASTValueNode;
+import com.wonderpush.sdk.segmentation.parser.DataSourceVisitor;
+import com.wonderpush.sdk.segmentation.parser.DefaultValueNodeParser;
+import com.wonderpush.sdk.segmentation.parser.FieldPath;
+import com.wonderpush.sdk.segmentation.parser.criteria.ASTUnknownCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.AllCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.AndCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.AnyCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.ComparisonCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.EqualityCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.GeoCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.InsideCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.JoinCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.LastActivityDateCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.MatchAllCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.NotCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.OrCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.PrefixCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.PresenceCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.criteria.SubscriptionStatusCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.datasource.EventSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.FieldSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.GeoDateSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.GeoLocationSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.InstallationSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.LastActivityDateSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.PresenceElapsedTimeSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.PresenceSinceDateSource;
+import com.wonderpush.sdk.segmentation.parser.datasource.UserSource;
+import com.wonderpush.sdk.segmentation.parser.value.ASTUnknownValueNode;
+import com.wonderpush.sdk.segmentation.parser.value.RelativeDateValueNode;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compiles a parsed segment into a tree of {@link Predicate}s that evaluate like {@link BaseCriterionVisitor}.
+ *
+ * Field paths are resolved, array indices parsed and comparison values typed once at compile time.
+ * Evaluating does not allocate lists of data source values, it iterates over the matching JSON values in place.
+ * Criteria that cannot be compiled are evaluated using the visitors.
+ */
+class CriterionCompiler implements ASTCriterionVisitor<CriterionCompiler.Predicate>, DataSourceVisitor<CriterionCompiler.Accessor> {
+
+    public static final String TAG = "WonderPush.Segm.Compiler";
+
+    /**
+     * A compiled criterion.
+     */
+    interface Predicate {
+        /**
+         * @param data The segmentation data
+         * @param source The object field sources read from: the installation, or the event of an enclosing event join
+         */
+        boolean test(Segmenter.Data data, JSONObject source);
+    }
+
+    /**
+     * A compiled data source.
+     */
+    static abstract class Accessor {
+        /**
+         * Returns {@code null} when there is no value, a {@link JSONArray} when there are several values, or the only value.
+         * Items of a returned array must go through {@link #convert(Object)}.
+         */
+        abstract Object resolve(Segmenter.Data data, JSONObject source);
+
+        Object convert(Object item) {
+            return item;
+        }
+    }
+
+    private interface ValueTest {
+        boolean test(Object value, Constant expected);
+    }
+
+    static CompiledCriterion compile(ASTCriterionNode node) {
+        return new CompiledCriterion(node, node.accept(new CriterionCompiler()));
+    }
+
+    ///
+    /// Values
+    ///
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long;
+    }
+
+    /**
+     * A value to compare data source values against, along with its precomputed type information.
+     */
+    static final class Constant {
+        final Object value;
+        final boolean isNull;
+        final boolean isNumber;
+        final boolean isIntegral;
+        final long longValue;
+        final double doubleValue;
+
+        Constant(Object value) {
+            this.value = value;
+            this.isNull = value == null || value == JSONObject.NULL;
+            this.isNumber = value instanceof Number;
+            this.isIntegral = isIntegral(value);
+            this.longValue = this.isNumber ? ((Number) value).longValue() : 0;
+            this.doubleValue = this.isNumber ? ((Number) value).doubleValue() : 0;
+        }
+    }
+
+    private static abstract class Operand {
+        abstract Constant get();
+    }
+
+    private static final class StaticOperand extends Operand {
+        private final Constant constant;
+
+        StaticOperand(Object value) {
+            this.constant = new Constant(value);
+        }
+
+        @Override
+        Constant get() {
+            return constant;
+        }
+    }
+
+    private static final class RelativeDateOperand extends Operand {
+        private final RelativeDateValueNode node;
+
+        RelativeDateOperand(RelativeDateValueNode node) {
+            this.node = node;
+        }
+
+        @Override
+        Constant get() {
+            return new Constant(node.duration.applyTo(TimeSync.getTime()));
+        }
+    }
+
+    /**
+     * Returns {@code null} for values that cannot be compiled.
+     */
+    private static Operand compileValue(ASTValueNode<?> node) {
+        if (node == null || node instanceof ASTUnknownValueNode) {
+            return null;
+        } else if (node instanceof RelativeDateValueNode) {
+            return new RelativeDateOperand((RelativeDateValueNode) node);
+        }
+        return new StaticOperand(node.getValue());
+    }
+
+    private static boolean isEmpty(Object resolved) {
+        if (resolved instanceof JSONArray) {
+            JSONArray array = (JSONArray) resolved;
+            for (int i = 0, l = array.length(); i < l; i++) {
+                Object item = array.opt(i);
+                if (item != null && item != JSONObject.NULL) return false;
+            }
+            return true;
+        }
+        return resolved == null;
+    }
+
+    private static boolean anyValue(Accessor accessor, Object resolved, Constant expected, ValueTest test) {
+        if (resolved instanceof JSONArray) {
+            JSONArray array = (JSONArray) resolved;
+            for (int i = 0, l = array.length(); i < l; i++) {
+                Object item = array.opt(i);
+                if (item == null || item == JSONObject.NULL) continue;
+                if (test.test(accessor.convert(item), expected)) return true;
+            }
+            return false;
+        }
+        return resolved != null && test.test(resolved, expected);
+    }
+
+    private static final ValueTest NUMBER_AWARE_EQUALS = new ValueTest() {
+        @Override
+        public boolean test(Object value, Constant expected) {
+            if (!expected.isNumber) return expected.value.equals(value);
+            if (!(value instanceof Number)) return false;
+            if (expected.isIntegral && isIntegral(value)) return expected.longValue == ((Number) value).longValue();
+            return expected.doubleValue == ((Number) value).doubleValue();
+        }
+    };
+
+    private static final ValueTest STRICT_EQUALS = new ValueTest() {
+        @Override
+        public boolean test(Object value, Constant expected) {
+            return expected.value.equals(value);
+        }
+    };
+
+    private static final ValueTest STARTS_WITH = new ValueTest() {
+        @Override
+        public boolean test(Object value, Constant expected) {
+            if (!(value instanceof String)) {
+                Log.w(TAG, "[prefix] value " + value + " is not a string");
+                return false;
+            }
+            return ((String) value).startsWith((String) expected.value);
+        }
+    };
+
+    /**
+     * Compares a non null data source value with a constant like {@code BaseCriterionVisitor.compareObjectsOrThrow()},
+     * returning {@link #INCOMPARABLE} instead of throwing.
+     */
+    private static int compare(Object a, Constant b) {
+        if (a instanceof Number) {
+            if (b.isNull) {
+                return isIntegral(a) ? Long.compare(((Number) a).longValue(), 0) : Double.compare(((Number) a).doubleValue(), 0);
+            }
+            if (!b.isNumber) return INCOMPARABLE;
+            if (b.isIntegral && isIntegral(a)) return Long.compare(((Number) a).longValue(), b.longValue);
+            return Double.compare(((Number) a).doubleValue(), b.doubleValue);
+        } else if (a instanceof String) {
+            if (b.isNull) return ((String) a).compareTo("");
+            if (!(b.value instanceof String)) return INCOMPARABLE;
+            return ((String) a).compareTo((String) b.value);
+        } else if (a instanceof Boolean) {
+            if (b.isNull) return ((Boolean) a).compareTo(false);
+            if (!(b.value instanceof Boolean)) return INCOMPARABLE;
+            return ((Boolean) a).compareTo((Boolean) b.value);
+        }
+        return INCOMPARABLE;
+    }
+
+    private static ValueTest comparisonTest(ComparisonCriterionNode.Comparator comparator) {
+        switch (comparator) {
+            case gt:
+                return new ValueTest() {
+                    @Override
+                    public boolean test(Object value, Constant expected) {
+                        int cmp = compare(value, expected);
+                        return cmp != INCOMPARABLE && cmp > 0;
+                    }
+                };
+            case gte:
+                return new ValueTest() {
+                    @Override
+                    public boolean test(Object value, Constant expected) {
+                        int cmp = compare(value, expected);
+                        return cmp != INCOMPARABLE && cmp >= 0;
+                    }
+                };
+            case lt:
+                return new ValueTest() {
+                    @Override
+                    public boolean test(Object value, Constant expected) {
+                        int cmp = compare(value, expected);
+                        return cmp != INCOMPARABLE && cmp < 0;
+                    }
+                };
+            case lte:
+                return new ValueTest() {
+                    @Override
+                    public boolean test(Object value, Constant expected) {
+                        int cmp = compare(value, expected);
+                        return cmp != INCOMPARABLE && cmp <= 0;
+                    }
+                };
+        }
+        return null;
+    }
+
+    ///
+    /// Predicates
+    ///
+
+    private static final Predicate TRUE = new Predicate() {
+        @Override
+        public boolean test(Segmenter.Data data, JSONObject source) {
+            return true;
+        }
+    };
+
+    private static final Predicate FALSE = new Predicate() {
+        @Override
+        public boolean test(Segmenter.Data data, JSONObject source) {
+            return false;
+        }
+    };
+
+    /**
+     * Evaluates a criterion the compiler does not handle using the visitors.
+     */
+    private static final class VisitorPredicate implements Predicate {
+        private final ASTCriterionNode node;
+
+        VisitorPredicate(ASTCriterionNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean test(Segmenter.Data data, JSONObject source) {
+            BaseCriterionVisitor visitor = source == data.installation ? new InstallationVisitor(data) : new EventVisitor(data, source);
+            return node.accept(visitor);
+        }
+    }
+
+    private Predicate[] compileChildren(List<ASTCriterionNode> children) {
+        Predicate[] rtn = new Predicate[children.size()];
+        for (int i = 0; i < rtn.length; i++) {
+            rtn[i] = children.get(i).accept(this);
+        }
+        return rtn;
+    }
+
+    ///
+    /// ASTCriterionVisitor
+    ///
+
+    @Override
+    public Predicate visitMatchAllCriterionNode(MatchAllCriterionNode node) {
+        return TRUE;
+    }
+
+    @Override
+    public Predicate visitAndCriterionNode(AndCriterionNode node) {
+        final Predicate[] children = compileChildren(node.children);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                for (Predicate child : children) {
+                    if (!child.test(data, source)) return false;
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitOrCriterionNode(OrCriterionNode node) {
+        final Predicate[] children = compileChildren(node.children);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                for (Predicate child : children) {
+                    if (child.test(data, source)) return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitNotCriterionNode(NotCriterionNode node) {
+        final Predicate child = node.child.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                return !child.test(data, source);
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitGeoCriterionNode(GeoCriterionNode node) {
+        Log.w(TAG, "Unsupported " + node.getClass().getSimpleName());
+        return FALSE;
+    }
+
+    @Override
+    public Predicate visitSubscriptionStatusCriterionNode(final SubscriptionStatusCriterionNode node) {
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                JSONObject pushToken = data.installation.optJSONObject("pushToken");
+                boolean hasPushToken = pushToken != null && JSONUtil.getString(pushToken, "data") != null;
+                SubscriptionStatusCriterionNode.SubscriptionStatus status;
+                if (!hasPushToken) {
+                    status = SubscriptionStatusCriterionNode.SubscriptionStatus.optOut;
+                } else {
+                    JSONObject preferences = data.installation.optJSONObject("preferences");
+                    String preferencesSubscriptionStatus = preferences != null ? JSONUtil.getString(preferences, "subscriptionStatus") : null;
+                    if ("optOut".equals(preferencesSubscriptionStatus)) {
+                        status = SubscriptionStatusCriterionNode.SubscriptionStatus.softOptOut;
+                    } else {
+                        status = SubscriptionStatusCriterionNode.SubscriptionStatus.optIn;
+                    }
+                }
+                return node.subscriptionStatus == status;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitLastActivityDateCriterionNode(LastActivityDateCriterionNode node) {
+        if (node.dateComparison != null) {
+            return node.dateComparison.accept(this);
+        }
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                return data.lastAppOpenDate > 0;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitPresenceCriterionNode(final PresenceCriterionNode node) {
+        final Predicate elapsedTimeComparison = node.elapsedTimeComparison == null ? null : node.elapsedTimeComparison.accept(this);
+        final Predicate sinceDateComparison = node.sinceDateComparison == null ? null : node.sinceDateComparison.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                long now = TimeSync.getTime();
+                boolean present = data.presenceInfo == null || (data.presenceInfo.untilDate >= now && data.presenceInfo.fromDate <= now);
+                if (present != node.present) return false;
+                if (elapsedTimeComparison != null && !elapsedTimeComparison.test(data, source)) return false;
+                return sinceDateComparison == null || sinceDateComparison.test(data, source);
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitJoinCriterionNode(JoinCriterionNode node) {
+        final Predicate child = node.child.accept(this);
+        if (node.context.dataSource instanceof EventSource) {
+            return new Predicate() {
+                @Override
+                public boolean test(Segmenter.Data data, JSONObject source) {
+                    for (JSONObject event : data.allEvents) {
+                        if (child.test(data, event)) return true;
+                    }
+                    return false;
+                }
+            };
+        }
+        if (node.context.dataSource instanceof InstallationSource) {
+            return new Predicate() {
+                @Override
+                public boolean test(Segmenter.Data data, JSONObject source) {
+                    return child.test(data, data.installation);
+                }
+            };
+        }
+        Log.w(TAG, "Unsupported join on " + node.context.dataSource.getClass().getSimpleName());
+        return FALSE;
+    }
+
+    @Override
+    public Predicate visitEqualityCriterionNode(EqualityCriterionNode node) {
+        final Operand operand = compileValue(node.value);
+        if (operand == null) return new VisitorPredicate(node);
+        final Accessor accessor = node.context.dataSource.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                Object resolved = accessor.resolve(data, source);
+                Constant expected = operand.get();
+                if (expected.isNull) return isEmpty(resolved);
+                return anyValue(accessor, resolved, expected, NUMBER_AWARE_EQUALS);
+            }
+        };
+    }
+
+    private Operand[] compileValues(List<ASTValueNode<Object>> values) {
+        Operand[] rtn = new Operand[values.size()];
+        for (int i = 0; i < rtn.length; i++) {
+            rtn[i] = compileValue(values.get(i));
+            if (rtn[i] == null) return null;
+        }
+        return rtn;
+    }
+
+    @Override
+    public Predicate visitAnyCriterionNode(AnyCriterionNode node) {
+        final Operand[] operands = compileValues(node.values);
+        if (operands == null) return new VisitorPredicate(node);
+        final Accessor accessor = node.context.dataSource.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                Object resolved = accessor.resolve(data, source);
+                for (Operand operand : operands) {
+                    Constant expected = operand.get();
+                    if (expected.isNull && isEmpty(resolved)) return true;
+                    if (anyValue(accessor, resolved, expected, STRICT_EQUALS)) return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitAllCriterionNode(AllCriterionNode node) {
+        final Operand[] operands = compileValues(node.values);
+        if (operands == null) return new VisitorPredicate(node);
+        final Accessor accessor = node.context.dataSource.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                Object resolved = accessor.resolve(data, source);
+                for (Operand operand : operands) {
+                    Constant expected = operand.get();
+                    boolean found = expected.isNull ? isEmpty(resolved) : anyValue(accessor, resolved, expected, STRICT_EQUALS);
+                    if (!found) return false;
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitComparisonCriterionNode(ComparisonCriterionNode node) {
+        final Operand operand = compileValue(node.value);
+        final ValueTest test = comparisonTest(node.comparator);
+        if (operand == null || test == null) return new VisitorPredicate(node);
+        final Accessor accessor = node.context.dataSource.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                return anyValue(accessor, accessor.resolve(data, source), operand.get(), test);
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitPrefixCriterionNode(PrefixCriterionNode node) {
+        final Operand operand = compileValue(node.value);
+        if (operand == null) return new VisitorPredicate(node);
+        final Constant expected = operand.get();
+        if (!(expected.value instanceof String)) {
+            Log.w(TAG, "[prefix] value " + expected.value + " is not a string");
+            return FALSE;
+        }
+        final Accessor accessor = node.context.dataSource.accept(this);
+        return new Predicate() {
+            @Override
+            public boolean test(Segmenter.Data data, JSONObject source) {
+                return anyValue(accessor, accessor.resolve(data, source), expected, STARTS_WITH);
+            }
+        };
+    }
+
+    @Override
+    public Predicate visitInsideCriterionNode(InsideCriterionNode node) {
+        Log.w(TAG, "Unsupported " + node.getClass().getSimpleName());
+        return FALSE;
+    }
+
+    @Override
+    public Predicate visitASTUnknownCriterionNode(ASTUnknownCriterionNode node) {
+        Log.w(TAG, "Unsupported unknown criterion " + node.key + " with value " + node.value);
+        return FALSE;
+    }
+
+    ///
+    /// DataSourceVisitor
+    ///
+
+    private static final Accessor NO_VALUE = new Accessor() {
+        @Override
+        Object resolve(Segmenter.Data data, JSONObject source) {
+            return null;
+        }
+    };
+
+    /**
+     * Reads a field of the installation or event, with its path split and array indices parsed upfront.
+     */
+    static final class FieldAccessor extends Accessor {
+
+        private static final class ParsedDate {
+            final String input;
+            final Object output;
+
+            ParsedDate(String input, Object output) {
+                this.input = input;
+                this.output = output;
+            }
+        }
+
+        private final String[] parts;
+        private final int[] indices;
+        private final boolean parseDates;
+        private volatile ParsedDate lastParsedDate;
+
+        FieldAccessor(FieldPath fieldPath) {
+            this.parts = fieldPath.parts;
+            this.indices = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                try {
+                    indices[i] = Integer.parseInt(parts[i], 10);
+                } catch (NumberFormatException ex) {
+                    indices[i] = -1;
+                }
+            }
+            this.parseDates = parts.length >= 2 && "custom".equals(parts[0]) && parts[parts.length - 1].startsWith("date_");
+        }
+
+        @Override
+        Object resolve(Segmenter.Data data, JSONObject source) {
+            Object curr = source;
+            for (int i = 0; i < parts.length && curr != null; i++) {
+                if (curr instanceof JSONObject) {
+                    curr = ((JSONObject) curr).opt(parts[i]);
+                } else if (curr instanceof JSONArray) {
+                    curr = indices[i] < 0 ? null : ((JSONArray) curr).opt(indices[i]);
+                } else {
+                    curr = null;
+                }
+            }
+            if (curr == JSONObject.NULL) return null;
+            return curr instanceof JSONArray ? curr : convert(curr);
+        }
+
+        @Override
+        Object convert(Object item) {
+            if (!parseDates || !(item instanceof String)) return item;
+            // Installation dates rarely change between evaluations, remember the last one
+            ParsedDate last = lastParsedDate;
+            if (last != null && last.input.equals(item)) return last.output;
+            Object rtn = item;
+            try {
+                Date parsed = DefaultValueNodeParser.parseAbsoluteDate((String) item);
+                if (parsed != null) {
+                    rtn = parsed.getTime();
+                }
+            } catch (ParseException ignored) {}
+            lastParsedDate = new ParsedDate((String) item, rtn);
+            return rtn;
+        }
+
+    }
+
+    @Override
+    public Accessor visitUserSource(UserSource dataSource) {
+        return NO_VALUE;
+    }
+
+    @Override
+    public Accessor visitInstallationSource(InstallationSource dataSource) {
+        return NO_VALUE;
+    }
+
+    @Override
+    public Accessor visitEventSource(EventSource dataSource) {
+        return NO_VALUE;
+    }
+
+    @Override
+    public Accessor visitFieldSource(FieldSource dataSource) {
+        return new FieldAccessor(dataSource.fullPath());
+    }
+
+    @Override
+    public Accessor visitLastActivityDateSource(LastActivityDateSource dataSource) {
+        return new Accessor() {
+            @Override
+            Object resolve(Segmenter.Data data, JSONObject source) {
+                return data.lastAppOpenDate;
+            }
+        };
+    }
+
+    @Override
+    public Accessor visitPresenceSinceDateSource(final PresenceSinceDateSource dataSource) {
+        return new Accessor() {
+            @Override
+            Object resolve(Segmenter.Data data, JSONObject source) {
+                if (dataSource.present) {
+                    return data.presenceInfo == null ? TimeSync.getTime() : data.presenceInfo.fromDate;
+                }
+                return data.presenceInfo == null ? Long.MAX_VALUE : data.presenceInfo.untilDate;
+            }
+        };
+    }
+
+    @Override
+    public Accessor visitPresenceElapsedTimeSource(final PresenceElapsedTimeSource dataSource) {
+        return new Accessor() {
+            @Override
+            Object resolve(Segmenter.Data data, JSONObject source) {
+                if (data.presenceInfo == null) return 0L;
+                if (dataSource.present) {
+                    return Math.max(0, TimeSync.getTime() - data.presenceInfo.fromDate);
+                }
+                return data.presenceInfo.elapsedTime;
+            }
+        };
+    }
+
+    @Override
+    public Accessor visitGeoLocationSource(GeoLocationSource dataSource) {
+        return NO_VALUE;
+    }
+
+    @Override
+    public Accessor visitGeoDateSource(GeoDateSource dataSource) {
+        return NO_VALUE;
+    }
+
+}
@@ -51,8 +51,19 @@ public class Segmenter {
         return SegmentationFactory.getDefaultParser().parse(segmentInput, new InstallationSource());
     }
 
+    /**
+     * Compiles a parsed segment so that it can be evaluated repeatedly at a lower cost.
+     */
+    public static CompiledCriterion compileInstallationSegment(ASTCriterionNode parsedInstallationSegment) {
+        return CriterionCompiler.compile(parsedInstallationSegment);
+    }
+
     public boolean matchesInstallation(ASTCriterionNode parsedInstallationSegment) {
         return parsedInstallationSegment.accept(new InstallationVisitor(data));
     }
 
+    public boolean matchesInstallation(CompiledCriterion compiledInstallationSegment) {
+        return compiledInstallationSegment.matchesInstallation(data);
+    }
+
 }
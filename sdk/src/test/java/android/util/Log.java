@@ -10,6 +10,10 @@ public class Log {
         return 0;
     }
 
+    public static boolean isLoggable(String tag, int level) {
+        return false;
+    }
+
     public static int d(String tag, String msg) {
         return log("D", tag, msg, null);
     }
@@ -18,6 +22,14 @@ public class Log {
         return log("D", tag, msg, tr);
     }
 
+    public static int i(String tag, String msg) {
+        return log("I", tag, msg, null);
+    }
+
+    public static int i(String tag, String msg, Throwable tr) {
+        return log("I", tag, msg, tr);
+    }
+
     public static int w(String tag, String msg) {
         return log("W", tag, msg, null);
     }
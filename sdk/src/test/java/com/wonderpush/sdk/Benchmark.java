@@ -0,0 +1,117 @@
+package com.wonderpush.sdk;
+
+import android.util.Log;
+
+import org.junit.Assume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the micro-benchmarks written as JUnit tests, and logs their results.
+ *
+ * Benchmarks are skipped unless run with {@code -Dwonderpush.benchmark=true}.
+ */
+public final class Benchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final long ITERATION_DURATION_NANOS = 200_000_000L;
+
+    /**
+     * Consumes the results of the measured operations so that they cannot be optimized away.
+     */
+    private static volatile long sBlackhole;
+
+    /**
+     * The measured code.
+     */
+    public interface Operation {
+        /**
+         * @return Any value derived from the work done, so that it is not optimized away
+         */
+        long run() throws Exception;
+    }
+
+    private Benchmark() {
+    }
+
+    /**
+     * Skips the calling test unless benchmarks are enabled.
+     */
+    public static void assumeEnabled() {
+        Assume.assumeTrue(Boolean.getBoolean("wonderpush.benchmark"));
+    }
+
+    /**
+     * Runs timed iterations, and returns the best average duration of one operation, in nanoseconds.
+     */
+    public static double measure(Operation operation) throws Exception {
+        double best = Double.MAX_VALUE;
+        long blackhole = 0;
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; iteration++) {
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                blackhole += operation.run();
+                operations++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_DURATION_NANOS);
+            if (iteration >= WARMUP_ITERATIONS) {
+                best = Math.min(best, (double) elapsed / operations);
+            }
+        }
+        sBlackhole += blackhole;
+        return best;
+    }
+
+    /**
+     * Measurements of alternatives, each logged with its speedup over the first one.
+     */
+    public static class Results {
+
+        private final String mTag;
+        private final String mTitle;
+        private final String mUnit;
+        private final double mNanosPerUnit;
+        private final List<String> mNames = new ArrayList<>();
+        private final List<Double> mNanos = new ArrayList<>();
+
+        /**
+         * @param benchmark The benchmark class, naming the log tag
+         * @param title What is measured
+         * @param unit The unit figures are logged in, like {@code "ns/op"}
+         * @param nanosPerUnit The number the measured nanoseconds are divided by to be expressed in the unit
+         */
+        public Results(Class<?> benchmark, String title, String unit, double nanosPerUnit) {
+            mTag = "WonderPush." + benchmark.getSimpleName();
+            mTitle = title;
+            mUnit = unit;
+            mNanosPerUnit = nanosPerUnit;
+        }
+
+        public Results add(String name, double nanos) {
+            mNames.add(name);
+            mNanos.add(nanos);
+            return this;
+        }
+
+        public void log() {
+            int width = 0;
+            for (String name : mNames) {
+                width = Math.max(width, name.length() + 1);
+            }
+            Log.i(mTag, mTitle);
+            for (int i = 0; i < mNames.size(); i++) {
+                String line = String.format("  %-" + width + "s %10.3f %s", mNames.get(i) + ":", mNanos.get(i) / mNanosPerUnit, mUnit);
+                if (i > 0) {
+                    line += String.format(" (x%.2f)", mNanos.get(0) / mNanos.get(i));
+                }
+                Log.i(mTag, line);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.wonderpush.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the cost of filtering event types with the former regex based rule matching,
+ * see {@link GlobSetTest#legacyItemMatchesRule}, and with the compiled {@link BlackWhiteList}.
+ *
+ * Skipped unless run with {@code -Dwonderpush.benchmark=true}.
+ */
+public class BlackWhiteListBenchmark {
+
+    private static final int RULE_COUNT = 400;
+    private static final int EVENT_TYPE_COUNT = 5000;
+
+    private interface Filter {
+        boolean allow(String type);
+    }
+
+    /**
+     * Rules shaped like real configs: mostly literals, some prefixes and suffixes, a few infix globs.
+     */
+    private static List<String> buildRules(Random random) {
+        List<String> rules = new ArrayList<>();
+        for (int i = 0; i < RULE_COUNT; i++) {
+            String rule;
+            switch (i % 10) {
+                case 0: case 1: case 2: case 3: case 4: rule = "event_" + random.nextInt(10000); break;
+                case 5: case 6: rule = "screen_" + random.nextInt(1000) + "*"; break;
+                case 7: rule = "*_" + random.nextInt(1000) + "_click"; break;
+                case 8: rule = "*purchase_" + random.nextInt(1000) + "*"; break;
+                default: rule = "ab" + random.nextInt(100) + "*_variant_*" + random.nextInt(10); break;
+            }
+            rules.add(i % 3 == 0 ? "-" + rule : rule);
+        }
+        rules.add("-@DEBUG_*");
+        return rules;
+    }
+
+    private static List<String> buildEventTypes(Random random) {
+        List<String> types = new ArrayList<>();
+        String[] shapes = {"event_%d", "screen_%d_home", "button_%d_click", "in_app_purchase_%d_done", "ab%d_variant_b", "@APP_OPEN", "@DEBUG_%d"};
+        for (int i = 0; i < EVENT_TYPE_COUNT; i++) {
+            types.add(String.format(shapes[i % shapes.length], random.nextInt(10000)));
+        }
+        return types;
+    }
+
+    private static Benchmark.Operation filterAll(final Filter filter, final List<String> types) {
+        return new Benchmark.Operation() {
+            @Override
+            public long run() {
+                long allowed = 0;
+                for (String type : types) {
+                    if (filter.allow(type)) allowed++;
+                }
+                return allowed;
+            }
+        };
+    }
+
+    @Test
+    public void benchmarkRegexVersusCompiled() throws Exception {
+        Benchmark.assumeEnabled();
+
+        Random random = new Random(42);
+        final List<String> rules = buildRules(random);
+        final List<String> types = buildEventTypes(random);
+        final BlackWhiteList compiled = new BlackWhiteList(rules);
+        final List<String> whiteList = compiled.getWhiteList();
+        final List<String> blackList = compiled.getBlackList();
+
+        Filter legacy = new Filter() {
+            @Override
+            public boolean allow(String type) {
+                for (String rule : whiteList) {
+                    if (GlobSetTest.legacyItemMatchesRule(type, rule)) return true;
+                }
+                for (String rule : blackList) {
+                    if (GlobSetTest.legacyItemMatchesRule(type, rule)) return false;
+                }
+                return true;
+            }
+        };
+        Filter fast = new Filter() {
+            @Override
+            public boolean allow(String type) {
+                return compiled.allow(type);
+            }
+        };
+        for (String type : types) {
+            if (legacy.allow(type) != fast.allow(type)) {
+                throw new AssertionError("Compiled list disagrees with regex matching: " + type);
+            }
+        }
+
+        new Benchmark.Results(BlackWhiteListBenchmark.class,
+                String.format("Filtering %d event types with %d rules", types.size(), rules.size()), "ns/type", types.size())
+                .add("regex", Benchmark.measure(filterAll(legacy, types)))
+                .add("compiled", Benchmark.measure(filterAll(fast, types)))
+                .log();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.wonderpush.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class GlobSetTest {
+
+    /**
+     * The rule matching as it was before {@link GlobSet}, kept as the reference implementation.
+     */
+    static boolean legacyItemMatchesRule(String item, String rule) {
+        if (item == null || rule == null) return false;
+        String[] tokens = rule.split(Pattern.quote("*"));
+        StringBuffer buffer = new StringBuffer("^");
+        if (rule.startsWith("*")) buffer.append(".*");
+        for (int i = 0; i < tokens.length; i++) {
+            buffer.append(Pattern.quote(tokens[i]));
+            if (i < tokens.length - 1) buffer.append(".*");
+        }
+        if (rule.endsWith("*")) buffer.append(".*");
+        buffer.append("$");
+        return item.matches(buffer.toString());
+    }
+
+    /**
+     * Generates rules and event types over a small alphabet, so that they often overlap.
+     */
+    static List<String> randomStrings(Random random, int count, String alphabet, int maxLength) {
+        List<String> rtn = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = random.nextInt(maxLength + 1);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            rtn.add(sb.toString());
+        }
+        return rtn;
+    }
+
+    @Test
+    public void testShapes() {
+        GlobSet set = new GlobSet(Arrays.asList("@APP_OPEN", "purchase_*", "*_view", "a*b*c", "*mid*", null));
+        assertTrue(set.matches("@APP_OPEN"));
+        assertFalse(set.matches("@APP_OPEN2"));
+        assertTrue(set.matches("purchase_"));
+        assertTrue(set.matches("purchase_shoes"));
+        assertFalse(set.matches("purchase"));
+        assertTrue(set.matches("_view"));
+        assertTrue(set.matches("screen_view"));
+        assertFalse(set.matches("screen_view2"));
+        assertTrue(set.matches("abc"));
+        assertTrue(set.matches("a1b2c"));
+        assertFalse(set.matches("a1c2b"));
+        assertTrue(set.matches("amidst"));
+        assertFalse(set.matches("foo"));
+        assertFalse(set.matches(null));
+
+        assertFalse(new GlobSet(Collections.<String>emptyList()).matches(""));
+        assertTrue(new GlobSet(Collections.singletonList("**")).matches(""));
+        assertTrue(new GlobSet(Collections.singletonList("")).matches(""));
+        assertFalse(new GlobSet(Collections.singletonList("")).matches("a"));
+        assertFalse(new GlobSet(Collections.singletonList("ab*ba")).matches("aba"));
+        assertTrue(new GlobSet(Collections.singletonList("ab*ba")).matches("abba"));
+    }
+
+    @Test
+    public void testMatchesLegacyImplementation() {
+        Random random = new Random(42);
+        List<String> items = randomStrings(random, 300, "ab.", 6);
+        List<String> rules = randomStrings(random, 300, "ab.**", 6);
+        for (String rule : rules) {
+            GlobSet set = new GlobSet(Collections.singletonList(rule));
+            for (String item : items) {
+                assertEquals("item " + item + " rule " + rule, legacyItemMatchesRule(item, rule), set.matches(item));
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            List<String> someRules = rules.subList(i * 5, i * 5 + 5);
+            GlobSet set = new GlobSet(someRules);
+            for (String item : items) {
+                boolean expected = false;
+                for (String rule : someRules) {
+                    expected |= legacyItemMatchesRule(item, rule);
+                }
+                assertEquals("item " + item + " rules " + someRules, expected, set.matches(item));
+            }
+        }
+    }
+
+}
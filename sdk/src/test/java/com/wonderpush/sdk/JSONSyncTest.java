@@ -13,13 +13,22 @@ public class JSONSyncTest {
 
     private static class MockCallbacks implements JSONSync.Callbacks {
         private MockServer server;
+        private int saveCount;
+        private int scheduleSaveCount;
 
         void setServer(MockServer server) {
             this.server = server;
         }
 
         @Override
-        public void save(JSONObject state) {}
+        public void save(JSONObject state) {
+            saveCount++;
+        }
+
+        @Override
+        public void scheduleSave() {
+            scheduleSaveCount++;
+        }
 
         @Override
         public void schedulePatchCall() {}
@@ -988,4 +997,49 @@ public class JSONSyncTest {
         JSONUtilTest.assertEquals(new JSONObject("{\"A\":1,\"AA\":2,\"B\":2,\"BB\":2,\"BBB\":2}"), sync.getSdkState());
     }
 
+    /* ************************************ *
+     * Test when the state is saved to disk *
+     * ************************************ */
+
+    @Test
+    public void putsAreSavedLazily() throws JSONException {
+        for (int i = 0; i < 100; i++) {
+            sync.put(new JSONObject().put("A", i));
+        }
+        Assert.assertEquals(0, callbacks.saveCount);
+        Assert.assertEquals(100, callbacks.scheduleSaveCount);
+        Assert.assertTrue(sync.isDirty());
+
+        Assert.assertTrue(sync.saveIfDirty());
+        Assert.assertEquals(1, callbacks.saveCount);
+        Assert.assertFalse(sync.isDirty());
+        Assert.assertFalse(sync.saveIfDirty());
+        Assert.assertEquals(1, callbacks.saveCount);
+    }
+
+    @Test
+    public void patchCallsAreSavedEagerly() throws JSONException {
+        sync.put(new JSONObject("{\"A\":1}"));
+        Assert.assertEquals(0, callbacks.saveCount);
+
+        ServerManualCall server = new ServerManualCall();
+        callbacks.setServer(server);
+        sync.performScheduledPatchCall();
+        // The inflight call is saved before the request is sent
+        Assert.assertEquals(1, callbacks.saveCount);
+        Assert.assertFalse(sync.isDirty());
+
+        server.callHandler();
+        // The acknowledged state is saved as soon as the response is received
+        Assert.assertEquals(2, callbacks.saveCount);
+        Assert.assertFalse(sync.isDirty());
+    }
+
+    @Test
+    public void receivedDiffIsSavedEagerly() throws JSONException {
+        sync.receiveDiff(new JSONObject("{\"A\":1}"));
+        Assert.assertEquals(1, callbacks.saveCount);
+        Assert.assertFalse(sync.isDirty());
+    }
+
 }
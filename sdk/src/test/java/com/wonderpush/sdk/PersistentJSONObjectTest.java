@@ -0,0 +1,100 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentJSONObjectTest {
+
+    private static final String[] STATES = {
+            "{}",
+            "{\"A\":1}",
+            "{\"A\":1,\"B\":\"b\",\"C\":true}",
+            "{\"A\":null,\"B\":[1,2,{\"C\":3}]}",
+            "{\"A\":{\"AA\":1,\"AB\":{\"ABA\":[1]}},\"B\":2}",
+            "{\"A\":{\"AA\":2,\"AB\":{\"ABA\":[1,2]}},\"B\":{\"BA\":null}}",
+            "{\"A\":[],\"B\":{}}",
+    };
+
+    private void assertMerge(JSONObject base, JSONObject diff, boolean nullFieldRemoves) throws JSONException {
+        JSONObject expected = JSONUtil.deepCopy(base);
+        JSONUtil.merge(expected, diff, nullFieldRemoves);
+        PersistentJSONObject tree = PersistentJSONObject.fromJSONObject(base, false);
+        PersistentJSONObject merged = tree.merge(diff, nullFieldRemoves);
+        JSONUtilTest.assertEquals("merge " + diff + " into " + base, expected, merged.toJSONObject());
+        // The original tree is left untouched
+        JSONUtilTest.assertEquals(base, tree.toJSONObject());
+    }
+
+    @Test
+    public void testMergeLikeJSONUtil() throws JSONException {
+        for (String base : STATES) {
+            for (String diff : STATES) {
+                assertMerge(new JSONObject(base), new JSONObject(diff), true);
+                assertMerge(new JSONObject(base), new JSONObject(diff), false);
+            }
+        }
+    }
+
+    @Test
+    public void testDiffLikeJSONUtil() throws JSONException {
+        for (String from : STATES) {
+            for (String to : STATES) {
+                JSONObject expected = JSONUtil.diff(new JSONObject(from), new JSONObject(to));
+                JSONObject actual = PersistentJSONObject.diff(
+                        PersistentJSONObject.fromJSONObject(new JSONObject(from), false),
+                        PersistentJSONObject.fromJSONObject(new JSONObject(to), false));
+                JSONUtilTest.assertEquals("diff from " + from + " to " + to, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testStripNulls() throws JSONException {
+        PersistentJSONObject tree = PersistentJSONObject.fromJSONObject(new JSONObject("{\"A\":null,\"B\":{\"BA\":null,\"BB\":1},\"C\":[null]}"), true);
+        JSONUtilTest.assertEquals(new JSONObject("{\"B\":{\"BB\":1},\"C\":[null]}"), tree.toJSONObject());
+    }
+
+    @Test
+    public void testStructuralSharing() throws JSONException {
+        PersistentJSONObject tree = PersistentJSONObject.fromJSONObject(new JSONObject("{\"custom\":{\"string_a\":\"a\"},\"preferences\":{\"subscriptionStatus\":\"optIn\"}}"), true);
+        PersistentJSONObject merged = tree.merge(new JSONObject("{\"custom\":{\"string_b\":\"b\"}}"));
+        Assert.assertNotSame(tree, merged);
+        Assert.assertNotSame(tree.optJSONObject("custom"), merged.optJSONObject("custom"));
+        Assert.assertSame(tree.optJSONObject("preferences"), merged.optJSONObject("preferences"));
+
+        // A no-op diff returns the same tree
+        Assert.assertSame(merged, merged.merge(new JSONObject("{\"custom\":{\"string_b\":\"b\"},\"unknown\":null}")));
+
+        JSONUtilTest.assertEquals(new JSONObject("{\"custom\":{\"string_b\":\"b\"}}"), PersistentJSONObject.diff(tree, merged));
+        Assert.assertEquals(0, PersistentJSONObject.diff(merged, merged).length());
+    }
+
+    @Test
+    public void testCopiesAreIndependent() throws JSONException {
+        JSONObject source = new JSONObject("{\"A\":{\"AA\":1},\"B\":[1]}");
+        PersistentJSONObject tree = PersistentJSONObject.fromJSONObject(source, true);
+        source.getJSONObject("A").put("AA", 2);
+        source.getJSONArray("B").put(2);
+
+        JSONObject copy = tree.toJSONObject();
+        copy.getJSONObject("A").put("AA", 3);
+        JSONObject shallow = tree.toShallowJSONObject();
+        shallow.put("C", 3);
+
+        JSONUtilTest.assertEquals(new JSONObject("{\"A\":{\"AA\":1},\"B\":[1]}"), tree.toJSONObject());
+    }
+
+    @Test
+    public void testReaders() throws JSONException {
+        PersistentJSONObject tree = PersistentJSONObject.fromJSONObject(new JSONObject("{\"date\":1234,\"dateString\":\"42\",\"sub\":{\"string\":\"a\"}}"), true);
+        Assert.assertEquals(1234, tree.optLong("date", -1));
+        Assert.assertEquals(42, tree.optLong("dateString", -1));
+        Assert.assertEquals(-1, tree.optLong("missing", -1));
+        Assert.assertEquals("a", tree.optJSONObject("sub").optString("string", null));
+        Assert.assertNull(tree.optJSONObject("date"));
+        Assert.assertNull(tree.optString("missing", null));
+    }
+
+}
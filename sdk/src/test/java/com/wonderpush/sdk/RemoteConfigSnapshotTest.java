@@ -0,0 +1,219 @@
+package com.wonderpush.sdk;
+
+import com.wonderpush.sdk.remoteconfig.ErrorHandler;
+import com.wonderpush.sdk.remoteconfig.RemoteConfig;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigHandler;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigFetcher;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigManager;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigStorage;
+import com.wonderpush.sdk.remoteconfig.RemoteConfigVersionHandler;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RemoteConfigSnapshotTest {
+
+    private final List<RemoteConfigSnapshot> notified = new ArrayList<>();
+    private final RemoteConfigSnapshot.Listener listener = new RemoteConfigSnapshot.Listener() {
+        @Override
+        public void onRemoteConfigSnapshotChanged(RemoteConfigSnapshot snapshot) {
+            notified.add(snapshot);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        RemoteConfigSnapshot.reset();
+        RemoteConfigSnapshot.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        RemoteConfigSnapshot.removeListener(listener);
+        RemoteConfigSnapshot.reset();
+    }
+
+    private static RemoteConfig config(String version, Date fetchDate) throws JSONException {
+        return RemoteConfig.with(new JSONObject()
+                .put("version", version)
+                .put("trackEventsForNonSubscribers", true)
+                .put("disableApiClient", true)
+                .put("eventsBlackWhiteList", new org.json.JSONArray().put("-@*").put("@APP_OPEN"))
+                .put("inAppConfig", new JSONObject().put("campaigns", new org.json.JSONArray())), version, fetchDate);
+    }
+
+    @Test
+    public void testParsesValues() throws JSONException {
+        RemoteConfigSnapshot snapshot = RemoteConfigSnapshot.update(config("1.1", new Date()));
+        assertSame(snapshot, RemoteConfigSnapshot.get());
+        assertEquals("1.1", snapshot.getVersion());
+        assertTrue(snapshot.isTrackEventsForNonSubscribers());
+        assertTrue(snapshot.isDisableApiClient());
+        assertFalse(snapshot.isDisableJsonSync());
+        assertFalse(snapshot.isDisableMeasurementsApiClient());
+        assertTrue(snapshot.getEventsBlackWhiteList().allow("@APP_OPEN"));
+        assertFalse(snapshot.getEventsBlackWhiteList().allow("@PRESENCE"));
+        assertTrue(snapshot.getEventsBlackWhiteList().allow("purchase"));
+        assertNotNull(snapshot.getInAppConfig().optJSONArray("campaigns"));
+
+        RemoteConfigSnapshot empty = RemoteConfigSnapshot.update(RemoteConfig.with(new JSONObject(), "1.2"));
+        assertNull(empty.getEventsBlackWhiteList());
+        assertNull(empty.getInAppConfig());
+        assertFalse(empty.isTrackEventsForNonSubscribers());
+    }
+
+    @Test
+    public void testParsesOncePerVersion() throws JSONException {
+        RemoteConfigSnapshot first = RemoteConfigSnapshot.update(config("1.1", new Date(1000)));
+        assertEquals(1, notified.size());
+
+        // Same version, refreshed: parsed values are kept, no notification
+        RemoteConfigSnapshot refreshed = RemoteConfigSnapshot.update(config("1.1", new Date(2000)));
+        assertNotSame(first, refreshed);
+        assertSame(first.getEventsBlackWhiteList(), refreshed.getEventsBlackWhiteList());
+        assertEquals(2000, refreshed.getConfig().getFetchDate().getTime());
+        assertEquals(1, notified.size());
+
+        // Same version, older: nothing changes
+        assertSame(refreshed, RemoteConfigSnapshot.update(config("1.1", new Date(1500))));
+        assertSame(refreshed, RemoteConfigSnapshot.update(null));
+
+        RemoteConfigSnapshot second = RemoteConfigSnapshot.update(config("1.2", new Date(3000)));
+        assertEquals(2, notified.size());
+        assertSame(second, notified.get(1));
+        assertNotSame(first.getEventsBlackWhiteList(), second.getEventsBlackWhiteList());
+    }
+
+    @Test
+    public void testKeepsInAppConfigInstanceOnlyForTheSameETag() throws JSONException {
+        // The in-app campaign cache relies on the identity of the in-app config
+        RemoteConfigSnapshot tagged = RemoteConfigSnapshot.update(RemoteConfig.with(config("1.1", new Date(1000)).getData(), "1.1", new Date(1000), 0, 0, "a"));
+        RemoteConfigSnapshot sameETag = RemoteConfigSnapshot.update(RemoteConfig.with(config("1.1", new Date(2000)).getData(), "1.1", new Date(2000), 0, 0, "a"));
+        assertSame(tagged.getInAppConfig(), sameETag.getInAppConfig());
+
+        RemoteConfigSnapshot otherETag = RemoteConfigSnapshot.update(RemoteConfig.with(config("1.1", new Date(3000)).getData(), "1.1", new Date(3000), 0, 0, "b"));
+        assertNotSame(tagged.getInAppConfig(), otherETag.getInAppConfig());
+        assertEquals("1.1", otherETag.getVersion());
+    }
+
+    @Test
+    public void testGetReadsManagerOnlyWhenExpired() throws JSONException {
+        final RemoteConfig stored = config("1.1", new Date());
+        final int[] loads = new int[1];
+        RemoteConfigManager manager = new RemoteConfigManager(new RemoteConfigFetcher() {
+            @Override
+            public void fetchRemoteConfig(String version, RemoteConfigHandler handler) {
+                handler.handle(null, null);
+            }
+        }, new RemoteConfigStorage() {
+            @Override
+            public void storeRemoteConfig(RemoteConfig config, ErrorHandler handler) {
+                if (handler != null) handler.handle(null);
+            }
+
+            @Override
+            public void loadRemoteConfigAndHighestDeclaredVersion(RemoteConfigVersionHandler handler) {
+                loads[0]++;
+                handler.handle(stored, null, null);
+            }
+
+            @Override
+            public void declareVersion(String version, ErrorHandler handler) {
+                if (handler != null) handler.handle(null);
+            }
+        });
+
+        final RemoteConfigSnapshot[] result = new RemoteConfigSnapshot[1];
+        RemoteConfigSnapshot.Callback callback = new RemoteConfigSnapshot.Callback() {
+            @Override
+            public void call(RemoteConfigSnapshot snapshot, Throwable error) {
+                result[0] = snapshot;
+            }
+        };
+
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(1, loads[0]);
+        assertEquals("1.1", result[0].getVersion());
+
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(1, loads[0]);
+        assertSame(RemoteConfigSnapshot.get(), result[0]);
+
+        manager.maximumConfigAge = -1;
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(2, loads[0]);
+    }
+
+    @Test
+    public void testGetFetchesDeclaredVersionOnceMinAgeIsReached() throws Exception {
+        final RemoteConfig[] stored = {RemoteConfig.with(config("1.1", new Date()).getData(), "1.1", new Date(), 0, 200)};
+        final String[] highestVersion = {null};
+        final int[] fetches = new int[1];
+        RemoteConfigManager manager = new RemoteConfigManager(new RemoteConfigFetcher() {
+            @Override
+            public void fetchRemoteConfig(String version, RemoteConfigHandler handler) {
+                fetches[0]++;
+                try {
+                    handler.handle(config(version, new Date()), null);
+                } catch (JSONException ex) {
+                    handler.handle(null, ex);
+                }
+            }
+        }, new RemoteConfigStorage() {
+            @Override
+            public void storeRemoteConfig(RemoteConfig config, ErrorHandler handler) {
+                stored[0] = config;
+                if (handler != null) handler.handle(null);
+            }
+
+            @Override
+            public void loadRemoteConfigAndHighestDeclaredVersion(RemoteConfigVersionHandler handler) {
+                handler.handle(stored[0], highestVersion[0], null);
+            }
+
+            @Override
+            public void declareVersion(String version, ErrorHandler handler) {
+                if (highestVersion[0] == null || RemoteConfig.compareVersions(highestVersion[0], version) < 0) {
+                    highestVersion[0] = version;
+                }
+                if (handler != null) handler.handle(null);
+            }
+        });
+
+        final RemoteConfigSnapshot[] result = new RemoteConfigSnapshot[1];
+        RemoteConfigSnapshot.Callback callback = new RemoteConfigSnapshot.Callback() {
+            @Override
+            public void call(RemoteConfigSnapshot snapshot, Throwable error) {
+                result[0] = snapshot;
+            }
+        };
+
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals("1.1", result[0].getVersion());
+
+        // Declared while the config is younger than its minimum age: not fetched yet
+        manager.declareVersion("1.2");
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(0, fetches[0]);
+        assertEquals("1.1", result[0].getVersion());
+
+        // Fetched by the next read once the minimum age is reached, although the snapshot did not expire
+        Thread.sleep(250);
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(1, fetches[0]);
+        assertEquals("1.2", result[0].getVersion());
+
+        RemoteConfigSnapshot.get(manager, callback);
+        assertEquals(1, fetches[0]);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class RequestBodyEncodingTest {
+
+    @Test
+    public void testSelectorUsesLongestPrefix() {
+        RequestBodyEncoding.Selector selector = new RequestBodyEncoding.Selector();
+        assertEquals(RequestBodyEncoding.FORM, selector.get(ApiClient.HttpMethod.POST, "/events/"));
+
+        selector.set("/events/", RequestBodyEncoding.JSON);
+        selector.set("/events/batch", RequestBodyEncoding.GZIP_JSON);
+        assertEquals(RequestBodyEncoding.JSON, selector.get(ApiClient.HttpMethod.POST, "/events/"));
+        assertEquals(RequestBodyEncoding.GZIP_JSON, selector.get(ApiClient.HttpMethod.POST, "/events/batch"));
+        assertEquals(RequestBodyEncoding.FORM, selector.get(ApiClient.HttpMethod.PATCH, "/installation"));
+
+        selector.set("/events/batch", RequestBodyEncoding.FORM);
+        assertEquals(RequestBodyEncoding.JSON, selector.get(ApiClient.HttpMethod.POST, "/events/batch"));
+    }
+
+    @Test
+    public void testSelectorKeepsQueryStringMethodsAsForm() {
+        RequestBodyEncoding.Selector selector = new RequestBodyEncoding.Selector();
+        selector.set("/", RequestBodyEncoding.GZIP_JSON);
+        assertEquals(RequestBodyEncoding.FORM, selector.get(ApiClient.HttpMethod.GET, "/events/"));
+        assertEquals(RequestBodyEncoding.FORM, selector.get(ApiClient.HttpMethod.DELETE, "/events/"));
+        assertEquals(RequestBodyEncoding.GZIP_JSON, selector.get(ApiClient.HttpMethod.PUT, "/user"));
+    }
+
+    @Test
+    public void testJSONBodyEmbedsBodyParameter() throws JSONException {
+        Request.Params params = new Request.Params();
+        params.put("body", "{\"type\":\"purchase\",\"custom\":{\"float_price\":1.5}}");
+        params.put("accessToken", "token");
+        params.add("clientId", "client");
+        params.add("tags", "a");
+        params.add("tags", "b");
+
+        JSONObject body = new JSONObject(params.getJSONBody());
+        assertEquals("purchase", body.getJSONObject("body").getString("type"));
+        assertEquals(1.5, body.getJSONObject("body").getJSONObject("custom").getDouble("float_price"), 0);
+        assertEquals("token", body.getString("accessToken"));
+        assertEquals("client", body.getString("clientId"));
+        assertEquals(2, body.getJSONArray("tags").length());
+    }
+
+    @Test
+    public void testJSONBodyKeepsUnparsableBodyAsString() throws JSONException {
+        Request.Params params = new Request.Params("body", "{not json");
+        assertEquals("{not json", new JSONObject(params.getJSONBody()).getString("body"));
+    }
+
+    @Test
+    public void testGzipBodyRoundTrip() throws IOException {
+        StringBuilder sb = new StringBuilder("{\"events\":[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"type\":\"view\",\"custom\":{\"string_screen\":\"home\"}}");
+        }
+        String json = sb.append("]}").toString();
+
+        Buffer buffer = new Buffer();
+        RequestBodyEncoding.GZIP_JSON.createBody(json).writeTo(buffer);
+        byte[] compressed = buffer.readByteArray();
+        assertTrue(compressed.length < json.length() / 4);
+
+        GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            output.write(chunk, 0, read);
+        }
+        assertEquals(json, output.toString("UTF-8"));
+        assertEquals("gzip", RequestBodyEncoding.GZIP_JSON.getContentEncoding());
+        assertNull(RequestBodyEncoding.JSON.getContentEncoding());
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.wonderpush.sdk;
+
+import org.junit.Test;
+
+import java.net.URI;
+
+/**
+ * Compares the cost of signing requests with the former signer, see {@link RequestSignerTest#legacySign},
+ * and with {@link RequestSigner}, on payloads shaped like real {@code /events/} and {@code /installation} calls.
+ *
+ * Skipped unless run with {@code -Dwonderpush.benchmark=true}.
+ */
+public class RequestSignerBenchmark {
+
+    private interface Signer {
+        Request.BasicNameValuePair sign(ApiClient.HttpMethod method, URI uri, Request.Params params) throws Exception;
+    }
+
+    private static Benchmark.Operation signing(final Signer signer, final ApiClient.HttpMethod method, final URI uri, final Request.Params params) {
+        return new Benchmark.Operation() {
+            @Override
+            public long run() throws Exception {
+                return signer.sign(method, uri, params).getValue().length();
+            }
+        };
+    }
+
+    private static void compare(String name, ApiClient.HttpMethod method, URI uri, Request.Params params) throws Exception {
+        Signer legacy = new Signer() {
+            @Override
+            public Request.BasicNameValuePair sign(ApiClient.HttpMethod method, URI uri, Request.Params params) throws Exception {
+                return RequestSignerTest.legacySign(RequestSignerTest.SECRET, method, uri, params, null);
+            }
+        };
+        Signer cached = new Signer() {
+            @Override
+            public Request.BasicNameValuePair sign(ApiClient.HttpMethod method, URI uri, Request.Params params) throws Exception {
+                return RequestSignerTest.sign(RequestSignerTest.SECRET, method, uri, params, null);
+            }
+        };
+        new Benchmark.Results(RequestSignerBenchmark.class, method + " " + name, "ns/op", 1)
+                .add("legacy", Benchmark.measure(signing(legacy, method, uri, params)))
+                .add("cached", Benchmark.measure(signing(cached, method, uri, params)))
+                .log();
+    }
+
+    @Test
+    public void benchmarkLegacyVersusCached() throws Exception {
+        Benchmark.assumeEnabled();
+
+        compare("/events/", ApiClient.HttpMethod.POST, URI.create(RequestSignerTest.BASE_URL + "/events/"), RequestSignerTest.eventParams());
+        compare("/installation", ApiClient.HttpMethod.PATCH, URI.create(RequestSignerTest.BASE_URL + "/installation"), RequestSignerTest.installationParams());
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.wonderpush.sdk;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.*;
+
+public class RequestSignerTest {
+
+    static final String SECRET = "5d1e6f5f2fdbd2ab7a5b7ac8a8e9b5a2cc4f4cf6d5e4a3b2c1d0e9f8a7b6c5d4";
+    static final String BASE_URL = "https://api.wonderpush.com/v1";
+
+    /**
+     * The signature algorithm as it was before {@link RequestSigner}, kept as the reference implementation.
+     */
+    static Request.BasicNameValuePair legacySign(String clientSecret, ApiClient.HttpMethod method, URI uri, Request.Params params, String body) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append(method.name().toUpperCase());
+        sb.append('&');
+        sb.append(legacyEncode(String.format("%s://%s%s", uri.getScheme(), uri.getHost(), uri.getRawPath())));
+        sb.append('&');
+        List<Request.BasicNameValuePair> unencodedParams = new ArrayList<>();
+        Request.Params queryStringParams = QueryStringParser.getRequestParams(uri.getQuery());
+        if (queryStringParams != null) {
+            unencodedParams.addAll(queryStringParams.getParamsList());
+        }
+        if (params != null) {
+            unencodedParams.addAll(params.getParamsList());
+        }
+        List<Request.BasicNameValuePair> encodedParams = new ArrayList<>(unencodedParams.size());
+        for (Request.BasicNameValuePair pair : unencodedParams) {
+            encodedParams.add(new Request.BasicNameValuePair(legacyEncode(pair.getName()), legacyEncode(pair.getValue())));
+        }
+        Collections.sort(encodedParams, new Comparator<Request.BasicNameValuePair>() {
+            @Override
+            public int compare(Request.BasicNameValuePair lhs, Request.BasicNameValuePair rhs) {
+                int rtn = lhs.getName().compareTo(rhs.getName());
+                if (rtn == 0) {
+                    rtn = lhs.getValue().compareTo(rhs.getValue());
+                }
+                return rtn;
+            }
+        });
+        boolean first = true;
+        for (Request.BasicNameValuePair pair : encodedParams) {
+            if (first) {
+                first = false;
+            } else {
+                sb.append("%26");
+            }
+            sb.append(legacyEncode(String.format("%s=%s", pair.getName(), pair.getValue())));
+        }
+        sb.append('&');
+        if (body != null) {
+            sb.append(legacyEncode(body));
+        }
+        Mac mac = Mac.getInstance("HmacSHA1");
+        SecretKeySpec secret = new SecretKeySpec(clientSecret.getBytes("UTF-8"), mac.getAlgorithm());
+        mac.init(secret);
+        byte[] digest = mac.doFinal(sb.toString().getBytes());
+        String sig = Base64.getEncoder().encodeToString(digest).trim();
+        String encodedSig = legacyEncode(sig.trim());
+        return new Request.BasicNameValuePair("X-WonderPush-Authorization", String.format("WonderPush sig=\"%s\", meth=\"0\"", encodedSig));
+    }
+
+    private static String legacyEncode(String s) throws Exception {
+        return URLEncoder.encode(s, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+    }
+
+    static Request.Params eventParams() {
+        Request.Params params = new Request.Params();
+        params.put("body", "{\"type\":\"@APP_OPEN\",\"actionDate\":1600000000000,\"custom\":{\"string_screen\":\"Home & Co\",\"float_price\":1.5},"
+                + "\"campaignId\":\"0123456789abcdef\",\"notificationId\":\"fedcba9876543210\",\"location\":{\"lat\":48.8566,\"lon\":2.3522}}");
+        params.put("accessToken", "7vY3kLz0qWm9RtXp2sNd5aGh8JbCf1Ue");
+        params.put("sid", "9d8c7b6a-5f4e-3d2c-1b0a-998877665544");
+        return params;
+    }
+
+    static Request.Params installationParams() {
+        Request.Params params = new Request.Params();
+        params.put("body", "{\"application\":{\"version\":\"4.2.1\",\"sdkVersion\":\"Android-4.3.0\",\"integrator\":null},"
+                + "\"device\":{\"id\":\"0123456789abcdef\",\"platform\":\"Android\",\"osVersion\":\"33\",\"brand\":\"Google\",\"model\":\"Pixel 7\","
+                + "\"name\":\"Pixel de Zoé\",\"screenWidth\":1080,\"screenHeight\":2400,\"screenDensity\":420,"
+                + "\"configuration\":{\"timeZone\":\"Europe/Paris\",\"carrier\":\"Orange F\",\"locale\":\"fr_FR\",\"country\":\"FR\",\"currency\":\"EUR\"},"
+                + "\"capabilities\":{\"bluetooth\":true,\"nfc\":true,\"telephony\":true,\"gps\":true}},"
+                + "\"custom\":{\"string_name\":\"Zoé ✓ 😀\",\"tags\":[\"premium\",\"early_adopter\"],\"int_visits\":42}}");
+        params.put("overwrite", "false");
+        params.put("accessToken", "7vY3kLz0qWm9RtXp2sNd5aGh8JbCf1Ue");
+        params.put("sid", "9d8c7b6a-5f4e-3d2c-1b0a-998877665544");
+        return params;
+    }
+
+    /**
+     * Signs with {@link RequestSigner}, splitting the URL like {@link Request#getAuthorizationHeader} does.
+     */
+    static Request.BasicNameValuePair sign(String secret, ApiClient.HttpMethod method, URI uri, Request.Params params, String body) throws Exception {
+        return RequestSigner.get().sign(secret, method, uri.getScheme(), uri.getHost(), uri.getRawPath(), uri.getQuery(), params, body);
+    }
+
+    private static void assertSameSignature(ApiClient.HttpMethod method, String url, Request.Params params, String body) throws Exception {
+        URI uri = URI.create(url);
+        Request.BasicNameValuePair expected = legacySign(SECRET, method, uri, params, body);
+        Request.BasicNameValuePair actual = sign(SECRET, method, uri, params, body);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getValue(), actual.getValue());
+    }
+
+    @Test
+    public void testMatchesLegacySignature() throws Exception {
+        assertSameSignature(ApiClient.HttpMethod.POST, BASE_URL + "/events/", eventParams(), null);
+        assertSameSignature(ApiClient.HttpMethod.PATCH, BASE_URL + "/installation", installationParams(), null);
+        assertSameSignature(ApiClient.HttpMethod.GET, BASE_URL + "/installation?fields=custom&q=a%20b*c~d", new Request.Params("accessToken", "token"), null);
+        assertSameSignature(ApiClient.HttpMethod.DELETE, BASE_URL + "/installation", null, null);
+        assertSameSignature(ApiClient.HttpMethod.POST, BASE_URL + "/events/", null, eventParams().getJSONBody());
+        assertSameSignature(ApiClient.HttpMethod.PUT, BASE_URL + "/user", new Request.Params("emoji", "\uD83D\uDE00 lone \uD83D surrogate"), null);
+    }
+
+    @Test
+    public void testSecretChange() throws Exception {
+        URI uri = URI.create(BASE_URL + "/events/");
+        String first = sign(SECRET, ApiClient.HttpMethod.POST, uri, eventParams(), null).getValue();
+        String other = sign("other secret", ApiClient.HttpMethod.POST, uri, eventParams(), null).getValue();
+        assertNotEquals(first, other);
+        assertEquals(legacySign("other secret", ApiClient.HttpMethod.POST, uri, eventParams(), null).getValue(), other);
+        assertEquals(first, sign(SECRET, ApiClient.HttpMethod.POST, uri, eventParams(), null).getValue());
+    }
+
+    @Test
+    public void testSignerIsPerThread() throws Exception {
+        final RequestSigner[] other = new RequestSigner[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                other[0] = RequestSigner.get();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertSame(RequestSigner.get(), RequestSigner.get());
+        assertNotSame(RequestSigner.get(), other[0]);
+    }
+
+    @Test
+    public void testEncodeMatchesURLEncoder() throws Exception {
+        String s = "azAZ09-_.~ !\"#$%&'()*+,/:;<=>?@[\\]^`{|}é€\uD83D\uDE00";
+        StringBuilder sb = new StringBuilder();
+        RequestSigner.appendEncoded(sb, s);
+        assertEquals(legacyEncode(s), sb.toString());
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.wonderpush.sdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class ResourceFetcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * A body that does not announce its length, like a chunked response.
+     */
+    private static ResponseBody unknownLengthBody(byte[] bytes) {
+        return ResponseBody.create(null, -1, new Buffer().write(bytes));
+    }
+
+    @Test
+    public void testWritesBodyLargerThanBuffer() throws Exception {
+        byte[] bytes = randomBytes(3 * ResourceFetcher.BUFFER_SIZE + 17);
+        File target = new File(folder.getRoot(), "resource");
+        assertEquals(bytes.length, ResourceFetcher.writeTo(ResponseBody.create(null, bytes), target, bytes.length));
+        assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+        assertEquals(Arrays.asList("resource"), Arrays.asList(folder.getRoot().list()));
+    }
+
+    @Test
+    public void testReplacesPreviousFile() throws Exception {
+        File target = new File(folder.getRoot(), "resource");
+        Files.write(target.toPath(), randomBytes(100));
+        byte[] bytes = randomBytes(10);
+        ResourceFetcher.writeTo(unknownLengthBody(bytes), target, 100);
+        assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void testConcurrentWritesOfTheSameResource() throws Exception {
+        final File target = new File(folder.getRoot(), "resource");
+        final byte[] first = randomBytes(2 * ResourceFetcher.BUFFER_SIZE);
+        final byte[] second = randomBytes(2 * ResourceFetcher.BUFFER_SIZE + 1);
+        final Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ResourceFetcher.writeTo(unknownLengthBody(first), target, second.length);
+                } catch (Throwable ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+        thread.start();
+        ResourceFetcher.writeTo(unknownLengthBody(second), target, second.length);
+        thread.join();
+        assertNull(failure[0]);
+        byte[] written = Files.readAllBytes(target.toPath());
+        assertTrue(Arrays.equals(first, written) || Arrays.equals(second, written));
+        assertEquals(Arrays.asList("resource"), Arrays.asList(folder.getRoot().list()));
+    }
+
+    @Test
+    public void testExpireCacheKeepsRecentAndPartialFiles() throws Exception {
+        File dir = folder.getRoot();
+        File old = new File(dir, "old");
+        File recent = new File(dir, "recent");
+        File partial = new File(dir, "other.1234" + ResourceFetcher.PARTIAL_SUFFIX);
+        Files.write(old.toPath(), randomBytes(100));
+        Files.write(recent.toPath(), randomBytes(100));
+        Files.write(partial.toPath(), randomBytes(100));
+        assertTrue(old.setLastModified(1000000000000L));
+        assertTrue(partial.setLastModified(1000000000000L));
+        CacheUtil.expireCache(dir, 150);
+        assertFalse(old.exists());
+        assertTrue(recent.exists());
+        assertTrue(partial.exists());
+    }
+
+    @Test
+    public void testRejectsAnnouncedLengthBeforeReading() throws Exception {
+        File target = new File(folder.getRoot(), "resource");
+        Buffer source = new Buffer().write(randomBytes(1000));
+        try {
+            ResourceFetcher.writeTo(ResponseBody.create(null, 1000, source), target, 999);
+            fail("Expected FileTooLargeException");
+        } catch (ResourceFetcher.FileTooLargeException ex) {
+            // expected
+        }
+        assertEquals(1000, source.size());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testRejectsBodyGrowingPastMaximumAndLeavesNothing() throws Exception {
+        File target = new File(folder.getRoot(), "resource");
+        try {
+            ResourceFetcher.writeTo(unknownLengthBody(randomBytes(2 * ResourceFetcher.BUFFER_SIZE)), target, ResourceFetcher.BUFFER_SIZE + 1);
+            fail("Expected FileTooLargeException");
+        } catch (ResourceFetcher.FileTooLargeException ex) {
+            // expected
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+}
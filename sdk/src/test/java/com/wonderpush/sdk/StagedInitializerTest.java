@@ -0,0 +1,110 @@
+package com.wonderpush.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class StagedInitializerTest {
+
+    /**
+     * An executor running its tasks only when asked to.
+     */
+    private static class ManualExecutor implements Executor {
+        final List<Runnable> pending = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        void runAll() {
+            for (Runnable runnable : pending) {
+                runnable.run();
+            }
+            pending.clear();
+        }
+    }
+
+    @Test
+    public void testRunIsReadyOnReturn() throws Exception {
+        StagedInitializer initializer = new StagedInitializer();
+        final boolean[] ran = {false};
+        Future<Void> readiness = initializer.run("core", () -> ran[0] = true);
+        assertTrue(ran[0]);
+        assertTrue(readiness.isDone());
+        assertNull(readiness.get());
+        assertSame(readiness, initializer.getReadiness("core"));
+    }
+
+    @Test
+    public void testRunAsyncIsReadyOnceExecuted() throws Exception {
+        StagedInitializer initializer = new StagedInitializer();
+        ManualExecutor executor = new ManualExecutor();
+        Future<Void> early = initializer.getReadiness("push");
+        Future<Void> readiness = initializer.runAsync("push", executor, () -> {});
+        assertSame(early, readiness);
+        assertFalse(readiness.isDone());
+        executor.runAll();
+        assertTrue(readiness.isDone());
+        assertNull(readiness.get());
+    }
+
+    @Test
+    public void testRunRethrows() {
+        StagedInitializer initializer = new StagedInitializer();
+        IllegalStateException error = new IllegalStateException("boom");
+        try {
+            initializer.run("core", () -> {
+                throw error;
+            });
+            fail("Expected exception");
+        } catch (IllegalStateException ex) {
+            assertSame(error, ex);
+        }
+        try {
+            initializer.getReadiness("core").get();
+            fail("Expected exception");
+        } catch (ExecutionException ex) {
+            assertSame(error, ex.getCause());
+        } catch (InterruptedException ex) {
+            fail("Unexpected interruption");
+        }
+    }
+
+    @Test
+    public void testRunAsyncFailureSettlesReadiness() throws Exception {
+        StagedInitializer initializer = new StagedInitializer();
+        ManualExecutor executor = new ManualExecutor();
+        Future<Void> readiness = initializer.runAsync("push", executor, () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.runAll();
+        assertTrue(readiness.isDone());
+        try {
+            readiness.get();
+            fail("Expected exception");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testTraceFollowsCompletionOrder() {
+        StagedInitializer initializer = new StagedInitializer();
+        ManualExecutor executor = new ManualExecutor();
+        initializer.runAsync("push", executor, () -> {});
+        initializer.run("core", () -> {});
+        executor.runAll();
+        List<String> trace = initializer.getTrace();
+        assertEquals(2, trace.size());
+        assertTrue(trace.get(0), trace.get(0).startsWith("core: "));
+        assertTrue(trace.get(1), trace.get(1).startsWith("push: "));
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.wonderpush.sdk;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeSyncStateTest {
+
+    /**
+     * A clock set by hand, that can run an action the next time it is read.
+     */
+    private static class ManualClock implements TimeSyncState.Clock {
+        long currentTimeMillis = 1_000_000;
+        long elapsedRealtime = 1_000;
+        Runnable onNextRead;
+
+        @Override
+        public long currentTimeMillis() {
+            Runnable action = onNextRead;
+            onNextRead = null;
+            if (action != null) action.run();
+            return currentTimeMillis;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return elapsedRealtime;
+        }
+    }
+
+    private ManualClock clock;
+    private int persists;
+    private TimeSyncState state;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock();
+        persists = 0;
+        state = new TimeSyncState(clock, new Runnable() {
+            @Override
+            public void run() {
+                persists++;
+            }
+        });
+    }
+
+    @Test
+    public void testRestoreAppliesPreferencesOnce() {
+        state.restore(5_000, 10);
+        assertTrue(state.getSnapshot().restored);
+        assertEquals(1_005_000, state.getTime());
+        state.restore(7_000, 5);
+        assertEquals(1_005_000, state.getTime());
+        assertEquals(0, persists);
+    }
+
+    @Test
+    public void testEarlyServerSyncSupersedesPreferences() {
+        // Server received the request at 2_000_000, halfway through a 100ms round trip
+        state.syncTimeWithServer(1_000, 1_100, 2_000_000, 0);
+        assertEquals(1, persists);
+        assertEquals(2_000_000 - 1_050 + clock.elapsedRealtime, state.getTime());
+
+        state.restore(5_000, 10);
+        TimeSyncState.Snapshot snapshot = state.getSnapshot();
+        assertTrue(snapshot.restored);
+        assertEquals(50, snapshot.deviceDateToServerDateUncertainty);
+        assertEquals(2_000_000 - 1_050 - (clock.currentTimeMillis - clock.elapsedRealtime), snapshot.deviceDateToServerDateOffset);
+    }
+
+    @Test
+    public void testClockJumpIsCorrected() {
+        state.restore(5_000, 10);
+        assertEquals(1_005_000, state.getTime());
+
+        // Time flows normally
+        clock.currentTimeMillis += 500;
+        clock.elapsedRealtime += 500;
+        assertEquals(1_005_500, state.getTime());
+        assertEquals(0, persists);
+
+        // The user moves the system clock one hour forward, the server time does not change
+        clock.currentTimeMillis += 3_600_000;
+        assertEquals(1_005_500, state.getTime());
+        assertEquals(1, persists);
+        assertEquals(5_000 - 3_600_000, state.getSnapshot().deviceDateToServerDateOffset);
+        assertEquals(1_005_500, state.getTime());
+        assertEquals(1, persists);
+    }
+
+    @Test
+    public void testServerSyncRetriesOnContention() {
+        // The preferences get restored while the server sync computes its update
+        clock.onNextRead = new Runnable() {
+            @Override
+            public void run() {
+                state.restore(5_000, 1_000_000);
+            }
+        };
+        state.syncTimeWithServer(1_000, 1_100, 2_000_000, 0);
+        assertNull(clock.onNextRead);
+
+        // Neither update was lost
+        TimeSyncState.Snapshot snapshot = state.getSnapshot();
+        assertTrue(snapshot.restored);
+        assertEquals(50, snapshot.startupDateToServerDateUncertainty);
+        assertEquals(50, snapshot.deviceDateToServerDateUncertainty);
+        assertEquals(1, persists);
+    }
+
+}
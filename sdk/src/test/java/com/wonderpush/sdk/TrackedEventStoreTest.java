@@ -0,0 +1,157 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrackedEventStoreTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private TrackedEventStore store;
+    private long now;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "events/events.journal");
+        store = new TrackedEventStore(new WonderPushJobJournal(file));
+        store.restore();
+        now = TimeSync.getTime();
+    }
+
+    @After
+    public void tearDown() {
+        TrackedEventStore.setRetention(TrackedEventStore.DEFAULT_RETENTION);
+        TrackedEventStore.setMaxOccurrencesPerType(TrackedEventStore.DEFAULT_MAX_OCCURRENCES_PER_TYPE);
+    }
+
+    private static JSONObject event(String type, long date) throws JSONException {
+        return new JSONObject().put("type", type).put("actionDate", date);
+    }
+
+    private TrackedEventStore reopen() {
+        TrackedEventStore rtn = new TrackedEventStore(new WonderPushJobJournal(file));
+        rtn.restore();
+        return rtn;
+    }
+
+    @Test
+    public void testKeepsSeveralOccurrencesPerType() throws JSONException {
+        store.add(event("purchase", now - 3 * DAY));
+        store.add(event("purchase", now - 2 * DAY));
+        store.add(event("login", now - DAY));
+        store.add(event("purchase", now));
+
+        assertEquals(4, store.size());
+        assertEquals(3, store.get("purchase").size());
+        assertEquals(3, store.count("purchase", now - 7 * DAY));
+        assertEquals(2, store.count("purchase", now - 2 * DAY));
+        assertEquals(0, store.count("purchase", now + 1));
+        assertEquals(0, store.count("unknown", 0));
+        assertEquals(now, store.getLast("purchase").getLong("actionDate"));
+        assertNull(store.getLast("unknown"));
+    }
+
+    @Test
+    public void testOnlyLatestOccurrenceIsMarkedLast() throws JSONException {
+        store.add(event("purchase", now - 1));
+        store.add(event("purchase", now));
+        List<JSONObject> purchases = store.get("purchase");
+        assertFalse(purchases.get(0).has("collapsing"));
+        assertEquals("last", purchases.get(1).getString("collapsing"));
+
+        int lastCount = 0;
+        for (JSONObject event : store.getAll()) {
+            if (event.has("collapsing")) lastCount++;
+        }
+        assertEquals(1, lastCount);
+    }
+
+    @Test
+    public void testCreationDateDefaultsToActionDate() throws JSONException {
+        store.add(event("login", now));
+        assertEquals(now, store.getLast("login").getLong("creationDate"));
+    }
+
+    @Test
+    public void testOutOfOrderOccurrencesAreSorted() throws JSONException {
+        store.add(event("purchase", now));
+        store.add(event("purchase", now - DAY));
+        List<JSONObject> purchases = store.get("purchase");
+        assertEquals(now - DAY, purchases.get(0).getLong("actionDate"));
+        assertEquals(now, purchases.get(1).getLong("actionDate"));
+    }
+
+    @Test
+    public void testRetentionWindowKeepsLatestOccurrence() throws JSONException {
+        TrackedEventStore.setRetention(7 * DAY);
+        store.add(event("purchase", now - 30 * DAY));
+        store.add(event("purchase", now - 20 * DAY));
+        assertEquals(1, store.get("purchase").size());
+        assertEquals(now - 20 * DAY, store.getLast("purchase").getLong("actionDate"));
+
+        store.add(event("purchase", now - DAY));
+        assertEquals(1, store.get("purchase").size());
+        assertEquals(now - DAY, store.getLast("purchase").getLong("actionDate"));
+    }
+
+    @Test
+    public void testMaxOccurrencesPerType() throws JSONException {
+        TrackedEventStore.setMaxOccurrencesPerType(3);
+        for (int i = 0; i < 10; i++) {
+            store.add(event("tick", now - 10 + i));
+        }
+        assertEquals(3, store.get("tick").size());
+        assertEquals(now - 3, store.get("tick").get(0).getLong("actionDate"));
+        assertEquals(3, reopen().get("tick").size());
+    }
+
+    @Test
+    public void testPersistence() throws JSONException {
+        store.add(event("purchase", now - 1));
+        store.add(event("login", now));
+        store.add(event("purchase", now));
+
+        TrackedEventStore reopened = reopen();
+        assertEquals(3, reopened.size());
+        assertEquals(2, reopened.get("purchase").size());
+        assertEquals("last", reopened.getLast("login").getString("collapsing"));
+    }
+
+    @Test
+    public void testResetAndClear() throws JSONException {
+        store.add(event("purchase", now));
+        store.reset(Arrays.asList(event("login", now - 1), event("login", now), new JSONObject()));
+        assertEquals(0, store.get("purchase").size());
+        assertEquals(2, reopen().get("login").size());
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, reopen().size());
+    }
+
+    @Test
+    public void testGetAllIsCachedUntilNextWrite() throws JSONException {
+        store.add(event("purchase", now));
+        List<JSONObject> all = store.getAll();
+        assertSame(all, store.getAll());
+        store.add(event("login", now));
+        assertNotSame(all, store.getAll());
+        assertEquals(2, store.getAll().size());
+    }
+
+}
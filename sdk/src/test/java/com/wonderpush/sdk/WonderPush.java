@@ -1,7 +1,13 @@
 package com.wonderpush.sdk;
 
+import android.content.Context;
+
 public class WonderPush {
 
+    interface UserConsentListener {
+        void onUserConsentChanged(boolean hasUserConsent);
+    }
+
     public static boolean getLogging() {
         return true;
     }
@@ -11,8 +17,23 @@ public class WonderPush {
     }
 
     protected static void logDebug(String message, Throwable ex) {
+        if (ex == null) {
+            logDebug(message);
+            return;
+        }
         System.out.println(message + ": " + ex.getMessage());
         ex.printStackTrace(System.out);
     }
 
+    static boolean hasUserConsent() {
+        return true;
+    }
+
+    static void addUserConsentListener(UserConsentListener listener) {
+    }
+
+    protected static Context getApplicationContext() {
+        return null;
+    }
+
 }
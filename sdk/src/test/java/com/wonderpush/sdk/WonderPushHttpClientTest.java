@@ -0,0 +1,74 @@
+package com.wonderpush.sdk;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import static org.junit.Assert.*;
+
+public class WonderPushHttpClientTest {
+
+    @After
+    public void tearDown() {
+        WonderPushHttpClient.setHttp2Enabled(true);
+        WonderPushHttpClient.setConnectTimeout(WonderPushHttpClient.DEFAULT_CONNECT_TIMEOUT);
+        WonderPushHttpClient.setReadTimeout(WonderPushHttpClient.DEFAULT_READ_TIMEOUT);
+        WonderPushHttpClient.setWriteTimeout(WonderPushHttpClient.DEFAULT_WRITE_TIMEOUT);
+        WonderPushHttpClient.setMaxIdleConnections(WonderPushHttpClient.DEFAULT_MAX_IDLE_CONNECTIONS);
+        WonderPushHttpClient.setKeepAlive(WonderPushHttpClient.DEFAULT_KEEP_ALIVE);
+    }
+
+    @Test
+    public void testClientIsShared() {
+        OkHttpClient client = WonderPushHttpClient.get();
+        assertSame(client, WonderPushHttpClient.get());
+
+        OkHttpClient derived = WonderPushHttpClient.newBuilder().build();
+        assertSame(client.connectionPool(), derived.connectionPool());
+        assertSame(client.dispatcher(), derived.dispatcher());
+    }
+
+    @Test
+    public void testSettingsKeepPoolAndDispatcher() {
+        OkHttpClient before = WonderPushHttpClient.get();
+        WonderPushHttpClient.setHttp2Enabled(false);
+        WonderPushHttpClient.setReadTimeout(1234);
+        OkHttpClient after = WonderPushHttpClient.get();
+
+        assertNotSame(before, after);
+        assertSame(before.connectionPool(), after.connectionPool());
+        assertSame(before.dispatcher(), after.dispatcher());
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), after.protocols());
+        assertEquals(1234, after.readTimeoutMillis());
+
+        WonderPushHttpClient.setHttp2Enabled(true);
+        assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1), WonderPushHttpClient.get().protocols());
+    }
+
+    @Test
+    public void testPoolSettingsReplacePool() {
+        OkHttpClient before = WonderPushHttpClient.get();
+        WonderPushHttpClient.setMaxIdleConnections(2);
+        OkHttpClient after = WonderPushHttpClient.get();
+        assertNotSame(before.connectionPool(), after.connectionPool());
+        assertSame(before.dispatcher(), after.dispatcher());
+
+        // Other settings keep the new pool
+        WonderPushHttpClient.setConnectTimeout(2000);
+        assertSame(after.connectionPool(), WonderPushHttpClient.get().connectionPool());
+    }
+
+    @Test
+    public void testStats() {
+        WonderPushHttpClient.Stats stats = WonderPushHttpClient.getStats();
+        assertTrue(stats.reusedConnectionCount >= 0);
+        assertEquals(Math.max(0, stats.connectionAcquiredCount - stats.connectionCount), stats.reusedConnectionCount);
+        assertTrue(stats.idleConnectionCount <= stats.pooledConnectionCount);
+    }
+
+}
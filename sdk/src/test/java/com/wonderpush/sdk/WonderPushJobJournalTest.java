@@ -0,0 +1,127 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WonderPushJobJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "queues/test.journal");
+    }
+
+    private static JSONObject job(String id) throws JSONException {
+        return new JSONObject()
+                .put("id", id)
+                .put("description", new JSONObject().put("resource", "/events/").put("method", "POST"));
+    }
+
+    private static List<String> ids(List<JSONObject> jobs) {
+        List<String> rv = new ArrayList<>();
+        for (JSONObject job : jobs) {
+            rv.add(job.optString("id"));
+        }
+        return rv;
+    }
+
+    @Test
+    public void testMissingFile() {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        assertFalse(journal.exists());
+        assertTrue(journal.restore().isEmpty());
+    }
+
+    @Test
+    public void testPutRemoveRestore() throws JSONException {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.restore();
+        journal.put(job("a"));
+        journal.put(job("b"));
+        journal.put(job("c"));
+        journal.remove(Collections.singletonList("b"));
+        journal.close();
+        assertEquals(4, journal.getRecordCount());
+
+        WonderPushJobJournal reopened = new WonderPushJobJournal(file);
+        List<JSONObject> jobs = reopened.restore();
+        assertEquals(Arrays.asList("a", "c"), ids(jobs));
+        assertEquals("/events/", jobs.get(0).getJSONObject("description").getString("resource"));
+    }
+
+    @Test
+    public void testRemovingUnknownJobWritesNothing() throws JSONException {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.put(job("a"));
+        long length = journal.getLength();
+        journal.remove(Collections.singletonList("unknown"));
+        assertEquals(length, journal.getLength());
+        assertEquals(1, journal.getRecordCount());
+    }
+
+    @Test
+    public void testTruncatedRecordIsSkipped() throws JSONException, IOException {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.put(job("a"));
+        journal.put(job("b"));
+        journal.close();
+
+        // Simulate a process death in the middle of a write
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write("{\"put\":{\"id\":\"c\",\"descr".getBytes("UTF-8"));
+        }
+
+        WonderPushJobJournal reopened = new WonderPushJobJournal(file);
+        assertEquals(Arrays.asList("a", "b"), ids(reopened.restore()));
+        // The partial record has been compacted away so that new records start on a fresh line
+        reopened.put(job("d"));
+        reopened.close();
+        assertEquals(Arrays.asList("a", "b", "d"), ids(new WonderPushJobJournal(file).restore()));
+    }
+
+    @Test
+    public void testCompaction() throws JSONException {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.put(job("kept"));
+        int count = 10 * WonderPushJobJournal.COMPACTION_MIN_DEAD_RECORDS;
+        for (int i = 0; i < count; i++) {
+            journal.put(job("job" + i));
+            journal.remove(Collections.singletonList("job" + i));
+        }
+        assertTrue(journal.getRecordCount() <= 2 * WonderPushJobJournal.COMPACTION_MIN_DEAD_RECORDS + 1);
+        assertEquals(file.length(), journal.getLength());
+        journal.close();
+        assertEquals(Collections.singletonList("kept"), ids(new WonderPushJobJournal(file).restore()));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testReset() throws JSONException {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.put(job("a"));
+        journal.reset(Arrays.asList(job("x"), job("y")));
+        assertEquals(2, journal.getRecordCount());
+        journal.put(job("z"));
+        journal.close();
+        assertEquals(Arrays.asList("x", "y", "z"), ids(new WonderPushJobJournal(file).restore()));
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.wonderpush.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class WonderPushJobQueueOverflowPolicyTest {
+
+    private static class TestJob implements WonderPushJobQueue.Job {
+
+        private final String id;
+        private final JSONObject description;
+        private final long creationTime;
+
+        TestJob(String id, String resource, String eventType, long creationTime) throws JSONException {
+            this.id = id;
+            JSONObject params = new JSONObject();
+            if (eventType != null) {
+                params.put("body", new JSONObject().put("type", eventType).toString());
+            }
+            this.description = new JSONObject()
+                    .put("method", "POST")
+                    .put("resource", resource)
+                    .put("params", params);
+            this.creationTime = creationTime;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public JSONObject getJobDescription() {
+            return description;
+        }
+
+        @Override
+        public long getNotBeforeRealtimeElapsed() {
+            return 0;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public int getAttempts() {
+            return 0;
+        }
+
+        @Override
+        public long getRetryDelay() {
+            return 0;
+        }
+
+    }
+
+    private static TestJob event(String id, String type, long creationTime) throws JSONException {
+        return new TestJob(id, "/events/", type, creationTime);
+    }
+
+    private static WonderPushJobQueueOverflowPolicy.Index queue() throws JSONException {
+        WonderPushJobQueueOverflowPolicy.Index rtn = new WonderPushJobQueueOverflowPolicy.Index();
+        for (WonderPushJobQueue.Job job : Arrays.<WonderPushJobQueue.Job>asList(
+                event("b", "@PRESENCE", 20),
+                new TestJob("a", "/installation", null, 10),
+                event("c", "purchase", 30),
+                event("d", "@PRESENCE", 40),
+                event("e", "purchase", 50))) {
+            rtn.add(job);
+        }
+        return rtn;
+    }
+
+    @Test
+    public void testGetEventType() throws JSONException {
+        assertEquals("purchase", WonderPushJobQueueOverflowPolicy.getEventType(event("x", "purchase", 0)));
+        assertEquals("purchase", WonderPushJobQueueOverflowPolicy.getEventType(new TestJob("x", "/events", "purchase", 0)));
+        assertNull(WonderPushJobQueueOverflowPolicy.getEventType(new TestJob("x", "/installation", "purchase", 0)));
+        assertNull(WonderPushJobQueueOverflowPolicy.getEventType(new TestJob("x", "/events/", null, 0)));
+    }
+
+    @Test
+    public void testDropOldest() throws JSONException {
+        WonderPushJobQueueOverflowPolicy policy = WonderPushJobQueueOverflowPolicy.dropOldest();
+        assertEquals("a", policy.selectVictim(event("f", "purchase", 60), queue()).getId());
+    }
+
+    @Test
+    public void testDropByEventType() throws JSONException {
+        WonderPushJobQueueOverflowPolicy policy = WonderPushJobQueueOverflowPolicy.dropByEventType(Collections.singleton("purchase"));
+        assertEquals("c", policy.selectVictim(event("f", "other", 60), queue()).getId());
+        // The oldest event among all the expendable types
+        policy = WonderPushJobQueueOverflowPolicy.dropByEventType(new HashSet<>(Arrays.asList("purchase", "@PRESENCE")));
+        assertEquals("b", policy.selectVictim(event("f", "purchase", 60), queue()).getId());
+        // Falls back to the oldest job
+        policy = WonderPushJobQueueOverflowPolicy.dropByEventType(Collections.singleton("unknown"));
+        assertEquals("a", policy.selectVictim(event("f", "unknown", 60), queue()).getId());
+    }
+
+    @Test
+    public void testIndexRemove() throws JSONException {
+        WonderPushJobQueueOverflowPolicy.Index index = queue();
+        assertEquals(5, index.size());
+        index.remove(event("c", "purchase", 30));
+        assertEquals(4, index.size());
+        assertEquals("e", index.oldestEvent("purchase").getId());
+        index.remove(event("e", "purchase", 50));
+        assertNull(index.oldestEvent("purchase"));
+        index.remove(new TestJob("a", "/installation", null, 10));
+        assertEquals("b", index.oldest().getId());
+        // Removing an unknown job is a no-op
+        index.remove(event("z", "purchase", 30));
+        assertEquals(2, index.size());
+        index.clear();
+        assertNull(index.oldest());
+    }
+
+    @Test
+    public void testCollapseByType() throws JSONException {
+        WonderPushJobQueueOverflowPolicy policy = WonderPushJobQueueOverflowPolicy.collapseByType();
+        assertEquals("c", policy.selectVictim(event("f", "purchase", 60), queue()).getId());
+        assertEquals("b", policy.selectVictim(event("f", "@PRESENCE", 60), queue()).getId());
+        assertEquals("a", policy.selectVictim(event("f", "other", 60), queue()).getId());
+        assertEquals("a", policy.selectVictim(new TestJob("f", "/installation", null, 60), queue()).getId());
+    }
+
+}
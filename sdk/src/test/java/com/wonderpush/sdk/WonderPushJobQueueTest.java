@@ -0,0 +1,217 @@
+package com.wonderpush.sdk;
+
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WonderPushJobQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "queues/test.journal");
+    }
+
+    /**
+     * Creates a queue restoring the journal, once the writes of the previous queues completed.
+     */
+    private WonderPushJobQueue newQueue() throws Exception {
+        WonderPushJobQueue.awaitJournalWrites();
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        if (!journal.exists()) {
+            journal.reset(Collections.<JSONObject>emptyList());
+        }
+        return new WonderPushJobQueue("test", 32, 1000, WonderPushJobQueueOverflowPolicy.dropOldest(), journal);
+    }
+
+    private static JSONObject description(int i) throws JSONException {
+        return new JSONObject()
+                .put("resource", "/events/")
+                .put("method", "POST")
+                .put("params", new JSONObject().put("body", "{\"type\":\"event" + i + "\"}"));
+    }
+
+    @Test
+    public void testPostedJobsSurviveRestore() throws Exception {
+        WonderPushJobQueue queue = newQueue();
+        queue.postJobWithDescription(description(1), 0);
+        queue.postJobWithDescription(description(2), 0);
+        assertEquals(2, newQueue().getSize());
+    }
+
+    @Test
+    public void testDelayedJobKeepsItsDelayOnRestore() throws Exception {
+        WonderPushJobQueue queue = newQueue();
+        long notBefore = SystemClock.elapsedRealtime() + 60000;
+        queue.postJobWithDescription(description(1), notBefore);
+        long restoredNotBefore = newQueue().peekNextJobNotBeforeRealtimeElapsed();
+        assertTrue(restoredNotBefore > notBefore - 1000);
+        assertTrue(restoredNotBefore <= notBefore + 1000);
+    }
+
+    @Test
+    public void testRetriedJobDelayIsCappedOnRestore() throws Exception {
+        WonderPushJobQueue queue = newQueue();
+        queue.postJobWithDescription(description(1), 0);
+        WonderPushJobQueue.Job job = queue.nextJob();
+        queue.postRetry(job, 5000, true);
+        long restoredNotBefore = newQueue().peekNextJobNotBeforeRealtimeElapsed();
+        assertTrue(restoredNotBefore <= SystemClock.elapsedRealtime() + 5000);
+        assertTrue(restoredNotBefore > SystemClock.elapsedRealtime() + 4000);
+    }
+
+    @Test
+    public void testOverflowCollapsesEventsOfTheSameType() throws Exception {
+        WonderPushJobJournal journal = new WonderPushJobJournal(file);
+        journal.reset(Collections.<JSONObject>emptyList());
+        WonderPushJobQueue queue = new WonderPushJobQueue("test", 32, 3, WonderPushJobQueueOverflowPolicy.collapseByType(), journal);
+        // Space the creation times so that the oldest job is well defined
+        WonderPushJobQueue.Job first = queue.postJobWithDescription(description(1), 0);
+        Thread.sleep(2);
+        WonderPushJobQueue.Job second = queue.postJobWithDescription(description(2), 0);
+        Thread.sleep(2);
+        queue.postJobWithDescription(description(2), 0);
+        Thread.sleep(2);
+        assertNotNull(queue.postJobWithDescription(description(2), 0));
+        assertEquals(3, queue.getSize());
+        assertEquals(1, queue.getDroppedCount());
+
+        // The oldest event of the incoming type was dropped, in memory and on disk
+        WonderPushJobQueue restored = newQueue();
+        List<String> ids = new ArrayList<>();
+        while (restored.getSize() > 0) {
+            ids.add(restored.nextJob().getId());
+        }
+        assertTrue(ids.contains(first.getId()));
+        assertFalse(ids.contains(second.getId()));
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    public void testTakenJobsAreNotRestoredWhenInterleavedWithPost() throws Exception {
+        final int count = 500;
+        final WonderPushJobQueue queue = newQueue();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        queue.nextJob();
+                    }
+                } catch (Throwable ex) {
+                    failure.set(ex);
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            queue.postJobWithDescription(description(i), 0);
+        }
+        consumer.join(10000);
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get());
+        assertEquals(0, queue.getSize());
+
+        // Jobs taken right after being posted must not come back
+        assertEquals(0, newQueue().getSize());
+    }
+
+    @Test
+    public void testJournalIsWrittenOffTheCallingThread() throws Exception {
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        WonderPushJobJournal journal = new WonderPushJobJournal(file) {
+            @Override
+            synchronized void put(JSONObject job) {
+                threads.add(Thread.currentThread().getName());
+                super.put(job);
+            }
+        };
+        journal.reset(Collections.<JSONObject>emptyList());
+        WonderPushJobQueue queue = new WonderPushJobQueue("test", 32, 1000, WonderPushJobQueueOverflowPolicy.dropOldest(), journal);
+        queue.postJobWithDescription(description(1), 0);
+        WonderPushJobQueue.awaitJournalWrites();
+        assertEquals(1, threads.size());
+        assertNotEquals(Thread.currentThread().getName(), threads.get(0));
+        assertEquals(1, newQueue().getSize());
+    }
+
+    @Test
+    public void testPostWaitsForThePendingRestore() throws Exception {
+        WonderPushJobQueue previous = newQueue();
+        previous.postJobWithDescription(description(1), 0);
+        previous.postJobWithDescription(description(2), 0);
+        WonderPushJobQueue.awaitJournalWrites();
+
+        final CountDownLatch restoring = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        WonderPushJobJournal journal = new WonderPushJobJournal(file) {
+            @Override
+            synchronized List<JSONObject> restore() {
+                restoring.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.restore();
+            }
+        };
+        final WonderPushJobQueue queue = new WonderPushJobQueue("test", 32, 1000, WonderPushJobQueueOverflowPolicy.dropOldest(), journal, false);
+        assertEquals(0, queue.getSize());
+
+        Thread restorer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                queue.awaitRestored();
+            }
+        });
+        restorer.start();
+        assertTrue(restoring.await(10, TimeUnit.SECONDS));
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread poster = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    queue.postJobWithDescription(description(3), 0);
+                } catch (Throwable ex) {
+                    failure.set(ex);
+                }
+            }
+        });
+        poster.start();
+        poster.join(200);
+        assertTrue(poster.isAlive());
+        assertEquals(0, queue.getSize());
+
+        release.countDown();
+        restorer.join(10000);
+        poster.join(10000);
+        assertFalse(poster.isAlive());
+        assertNull(failure.get());
+        // The restoration did not overwrite the posted job
+        assertEquals(3, queue.getSize());
+        assertEquals(3, newQueue().getSize());
+    }
+
+}
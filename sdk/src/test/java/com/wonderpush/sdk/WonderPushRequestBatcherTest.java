@@ -0,0 +1,334 @@
+package com.wonderpush.sdk;
+
+import android.os.SystemClock;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WonderPushRequestBatcherTest {
+
+    private static final AtomicInteger sHostCounter = new AtomicInteger();
+
+    /**
+     * Stands in for the API server, counting round trips and accepting every event
+     * except the ones whose type starts with "reject".
+     * Batches can be made to fail as a whole with a given status.
+     */
+    private static class StandInServer implements WonderPushRequestVault.RequestExecutor {
+
+        int roundTrips = 0;
+        int receivedEvents = 0;
+        int batchErrorStatus = 0;
+
+        @Override
+        public synchronized void execute(Request request) {
+            roundTrips++;
+            try {
+                String body = request.getParams().getParamsList().get(0).getValue();
+                if (WonderPushRequestBatcher.BATCH_EVENTS_RESOURCE.equals(request.getResource())) {
+                    if (batchErrorStatus != 0) {
+                        request.getHandler().onFailure(null, error(batchErrorStatus));
+                        return;
+                    }
+                    JSONArray events = new JSONArray(body);
+                    JSONArray results = new JSONArray();
+                    for (int i = 0; i < events.length(); i++) {
+                        JSONObject result = new JSONObject();
+                        if (events.getJSONObject(i).getString("type").startsWith("reject")) {
+                            result.put("error", new JSONObject().put("status", 400));
+                        } else {
+                            receivedEvents++;
+                            result.put("success", true);
+                        }
+                        results.put(result);
+                    }
+                    request.getHandler().onSuccess(new Response(new JSONObject().put("results", results)));
+                } else if (new JSONObject(body).optString("type").startsWith("reject")) {
+                    request.getHandler().onFailure(null, error(400));
+                } else {
+                    receivedEvents++;
+                    request.getHandler().onSuccess(new Response(new JSONObject().put("success", true)));
+                }
+            } catch (JSONException ex) {
+                request.getHandler().onFailure(ex, new Response(ex.getMessage()));
+            }
+        }
+
+        private static Response error(int status) throws JSONException {
+            return new Response(new JSONObject().put("error", new JSONObject().put("status", status)));
+        }
+
+        synchronized int getRoundTrips() {
+            return roundTrips;
+        }
+
+        synchronized int getReceivedEvents() {
+            return receivedEvents;
+        }
+
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StandInServer server;
+    private WonderPushJobQueue queue;
+
+    @Before
+    public void setUp() {
+        server = new StandInServer();
+        WonderPushJobJournal journal = new WonderPushJobJournal(new File(folder.getRoot(), "test.journal"));
+        journal.reset(Collections.<JSONObject>emptyList());
+        queue = new WonderPushJobQueue("test", 32, 1000, WonderPushJobQueueOverflowPolicy.dropOldest(), journal);
+    }
+
+    /**
+     * A batcher with the default bounds, except that it does not wait for more events than already queued.
+     */
+    private static WonderPushRequestBatcher batcher() {
+        return new WonderPushRequestBatcher(WonderPushRequestBatcher.DEFAULT_MAX_BATCH_SIZE, WonderPushRequestBatcher.DEFAULT_MAX_BATCH_BYTES, 0);
+    }
+
+    private WonderPushRequestVault newVault(WonderPushRequestBatcher batcher) {
+        return new WonderPushRequestVault(queue, "host" + sHostCounter.incrementAndGet(), server, batcher);
+    }
+
+    private static Request eventRequest(String userId, String type) throws JSONException {
+        return rawEventRequest(userId, new JSONObject().put("type", type).put("actionDate", 1234567890L).toString());
+    }
+
+    private static Request rawEventRequest(String userId, String body) {
+        Request.Params params = new Request.Params();
+        params.put("body", body);
+        return new Request(userId, ApiClient.HttpMethod.POST, WonderPushRequestBatcher.EVENTS_RESOURCE, params, null);
+    }
+
+    private static List<Request> events(int count) throws JSONException {
+        List<Request> rv = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rv.add(eventRequest("user", "event" + i));
+        }
+        return rv;
+    }
+
+    /**
+     * Queues the given requests in order, then lets a {@link WonderPushRequestVault} drain them.
+     */
+    private void drain(List<Request> requests, WonderPushRequestBatcher batcher) {
+        // Jobs that are due sort by not-before time, use distinct past times to keep the given order
+        for (int i = 0; i < requests.size(); i++) {
+            queue.postJobWithDescription(requests.get(i).toJSON(), i - requests.size());
+        }
+        newVault(batcher);
+    }
+
+    private static void await(Condition condition) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + 5000;
+        while (!condition.isMet()) {
+            assertTrue("Timed out", SystemClock.elapsedRealtime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitReceivedEvents(final int count) throws InterruptedException {
+        await(new Condition() {
+            @Override
+            public boolean isMet() {
+                return server.getReceivedEvents() >= count && queue.getSize() == 0;
+            }
+        });
+    }
+
+    @Test
+    public void testRoundTripsWithoutBatching() throws Exception {
+        drain(events(120), null);
+        awaitReceivedEvents(120);
+        assertEquals(120, server.getRoundTrips());
+        assertEquals(120, server.getReceivedEvents());
+    }
+
+    @Test
+    public void testRoundTripsWithBatching() throws Exception {
+        drain(events(120), new WonderPushRequestBatcher(50, Integer.MAX_VALUE, 0));
+        awaitReceivedEvents(120);
+        assertEquals(3, server.getRoundTrips());
+        assertEquals(120, server.getReceivedEvents());
+    }
+
+    @Test
+    public void testBatchBytesLimit() throws Exception {
+        List<Request> requests = events(10);
+        int bodyLength = requests.get(0).getParams().getParamsList().get(0).getValue().length();
+        drain(requests, new WonderPushRequestBatcher(50, 4 * bodyLength, 0));
+        awaitReceivedEvents(10);
+        assertEquals(3, server.getRoundTrips());
+    }
+
+    @Test
+    public void testBatchStopsAtOtherRequests() throws Exception {
+        List<Request> requests = events(3);
+        requests.add(eventRequest("otherUser", "event3"));
+        requests.add(new Request("user", ApiClient.HttpMethod.PUT, "/installation", new Request.Params("body", "{}"), null));
+        requests.addAll(events(2));
+        drain(requests, batcher());
+        awaitReceivedEvents(7);
+        // 3 batched events, then the other user's event, the installation call, and 2 batched events
+        assertEquals(4, server.getRoundTrips());
+    }
+
+    @Test
+    public void testRejectedEventsAreDiscarded() throws Exception {
+        List<Request> requests = events(2);
+        requests.add(eventRequest("user", "rejectMe"));
+        requests.addAll(events(2));
+        drain(requests, batcher());
+        awaitReceivedEvents(4);
+        assertEquals(1, server.getRoundTrips());
+    }
+
+    @Test
+    public void testRejectedEventsAreMapped() throws Exception {
+        WonderPushRequestBatcher batcher = batcher();
+        List<Request> requests = events(2);
+        requests.add(eventRequest("user", "rejectMe"));
+        WonderPushJobQueue.Job head = queue.postJobWithDescription(requests.get(0).toJSON(), 0);
+        WonderPushRequestBatcher.Batch batch = batcher.newBatch(head, requests.get(0));
+        for (Request request : requests.subList(1, requests.size())) {
+            assertTrue(batch.accept(queue.postJobWithDescription(request.toJSON(), 0)));
+        }
+        Request batchRequest = batch.toRequest();
+        final Response[] response = new Response[1];
+        batchRequest.setHandler(new ResponseHandler() {
+            @Override
+            public void onFailure(Throwable e, Response errorResponse) {
+                fail("Unexpected failure " + e);
+            }
+
+            @Override
+            public void onSuccess(Response r) {
+                response[0] = r;
+            }
+        });
+        server.execute(batchRequest);
+        List<Request> rejected = batch.getRejectedRequests(response[0]);
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).getParams().getParamsList().get(0).getValue().contains("rejectMe"));
+    }
+
+    @Test
+    public void testDisabledBatcher() throws Exception {
+        WonderPushRequestBatcher batcher = batcher();
+        batcher.disable();
+        drain(events(5), batcher);
+        awaitReceivedEvents(5);
+        assertEquals(5, server.getRoundTrips());
+    }
+
+    @Test
+    public void testUnknownBatchEndpointDisablesBatching() throws Exception {
+        server.batchErrorStatus = 404;
+        WonderPushRequestBatcher batcher = batcher();
+        drain(events(5), batcher);
+        awaitReceivedEvents(5);
+        assertTrue(batcher.isDisabled());
+        assertEquals(1 + 5, server.getRoundTrips());
+    }
+
+    @Test
+    public void testRefusedBatchFallsBackToIndividualSends() throws Exception {
+        server.batchErrorStatus = 400;
+        WonderPushRequestBatcher batcher = batcher();
+        List<Request> requests = events(2);
+        requests.add(eventRequest("user", "rejectMe"));
+        requests.addAll(events(2));
+        drain(requests, batcher);
+        awaitReceivedEvents(4);
+        // Only the faulty event is lost
+        assertFalse(batcher.isDisabled());
+        assertEquals(1 + 5, server.getRoundTrips());
+    }
+
+    @Test
+    public void testServerErrorRetriesBatchLater() throws Exception {
+        server.batchErrorStatus = 503;
+        drain(events(5), batcher());
+        await(new Condition() {
+            @Override
+            public boolean isMet() {
+                return server.getRoundTrips() == 1 && queue.getSize() == 5;
+            }
+        });
+        assertEquals(0, server.getReceivedEvents());
+        assertTrue(queue.peekNextJobNotBeforeRealtimeElapsed() > SystemClock.elapsedRealtime());
+    }
+
+    @Test
+    public void testMalformedEventDoesNotLoseTheBatch() throws Exception {
+        List<Request> requests = new ArrayList<>();
+        requests.add(rawEventRequest("user", "not json"));
+        requests.addAll(events(2));
+        drain(requests, batcher());
+        awaitReceivedEvents(2);
+        // The batch cannot be built, each job is sent on its own
+        assertEquals(3, server.getRoundTrips());
+    }
+
+    @Test
+    public void testFirstEventWaitsForTheRestOfTheBurst() throws Exception {
+        WonderPushRequestVault vault = newVault(new WonderPushRequestBatcher(50, Integer.MAX_VALUE, 500));
+        vault.put(eventRequest("user", "event0"), 0);
+        Thread.sleep(100);
+        for (int i = 1; i < 5; i++) {
+            vault.put(eventRequest("user", "event" + i), 0);
+        }
+        awaitReceivedEvents(5);
+        assertEquals(1, server.getRoundTrips());
+    }
+
+    @Test
+    public void testBatchIsSentOnceItsFirstEventIsOld() throws Exception {
+        WonderPushRequestVault vault = newVault(new WonderPushRequestBatcher(50, Integer.MAX_VALUE, 200));
+        long start = SystemClock.elapsedRealtime();
+        vault.put(eventRequest("user", "event0"), 0);
+        awaitReceivedEvents(1);
+        assertTrue(SystemClock.elapsedRealtime() - start >= 150);
+        assertEquals(1, server.getRoundTrips());
+    }
+
+    @Test
+    public void testOtherRequestsDoNotWaitForTheBatch() throws Exception {
+        // Much longer than the await timeout
+        WonderPushRequestVault vault = newVault(new WonderPushRequestBatcher(50, Integer.MAX_VALUE, 60000));
+        vault.put(eventRequest("user", "event0"), 0);
+        vault.put(eventRequest("user", "event1"), 0);
+        Thread.sleep(50);
+        vault.put(new Request("user", ApiClient.HttpMethod.PUT, "/installation", new Request.Params("body", "{}"), null), 0);
+        awaitReceivedEvents(3);
+        assertEquals(2, server.getRoundTrips());
+    }
+
+    @Test
+    public void testFullBatchDoesNotWait() throws Exception {
+        drain(events(10), new WonderPushRequestBatcher(5, Integer.MAX_VALUE, 60000));
+        awaitReceivedEvents(10);
+        assertEquals(2, server.getRoundTrips());
+    }
+
+}
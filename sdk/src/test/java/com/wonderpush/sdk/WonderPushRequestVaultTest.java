@@ -0,0 +1,218 @@
+package com.wonderpush.sdk;
+
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WonderPushRequestVaultTest {
+
+    /**
+     * Holds the requests it executes until told to complete them, like a stalled server.
+     */
+    private static class BlockingExecutor implements WonderPushRequestVault.RequestExecutor {
+
+        private final List<Request> inFlight = new ArrayList<>();
+        private int completed = 0;
+
+        @Override
+        public synchronized void execute(Request request) {
+            inFlight.add(request);
+        }
+
+        synchronized int getInFlight() {
+            return inFlight.size();
+        }
+
+        synchronized int getCompleted() {
+            return completed;
+        }
+
+        /**
+         * Completes the oldest request in flight, if any.
+         */
+        void completeOne() throws JSONException {
+            Request request;
+            synchronized (this) {
+                if (inFlight.isEmpty()) return;
+                request = inFlight.remove(0);
+                completed++;
+            }
+            request.getHandler().onSuccess(new Response(new JSONObject().put("success", true)));
+        }
+
+    }
+
+    private interface Condition {
+        boolean isMet();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        WonderPushRequestVault.setMaxParallelCalls(WonderPushRequestVault.DEFAULT_MAX_PARALLEL_CALLS);
+        WonderPushRequestVault.setMaxParallelCallsPerHost(WonderPushRequestVault.DEFAULT_MAX_PARALLEL_CALLS_PER_HOST);
+    }
+
+    private WonderPushJobQueue queue(String name, int jobs) {
+        WonderPushJobJournal journal = new WonderPushJobJournal(new File(folder.getRoot(), name + ".journal"));
+        journal.reset(Collections.<JSONObject>emptyList());
+        WonderPushJobQueue rtn = new WonderPushJobQueue(name, 32, 1000, WonderPushJobQueueOverflowPolicy.dropOldest(), journal);
+        for (int i = 0; i < jobs; i++) {
+            Request request = new Request("user", ApiClient.HttpMethod.PUT, "/installation", new Request.Params("body", "{}"), null);
+            rtn.postJobWithDescription(request.toJSON(), 0);
+        }
+        return rtn;
+    }
+
+    private static void await(Condition condition) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + 5000;
+        while (!condition.isMet()) {
+            assertTrue("Timed out", SystemClock.elapsedRealtime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitInFlight(final BlockingExecutor executor, final int count) throws InterruptedException {
+        await(new Condition() {
+            @Override
+            public boolean isMet() {
+                return executor.getInFlight() == count;
+            }
+        });
+    }
+
+    private static WonderPushJobQueue.Job job(final long creationTime) {
+        return new WonderPushJobQueue.Job() {
+            @Override
+            public String getId() {
+                return "id";
+            }
+
+            @Override
+            public JSONObject getJobDescription() {
+                return new JSONObject();
+            }
+
+            @Override
+            public long getNotBeforeRealtimeElapsed() {
+                return 0;
+            }
+
+            @Override
+            public long getCreationTime() {
+                return creationTime;
+            }
+
+            @Override
+            public int getAttempts() {
+                return 0;
+            }
+
+            @Override
+            public long getRetryDelay() {
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    public void testNextRetryDelayBounds() {
+        Random random = new Random(42);
+        long delay = 0;
+        for (int i = 0; i < 1000; i++) {
+            long next = WonderPushRequestVault.nextRetryDelay(delay, random);
+            assertTrue(next >= WonderPushRequestVault.NORMAL_WAIT);
+            assertTrue(next <= WonderPushRequestVault.MAXIMUM_WAIT);
+            assertTrue(next <= Math.max(WonderPushRequestVault.NORMAL_WAIT, delay) * WonderPushRequestVault.BACKOFF_MULTIPLIER);
+            delay = next;
+        }
+    }
+
+    @Test
+    public void testNextRetryDelayIsJittered() {
+        Random random = new Random(42);
+        long first = WonderPushRequestVault.nextRetryDelay(0, random);
+        boolean differs = false;
+        for (int i = 0; i < 10 && !differs; i++) {
+            differs = WonderPushRequestVault.nextRetryDelay(0, random) != first;
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testNextRetryDelayGrows() {
+        Random random = new Random(42);
+        long delay = 0;
+        for (int i = 0; i < 20; i++) {
+            delay = WonderPushRequestVault.nextRetryDelay(delay, random);
+        }
+        assertTrue(delay > WonderPushRequestVault.NORMAL_WAIT * 2);
+    }
+
+    @Test
+    public void testIsExpired() {
+        long now = System.currentTimeMillis();
+        assertFalse(WonderPushRequestVault.isExpired(job(now), now, 0));
+        assertFalse(WonderPushRequestVault.isExpired(job(now), now, WonderPushRequestVault.MAX_ATTEMPTS - 1));
+        assertTrue(WonderPushRequestVault.isExpired(job(now), now, WonderPushRequestVault.MAX_ATTEMPTS));
+        assertFalse(WonderPushRequestVault.isExpired(job(now - WonderPushRequestVault.JOB_TTL), now, 0));
+        assertTrue(WonderPushRequestVault.isExpired(job(now - WonderPushRequestVault.JOB_TTL - 1), now, 0));
+    }
+
+    @Test
+    public void testParallelCallsAreLimitedPerVaultAndPerHost() throws Exception {
+        WonderPushRequestVault.setMaxParallelCalls(2);
+        WonderPushRequestVault.setMaxParallelCallsPerHost(3);
+        String host = "limits.test";
+
+        BlockingExecutor stalled = new BlockingExecutor();
+        new WonderPushRequestVault(queue("stalled", 5), host, stalled, null);
+        awaitInFlight(stalled, 2);
+
+        BlockingExecutor other = new BlockingExecutor();
+        new WonderPushRequestVault(queue("other", 5), host, other, null);
+        awaitInFlight(other, 1);
+
+        // Neither the per-vault limit nor the per-host cap is exceeded
+        Thread.sleep(50);
+        assertEquals(2, stalled.getInFlight());
+        assertEquals(1, other.getInFlight());
+
+        // The stalled vault does not hold back the other one
+        for (int i = 0; i < 5; i++) {
+            awaitInFlight(other, 1);
+            other.completeOne();
+        }
+        assertEquals(5, other.getCompleted());
+        assertEquals(2, stalled.getInFlight());
+        assertEquals(0, stalled.getCompleted());
+    }
+
+    @Test
+    public void testHostsDoNotShareTheirCap() throws Exception {
+        WonderPushRequestVault.setMaxParallelCallsPerHost(1);
+
+        BlockingExecutor first = new BlockingExecutor();
+        new WonderPushRequestVault(queue("first", 2), "first.test", first, null);
+        BlockingExecutor second = new BlockingExecutor();
+        new WonderPushRequestVault(queue("second", 2), "second.test", second, null);
+        awaitInFlight(first, 1);
+        awaitInFlight(second, 1);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.Benchmark;
+import com.wonderpush.sdk.inappmessaging.model.Campaign;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the latency from a triggering event to the choice of a campaign:
+ * with campaigns parsed for every event and scanned linearly, like {@link InAppMessageStreamManager} used to,
+ * with the parsed campaigns kept in a {@link ParsedCampaignCache} but still scanned,
+ * and with their cached {@link CampaignTriggerIndex}.
+ *
+ * Skipped unless run with {@code -Dwonderpush.benchmark=true}.
+ */
+public class CampaignSelectionBenchmark {
+
+    private static final int CAMPAIGN_COUNT = 250;
+    private static final int EVENT_TYPE_COUNT = 50;
+    private static final int EVENT_COUNT = 100;
+    private static final String CONFIG_VERSION = "1.0.0";
+
+    private interface Decider {
+        /**
+         * Picks the first campaign triggered by the event, and returns its delay, or -1 if none.
+         */
+        long decide(String event);
+    }
+
+    /**
+     * Campaigns triggered by custom events, one in ten on foreground.
+     */
+    private static JSONObject buildConfig(Random random) throws Exception {
+        JSONObject[] campaigns = new JSONObject[CAMPAIGN_COUNT];
+        for (int i = 0; i < CAMPAIGN_COUNT; i++) {
+            String eventType = i % 10 == 0 ? null : "event_" + random.nextInt(EVENT_TYPE_COUNT);
+            campaigns[i] = ParsedCampaignCacheTest.campaignJson("campaign" + i, eventType, random.nextInt(3) * 1000);
+        }
+        return ParsedCampaignCacheTest.configJson(campaigns);
+    }
+
+    private static List<String> buildEvents(Random random) {
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events.add(i % 10 == 0 ? InAppMessageStreamManager.ON_FOREGROUND : "event_" + random.nextInt(2 * EVENT_TYPE_COUNT));
+        }
+        return events;
+    }
+
+    private static long scan(String event, List<Campaign> campaigns) {
+        for (Campaign campaign : campaigns) {
+            if (CampaignTriggerIndexTest.legacyContainsTriggeringCondition(event, campaign)) {
+                return CampaignTriggerIndexTest.legacyDelayForEvent(event, campaign);
+            }
+        }
+        return -1;
+    }
+
+    private static Benchmark.Operation decideAll(final Decider decider, final List<String> events) {
+        return new Benchmark.Operation() {
+            @Override
+            public long run() {
+                long delays = 0;
+                for (String event : events) {
+                    delays += decider.decide(event);
+                }
+                return delays;
+            }
+        };
+    }
+
+    private static CampaignTriggerIndex getIndex(ParsedCampaignCache cache, JSONObject config) {
+        CampaignTriggerIndex index = cache.get(CONFIG_VERSION, config);
+        if (index == null) {
+            index = new CampaignTriggerIndex(ParsedCampaignCache.parse(config));
+            cache.put(CONFIG_VERSION, config, index);
+        }
+        return index;
+    }
+
+    @Test
+    public void benchmarkParsedVersusCachedVersusIndexed() throws Exception {
+        Benchmark.assumeEnabled();
+
+        Random random = new Random(42);
+        final JSONObject config = buildConfig(random);
+        List<String> events = buildEvents(random);
+        final ParsedCampaignCache cache = new ParsedCampaignCache();
+
+        Decider parsed = new Decider() {
+            @Override
+            public long decide(String event) {
+                return scan(event, ParsedCampaignCache.parse(config));
+            }
+        };
+        final Decider cached = new Decider() {
+            @Override
+            public long decide(String event) {
+                return scan(event, getIndex(cache, config).getCampaigns());
+            }
+        };
+        final Decider indexed = new Decider() {
+            @Override
+            public long decide(String event) {
+                List<CampaignTriggerIndex.Candidate> candidates = getIndex(cache, config).getCandidates(event);
+                return candidates.isEmpty() ? -1 : candidates.get(0).getDelay();
+            }
+        };
+        if (getIndex(cache, config).getCampaigns().size() != CAMPAIGN_COUNT) {
+            throw new AssertionError("Invalid campaigns in the benchmark configuration");
+        }
+        for (String event : events) {
+            long expected = parsed.decide(event);
+            if (cached.decide(event) != expected || indexed.decide(event) != expected) {
+                throw new AssertionError("Cached campaigns disagree with parsed ones: " + event);
+            }
+        }
+
+        new Benchmark.Results(CampaignSelectionBenchmark.class,
+                String.format("Deciding for %d events with %d campaigns", events.size(), CAMPAIGN_COUNT), "us/event", events.size() * 1000.0)
+                .add("parsed per event", Benchmark.measure(decideAll(parsed, events)))
+                .add("cached, scanned", Benchmark.measure(decideAll(cached, events)))
+                .add("cached, indexed", Benchmark.measure(decideAll(indexed, events)))
+                .log();
+    }
+
+}
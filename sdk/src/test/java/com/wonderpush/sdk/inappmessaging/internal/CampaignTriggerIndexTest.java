@@ -0,0 +1,120 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.inappmessaging.model.Campaign;
+import com.wonderpush.sdk.inappmessaging.model.CommonTypesProto.TriggeringCondition;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CampaignTriggerIndexTest {
+
+    /**
+     * The trigger matching as it was before {@link CampaignTriggerIndex}, kept as the reference implementation.
+     */
+    static boolean legacyContainsTriggeringCondition(String event, Campaign campaign) {
+        if (InAppMessageStreamManager.isAppForegroundEvent(event) && campaign.isTestCampaign()) {
+            return true;
+        }
+        for (TriggeringCondition condition : campaign.getTriggeringConditions()) {
+            if (legacyMatches(condition, event)) return true;
+        }
+        return false;
+    }
+
+    static long legacyDelayForEvent(String event, Campaign campaign) {
+        for (TriggeringCondition condition : campaign.getTriggeringConditions()) {
+            if (legacyMatches(condition, event)) return condition.getDelay();
+        }
+        return 0;
+    }
+
+    private static boolean legacyMatches(TriggeringCondition condition, String event) {
+        return condition.getIamTrigger().toString().equals(event)
+                || condition.getEvent() != null && condition.getEvent().getName() != null && condition.getEvent().getName().equals(event);
+    }
+
+    private static List<Campaign> campaigns(JSONObject... campaignsJson) throws JSONException {
+        return ParsedCampaignCache.parse(ParsedCampaignCacheTest.configJson(campaignsJson));
+    }
+
+    private static List<String> campaignIds(List<CampaignTriggerIndex.Candidate> candidates) {
+        List<String> ids = new ArrayList<>();
+        for (CampaignTriggerIndex.Candidate candidate : candidates) {
+            ids.add(candidate.getCampaign().getNotificationMetadata().getCampaignId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testIndexesByEventInConfigurationOrder() throws JSONException {
+        CampaignTriggerIndex index = new CampaignTriggerIndex(campaigns(
+                ParsedCampaignCacheTest.campaignJson("a", "purchase", 0),
+                ParsedCampaignCacheTest.campaignJson("b", null, 1000),
+                ParsedCampaignCacheTest.campaignJson("c", "purchase", 2000)));
+        assertEquals(3, index.getCampaigns().size());
+        List<CampaignTriggerIndex.Candidate> purchase = index.getCandidates("purchase");
+        assertEquals(Arrays.asList("a", "c"), campaignIds(purchase));
+        assertEquals(0, purchase.get(0).getDelay());
+        assertEquals(2000, purchase.get(1).getDelay());
+        List<CampaignTriggerIndex.Candidate> foreground = index.getCandidates(InAppMessageStreamManager.ON_FOREGROUND);
+        assertEquals(Arrays.asList("b"), campaignIds(foreground));
+        assertEquals(1000, foreground.get(0).getDelay());
+        assertTrue(index.getCandidates("other").isEmpty());
+        assertTrue(index.getCandidates(null).isEmpty());
+    }
+
+    @Test
+    public void testFirstMatchingConditionGivesDelay() throws JSONException {
+        JSONObject campaign = ParsedCampaignCacheTest.campaignJson("a", "purchase", 500);
+        campaign.getJSONArray("triggers")
+                .put(new JSONObject().put("delay", 1500).put("event", new JSONObject().put("type", "purchase")))
+                .put(new JSONObject().put("delay", 2500).put("systemEvent", "ON_FOREGROUND"));
+        CampaignTriggerIndex index = new CampaignTriggerIndex(campaigns(campaign));
+        assertEquals(1, index.getCandidates("purchase").size());
+        assertEquals(500, index.getCandidates("purchase").get(0).getDelay());
+        assertEquals(2500, index.getCandidates(InAppMessageStreamManager.ON_FOREGROUND).get(0).getDelay());
+    }
+
+    @Test
+    public void testAgreesWithLinearScan() throws JSONException {
+        Random random = new Random(42);
+        JSONObject[] campaignsJson = new JSONObject[200];
+        for (int i = 0; i < campaignsJson.length; i++) {
+            campaignsJson[i] = ParsedCampaignCacheTest.campaignJson("campaign" + i, i % 7 == 0 ? null : "event_" + random.nextInt(20), random.nextInt(5) * 100);
+            JSONArray triggers = campaignsJson[i].getJSONArray("triggers");
+            for (int j = random.nextInt(3); j > 0; j--) {
+                JSONObject trigger = new JSONObject().put("delay", random.nextInt(5) * 100);
+                if (random.nextBoolean()) trigger.put("systemEvent", random.nextBoolean() ? "APP_LAUNCH" : "SOMETHING_ELSE");
+                else trigger.put("event", new JSONObject().put("type", "event_" + random.nextInt(20)));
+                triggers.put(trigger);
+            }
+        }
+        List<Campaign> campaigns = campaigns(campaignsJson);
+        CampaignTriggerIndex index = new CampaignTriggerIndex(campaigns);
+
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) events.add("event_" + i);
+        events.add(InAppMessageStreamManager.ON_FOREGROUND);
+        for (String event : events) {
+            List<CampaignTriggerIndex.Candidate> candidates = index.getCandidates(event);
+            int position = 0;
+            for (Campaign campaign : campaigns) {
+                if (!legacyContainsTriggeringCondition(event, campaign)) continue;
+                CampaignTriggerIndex.Candidate candidate = candidates.get(position++);
+                assertSame(event, campaign, candidate.getCampaign());
+                assertEquals(event, legacyDelayForEvent(event, campaign), candidate.getDelay());
+            }
+            assertEquals(event, position, candidates.size());
+        }
+    }
+
+}
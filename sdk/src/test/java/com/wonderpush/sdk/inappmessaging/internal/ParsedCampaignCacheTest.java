@@ -0,0 +1,92 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.inappmessaging.model.Campaign;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParsedCampaignCacheTest {
+
+    /**
+     * Builds a valid banner campaign, triggered by the given event type, or on foreground if {@code null}.
+     */
+    static JSONObject campaignJson(String campaignId, String eventType, long delay) throws JSONException {
+        JSONObject trigger = new JSONObject().put("delay", delay);
+        if (eventType == null) {
+            trigger.put("systemEvent", "ON_FOREGROUND");
+        } else {
+            trigger.put("event", new JSONObject().put("type", eventType));
+        }
+        return new JSONObject()
+                .put("scheduling", new JSONObject().put("startDate", 1))
+                .put("triggers", new JSONArray().put(trigger))
+                .put("notifications", new JSONArray().put(new JSONObject()
+                        .put("reporting", new JSONObject().put("campaignId", campaignId).put("notificationId", "n-" + campaignId))
+                        .put("content", new JSONObject().put("banner", new JSONObject()
+                                .put("title", new JSONObject().put("text", "Title " + campaignId))))));
+    }
+
+    static JSONObject configJson(JSONObject... campaigns) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (JSONObject campaign : campaigns) array.put(campaign);
+        return new JSONObject().put("campaigns", array);
+    }
+
+    @Test
+    public void testParseSkipsInvalidCampaigns() throws JSONException {
+        JSONObject config = configJson(campaignJson("a", "purchase", 0), new JSONObject(), campaignJson("b", null, 0));
+        List<Campaign> campaigns = ParsedCampaignCache.parse(config);
+        assertEquals(2, campaigns.size());
+        assertEquals("a", campaigns.get(0).getNotificationMetadata().getCampaignId());
+        assertEquals("b", campaigns.get(1).getNotificationMetadata().getCampaignId());
+        assertEquals(0, ParsedCampaignCache.parse(null).size());
+        assertEquals(0, ParsedCampaignCache.parse(new JSONObject()).size());
+    }
+
+    @Test
+    public void testCachesPerVersion() throws JSONException {
+        ParsedCampaignCache cache = new ParsedCampaignCache();
+        JSONObject config1 = configJson(campaignJson("a", "purchase", 0));
+        JSONObject config2 = configJson();
+        assertNull(cache.get("1", config1));
+        CampaignTriggerIndex index = new CampaignTriggerIndex(ParsedCampaignCache.parse(config1));
+        cache.put("1", config1, index);
+        assertSame(index, cache.get("1", config1));
+        assertSame(index, cache.get("1", config1));
+        assertNull(cache.get("2", config2));
+        cache.put("2", config2, new CampaignTriggerIndex(ParsedCampaignCache.parse(config2)));
+        assertNull(cache.get("1", config1));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testSameVersionWithAnotherConfigIsNotCached() throws JSONException {
+        // A configuration fetched with another ETag can reuse the version, and is parsed again
+        ParsedCampaignCache cache = new ParsedCampaignCache();
+        JSONObject config = configJson(campaignJson("a", "purchase", 0));
+        cache.put("1", config, new CampaignTriggerIndex(ParsedCampaignCache.parse(config)));
+        JSONObject changed = configJson(campaignJson("b", "purchase", 0));
+        assertNull(cache.get("1", changed));
+        CampaignTriggerIndex index = new CampaignTriggerIndex(ParsedCampaignCache.parse(changed));
+        cache.put("1", changed, index);
+        assertSame(index, cache.get("1", changed));
+        assertNull(cache.get("1", config));
+    }
+
+    @Test
+    public void testNoCachingWithoutVersion() throws JSONException {
+        ParsedCampaignCache cache = new ParsedCampaignCache();
+        JSONObject config = configJson(campaignJson("a", "purchase", 0));
+        cache.put(null, config, new CampaignTriggerIndex(ParsedCampaignCache.parse(config)));
+        assertNull(cache.get(null, config));
+        assertEquals(0, cache.getHitCount());
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.wonderpush.sdk.inappmessaging.internal;
+
+import com.wonderpush.sdk.segmentation.CompiledCriterion;
+import com.wonderpush.sdk.segmentation.parser.SegmentationDSLError;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SegmentCacheTest {
+
+    private static JSONObject segment() throws JSONException {
+        return new JSONObject("{\".foo\":{\"eq\":\"bar\"}}");
+    }
+
+    @Test
+    public void testCachesPerCampaignId() throws JSONException, SegmentationDSLError {
+        SegmentCache cache = new SegmentCache();
+        cache.setConfigVersion("1");
+        CompiledCriterion first = cache.get("campaignA", segment());
+        assertSame(first, cache.get("campaignA", segment()));
+        assertNotSame(first, cache.get("campaignB", segment()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testVersionChangeClearsCache() throws JSONException, SegmentationDSLError {
+        SegmentCache cache = new SegmentCache();
+        assertTrue(cache.setConfigVersion("1"));
+        CompiledCriterion first = cache.get("campaignA", segment());
+        assertFalse(cache.setConfigVersion("1"));
+        assertSame(first, cache.get("campaignA", segment()));
+        assertTrue(cache.setConfigVersion("2"));
+        assertEquals(0, cache.size());
+        assertNotSame(first, cache.get("campaignA", segment()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testNoCachingWithoutIdOrVersion() throws JSONException, SegmentationDSLError {
+        SegmentCache cache = new SegmentCache();
+        cache.get("campaignA", segment());
+        cache.get("campaignA", segment());
+        assertEquals(0, cache.size());
+        cache.setConfigVersion("1");
+        cache.get(null, segment());
+        cache.get(null, segment());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testParseErrorsAreCached() throws JSONException {
+        SegmentCache cache = new SegmentCache();
+        cache.setConfigVersion("1");
+        JSONObject invalid = new JSONObject("{\"\":\"\"}");
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("campaignA", invalid);
+                fail("Expected a SegmentationDSLError");
+            } catch (SegmentationDSLError ex) {
+                // expected
+            }
+        }
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+}
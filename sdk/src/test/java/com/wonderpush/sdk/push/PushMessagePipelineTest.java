@@ -0,0 +1,246 @@
+package com.wonderpush.sdk.push;
+
+import android.content.Context;
+
+import com.wonderpush.sdk.NotificationModel;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PushMessagePipelineTest {
+
+    /**
+     * A push service delivering its messages straight to the pipeline.
+     */
+    private static class FakePushService implements PushService {
+
+        private final String identifier;
+        private int messageCount;
+
+        FakePushService(String identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public String getVersion() {
+            return "0";
+        }
+
+        @Override
+        public String getName() {
+            return "Fake " + identifier;
+        }
+
+        @Override
+        public void initialize(Context context) {
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void execute() {
+        }
+
+        @Override
+        public int getNotificationIcon() {
+            return 0;
+        }
+
+        @Override
+        public int getNotificationColor() {
+            return 0;
+        }
+
+        PushMessage message(String messageId, Map<String, String> data) {
+            messageCount++;
+            return new PushMessage(identifier, messageId, data, 0, 0, null);
+        }
+
+        PushMessagePipeline.Result deliver(String messageId, Map<String, String> data) {
+            return PushMessagePipeline.onMessageReceived(null, message(messageId, data));
+        }
+
+        PushMessagePipeline.Result deliver(Map<String, String> data) {
+            return deliver(identifier + "-" + messageCount, data);
+        }
+
+    }
+
+    private static class RecordingStages implements PushMessagePipeline.Stages {
+
+        final List<String> calls = new ArrayList<>();
+        boolean targeted = true;
+        boolean throwNotTargeted = false;
+        PushMessage rendered;
+
+        @Override
+        public void initialize(Context context) {
+            calls.add("initialize");
+        }
+
+        @Override
+        public NotificationModel parse(JSONObject wpData) throws NotificationModel.NotTargetedForThisInstallationException {
+            calls.add("parse");
+            if (throwNotTargeted) {
+                throw new NotificationModel.NotTargetedForThisInstallationException("not for us");
+            }
+            if (!wpData.has("c")) {
+                return null;
+            }
+            NotificationModel notif = new NotificationModel(wpData.toString()) {
+                @Override
+                protected void readFromJSONObject(JSONObject wpData) {
+                }
+            };
+            notif.setCampaignId(wpData.optString("c"));
+            notif.setNotificationId(wpData.optString("n"));
+            notif.setViewId(wpData.optString("v", null));
+            return notif;
+        }
+
+        @Override
+        public boolean isTargeted(NotificationModel notif) {
+            calls.add("isTargeted");
+            return targeted;
+        }
+
+        @Override
+        public void receipt(Context context, NotificationModel notif) {
+            calls.add("receipt:" + notif.getCampaignId());
+        }
+
+        @Override
+        public void render(Context context, PushMessage message, NotificationModel notif) {
+            calls.add("render:" + notif.getCampaignId());
+            rendered = message;
+        }
+
+    }
+
+    private RecordingStages stages;
+    private FakePushService fcm;
+    private FakePushService hcm;
+
+    @Before
+    public void setUp() {
+        stages = new RecordingStages();
+        PushMessagePipeline.setStages(stages);
+        PushMessagePipeline.setDeduplicator(new RecentNotificationsDeduplicator(new RecentNotificationsDeduplicatorTest.MemoryStorage(),
+                RecentNotificationsDeduplicator.DEFAULT_CAPACITY, RecentNotificationsDeduplicator.DEFAULT_TTL_MS));
+        PushMessagePipeline.setClock(() -> 0);
+        fcm = new FakePushService("FCM");
+        hcm = new FakePushService("HCM");
+    }
+
+    @After
+    public void tearDown() {
+        PushMessagePipeline.setStages(null);
+        PushMessagePipeline.setDeduplicator(null);
+        PushMessagePipeline.setClock(null);
+    }
+
+    private static Map<String, String> data(String campaignId, String notificationId) throws JSONException {
+        return data(campaignId, notificationId, null);
+    }
+
+    private static Map<String, String> data(String campaignId, String notificationId, String viewId) throws JSONException {
+        Map<String, String> data = new HashMap<>();
+        data.put("foo", "bar");
+        data.put(PushMessagePipeline.WONDERPUSH_NOTIFICATION_EXTRA_KEY, new JSONObject().put("c", campaignId).put("n", notificationId).put("v", viewId).toString());
+        return data;
+    }
+
+    @Test
+    public void testNotOursDoesNotInitialize() {
+        assertEquals(PushMessagePipeline.Result.NOT_OURS, fcm.deliver(Collections.singletonMap("foo", "bar")));
+        assertEquals(PushMessagePipeline.Result.NOT_OURS, fcm.deliver(null));
+        assertEquals(Collections.emptyList(), stages.calls);
+    }
+
+    @Test
+    public void testInvalid() {
+        assertEquals(PushMessagePipeline.Result.INVALID, fcm.deliver(Collections.singletonMap(PushMessagePipeline.WONDERPUSH_NOTIFICATION_EXTRA_KEY, "not json")));
+        assertEquals(Arrays.asList("initialize"), stages.calls);
+        stages.calls.clear();
+        assertEquals(PushMessagePipeline.Result.INVALID, fcm.deliver(Collections.singletonMap(PushMessagePipeline.WONDERPUSH_NOTIFICATION_EXTRA_KEY, "{}")));
+        assertEquals(Arrays.asList("initialize", "parse"), stages.calls);
+    }
+
+    @Test
+    public void testHandledGoesThroughEveryStageInOrder() throws JSONException {
+        PushMessage message = fcm.message("m1", data("c1", "n1"));
+        assertEquals(PushMessagePipeline.Result.HANDLED, PushMessagePipeline.onMessageReceived(null, message));
+        assertEquals(Arrays.asList("initialize", "parse", "isTargeted", "receipt:c1", "render:c1"), stages.calls);
+        assertSame(message, stages.rendered);
+    }
+
+    @Test
+    public void testNotTargeted() throws JSONException {
+        stages.targeted = false;
+        assertEquals(PushMessagePipeline.Result.NOT_TARGETED, fcm.deliver(data("c1", "n1")));
+        assertEquals(Arrays.asList("initialize", "parse", "isTargeted"), stages.calls);
+    }
+
+    @Test
+    public void testNotTargetedWhileParsing() throws JSONException {
+        stages.throwNotTargeted = true;
+        assertEquals(PushMessagePipeline.Result.NOT_TARGETED, fcm.deliver(data("c1", "n1")));
+        assertEquals(Arrays.asList("initialize", "parse"), stages.calls);
+    }
+
+    @Test
+    public void testDuplicateMessageIdIsDroppedBeforeReceipt() throws JSONException {
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver("m1", data("c1", "n1")));
+        stages.calls.clear();
+        assertEquals(PushMessagePipeline.Result.DUPLICATE, fcm.deliver("m1", data("c1", "n1")));
+        assertEquals(Arrays.asList("initialize", "parse"), stages.calls);
+    }
+
+    @Test
+    public void testMessageIdsArePerService() throws JSONException {
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver("m1", data("c1", "n1")));
+        assertEquals(PushMessagePipeline.Result.HANDLED, hcm.deliver("m1", data("c2", "n2")));
+    }
+
+    @Test
+    public void testSameNotificationThroughAnotherServiceIsDuplicate() throws JSONException {
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver("m1", data("c1", "n1", "v1")));
+        stages.calls.clear();
+        assertEquals(PushMessagePipeline.Result.DUPLICATE, hcm.deliver("m2", data("c1", "n1", "v1")));
+        assertEquals(Arrays.asList("initialize", "parse"), stages.calls);
+        assertEquals(PushMessagePipeline.Result.HANDLED, hcm.deliver("m3", data("c1", "n1", "v2")));
+    }
+
+    @Test
+    public void testMissingMessageIdIsDeduplicatedByView() throws JSONException {
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver(null, data("c1", "n1", "v1")));
+        assertEquals(PushMessagePipeline.Result.DUPLICATE, fcm.deliver(null, data("c1", "n1", "v1")));
+    }
+
+    @Test
+    public void testResendWithoutSendIdsIsHandled() throws JSONException {
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver(null, data("c1", "n1")));
+        assertEquals(PushMessagePipeline.Result.HANDLED, fcm.deliver(null, data("c1", "n1")));
+    }
+
+}
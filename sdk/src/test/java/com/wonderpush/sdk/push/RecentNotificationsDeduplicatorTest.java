@@ -0,0 +1,122 @@
+package com.wonderpush.sdk.push;
+
+import com.wonderpush.sdk.NotificationModel;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecentNotificationsDeduplicatorTest {
+
+    static class MemoryStorage implements RecentNotificationsDeduplicator.Storage {
+
+        JSONObject stored;
+        int loadCount;
+        int saveCount;
+
+        @Override
+        public JSONObject load() {
+            loadCount++;
+            return stored;
+        }
+
+        @Override
+        public void save(JSONObject recentNotifications) {
+            saveCount++;
+            stored = recentNotifications;
+        }
+
+    }
+
+    private static final long TTL = 1000;
+
+    private static NotificationModel notif(String campaignId, String notificationId, String viewId) {
+        NotificationModel notif = new NotificationModel("{}") {
+            @Override
+            protected void readFromJSONObject(JSONObject wpData) {
+            }
+        };
+        notif.setCampaignId(campaignId);
+        notif.setNotificationId(notificationId);
+        notif.setViewId(viewId);
+        return notif;
+    }
+
+    private static PushMessage message(String service, String messageId) {
+        return new PushMessage(service, messageId, null, 0, 0, null);
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals("c/n/v", RecentNotificationsDeduplicator.key(message("FCM", "m"), notif("c", "n", "v")));
+        assertEquals("FCM:m", RecentNotificationsDeduplicator.key(message("FCM", "m"), notif("c", "n", null)));
+        assertEquals("FCM:m", RecentNotificationsDeduplicator.key(message("FCM", "m"), notif(null, null, "v")));
+        assertNull(RecentNotificationsDeduplicator.key(message("FCM", null), notif(null, null, null)));
+        // Re-sends of a notification without a view id cannot be told apart from duplicates, they are let through
+        assertNull(RecentNotificationsDeduplicator.key(message("FCM", null), notif("c", "n", null)));
+    }
+
+    @Test
+    public void testDuplicate() {
+        RecentNotificationsDeduplicator deduplicator = new RecentNotificationsDeduplicator(new MemoryStorage(), 10, TTL);
+        assertFalse(deduplicator.isDuplicate("a", 1));
+        assertTrue(deduplicator.isDuplicate("a", 2));
+        assertFalse(deduplicator.isDuplicate("b", 3));
+        assertTrue(deduplicator.isDuplicate("a", 4));
+    }
+
+    @Test
+    public void testExpires() {
+        RecentNotificationsDeduplicator deduplicator = new RecentNotificationsDeduplicator(new MemoryStorage(), 10, TTL);
+        assertFalse(deduplicator.isDuplicate("a", 1));
+        assertTrue(deduplicator.isDuplicate("a", TTL));
+        assertFalse(deduplicator.isDuplicate("a", 1 + TTL));
+        assertTrue(deduplicator.isDuplicate("a", 2 + TTL));
+    }
+
+    @Test
+    public void testBounded() {
+        MemoryStorage storage = new MemoryStorage();
+        RecentNotificationsDeduplicator deduplicator = new RecentNotificationsDeduplicator(storage, 3, TTL);
+        for (int i = 0; i < 4; i++) {
+            assertFalse(deduplicator.isDuplicate("n" + i, 10 + i));
+        }
+        assertEquals(3, storage.stored.length());
+        assertFalse(storage.stored.has("n0"));
+        assertTrue(deduplicator.isDuplicate("n3", 20));
+        assertFalse(deduplicator.isDuplicate("n0", 21));
+    }
+
+    @Test
+    public void testPersists() {
+        MemoryStorage storage = new MemoryStorage();
+        RecentNotificationsDeduplicator deduplicator = new RecentNotificationsDeduplicator(storage, 10, TTL);
+        assertFalse(deduplicator.isDuplicate("a", 10));
+        assertFalse(deduplicator.isDuplicate("b", 20));
+        assertFalse(deduplicator.isDuplicate("c", 30));
+        assertEquals(3, storage.saveCount);
+        // Duplicates do not write
+        assertTrue(deduplicator.isDuplicate("b", 40));
+        assertEquals(3, storage.saveCount);
+        assertEquals(1, storage.loadCount);
+
+        // A new process reads the stored ids once, and evicts the oldest first
+        RecentNotificationsDeduplicator restored = new RecentNotificationsDeduplicator(storage, 3, TTL);
+        assertTrue(restored.isDuplicate("c", 50));
+        assertFalse(restored.isDuplicate("d", 60));
+        assertFalse(storage.stored.has("a"));
+        assertTrue(restored.isDuplicate("b", 70));
+        assertEquals(2, storage.loadCount);
+    }
+
+    @Test
+    public void testIgnoresInvalidStorage() throws Exception {
+        MemoryStorage storage = new MemoryStorage();
+        storage.stored = new JSONObject().put("a", "not a date").put("b", 10);
+        RecentNotificationsDeduplicator deduplicator = new RecentNotificationsDeduplicator(storage, 10, TTL);
+        assertFalse(deduplicator.isDuplicate("a", 20));
+        assertTrue(deduplicator.isDuplicate("b", 30));
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.wonderpush.sdk.remoteconfig;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+public class OkHttpRemoteConfigFetcherTest {
+
+    private static final HttpUrl URL = HttpUrl.get(Constants.REMOTE_CONFIG_BASE_URL + "CLIENTID" + Constants.REMOTE_CONFIG_SUFFIX);
+
+    private static Response response(int code, String body, String... headers) {
+        Request request = new Request.Builder().url(URL).build();
+        Response.Builder builder = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(ResponseBody.create(MediaType.parse("application/json"), body));
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            builder.addHeader(headers[i], headers[i + 1]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fetches using a client answering every call with a delta on top of an unknown base,
+     * or with a full config once {@code fullAfter} calls have been made.
+     *
+     * @return The error passed to the handler, or {@code null} if it got a config
+     */
+    private static Throwable fetchWithDeltas(final int fullAfter, final AtomicInteger calls) throws Exception {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    Response response = calls.incrementAndGet() > fullAfter
+                            ? response(200, "{\"version\":\"1.0.1\"}", "ETag", "\"etag-2\"")
+                            : response(OkHttpRemoteConfigFetcher.HTTP_IM_USED, "{\"version\":\"1.0.2\"}",
+                                    "IM", OkHttpRemoteConfigFetcher.DELTA_INSTANCE_MANIPULATION, "Delta-Base", "\"etag-0\"");
+                    return response.newBuilder().request(request).build();
+                })
+                .build();
+        OkHttpRemoteConfigFetcher fetcher = new OkHttpRemoteConfigFetcher("CLIENTID", (r, defer) -> r.run(), client);
+        final BlockingQueue<Object[]> results = new ArrayBlockingQueue<>(10);
+        fetcher.fetchRemoteConfig(null, storedConfig(), (config, error) -> results.add(new Object[] {config, error}));
+        Object[] result = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertTrue((result[0] == null) != (result[1] == null));
+        return (Throwable) result[1];
+    }
+
+    private static RemoteConfig storedConfig() throws Exception {
+        JSONObject data = new JSONObject("{\"version\":\"1.0.0\",\"maxAge\":60000,\"foo\":\"bar\",\"inAppConfig\":{\"campaigns\":[{\"id\":\"a\"}]}}");
+        return RemoteConfig.with(data, "1.0.0", new Date(0), 60000, 0, "\"etag-1\"");
+    }
+
+    @Test
+    public void testRequestHeaders() throws Exception {
+        Request request = OkHttpRemoteConfigFetcher.buildRequest(URL, null);
+        assertNull(request.header("If-None-Match"));
+        assertNull(request.header("A-IM"));
+
+        request = OkHttpRemoteConfigFetcher.buildRequest(URL, storedConfig());
+        assertEquals("\"etag-1\"", request.header("If-None-Match"));
+        assertEquals(OkHttpRemoteConfigFetcher.DELTA_INSTANCE_MANIPULATION, request.header("A-IM"));
+    }
+
+    @Test
+    public void testFullResponse() throws Exception {
+        RemoteConfig config = OkHttpRemoteConfigFetcher.parseResponse(
+                response(200, "{\"version\":\"1.0.1\",\"maxAge\":1000,\"minAge\":10}", "ETag", "\"etag-2\""), storedConfig());
+        assertEquals("1.0.1", config.getVersion());
+        assertEquals(1000, config.getMaxAge());
+        assertEquals(10, config.getMinAge());
+        assertEquals("\"etag-2\"", config.getETag());
+        assertFalse(config.getData().has("foo"));
+    }
+
+    @Test
+    public void testNotModifiedKeepsStoredConfig() throws Exception {
+        RemoteConfig stored = storedConfig();
+        RemoteConfig config = OkHttpRemoteConfigFetcher.parseResponse(response(304, ""), stored);
+        assertSame(stored.getData(), config.getData());
+        assertEquals(stored.getVersion(), config.getVersion());
+        assertEquals(stored.getETag(), config.getETag());
+        assertTrue(config.getFetchDate().getTime() > stored.getFetchDate().getTime());
+
+        try {
+            OkHttpRemoteConfigFetcher.parseResponse(response(304, ""), null);
+            fail();
+        } catch (Exception e) {
+            assertFalse(e instanceof OkHttpRemoteConfigFetcher.DeltaException);
+        }
+    }
+
+    @Test
+    public void testDeltaIsMergedIntoStoredConfig() throws Exception {
+        RemoteConfig stored = storedConfig();
+        RemoteConfig config = OkHttpRemoteConfigFetcher.parseResponse(response(OkHttpRemoteConfigFetcher.HTTP_IM_USED,
+                "{\"version\":\"1.0.2\",\"foo\":null,\"bar\":1}",
+                "IM", OkHttpRemoteConfigFetcher.DELTA_INSTANCE_MANIPULATION, "Delta-Base", "\"etag-1\"", "ETag", "\"etag-3\""), stored);
+        assertEquals("1.0.2", config.getVersion());
+        assertEquals("\"etag-3\"", config.getETag());
+        assertEquals(60000, config.getMaxAge());
+        assertFalse(config.getData().has("foo"));
+        assertEquals(1, config.getData().getInt("bar"));
+        assertEquals("a", config.getData().getJSONObject("inAppConfig").getJSONArray("campaigns").getJSONObject(0).getString("id"));
+        // The stored config is left untouched
+        assertEquals("bar", stored.getData().getString("foo"));
+    }
+
+    @Test
+    public void testDeltaOnAnotherBaseIsRejected() throws Exception {
+        try {
+            OkHttpRemoteConfigFetcher.parseResponse(response(OkHttpRemoteConfigFetcher.HTTP_IM_USED, "{\"version\":\"1.0.2\"}",
+                    "IM", OkHttpRemoteConfigFetcher.DELTA_INSTANCE_MANIPULATION, "Delta-Base", "\"etag-0\""), storedConfig());
+            fail();
+        } catch (OkHttpRemoteConfigFetcher.DeltaException e) {
+            // expected
+        }
+        try {
+            OkHttpRemoteConfigFetcher.parseResponse(response(OkHttpRemoteConfigFetcher.HTTP_IM_USED, "{\"version\":\"1.0.2\"}",
+                    "IM", OkHttpRemoteConfigFetcher.DELTA_INSTANCE_MANIPULATION), null);
+            fail();
+        } catch (OkHttpRemoteConfigFetcher.DeltaException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnusableDeltaFallsBackToFullFetch() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        assertNull(fetchWithDeltas(1, calls));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testUnusableDeltaIsRetriedOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Throwable error = fetchWithDeltas(Integer.MAX_VALUE, calls);
+        assertTrue(error instanceof OkHttpRemoteConfigFetcher.DeltaException);
+        Thread.sleep(100);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testErrorStatus() {
+        try {
+            OkHttpRemoteConfigFetcher.parseResponse(response(500, ""), null);
+            fail();
+        } catch (Exception e) {
+            assertTrue(e.getMessage().contains("500"));
+        }
+    }
+
+}
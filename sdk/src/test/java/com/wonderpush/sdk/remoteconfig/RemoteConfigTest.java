@@ -33,6 +33,9 @@ public class RemoteConfigTest {
         @Nullable
         public Date lastRequestedDate;
 
+        @Nullable
+        public RemoteConfig lastCurrentConfig;
+
         @Override
         public void fetchRemoteConfig(@Nullable String version, RemoteConfigHandler handler) {
             lastRequestedVersion = version;
@@ -40,6 +43,12 @@ public class RemoteConfigTest {
             handler.handle(fetchedConfig, error);
         }
 
+        @Override
+        public void fetchRemoteConfig(@Nullable String version, @Nullable RemoteConfig currentConfig, RemoteConfigHandler handler) {
+            lastCurrentConfig = currentConfig;
+            fetchRemoteConfig(version, handler);
+        }
+
     }
 
     static class MockRemoteConfigStorage implements RemoteConfigStorage {
@@ -690,6 +699,10 @@ public class RemoteConfigTest {
 
         config = RemoteConfig.fromString("{\"version\":\"1.0.1\", \"minAge\":123456}");
         assertEquals(config.getMinAge(), 123456);
+        assertNull(config.getETag());
+
+        config = RemoteConfig.fromString(RemoteConfig.with(new JSONObject(), "1.0.2", new Date(), 0, 0, "W/\"abc\"").toString());
+        assertEquals("W/\"abc\"", config.getETag());
     }
 
     /**
@@ -890,4 +903,74 @@ public class RemoteConfigTest {
 
         future.get();
     }
+
+    /**
+     * Checks that the fetcher is given the stored config, so it only transfers what changed
+     */
+    @Test
+    public void testFetchIsBasedOnStoredConfig() {
+        manager.minimumConfigAge = 0;
+        manager.minimumFetchInterval = 0;
+
+        RemoteConfig storedConfig = RemoteConfig.with(new JSONObject(), "1.0.0", new Date(), 0, 0, "\"etag-1\"");
+        storage.storedConfig = storedConfig;
+        storage.storedHighestVersion = "1.0.0";
+        fetcher.fetchedConfig = RemoteConfig.with(new JSONObject(), "1.0.1", new Date(), 0, 0, "\"etag-2\"");
+
+        manager.declareVersion("1.0.1");
+        assertEquals("1.0.1", fetcher.lastRequestedVersion);
+        assertSame(storedConfig, fetcher.lastCurrentConfig);
+        assertEquals("\"etag-2\"", storage.storedConfig.getETag());
+    }
+
+    /**
+     * Observers receive the stored config object itself, only when its version increases
+     */
+    @Test
+    public void testObserverReceivesHigherVersions() {
+        manager.minimumConfigAge = 0;
+        manager.minimumFetchInterval = 0;
+        ArrayList<RemoteConfig> updates = new ArrayList<>();
+        RemoteConfigObserver observer = updates::add;
+        manager.addObserver(observer);
+
+        RemoteConfig config1 = RemoteConfig.with(new JSONObject(), "1.0.0");
+        fetcher.fetchedConfig = config1;
+        manager.declareVersion("1.0.0");
+        assertEquals(1, updates.size());
+        assertSame(config1, updates.get(0));
+
+        // Same version, fetched again
+        fetcher.fetchedConfig = RemoteConfig.with(new JSONObject(), "1.0.0");
+        manager.maximumConfigAge = 0;
+        manager.read((RemoteConfig config, Throwable error) -> {});
+        assertEquals(1, updates.size());
+
+        RemoteConfig config2 = RemoteConfig.with(new JSONObject(), "1.0.1");
+        fetcher.fetchedConfig = config2;
+        manager.declareVersion("1.0.1");
+        assertEquals(2, updates.size());
+        assertSame(config2, updates.get(1));
+
+        manager.removeObserver(observer);
+        fetcher.fetchedConfig = RemoteConfig.with(new JSONObject(), "1.0.2");
+        manager.declareVersion("1.0.2");
+        assertEquals(2, updates.size());
+    }
+
+    /**
+     * A failing observer does not prevent the others from being notified
+     */
+    @Test
+    public void testObserverFailureIsIsolated() {
+        ArrayList<RemoteConfig> updates = new ArrayList<>();
+        manager.addObserver(config -> {
+            throw new IllegalStateException("boom");
+        });
+        manager.addObserver(updates::add);
+
+        fetcher.fetchedConfig = RemoteConfig.with(new JSONObject(), "1.0.0");
+        manager.declareVersion("1.0.0");
+        assertEquals(1, updates.size());
+    }
 }
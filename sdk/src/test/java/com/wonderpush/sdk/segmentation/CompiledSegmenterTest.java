@@ -0,0 +1,40 @@
+package com.wonderpush.sdk.segmentation;
+
+import com.wonderpush.sdk.segmentation.parser.ASTCriterionNode;
+import com.wonderpush.sdk.segmentation.parser.BadInputError;
+import com.wonderpush.sdk.segmentation.parser.UnknownValueError;
+import com.wonderpush.sdk.segmentation.parser.criteria.UnknownCriterionError;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Runs every {@link SegmenterTest} against compiled segments,
+ * checking that they agree with the visitors.
+ */
+public class CompiledSegmenterTest extends SegmenterTest {
+
+    @Override
+    protected boolean matches(Segmenter.Data data, ASTCriterionNode parsedSegment) {
+        boolean visited = super.matches(data, parsedSegment);
+        boolean compiled = new Segmenter(data).matchesInstallation(Segmenter.compileInstallationSegment(parsedSegment));
+        assertThat("compiled segment disagrees with visitor", compiled, is(visited));
+        return compiled;
+    }
+
+    @Test
+    public void testCompiledSegmentIsReusable() throws JSONException, BadInputError, UnknownValueError, UnknownCriterionError {
+        CompiledCriterion compiled = Segmenter.compileInstallationSegment(Segmenter.parseInstallationSegment(new JSONObject("{\".custom.date_foo\":{\"gt\":{\"date\":1000}}}")));
+        Segmenter.Data before = dataWithInstallation(dataEmpty, new JSONObject("{\"custom\":{\"date_foo\":\"1970-01-01T00:00:00.000Z\"}}"));
+        Segmenter.Data after = dataWithInstallation(dataEmpty, new JSONObject("{\"custom\":{\"date_foo\":\"1970-01-01T00:00:02.000Z\"}}"));
+        for (int i = 0; i < 2; i++) {
+            assertThat(new Segmenter(before).matchesInstallation(compiled), is(false));
+            assertThat(new Segmenter(after).matchesInstallation(compiled), is(true));
+        }
+    }
+
+}
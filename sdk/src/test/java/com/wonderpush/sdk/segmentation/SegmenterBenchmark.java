@@ -0,0 +1,105 @@
+package com.wonderpush.sdk.segmentation;
+
+import com.wonderpush.sdk.Benchmark;
+import com.wonderpush.sdk.TimeSync;
+import com.wonderpush.sdk.segmentation.parser.ASTCriterionNode;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the cost of evaluating segments with the visitors and with compiled segments,
+ * using segments and data shaped like the {@link SegmenterTest} fixtures.
+ *
+ * Skipped unless run with {@code -Dwonderpush.benchmark=true}.
+ */
+public class SegmenterBenchmark {
+
+    private static final String[] SEGMENTS = {
+            "{}",
+            "{\".foo\":{\"eq\":\"foo\"},\".bar\":{\"eq\":\"bar\"}}",
+            "{\".custom.int_foo\":{\"gte\":10}}",
+            "{\".custom.date_foo\":{\"lt\":{\"date\":\"-P1D\"}}}",
+            "{\".custom.tags\":{\"all\":[\"foo\",\"bar\"]}}",
+            "{\".custom.tags\":{\"any\":[\"baz\",\"bar\"]}}",
+            "{\".custom.string_foo\":{\"prefix\":\"fo\"}}",
+            "{\"or\":[{\".foo\":{\"eq\":\"nope\"}},{\"not\":{\".bar\":{\"eq\":null}}}]}",
+            "{\"subscriptionStatus\":\"optIn\"}",
+            "{\"event\":{\".type\":{\"eq\":\"purchase\"},\".custom.float_amount\":{\"gt\":5}}}",
+            "{\"lastActivityDate\":{\"gt\":{\"date\":\"-PT1H\"}}}",
+            "{\"presence\":{\"present\":true,\"elapsedTime\":{\"gt\":1000}}}",
+    };
+
+    private interface Evaluator {
+        boolean matches(int segmentIndex);
+    }
+
+    private static Segmenter.Data buildData() throws JSONException {
+        long now = TimeSync.getTime();
+        Segmenter.Data data = SegmenterTest.dataWithInstallation(SegmenterTest.dataEmpty, new JSONObject(
+                "{\"foo\":\"foo\",\"bar\":\"bar\","
+                        + "\"pushToken\":{\"data\":\"TOKEN\"},\"preferences\":{\"subscriptionStatus\":\"optIn\"},"
+                        + "\"custom\":{\"int_foo\":12,\"string_foo\":\"foobar\",\"date_foo\":\"2020-01-01T00:00:00.000Z\",\"tags\":[\"foo\",\"bar\"]}}"));
+        List<JSONObject> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(new JSONObject()
+                    .put("type", i % 5 == 0 ? "purchase" : "view_" + i)
+                    .put("creationDate", now - i * 1000)
+                    .put("custom", new JSONObject().put("float_amount", i / 2.0)));
+        }
+        data = SegmenterTest.dataWithAllEvents(data, events);
+        data = SegmenterTest.dataWithLastAppOpenDate(data, now - 60000);
+        return SegmenterTest.dataWithPresenceInfo(data, new Segmenter.PresenceInfo(now - 60000, now + 60000, 120000));
+    }
+
+    private static Benchmark.Operation evaluateAll(final Evaluator evaluator) {
+        return new Benchmark.Operation() {
+            @Override
+            public long run() {
+                long matching = 0;
+                for (int i = 0; i < SEGMENTS.length; i++) {
+                    if (evaluator.matches(i)) matching++;
+                }
+                return matching;
+            }
+        };
+    }
+
+    @Test
+    public void benchmarkVisitorVersusCompiled() throws Exception {
+        Benchmark.assumeEnabled();
+
+        final Segmenter segmenter = new Segmenter(buildData());
+        final ASTCriterionNode[] parsed = new ASTCriterionNode[SEGMENTS.length];
+        final CompiledCriterion[] compiled = new CompiledCriterion[SEGMENTS.length];
+        for (int i = 0; i < SEGMENTS.length; i++) {
+            parsed[i] = Segmenter.parseInstallationSegment(new JSONObject(SEGMENTS[i]));
+            compiled[i] = Segmenter.compileInstallationSegment(parsed[i]);
+            if (segmenter.matchesInstallation(parsed[i]) != segmenter.matchesInstallation(compiled[i])) {
+                throw new AssertionError("Compiled segment disagrees with visitor: " + SEGMENTS[i]);
+            }
+        }
+
+        Evaluator visitor = new Evaluator() {
+            @Override
+            public boolean matches(int segmentIndex) {
+                return segmenter.matchesInstallation(parsed[segmentIndex]);
+            }
+        };
+        Evaluator compiledEvaluator = new Evaluator() {
+            @Override
+            public boolean matches(int segmentIndex) {
+                return segmenter.matchesInstallation(compiled[segmentIndex]);
+            }
+        };
+        new Benchmark.Results(SegmenterBenchmark.class, String.format("Evaluating %d segments", SEGMENTS.length), "ns/op", 1)
+                .add("visitor", Benchmark.measure(evaluateAll(visitor)))
+                .add("compiled", Benchmark.measure(evaluateAll(compiledEvaluator)))
+                .log();
+    }
+
+}